@@ -56,6 +56,7 @@
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
@@ -318,5 +319,10 @@ public IBatchProcessor getPlatformPostProcessor(boolean fastMode) {
     public PlacementStateProcessor getPlatformPlacementProcessor(Extent extent, BlockTypeMask mask, Region region) {
         return this.plugin.getBukkitImplAdapter().getPlatformPlacementProcessor(extent, mask, region);
     }
+
+    @Override
+    public Path getWorldContainer() {
+        return Bukkit.getWorldContainer().toPath().toAbsolutePath();
+    }
     //FAWE end
 }
@@ -3,6 +3,7 @@
 plugins {
     `java-library`
     antlr
+    alias(libs.plugins.jmh)
 }
 
 project.description = "Core"
@@ -67,10 +68,34 @@
     // Tests
     testRuntimeOnly(libs.log4jCore)
     testImplementation(libs.parallelgzip)
+    // Provided by the platform at runtime
+    testRuntimeOnly(libs.sqliteJdbc)
+
+    // Benchmarks
+    jmhRuntimeOnly(libs.log4jCore)
+    jmhRuntimeOnly(libs.lz4Java) { isTransitive = false }
 }
 
 tasks.named<Test>("test") {
     maxHeapSize = "1G"
+    // Vectorized masks and patterns are tested against their scalar counterparts
+    jvmArgs("--add-modules=jdk.incubator.vector")
+}
+
+// Run with ./gradlew :worldedit-core:jmh, results are written to build/results/jmh
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    jvmArgs.addAll("-Xmx4G", "--add-modules=jdk.incubator.vector")
+    resultFormat.set("JSON")
+    // Narrow the run with e.g. -PjmhIncludes=PaletteBenchmark
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.compilerArgs.add("--add-modules=jdk.incubator.vector")
 }
 
 tasks.withType<JavaCompile>().configureEach {
@@ -0,0 +1,196 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.extent.processor.heightmap.HeightMapType;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.blocks.IntGetBlocks;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * In-memory stand-in for a platform chunk GET. Sections are generated deterministically from the chunk coordinates (deepslate
+ * below y=0, stone with scattered andesite and coal up to {@link BenchmarkWorld#SURFACE_Y}, then dirt, grass and air), and
+ * {@link #call(IQueueExtent, IChunkSet, Runnable)} writes the SET back into the sections.
+ */
+public class BenchmarkChunkGet extends IntGetBlocks {
+
+    private static final int AIR = BlockTypesCache.ReservedIDs.AIR;
+    private static final int STONE = BlockTypes.STONE.getDefaultState().getOrdinal();
+    private static final int DEEPSLATE = BlockTypes.DEEPSLATE.getDefaultState().getOrdinal();
+    private static final int ANDESITE = BlockTypes.ANDESITE.getDefaultState().getOrdinal();
+    private static final int COAL_ORE = BlockTypes.COAL_ORE.getDefaultState().getOrdinal();
+    private static final int DIRT = BlockTypes.DIRT.getDefaultState().getOrdinal();
+    private static final int GRASS_BLOCK = BlockTypes.GRASS_BLOCK.getDefaultState().getOrdinal();
+
+    public BenchmarkChunkGet(int chunkX, int chunkZ) {
+        super(BenchmarkWorld.MIN_Y >> 4, BenchmarkWorld.MAX_Y >> 4);
+        init(chunkX, chunkZ);
+    }
+
+    /**
+     * Generate the ordinal for a world position. Stateless so the same position always yields the same block.
+     */
+    public static int generate(int x, int y, int z) {
+        if (y > BenchmarkWorld.SURFACE_Y) {
+            return AIR;
+        }
+        if (y == BenchmarkWorld.SURFACE_Y) {
+            return GRASS_BLOCK;
+        }
+        if (y > BenchmarkWorld.SURFACE_Y - 4) {
+            return DIRT;
+        }
+        int hash = x * 0x1f1f1f1f ^ y * 0x5bd1e995 ^ z * 0x27d4eb2d;
+        hash ^= hash >>> 15;
+        hash *= 0x2c1b3c6d;
+        hash ^= hash >>> 12;
+        int roll = hash & 63;
+        if (roll == 0) {
+            return COAL_ORE;
+        }
+        if (roll < 4) {
+            return ANDESITE;
+        }
+        return y < 0 ? DEEPSLATE : STONE;
+    }
+
+    @Override
+    public int[] update(int layer, int[] data, boolean aggressive) {
+        if (data == null) {
+            data = new int[4096];
+        }
+        int by = (layer + minSectionPosition) << 4;
+        int bx = getX() << 4;
+        int bz = getZ() << 4;
+        int index = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    data[index++] = generate(bx + x, by + y, bz + z);
+                }
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public <T extends Future<T>> T call(IQueueExtent<? extends IChunk> owner, IChunkSet set, Runnable finalize) {
+        for (int layer = set.getMinSectionPosition(); layer <= set.getMaxSectionPosition(); layer++) {
+            if (layer < minSectionPosition || layer > maxSectionPosition || !set.hasSection(layer)) {
+                continue;
+            }
+            int[] setArr = set.loadIfPresent(layer);
+            if (setArr == null) {
+                continue;
+            }
+            int[] getArr = load(layer);
+            for (int i = 0; i < 4096; i++) {
+                int ordinal = setArr[i];
+                if (ordinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                    getArr[i] = ordinal;
+                }
+            }
+        }
+        finalize.run();
+        return null;
+    }
+
+    @Override
+    public BiomeType getBiomeType(int x, int y, int z) {
+        return BiomeTypes.PLAINS;
+    }
+
+    @Override
+    public int getSkyLight(int x, int y, int z) {
+        return y > BenchmarkWorld.SURFACE_Y ? 15 : 0;
+    }
+
+    @Override
+    public int getEmittedLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public int[] getHeightMap(HeightMapType type) {
+        int[] heightMap = new int[256];
+        Arrays.fill(heightMap, BenchmarkWorld.SURFACE_Y + 1 - BenchmarkWorld.MIN_Y);
+        return heightMap;
+    }
+
+    @Override
+    public void removeSectionLighting(int layer, boolean sky) {
+    }
+
+    @Override
+    public Map<BlockVector3, FaweCompoundTag> tiles() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag tile(int x, int y, int z) {
+        return null;
+    }
+
+    @Override
+    public Collection<FaweCompoundTag> entities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag entity(UUID uuid) {
+        return null;
+    }
+
+    @Override
+    public Set<Entity> getFullEntities() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean isCreateCopy() {
+        return false;
+    }
+
+    @Override
+    public int setCreateCopy(boolean createCopy) {
+        return -1;
+    }
+
+    @Override
+    public void setLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setSkyLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setHeightmapToGet(HeightMapType type, int[] data) {
+    }
+
+    @Override
+    public int getMaxY() {
+        return BenchmarkWorld.MAX_Y;
+    }
+
+    @Override
+    public int getMinY() {
+        return BenchmarkWorld.MIN_Y;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.extent.processor.lighting.RelighterFactory;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extension.platform.AbstractPlatform;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.internal.Constants;
+import com.sk89q.worldedit.util.SideEffect;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.registry.Registries;
+import org.enginehub.piston.CommandManager;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Headless platform backed by the bundled block/item registries, so {@link com.sk89q.worldedit.world.block.BlockTypesCache}
+ * can be initialised without a server.
+ */
+public class BenchmarkPlatform extends AbstractPlatform {
+
+    private final LocalConfiguration configuration;
+
+    public BenchmarkPlatform(Path workingDirectory) {
+        this.configuration = new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+
+            @Override
+            public Path getWorkingDirectoryPath() {
+                return workingDirectory;
+            }
+        };
+    }
+
+    @Override
+    public Registries getRegistries() {
+        return BundledRegistries.getInstance();
+    }
+
+    @Override
+    public int getDataVersion() {
+        return Constants.DATA_VERSION_MC_1_21_4;
+    }
+
+    @Override
+    public boolean isValidMobType(final String type) {
+        return false;
+    }
+
+    @Override
+    public void reload() {
+
+    }
+
+    @Nullable
+    @Override
+    public Player matchPlayer(final Player player) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public World matchWorld(final World world) {
+        return world;
+    }
+
+    @Override
+    public void registerCommands(final CommandManager commandManager) {
+
+    }
+
+    @Override
+    public void setGameHooksEnabled(final boolean enabled) {
+
+    }
+
+    @Override
+    public LocalConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public String getVersion() {
+        return "BENCHMARK";
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "BENCHMARK";
+    }
+
+    @Override
+    public String getPlatformVersion() {
+        return "BENCHMARK";
+    }
+
+    @Override
+    public Map<Capability, Preference> getCapabilities() {
+        Map<Capability, Preference> capabilities = new EnumMap<>(Capability.class);
+        capabilities.put(Capability.CONFIGURATION, Preference.PREFERRED);
+        capabilities.put(Capability.GAME_HOOKS, Preference.PREFERRED);
+        capabilities.put(Capability.WORLD_EDITING, Preference.PREFERRED);
+        return capabilities;
+    }
+
+    @Override
+    public Set<SideEffect> getSupportedSideEffects() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public RelighterFactory getRelighterFactory() {
+        return null;
+    }
+
+    @Override
+    public int versionMinY() {
+        return BenchmarkWorld.MIN_Y;
+    }
+
+    @Override
+    public int versionMaxY() {
+        return BenchmarkWorld.MAX_Y;
+    }
+
+}
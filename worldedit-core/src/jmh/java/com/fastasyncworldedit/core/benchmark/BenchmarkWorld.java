@@ -0,0 +1,41 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.sk89q.worldedit.world.NullWorld;
+
+/**
+ * Headless world whose chunks are {@link BenchmarkChunkGet} instances. Every instance is a distinct world as far as the
+ * queue handler's chunk cache is concerned.
+ */
+public class BenchmarkWorld extends NullWorld {
+
+    public static final int MIN_Y = -64;
+    public static final int MAX_Y = 319;
+    public static final int SURFACE_Y = 64;
+
+    @Override
+    public String getName() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getNameUnsafe() {
+        return "benchmark";
+    }
+
+    @Override
+    public int getMinY() {
+        return MIN_Y;
+    }
+
+    @Override
+    public int getMaxY() {
+        return MAX_Y;
+    }
+
+    @Override
+    public IChunkGet get(int x, int z) {
+        return new BenchmarkChunkGet(x, z);
+    }
+
+}
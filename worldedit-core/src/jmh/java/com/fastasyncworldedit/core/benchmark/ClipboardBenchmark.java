@@ -0,0 +1,86 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.LinearClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clipboard read paths, linear (as done when pasting) and in random order (as done by masks and patterns sampling a
+ * clipboard). The memory optimized clipboard stores its blocks compressed, so random reads measure decompression churn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClipboardBenchmark {
+
+    @Param({"cpu", "memory"})
+    public String clipboardType;
+
+    @Param({"128"})
+    public int size;
+
+    private LinearClipboard clipboard;
+    private int[] randomOrder;
+
+    @Setup
+    public void setup() {
+        HeadlessFawe.bootstrap(0, 0);
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(size - 1, size - 1, size - 1));
+        clipboard = switch (clipboardType) {
+            case "memory" -> new MemoryOptimizedClipboard(region);
+            default -> new CPUOptimizedClipboard(region);
+        };
+        for (int y = 0; y < size; y++) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    // Offset into the terrain so the clipboard holds a mix of stone, dirt, grass and air
+                    int ordinal = BenchmarkChunkGet.generate(x, y + BenchmarkWorld.SURFACE_Y - size / 2, z);
+                    clipboard.setBlock(x, y, z, BlockState.getFromOrdinal(ordinal));
+                }
+            }
+        }
+        int volume = clipboard.getVolume();
+        randomOrder = new int[Math.min(volume, 1 << 20)];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < randomOrder.length; i++) {
+            randomOrder[i] = random.nextInt(volume);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        clipboard.close();
+    }
+
+    @Benchmark
+    public void readLinear(Blackhole blackhole) {
+        int volume = clipboard.getVolume();
+        for (int i = 0; i < volume; i++) {
+            blackhole.consume(clipboard.getBlock(i));
+        }
+    }
+
+    @Benchmark
+    public void readRandom(Blackhole blackhole) {
+        for (int index : randomOrder) {
+            blackhole.consume(clipboard.getBlock(index));
+        }
+    }
+
+}
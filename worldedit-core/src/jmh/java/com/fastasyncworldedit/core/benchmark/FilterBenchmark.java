@@ -0,0 +1,112 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.extent.filter.CountFilter;
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.function.mask.BlockMaskBuilder;
+import com.fastasyncworldedit.core.internal.simd.SimdSupport;
+import com.fastasyncworldedit.core.internal.simd.VectorizedCharFilterBlock;
+import com.fastasyncworldedit.core.internal.simd.VectorizedFilter;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.implementation.SingleThreadQueueExtent;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-chunk filter iteration through {@link com.fastasyncworldedit.core.extent.filter.block.CharFilterBlock} (or the
+ * vectorized block when the filter supports it), without chunk submission so only block iteration is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterBenchmark {
+
+    private static final int CHUNKS = 4;
+
+    /**
+     * {@code count}: count every block, {@code replace}: stone to dirt mask filter, {@code replaceRandom}: stone and dirt
+     * to a 50/50 random mix of grass and moss, {@code partial}: count filter over a region that only partially covers each
+     * chunk.
+     */
+    @Param({"count", "replace", "replaceRandom", "partial"})
+    public String filterType;
+
+    private SingleThreadQueueExtent queue;
+    private IQueueChunk<?>[] chunks;
+    private Region region;
+    private Filter filter;
+    private ChunkFilterBlock block;
+
+    @Setup
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void setup() {
+        HeadlessFawe.bootstrap(0, 0);
+        BenchmarkWorld world = new BenchmarkWorld();
+        queue = new SingleThreadQueueExtent();
+        queue.init(world, Fawe.instance().getQueueHandler().getOrCreateWorldCache(world), null);
+        // Keep every chunk in the queue, nothing should be submitted while measuring
+        queue.setTargetSize(Integer.MAX_VALUE);
+
+        int maxBlock = (CHUNKS << 4) - 1;
+        region = switch (filterType) {
+            case "partial" -> new CuboidRegion(world, BlockVector3.at(3, -20, 3), BlockVector3.at(maxBlock - 3, 100, maxBlock - 3));
+            default -> new CuboidRegion(world, BlockVector3.at(0, BenchmarkWorld.MIN_Y, 0),
+                    BlockVector3.at(maxBlock, BenchmarkWorld.MAX_Y, maxBlock));
+        };
+        filter = switch (filterType) {
+            case "replace" -> {
+                Mask mask = new BlockMaskBuilder().add(BlockTypes.STONE).build(queue);
+                yield mask.toFilter(BlockTypes.DIRT.getDefaultState());
+            }
+            case "replaceRandom" -> {
+                Mask mask = new BlockMaskBuilder().add(BlockTypes.STONE).add(BlockTypes.DIRT).build(queue);
+                RandomPattern pattern = new RandomPattern();
+                pattern.add(BlockTypes.GRASS_BLOCK.getDefaultState(), 50);
+                pattern.add(BlockTypes.MOSS_BLOCK.getDefaultState(), 50);
+                yield mask.toFilter(pattern);
+            }
+            default -> new CountFilter();
+        };
+
+        chunks = new IQueueChunk[CHUNKS * CHUNKS];
+        for (int x = 0; x < CHUNKS; x++) {
+            for (int z = 0; z < CHUNKS; z++) {
+                chunks[x * CHUNKS + z] = queue.getOrCreateChunk(x, z);
+            }
+        }
+        if (SimdSupport.useVectorApi() && filter instanceof VectorizedFilter) {
+            block = new VectorizedCharFilterBlock(queue);
+        } else {
+            block = queue.createFilterBlock();
+        }
+    }
+
+    @Benchmark
+    public Filter filterChunks() {
+        for (IQueueChunk<?> chunk : chunks) {
+            IQueueChunk<?> applied = filter.applyChunk(chunk, region);
+            if (applied == null) {
+                continue;
+            }
+            block.initChunk(chunk.getX(), chunk.getZ());
+            applied.filterBlocks(filter, block, region, true);
+        }
+        return filter;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.FAWEPlatformAdapterImpl;
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.IFawe;
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.implementation.QueueHandler;
+import com.fastasyncworldedit.core.queue.implementation.preloader.Preloader;
+import com.fastasyncworldedit.core.regions.FaweMaskManager;
+import com.fastasyncworldedit.core.util.TaskManager;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.event.platform.PlatformsRegisteredEvent;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Boots just enough of FAWE to run the queue, filter and clipboard code paths without a server. Must be called before any
+ * benchmark touches block states, {@link Settings} or the {@link QueueHandler}.
+ */
+public final class HeadlessFawe implements IFawe {
+
+    private static volatile boolean initialized;
+
+    private final File directory;
+    private final HeadlessTaskManager taskManager;
+    private QueueHandler queueHandler;
+
+    private HeadlessFawe(File directory, HeadlessTaskManager taskManager) {
+        this.directory = directory;
+        this.taskManager = taskManager;
+    }
+
+    /**
+     * Initialise the headless platform and FAWE instance once per JVM.
+     *
+     * @param parallelThreads value for {@code queue.parallel-threads}, or a value below 1 to keep the default
+     * @param targetSize      value for {@code queue.target-size}, or a value below 1 to keep the default
+     */
+    public static synchronized void bootstrap(int parallelThreads, int targetSize) {
+        if (initialized) {
+            return;
+        }
+        final Path directory;
+        try {
+            directory = Files.createTempDirectory("fawe-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        WorldEdit.getInstance().getPlatformManager().register(new BenchmarkPlatform(directory));
+        WorldEdit.getInstance().getEventBus().post(new PlatformsRegisteredEvent());
+
+        HeadlessTaskManager taskManager = new HeadlessTaskManager();
+        // FAWE treats the thread it was created on as the main thread, so create it on the emulated tick thread
+        try {
+            taskManager.getMainThread().submit(() -> {
+                Fawe.set(new HeadlessFawe(directory.toFile(), taskManager));
+                return null;
+            }).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Could not initialise headless FAWE", e);
+        }
+        // Config is (re)loaded by Fawe#setupConfigs, so apply overrides afterwards but before the queue handler is created
+        if (parallelThreads > 0) {
+            Settings.settings().QUEUE.PARALLEL_THREADS = parallelThreads;
+            Settings.settings().QUEUE.THREAD_TARGET_SIZE_PERCENT = Math.max(1, 100 * 2 / parallelThreads);
+        }
+        if (targetSize > 0) {
+            Settings.settings().QUEUE.TARGET_SIZE = targetSize;
+        }
+        // Force the block registry to load outside the measured section
+        int states = BlockTypesCache.states.length;
+        if (states == 0) {
+            throw new IllegalStateException("Block registry is empty");
+        }
+        Fawe.instance().getQueueHandler();
+        initialized = true;
+    }
+
+    @Override
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public TaskManager getTaskManager() {
+        return taskManager;
+    }
+
+    @Override
+    public Collection<FaweMaskManager> getMaskManagers() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPlatform() {
+        return "Benchmark";
+    }
+
+    @Override
+    public UUID getUUID(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes());
+    }
+
+    @Override
+    public String getName(UUID uuid) {
+        return uuid.toString();
+    }
+
+    @Override
+    public synchronized QueueHandler getQueueHandler() {
+        if (queueHandler == null) {
+            queueHandler = new HeadlessQueueHandler();
+        }
+        return queueHandler;
+    }
+
+    @Override
+    public Preloader getPreloader(boolean initialise) {
+        return null;
+    }
+
+    @Override
+    public FAWEPlatformAdapterImpl getPlatformAdapter() {
+        return (chunk, mask, lighting) -> {
+        };
+    }
+
+}
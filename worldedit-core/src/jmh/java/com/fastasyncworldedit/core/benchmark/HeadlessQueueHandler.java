@@ -0,0 +1,18 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.queue.implementation.QueueHandler;
+
+/**
+ * Queue handler without a server: there are no physics or async catchers to freeze.
+ */
+public class HeadlessQueueHandler extends QueueHandler {
+
+    @Override
+    public void startUnsafe(boolean parallel) {
+    }
+
+    @Override
+    public void endUnsafe(boolean parallel) {
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.util.TaskManager;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Task manager emulating a server tick loop. "Main thread" tasks run on a single scheduler thread at 50ms per tick, async
+ * tasks run on a cached pool.
+ */
+public class HeadlessTaskManager extends TaskManager {
+
+    private static final long MS_PER_TICK = 50;
+
+    private final ScheduledExecutorService mainThread = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "FAWE Benchmark Main Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService async = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "FAWE Benchmark Async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Integer, ScheduledFuture<?>> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger taskId = new AtomicInteger();
+
+    /**
+     * Get the executor acting as the server main thread.
+     */
+    public ScheduledExecutorService getMainThread() {
+        return mainThread;
+    }
+
+    @Override
+    public int repeat(@Nonnull final Runnable runnable, final int interval) {
+        return track(mainThread.scheduleAtFixedRate(runnable, 0, interval * MS_PER_TICK, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public int repeatAsync(@Nonnull final Runnable runnable, final int interval) {
+        return track(mainThread.scheduleAtFixedRate(
+                () -> async.execute(runnable),
+                0,
+                interval * MS_PER_TICK,
+                TimeUnit.MILLISECONDS
+        ));
+    }
+
+    @Override
+    public void async(@Nonnull final Runnable runnable) {
+        async.execute(runnable);
+    }
+
+    @Override
+    public void task(@Nonnull final Runnable runnable) {
+        mainThread.execute(runnable);
+    }
+
+    @Override
+    public void later(@Nonnull final Runnable runnable, final int delay) {
+        mainThread.schedule(runnable, delay * MS_PER_TICK, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void laterAsync(@Nonnull final Runnable runnable, final int delay) {
+        mainThread.schedule(() -> async.execute(runnable), delay * MS_PER_TICK, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void cancel(final int task) {
+        ScheduledFuture<?> future = tasks.remove(task);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private int track(ScheduledFuture<?> future) {
+        int id = taskId.incrementAndGet();
+        tasks.put(id, future);
+        return id;
+    }
+
+}
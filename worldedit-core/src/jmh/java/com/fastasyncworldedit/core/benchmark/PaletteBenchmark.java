@@ -0,0 +1,59 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.FaweCache;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Section to palette conversion ({@link FaweCache#toPalette(int, int[])}) as used when writing sections back to the world
+ * and when serialising chunks for packets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaletteBenchmark {
+
+    @Param({"1", "16", "256", "4096"})
+    public int distinctStates;
+
+    private int[] section;
+
+    @Setup
+    public void setup() {
+        HeadlessFawe.bootstrap(0, 0);
+        int stateCount = BlockTypesCache.states.length;
+        int[] candidates = new int[distinctStates];
+        // Spread the chosen states over the whole registry, skipping the reserved ids at the start
+        int stride = Math.max(1, (stateCount - BlockTypesCache.ReservedIDs.AIR - 1) / distinctStates);
+        for (int i = 0; i < distinctStates; i++) {
+            candidates[i] = BlockTypesCache.ReservedIDs.AIR + 1 + i * stride;
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        section = new int[4096];
+        for (int i = 0; i < section.length; i++) {
+            // Guarantee every candidate appears at least once so the palette size matches the parameter
+            section[i] = i < distinctStates ? candidates[i] : candidates[random.nextInt(distinctStates)];
+        }
+    }
+
+    @Benchmark
+    public FaweCache.Palette toPalette() {
+        return FaweCache.INSTANCE.toPalette(0, section);
+    }
+
+    @Benchmark
+    public FaweCache.Palette toPaletteUnstretched() {
+        return FaweCache.INSTANCE.toPaletteUnstretched(0, section);
+    }
+
+}
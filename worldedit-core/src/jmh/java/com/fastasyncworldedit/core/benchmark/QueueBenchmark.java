@@ -0,0 +1,101 @@
+package com.fastasyncworldedit.core.benchmark;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.function.mask.BlockMaskBuilder;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-edit throughput through {@link ParallelQueueExtent}: filter application on the primary fork join pool, chunk
+ * submission and the SET being written back to {@link BenchmarkChunkGet}. {@code parallelThreads} and {@code targetSize}
+ * override {@code queue.parallel-threads} and {@code queue.target-size} (0 keeps the configured default), JMH forks a new
+ * JVM per parameter combination so each gets its own pools.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueueBenchmark {
+
+    @Param({"0"})
+    public int parallelThreads;
+
+    @Param({"0"})
+    public int targetSize;
+
+    /**
+     * Width and length of the edited region in blocks. The region spans from the world minimum to the surface.
+     */
+    @Param({"256"})
+    public int size;
+
+    private Region region;
+    private ParallelQueueExtent extent;
+    private BlockState dirt;
+    private Pattern randomPattern;
+    private Mask stoneMask;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        HeadlessFawe.bootstrap(parallelThreads, targetSize);
+        dirt = BlockTypes.DIRT.getDefaultState();
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(BlockTypes.DIRT.getDefaultState(), 1);
+        pattern.add(BlockTypes.COBBLESTONE.getDefaultState(), 1);
+        randomPattern = pattern;
+    }
+
+    /**
+     * A fresh world per edit so every invocation sees the same generated terrain.
+     */
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        BenchmarkWorld world = new BenchmarkWorld();
+        region = new CuboidRegion(
+                world,
+                BlockVector3.at(0, BenchmarkWorld.MIN_Y, 0),
+                BlockVector3.at(size - 1, BenchmarkWorld.SURFACE_Y, size - 1)
+        );
+        extent = new ParallelQueueExtent(Fawe.instance().getQueueHandler(), world, true, null);
+        stoneMask = new BlockMaskBuilder().add(BlockTypes.STONE).build(extent);
+    }
+
+    @Benchmark
+    public int setBlocks() throws MaxChangedBlocksException {
+        return extent.setBlocks(region, dirt);
+    }
+
+    @Benchmark
+    public int setBlocksPattern() throws MaxChangedBlocksException {
+        return extent.setBlocks(region, randomPattern);
+    }
+
+    @Benchmark
+    public int replaceBlocks() throws MaxChangedBlocksException {
+        return extent.replaceBlocks(region, stoneMask, dirt);
+    }
+
+    @Benchmark
+    public int countBlocks() {
+        return extent.countBlocks(region, stoneMask);
+    }
+
+}
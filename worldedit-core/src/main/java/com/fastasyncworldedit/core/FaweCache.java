@@ -15,6 +15,7 @@
 import com.fastasyncworldedit.core.queue.implementation.QueuePool;
 import com.fastasyncworldedit.core.util.MathMan;
 import com.fastasyncworldedit.core.util.collection.CleanableThreadLocal;
+import com.fastasyncworldedit.core.util.task.TaskFailureLogger;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -85,6 +86,21 @@ public enum FaweCache implements Trimable {
 
     @Override
     public synchronized boolean trim(boolean aggressive) {
+        trimThreadLocals();
+        for (Entry<Class<? extends IChunkSet>, Pool<? extends IChunkSet>> entry : REGISTERED_POOLS.entrySet()) {
+            Pool<? extends IChunkSet> pool = entry.getValue();
+            pool.clear();
+        }
+
+        return false;
+    }
+
+    /**
+     * Release the buffers of the calling thread. Other threads' buffers are unaffected.
+     *
+     * @since 2.13.1
+     */
+    public void trimThreadLocals() {
         CHUNK_FLAG.clean();
         BYTE_BUFFER_8192.clean();
         BLOCK_TO_PALETTE.clean();
@@ -98,12 +114,6 @@ public synchronized boolean trim(boolean aggressive) {
         MUTABLE_VECTOR3.clean();
         MUTABLE_BLOCKVECTOR3.clean();
         SECTION_BITS_TO_CHAR.clean();
-        for (Entry<Class<? extends IChunkSet>, Pool<? extends IChunkSet>> entry : REGISTERED_POOLS.entrySet()) {
-            Pool<? extends IChunkSet> pool = entry.getValue();
-            pool.clear();
-        }
-
-        return false;
     }
 
     public synchronized <T extends IChunkSet> Pool<T> registerPool(Class<T> clazz, Supplier<T> cache, boolean buffer) {
@@ -385,6 +395,37 @@ private Palette toPalette(int layerOffset, int[] blocksInts, char[] blocksChars)
         }
     }
 
+    /**
+     * Get the distinct ordinals in a section without building a palette.
+     *
+     * @param blocks section of 4096 ordinals
+     * @return new array of the distinct ordinals, in order of first occurrence
+     * @since 2.13.1
+     */
+    public int[] distinctOrdinals(int[] blocks) {
+        int[] seen = BLOCK_TO_PALETTE.get();
+        int[] distinct = PALETTE_TO_BLOCK.get();
+        int count = 0;
+        try {
+            int last = -1;
+            for (int ordinal : blocks) {
+                // Sections are mostly runs of the same block
+                if (ordinal != last) {
+                    last = ordinal;
+                    if (seen[ordinal] == Integer.MAX_VALUE) {
+                        seen[ordinal] = count;
+                        distinct[count++] = ordinal;
+                    }
+                }
+            }
+        } finally {
+            for (int i = 0; i < count; i++) {
+                seen[distinct[i]] = Integer.MAX_VALUE;
+            }
+        }
+        return Arrays.copyOf(distinct, count);
+    }
+
     /**
      * Convert raw int array to unstretched palette (1.16)
      *
@@ -652,13 +693,9 @@ public ThreadPoolExecutor newBlockingExecutor(String name, Logger logger) {
                 new ThreadPoolExecutor.CallerRunsPolicy()
         ) {
 
-            // Array for lazy avoidance of concurrent modification exceptions and needless overcomplication of code (synchronisation is
-            // not very important)
-            private final boolean[] faweExceptionReasonsUsed = new boolean[FaweException.Type.values().length];
-            private int lastException = Integer.MIN_VALUE;
-            private int count = 0;
+            private final TaskFailureLogger failureLogger = new TaskFailureLogger(logger);
 
-            protected synchronized void afterExecute(Runnable runnable, Throwable throwable) {
+            protected void afterExecute(Runnable runnable, Throwable throwable) {
                 super.afterExecute(runnable, throwable);
                 if (throwable == null && runnable instanceof Future<?>) {
                     try {
@@ -675,31 +712,7 @@ protected synchronized void afterExecute(Runnable runnable, Throwable throwable)
                     }
                 }
                 if (throwable != null) {
-                    if (throwable instanceof FaweException) {
-                        handleFaweException((FaweException) throwable);
-                    } else if (throwable.getCause() instanceof FaweException) {
-                        handleFaweException((FaweException) throwable.getCause());
-                    } else {
-                        int hash = throwable.getMessage() != null ? throwable.getMessage().hashCode() : 0;
-                        if (hash != lastException) {
-                            lastException = hash;
-                            logger.catching(throwable);
-                            count = 0;
-                        } else if (count < Settings.settings().QUEUE.PARALLEL_THREADS) {
-                            logger.warn(throwable.getMessage());
-                            count++;
-                        }
-                    }
-                }
-            }
-
-            private void handleFaweException(FaweException e) {
-                FaweException.Type type = e.getType();
-                if (e.getType() == FaweException.Type.OTHER) {
-                    logger.catching(e);
-                } else if (!faweExceptionReasonsUsed[type.ordinal()]) {
-                    faweExceptionReasonsUsed[type.ordinal()] = true;
-                    logger.warn("FaweException: " + e.getMessage());
+                    failureLogger.log(throwable);
                 }
             }
         };
@@ -0,0 +1,715 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.core.FaweCache;
+import com.fastasyncworldedit.core.extent.processor.heightmap.HeightMapType;
+import com.fastasyncworldedit.core.math.BitArrayUnstretched;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.blocks.IntGetBlocks;
+import com.fastasyncworldedit.core.util.MathMan;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import org.enginehub.linbus.tree.LinByteArrayTag;
+import org.enginehub.linbus.tree.LinByteTag;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinIntTag;
+import org.enginehub.linbus.tree.LinListTag;
+import org.enginehub.linbus.tree.LinLongArrayTag;
+import org.enginehub.linbus.tree.LinLongTag;
+import org.enginehub.linbus.tree.LinStringTag;
+import org.enginehub.linbus.tree.LinTag;
+import org.enginehub.linbus.tree.LinTagType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A chunk read from a region file, in the format used since Minecraft 1.18. Sections are kept as their palette and packed
+ * data and only unpacked to ordinals when their blocks are read, so sections a {@link com.fastasyncworldedit.core.queue.Filter}
+ * skips based on {@link #getSectionOrdinals(int)} are never unpacked. Sections that are not changed are written back
+ * unchanged.
+ * <p>
+ * Changes are applied through {@link #call(IQueueExtent, IChunkSet, Runnable)} like for a loaded chunk, after which the chunk
+ * is written to its {@link MCAFile}. Entities are stored separately from chunks and are not supported. Light and heightmaps
+ * of changed chunks are left for the server to recalculate when the chunk is next loaded.
+ *
+ * @since 2.13.1
+ */
+public class MCAChunk extends IntGetBlocks {
+
+    private static final Map<LinCompoundTag, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static final Map<String, BiomeType> BIOMES = new ConcurrentHashMap<>();
+    private static volatile AtomicReferenceArray<LinCompoundTag> paletteEntries;
+
+    private final MCAFile file;
+    private final LinCompoundTag root;
+    // All sections by y, including those outside the world height that only hold light
+    private final TreeMap<Integer, LinCompoundTag> sectionTags = new TreeMap<>();
+    // Block palette and packed data of each section within the world height, null if the section has no blocks
+    private final int[][] palettes;
+    private final long[][] packed;
+    private final BiomeType[][] biomePalettes;
+    private final long[][] biomePacked;
+    private final boolean[] changedSections;
+    @Nullable
+    private Map<BlockVector3, FaweCompoundTag> tiles;
+    private boolean changedTiles;
+
+    /**
+     * Read a chunk
+     *
+     * @param file               the region file the chunk is in, and is written to once changed
+     * @param root               the chunk's root tag
+     * @param minSectionPosition lowest section of the world
+     * @param maxSectionPosition highest section of the world
+     * @throws IOException if the chunk is not in a supported format or contains unknown blocks
+     */
+    public MCAChunk(MCAFile file, LinCompoundTag root, int minSectionPosition, int maxSectionPosition) throws IOException {
+        super(minSectionPosition, maxSectionPosition);
+        this.file = file;
+        this.root = root;
+        LinIntTag xPos = root.findTag("xPos", LinTagType.intTag());
+        LinIntTag zPos = root.findTag("zPos", LinTagType.intTag());
+        LinListTag<LinCompoundTag> sections = root.findListTag("sections", LinTagType.compoundTag());
+        if (xPos == null || zPos == null || sections == null) {
+            throw new IOException("Unsupported chunk format, only chunks saved by Minecraft 1.18 or later can be edited");
+        }
+        init(xPos.valueAsInt(), zPos.valueAsInt());
+
+        palettes = new int[sectionCount][];
+        packed = new long[sectionCount][];
+        biomePalettes = new BiomeType[sectionCount][];
+        biomePacked = new long[sectionCount][];
+        changedSections = new boolean[sectionCount];
+        for (LinCompoundTag section : sections.value()) {
+            LinByteTag y = section.findTag("Y", LinTagType.byteTag());
+            if (y == null) {
+                continue;
+            }
+            int layer = y.valueAsByte();
+            sectionTags.put(layer, section);
+            if (layer < minSectionPosition || layer > maxSectionPosition) {
+                continue;
+            }
+            int index = layer - minSectionPosition;
+            LinCompoundTag blockStates = section.findTag("block_states", LinTagType.compoundTag());
+            if (blockStates != null) {
+                List<LinCompoundTag> entries = blockStates.getListTag("palette", LinTagType.compoundTag()).value();
+                int[] palette = new int[entries.size()];
+                for (int i = 0; i < palette.length; i++) {
+                    palette[i] = toOrdinal(entries.get(i));
+                }
+                palettes[index] = palette;
+                packed[index] = readPacked(blockStates, 4096, blockBits(palette.length));
+            }
+            LinCompoundTag biomes = section.findTag("biomes", LinTagType.compoundTag());
+            if (biomes != null) {
+                List<LinStringTag> entries = biomes.getListTag("palette", LinTagType.stringTag()).value();
+                BiomeType[] palette = new BiomeType[entries.size()];
+                for (int i = 0; i < palette.length; i++) {
+                    palette[i] = toBiome(entries.get(i).value());
+                }
+                biomePalettes[index] = palette;
+                biomePacked[index] = readPacked(biomes, 64, MathMan.log2nlz(palette.length - 1));
+            }
+        }
+    }
+
+    private static long[] readPacked(LinCompoundTag container, int size, int bits) throws IOException {
+        LinLongArrayTag data = container.findTag("data", LinTagType.longArrayTag());
+        if (data == null || bits == 0) {
+            return null;
+        }
+        long[] values = data.value();
+        int perLong = 64 / bits;
+        if (values.length < (size + perLong - 1) / perLong) {
+            throw new IOException("Packed data too short for " + bits + " bits per entry: " + values.length);
+        }
+        return values;
+    }
+
+    // Bits per palette index of block states, as written by Minecraft
+    private static int blockBits(int paletteSize) {
+        return Math.max(4, MathMan.log2nlz(paletteSize - 1));
+    }
+
+    private static int toOrdinal(LinCompoundTag entry) throws IOException {
+        Integer cached = ORDINALS.get(entry);
+        if (cached != null) {
+            return cached;
+        }
+        String name = entry.getTag("Name", LinTagType.stringTag()).value();
+        BlockType type = BlockTypes.get(name);
+        if (type == null) {
+            throw new IOException("Unknown block type: " + name);
+        }
+        BlockState state = type.getDefaultState();
+        LinCompoundTag properties = entry.findTag("Properties", LinTagType.compoundTag());
+        if (properties != null) {
+            for (Map.Entry<String, LinTag<?>> property : properties.value().entrySet()) {
+                // The chunk would be written back with the default value of a property that cannot be read
+                Property<Object> key = type.getProperty(property.getKey());
+                if (key == null) {
+                    throw new IOException("Unknown property " + property.getKey() + " of block type " + name);
+                }
+                if (!(property.getValue() instanceof LinStringTag value)) {
+                    throw new IOException("Invalid value of property " + property.getKey() + " of block type " + name);
+                }
+                try {
+                    state = state.with(key, key.getValueFor(value.value()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(
+                            "Unknown value " + value.value() + " of property " + property.getKey() + " of block type " + name,
+                            e
+                    );
+                }
+            }
+        }
+        ORDINALS.put(entry, state.getOrdinal());
+        return state.getOrdinal();
+    }
+
+    private static LinCompoundTag toPaletteEntry(int ordinal) {
+        AtomicReferenceArray<LinCompoundTag> entries = paletteEntries;
+        if (entries == null) {
+            paletteEntries = entries = new AtomicReferenceArray<>(BlockTypesCache.states.length);
+        }
+        LinCompoundTag entry = entries.get(ordinal);
+        if (entry == null) {
+            BlockState state = BlockTypesCache.states[ordinal];
+            LinCompoundTag.Builder builder = LinCompoundTag.builder().putString("Name", state.getBlockType().id());
+            if (!state.getStates().isEmpty()) {
+                LinCompoundTag.Builder properties = LinCompoundTag.builder();
+                state.getStates().forEach((property, value) -> properties.putString(
+                        property.getName(),
+                        value.toString().toLowerCase(Locale.ROOT)
+                ));
+                builder.put("Properties", properties.build());
+            }
+            entry = builder.build();
+            entries.set(ordinal, entry);
+        }
+        return entry;
+    }
+
+    private static BiomeType toBiome(String id) throws IOException {
+        BiomeType biome = BIOMES.get(id);
+        if (biome == null) {
+            biome = BiomeTypes.get(id);
+            if (biome == null) {
+                throw new IOException("Unknown biome: " + id);
+            }
+            BIOMES.put(id, biome);
+        }
+        return biome;
+    }
+
+    /**
+     * Get the region file this chunk is written to.
+     */
+    public MCAFile getFile() {
+        return file;
+    }
+
+    /**
+     * Get the generation status of the chunk, e.g. {@code minecraft:full} once it was completely generated.
+     */
+    public String getStatus() {
+        LinStringTag status = root.findTag("Status", LinTagType.stringTag());
+        return status == null ? "" : status.value();
+    }
+
+    /**
+     * Check whether the chunk was completely generated. Only such chunks should be edited, the server still modifies the
+     * others when generating them.
+     */
+    public boolean isGenerated() {
+        String status = getStatus();
+        return status.equals("minecraft:full") || status.equals("full");
+    }
+
+    /**
+     * Get the cumulative number of ticks players have been near this chunk.
+     */
+    public long getInhabitedTime() {
+        LinLongTag inhabited = root.findTag("InhabitedTime", LinTagType.longTag());
+        return inhabited == null ? 0 : inhabited.valueAsLong();
+    }
+
+    /**
+     * Check whether the chunk contains nothing but air.
+     */
+    public boolean isAir() {
+        for (int layer = minSectionPosition; layer <= maxSectionPosition; layer++) {
+            if (hasNonEmptySection(layer)) {
+                return false;
+            }
+        }
+        return tiles().isEmpty();
+    }
+
+    /**
+     * Check whether every biome stored in the chunk is the given biome.
+     */
+    public boolean isBiome(BiomeType biome) {
+        for (BiomeType[] palette : biomePalettes) {
+            if (palette != null) {
+                for (BiomeType other : palette) {
+                    if (!other.equals(biome)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasSection(int layer) {
+        layer -= minSectionPosition;
+        return layer >= 0 && layer < sectionCount && palettes[layer] != null;
+    }
+
+    @Override
+    public boolean hasNonEmptySection(int layer) {
+        if (!hasSection(layer)) {
+            return false;
+        }
+        for (int ordinal : palettes[layer - minSectionPosition]) {
+            if (!BlockTypesCache.states[ordinal].isAir()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the distinct ordinals of a section from its palette, without unpacking the section. The palette may contain
+     * entries no longer used by any block.
+     */
+    @Override
+    public int[] getSectionOrdinals(int layer) {
+        if (!hasSection(layer)) {
+            return super.getSectionOrdinals(layer);
+        }
+        return palettes[layer - minSectionPosition].clone();
+    }
+
+    @Override
+    public int[] update(int layer, int[] data, boolean aggressive) {
+        if (data == null) {
+            data = new int[4096];
+        }
+        int[] palette = palettes[layer];
+        long[] values = packed[layer];
+        if (palette == null) {
+            Arrays.fill(data, BlockTypesCache.ReservedIDs.AIR);
+        } else if (palette.length == 1 || values == null) {
+            Arrays.fill(data, palette[0]);
+        } else {
+            new BitArrayUnstretched(blockBits(palette.length), 4096, values).toRaw(data);
+            for (int i = 0; i < 4096; i++) {
+                int index = data[i];
+                data[i] = index < palette.length ? palette[index] : BlockTypesCache.ReservedIDs.AIR;
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public BiomeType getBiomeType(int x, int y, int z) {
+        int layer = (y >> 4) - minSectionPosition;
+        if (layer < 0 || layer >= sectionCount || biomePalettes[layer] == null) {
+            return BiomeTypes.PLAINS;
+        }
+        BiomeType[] palette = biomePalettes[layer];
+        long[] values = biomePacked[layer];
+        if (palette.length == 1 || values == null) {
+            return palette[0];
+        }
+        int index = (y & 12) << 2 | (z & 12) | (x & 12) >> 2;
+        int bits = MathMan.log2nlz(palette.length - 1);
+        int perLong = 64 / bits;
+        int paletteIndex = (int) (values[index / perLong] >>> (index % perLong) * bits) & ((1 << bits) - 1);
+        return paletteIndex < palette.length ? palette[paletteIndex] : palette[0];
+    }
+
+    private BiomeType[] loadBiomes(int layer) {
+        BiomeType[] biomes = new BiomeType[64];
+        BiomeType[] palette = biomePalettes[layer];
+        if (palette == null) {
+            Arrays.fill(biomes, BiomeTypes.PLAINS);
+        } else if (palette.length == 1 || biomePacked[layer] == null) {
+            Arrays.fill(biomes, palette[0]);
+        } else {
+            int[] indices = new BitArrayUnstretched(MathMan.log2nlz(palette.length - 1), 64, biomePacked[layer])
+                    .toRaw(new int[64]);
+            for (int i = 0; i < 64; i++) {
+                biomes[i] = indices[i] < palette.length ? palette[indices[i]] : palette[0];
+            }
+        }
+        return biomes;
+    }
+
+    @Override
+    public int getSkyLight(int x, int y, int z) {
+        return getLight("SkyLight", x, y, z, 15);
+    }
+
+    @Override
+    public int getEmittedLight(int x, int y, int z) {
+        return getLight("BlockLight", x, y, z, 0);
+    }
+
+    private int getLight(String key, int x, int y, int z, int absent) {
+        LinCompoundTag section = sectionTags.get(y >> 4);
+        LinByteArrayTag light = section == null ? null : section.findTag(key, LinTagType.byteArrayTag());
+        if (light == null) {
+            return absent;
+        }
+        int index = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        return light.value()[index >> 1] >> ((index & 1) << 2) & 15;
+    }
+
+    @Override
+    public int[] getHeightMap(HeightMapType type) {
+        LinCompoundTag heightmaps = root.findTag("Heightmaps", LinTagType.compoundTag());
+        LinLongArrayTag data = heightmaps == null ? null : heightmaps.findTag(type.name(), LinTagType.longArrayTag());
+        if (data == null) {
+            return new int[256];
+        }
+        int bits = MathMan.log2nlz(getMaxY() - getMinY() + 1);
+        return new BitArrayUnstretched(bits, 256, data.value()).toRaw(new int[256]);
+    }
+
+    @Override
+    public synchronized Map<BlockVector3, FaweCompoundTag> tiles() {
+        if (tiles == null) {
+            tiles = new HashMap<>();
+            LinListTag<LinCompoundTag> list = root.findListTag("block_entities", LinTagType.compoundTag());
+            if (list != null) {
+                for (LinCompoundTag tile : list.value()) {
+                    BlockVector3 position = BlockVector3.at(
+                            tile.getTag("x", LinTagType.intTag()).valueAsInt(),
+                            tile.getTag("y", LinTagType.intTag()).valueAsInt(),
+                            tile.getTag("z", LinTagType.intTag()).valueAsInt()
+                    );
+                    tiles.put(position, FaweCompoundTag.of(tile));
+                }
+            }
+        }
+        return tiles;
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag tile(final int x, final int y, final int z) {
+        return tiles().get(BlockVector3.at((x & 15) + (getX() << 4), y, (z & 15) + (getZ() << 4)));
+    }
+
+    @Override
+    public Collection<FaweCompoundTag> entities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag entity(final UUID uuid) {
+        return null;
+    }
+
+    @Override
+    public Set<Entity> getFullEntities() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void removeSectionLighting(int layer, boolean sky) {
+    }
+
+    @Override
+    public boolean isCreateCopy() {
+        return false;
+    }
+
+    @Override
+    public int setCreateCopy(boolean createCopy) {
+        return -1;
+    }
+
+    @Override
+    public void setLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setSkyLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setHeightmapToGet(HeightMapType type, int[] data) {
+    }
+
+    @Override
+    public int getMaxY() {
+        return (maxSectionPosition << 4) + 15;
+    }
+
+    @Override
+    public int getMinY() {
+        return minSectionPosition << 4;
+    }
+
+    /**
+     * Apply the changes to this chunk and write it to its region file, if anything changed.
+     */
+    @Override
+    public <T extends Future<T>> T call(IQueueExtent<? extends IChunk> owner, IChunkSet set, Runnable finalize) {
+        try {
+            if (apply(set)) {
+                file.setChunk(getX(), getZ(), toTag());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            finalize.run();
+            trim(true);
+        }
+        return null;
+    }
+
+    /**
+     * Apply blocks, block entities and biomes of a set to this chunk.
+     *
+     * @return if anything changed
+     */
+    public synchronized boolean apply(IChunkSet set) {
+        boolean changed = false;
+        int minLayer = Math.max(minSectionPosition, set.getMinSectionPosition());
+        int maxLayer = Math.min(maxSectionPosition, set.getMaxSectionPosition());
+        for (int layer = minLayer; layer <= maxLayer; layer++) {
+            int[] setBlocks = set.loadIfPresent(layer);
+            if (setBlocks != null) {
+                changed |= applyBlocks(layer, setBlocks);
+            }
+        }
+
+        Map<BlockVector3, FaweCompoundTag> setTiles = set.tiles();
+        if (!setTiles.isEmpty()) {
+            int bx = getX() << 4;
+            int bz = getZ() << 4;
+            Map<BlockVector3, FaweCompoundTag> tiles = tiles();
+            for (Map.Entry<BlockVector3, FaweCompoundTag> entry : setTiles.entrySet()) {
+                BlockVector3 pos = entry.getKey();
+                int x = bx + (pos.x() & 15);
+                int z = bz + (pos.z() & 15);
+                LinCompoundTag.Builder tile = entry.getValue().linTag().toBuilder()
+                        .putInt("x", x)
+                        .putInt("y", pos.y())
+                        .putInt("z", z);
+                if (entry.getValue().linTag().findTag("id", LinTagType.stringTag()) == null) {
+                    tile.putString("id", getBlock(pos.x() & 15, pos.y(), pos.z() & 15).getBlockType().id());
+                }
+                tiles.put(BlockVector3.at(x, pos.y(), z), FaweCompoundTag.of(tile.build()));
+            }
+            changedTiles = changed = true;
+        }
+
+        BiomeType[][] setBiomes = set.getBiomes();
+        if (setBiomes != null) {
+            for (int layer = minLayer; layer <= maxLayer; layer++) {
+                BiomeType[] biomes = setBiomes[layer - set.getMinSectionPosition()];
+                if (biomes != null) {
+                    changed |= applyBiomes(layer, biomes);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean applyBlocks(int layer, int[] setBlocks) {
+        int[] blocks = load(layer);
+        int index = layer - minSectionPosition;
+        // Block entities in the section are removed if their block is replaced by a different type
+        List<BlockVector3> tilePositions = null;
+        int[] tileTypes = null;
+        if (!tiles().isEmpty()) {
+            tilePositions = new ArrayList<>();
+            for (BlockVector3 pos : tiles.keySet()) {
+                if (pos.y() >> 4 == layer) {
+                    tilePositions.add(pos);
+                }
+            }
+            tileTypes = new int[tilePositions.size()];
+            for (int i = 0; i < tileTypes.length; i++) {
+                tileTypes[i] = BlockTypesCache.states[blocks[blockIndex(tilePositions.get(i))]].getBlockType().getInternalId();
+            }
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < 4096; i++) {
+            int value = setBlocks[i];
+            if (value != BlockTypesCache.ReservedIDs.__RESERVED__ && value != blocks[i]) {
+                blocks[i] = value;
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+
+        if (tilePositions != null) {
+            for (int i = 0; i < tileTypes.length; i++) {
+                BlockVector3 pos = tilePositions.get(i);
+                if (BlockTypesCache.states[blocks[blockIndex(pos)]].getBlockType().getInternalId() != tileTypes[i]) {
+                    tiles.remove(pos);
+                    changedTiles = true;
+                }
+            }
+        }
+
+        FaweCache.Palette palette = FaweCache.INSTANCE.toPaletteUnstretched(0, blocks);
+        int[] ordinals = Arrays.copyOf(palette.paletteToBlock, palette.paletteToBlockLength);
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                ordinals[i] = BlockTypesCache.ReservedIDs.AIR;
+            }
+        }
+        palettes[index] = ordinals;
+        packed[index] = ordinals.length == 1 ? null : Arrays.copyOf(palette.blockStates, palette.blockStatesLength);
+        changedSections[index] = true;
+        return true;
+    }
+
+    private static int blockIndex(BlockVector3 pos) {
+        return (pos.y() & 15) << 8 | (pos.z() & 15) << 4 | (pos.x() & 15);
+    }
+
+    private boolean applyBiomes(int layer, BiomeType[] setBiomes) {
+        int index = layer - minSectionPosition;
+        BiomeType[] biomes = loadBiomes(index);
+        boolean changed = false;
+        for (int i = 0; i < 64; i++) {
+            BiomeType biome = setBiomes[i];
+            if (biome != null && !biome.equals(biomes[i])) {
+                biomes[i] = biome;
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        List<BiomeType> palette = new ArrayList<>();
+        int[] indices = new int[64];
+        for (int i = 0; i < 64; i++) {
+            int paletteIndex = palette.indexOf(biomes[i]);
+            if (paletteIndex < 0) {
+                paletteIndex = palette.size();
+                palette.add(biomes[i]);
+            }
+            indices[i] = paletteIndex;
+        }
+        biomePalettes[index] = palette.toArray(new BiomeType[0]);
+        if (palette.size() == 1) {
+            biomePacked[index] = null;
+        } else {
+            BitArrayUnstretched bits = new BitArrayUnstretched(MathMan.log2nlz(palette.size() - 1), 64);
+            bits.fromRaw(indices);
+            biomePacked[index] = bits.getData();
+        }
+        changedSections[index] = true;
+        return true;
+    }
+
+    /**
+     * Get the chunk's root tag including all changes applied to it.
+     */
+    public synchronized LinCompoundTag toTag() {
+        LinCompoundTag.Builder builder = root.toBuilder();
+        boolean changedBlocks = false;
+        for (int index = 0; index < sectionCount; index++) {
+            if (changedSections[index]) {
+                int layer = index + minSectionPosition;
+                sectionTags.put(layer, writeSection(layer, index));
+                changedBlocks = true;
+            }
+        }
+        if (changedBlocks) {
+            LinListTag.Builder<LinCompoundTag> sections = LinListTag.builder(LinTagType.compoundTag());
+            for (LinCompoundTag section : sectionTags.values()) {
+                sections.add(section);
+            }
+            builder.put("sections", sections.build());
+            // Recalculated by the server when the chunk is loaded
+            builder.remove("Heightmaps");
+            builder.putByte("isLightOn", (byte) 0);
+        }
+        if (changedTiles) {
+            LinListTag.Builder<LinCompoundTag> list = LinListTag.builder(LinTagType.compoundTag());
+            for (FaweCompoundTag tile : tiles().values()) {
+                list.add(tile.linTag());
+            }
+            builder.put("block_entities", list.build());
+        }
+        return builder.build();
+    }
+
+    private LinCompoundTag writeSection(int layer, int index) {
+        LinCompoundTag existing = sectionTags.get(layer);
+        LinCompoundTag.Builder section = existing == null
+                ? LinCompoundTag.builder().putByte("Y", (byte) layer)
+                : existing.toBuilder();
+
+        LinListTag.Builder<LinCompoundTag> blockPalette = LinListTag.builder(LinTagType.compoundTag());
+        int[] palette = palettes[index];
+        if (palette == null) {
+            blockPalette.add(toPaletteEntry(BlockTypesCache.ReservedIDs.AIR));
+        } else {
+            for (int ordinal : palette) {
+                blockPalette.add(toPaletteEntry(ordinal));
+            }
+        }
+        LinCompoundTag.Builder blockStates = LinCompoundTag.builder().put("palette", blockPalette.build());
+        if (packed[index] != null) {
+            blockStates.putLongArray("data", packed[index]);
+        }
+        section.put("block_states", blockStates.build());
+
+        LinListTag.Builder<LinStringTag> biomePalette = LinListTag.builder(LinTagType.stringTag());
+        BiomeType[] biomes = biomePalettes[index];
+        if (biomes == null) {
+            biomePalette.add(LinStringTag.of(BiomeTypes.PLAINS.id()));
+        } else {
+            for (BiomeType biome : biomes) {
+                biomePalette.add(LinStringTag.of(biome.id()));
+            }
+        }
+        LinCompoundTag.Builder biomeContainer = LinCompoundTag.builder().put("palette", biomePalette.build());
+        if (biomePacked[index] != null) {
+            biomeContainer.putLongArray("data", biomePacked[index]);
+        }
+        section.put("biomes", biomeContainer.build());
+        return section.build();
+    }
+
+}
@@ -0,0 +1,476 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.core.internal.io.FastByteArrayOutputStream;
+import com.fastasyncworldedit.core.util.ReflectionUtils;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.logging.log4j.Logger;
+import org.enginehub.linbus.stream.LinBinaryIO;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinRootEntry;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A region file ({@code r.<x>.<z>.mca}) of 32x32 chunks, read from a memory mapping of the file. Chunks that are changed or
+ * deleted are kept compressed in memory until {@link #save()} writes a new file, copying unchanged chunks as they are, and
+ * atomically replaces the original with it.
+ * <p>
+ * Chunks may be read and changed concurrently, saving must not overlap with either.
+ *
+ * @since 2.13.1
+ */
+public class MCAFile implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final Pattern NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_BYTES = SECTOR_BYTES * 2;
+    private static final int MAX_SECTORS = 255;
+    private static final int EXTERNAL_FLAG = 128;
+
+    public static final int COMPRESSION_GZIP = 1;
+    public static final int COMPRESSION_ZLIB = 2;
+    public static final int COMPRESSION_NONE = 3;
+    public static final int COMPRESSION_LZ4 = 4;
+
+    // Marks a deleted chunk in the changed payloads
+    private static final byte[] DELETED = new byte[0];
+
+    private final Path path;
+    private final int regionX;
+    private final int regionZ;
+    // Compression type followed by the compressed chunk, for chunks changed since the file was read
+    private final AtomicReferenceArray<byte[]> changed = new AtomicReferenceArray<>(1024);
+    private final int[] changedTimestamps = new int[1024];
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private volatile boolean modified;
+
+    /**
+     * Create a new instance for a region file, which is opened on first access.
+     *
+     * @param path the region file, named {@code r.<x>.<z>.mca}
+     * @throws IllegalArgumentException if the file is not named like a region file
+     */
+    public MCAFile(Path path) {
+        Matcher matcher = NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a region file: " + path);
+        }
+        this.path = path;
+        this.regionX = Integer.parseInt(matcher.group(1));
+        this.regionZ = Integer.parseInt(matcher.group(2));
+    }
+
+    /**
+     * Check whether a file is named like a region file.
+     */
+    public static boolean isRegionFile(Path path) {
+        return NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the region x coordinate, i.e. the x coordinate of the chunk with the lowest x divided by 32.
+     */
+    public int getX() {
+        return regionX;
+    }
+
+    /**
+     * Get the region z coordinate, i.e. the z coordinate of the chunk with the lowest z divided by 32.
+     */
+    public int getZ() {
+        return regionZ;
+    }
+
+    private synchronized ByteBuffer buffer() throws IOException {
+        if (buffer == null) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                // Empty or truncated file, treated as containing no chunks
+                buffer = ByteBuffer.allocate(HEADER_BYTES);
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return buffer;
+    }
+
+    private static int index(int localX, int localZ) {
+        return (localX & 31) | (localZ & 31) << 5;
+    }
+
+    /**
+     * Check whether a chunk is present in this file.
+     *
+     * @param localX chunk x coordinate within the region, 0-31
+     * @param localZ chunk z coordinate within the region, 0-31
+     */
+    public boolean hasChunk(int localX, int localZ) throws IOException {
+        int index = index(localX, localZ);
+        byte[] payload = changed.get(index);
+        if (payload != null) {
+            return payload != DELETED;
+        }
+        return buffer().getInt(index << 2) != 0;
+    }
+
+    /**
+     * Get the time a chunk was last saved at, in seconds since the epoch, or 0 if it is not present.
+     *
+     * @param localX chunk x coordinate within the region, 0-31
+     * @param localZ chunk z coordinate within the region, 0-31
+     */
+    public int getTimestamp(int localX, int localZ) throws IOException {
+        int index = index(localX, localZ);
+        byte[] payload = changed.get(index);
+        if (payload != null) {
+            return payload == DELETED ? 0 : changedTimestamps[index];
+        }
+        return buffer().getInt(SECTOR_BYTES + (index << 2));
+    }
+
+    /**
+     * Read a chunk, including any changes made to it since this file was read.
+     *
+     * @param localX chunk x coordinate within the region, 0-31
+     * @param localZ chunk z coordinate within the region, 0-31
+     * @return the chunk's root tag, or null if the chunk is not present
+     * @throws IOException if the chunk could not be read
+     */
+    @Nullable
+    public LinCompoundTag readChunk(int localX, int localZ) throws IOException {
+        int index = index(localX, localZ);
+        byte[] payload = changed.get(index);
+        if (payload != null) {
+            if (payload == DELETED) {
+                return null;
+            }
+            return read(payload[0], new ByteArrayInputStream(payload, 1, payload.length - 1));
+        }
+        ByteBuffer buffer = buffer();
+        int location = buffer.getInt(index << 2);
+        if (location == 0) {
+            return null;
+        }
+        int position = (location >>> 8) * SECTOR_BYTES;
+        int length = checkLength(buffer, position, location & 0xFF);
+        int type = buffer.get(position + 4) & 0xFF;
+        if ((type & EXTERNAL_FLAG) != 0) {
+            Path external = getExternalPath(localX, localZ);
+            try (InputStream in = Files.newInputStream(external)) {
+                return read(type & ~EXTERNAL_FLAG, in);
+            }
+        }
+        byte[] data = new byte[length - 1];
+        buffer.get(position + 5, data);
+        return read(type, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Get the compression type a chunk is stored with, or {@link #COMPRESSION_ZLIB} if it is not present.
+     *
+     * @param localX chunk x coordinate within the region, 0-31
+     * @param localZ chunk z coordinate within the region, 0-31
+     */
+    public int getCompression(int localX, int localZ) throws IOException {
+        int index = index(localX, localZ);
+        byte[] payload = changed.get(index);
+        if (payload != null) {
+            return payload == DELETED ? COMPRESSION_ZLIB : payload[0];
+        }
+        ByteBuffer buffer = buffer();
+        int location = buffer.getInt(index << 2);
+        if (location == 0) {
+            return COMPRESSION_ZLIB;
+        }
+        return buffer.get((location >>> 8) * SECTOR_BYTES + 4) & ~EXTERNAL_FLAG;
+    }
+
+    /**
+     * Replace a chunk. The chunk is compressed immediately, the file is only written on {@link #save()}.
+     *
+     * @param localX chunk x coordinate within the region, 0-31
+     * @param localZ chunk z coordinate within the region, 0-31
+     * @param tag    the chunk's new root tag
+     * @throws IOException if the chunk could not be compressed
+     */
+    public void setChunk(int localX, int localZ, LinCompoundTag tag) throws IOException {
+        int compression = getCompression(localX, localZ);
+        if (compression < COMPRESSION_GZIP || compression > COMPRESSION_LZ4) {
+            compression = COMPRESSION_ZLIB;
+        }
+        FastByteArrayOutputStream bytes = new FastByteArrayOutputStream();
+        bytes.write(compression);
+        try (DataOutputStream out = new DataOutputStream(compress(compression, bytes))) {
+            LinBinaryIO.write(out, new LinRootEntry("", tag));
+        }
+        int index = index(localX, localZ);
+        changedTimestamps[index] = (int) (System.currentTimeMillis() / 1000);
+        changed.set(index, bytes.toByteArray());
+        modified = true;
+    }
+
+    /**
+     * Delete a chunk, so it is generated again when next loaded. The file is only written on {@link #save()}.
+     *
+     * @param localX chunk x coordinate within the region, 0-31
+     * @param localZ chunk z coordinate within the region, 0-31
+     */
+    public void deleteChunk(int localX, int localZ) {
+        changed.set(index(localX, localZ), DELETED);
+        modified = true;
+    }
+
+    /**
+     * Check whether any chunk was changed or deleted since the file was read or last saved.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Write all changes to disk. The new file is written next to the original and moved over it once complete, so the
+     * original is left intact if saving fails. Chunks too large for the file are written next to their external files and
+     * only replace them, like deleted chunks only delete them, once the new file is in place. If all chunks were deleted,
+     * the file itself is deleted.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        ByteBuffer source = buffer();
+        int[] sectors = new int[1024];
+        // External chunks to replace and to delete once the new file is in place
+        IntList externalWrites = new IntArrayList();
+        IntList externalDeletes = new IntArrayList();
+        int totalSectors = 2;
+        boolean empty = true;
+        for (int index = 0; index < 1024; index++) {
+            byte[] payload = changed.get(index);
+            int length;
+            if (payload == DELETED) {
+                externalDeletes.add(index);
+                continue;
+            } else if (payload != null) {
+                length = payload.length + 4;
+            } else {
+                int location = source.getInt(index << 2);
+                if (location == 0) {
+                    continue;
+                }
+                int position = (location >>> 8) * SECTOR_BYTES;
+                try {
+                    length = checkLength(source, position, location & 0xFF) + 4;
+                } catch (IOException e) {
+                    LOGGER.warn("Dropping unreadable chunk {} of region file {}", index, path, e);
+                    continue;
+                }
+            }
+            int count = (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+            if (count > MAX_SECTORS) {
+                // Only changed chunks can be too large, unchanged ones are stored externally already
+                externalWrites.add(index);
+                count = 1;
+            } else if (payload != null) {
+                externalDeletes.add(index);
+            }
+            sectors[index] = count;
+            totalSectors += count;
+            empty = false;
+        }
+        if (empty) {
+            close();
+            Files.deleteIfExists(path);
+            deleteExternal(externalDeletes);
+            resetChanges();
+            return;
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        MappedByteBuffer target = null;
+        boolean written = false;
+        try {
+            for (int i = 0; i < externalWrites.size(); i++) {
+                int index = externalWrites.getInt(i);
+                byte[] payload = changed.get(index);
+                try (OutputStream out = Files.newOutputStream(getExternalTempPath(index))) {
+                    out.write(payload, 1, payload.length - 1);
+                }
+            }
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE
+            )) {
+                target = out.map(FileChannel.MapMode.READ_WRITE, 0, (long) totalSectors * SECTOR_BYTES);
+                int sector = 2;
+                for (int index = 0; index < 1024; index++) {
+                    int count = sectors[index];
+                    if (count == 0) {
+                        continue;
+                    }
+                    int position = sector * SECTOR_BYTES;
+                    byte[] payload = changed.get(index);
+                    int timestamp;
+                    if (payload == null) {
+                        int location = source.getInt(index << 2);
+                        int from = (location >>> 8) * SECTOR_BYTES;
+                        int length = source.getInt(from) + 4;
+                        target.put(position, source, from, length);
+                        timestamp = source.getInt(SECTOR_BYTES + (index << 2));
+                    } else if ((payload.length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES > MAX_SECTORS) {
+                        target.putInt(position, 1);
+                        target.put(position + 4, (byte) (payload[0] | EXTERNAL_FLAG));
+                        timestamp = changedTimestamps[index];
+                    } else {
+                        target.putInt(position, payload.length);
+                        target.put(position + 4, payload);
+                        timestamp = changedTimestamps[index];
+                    }
+                    target.putInt(index << 2, sector << 8 | count);
+                    target.putInt(SECTOR_BYTES + (index << 2), timestamp);
+                    sector += count;
+                }
+                target.force();
+            } finally {
+                // Both files must be unmapped before the original can be replaced on some platforms
+                unmap(target);
+                close();
+            }
+            move(temp, path);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temp);
+                for (int i = 0; i < externalWrites.size(); i++) {
+                    Files.deleteIfExists(getExternalTempPath(externalWrites.getInt(i)));
+                }
+            }
+        }
+        for (int i = 0; i < externalWrites.size(); i++) {
+            int index = externalWrites.getInt(i);
+            move(getExternalTempPath(index), getExternalPath(index & 31, index >> 5));
+        }
+        deleteExternal(externalDeletes);
+        resetChanges();
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void resetChanges() {
+        for (int i = 0; i < 1024; i++) {
+            changed.set(i, null);
+        }
+        modified = false;
+    }
+
+    private Path getExternalPath(int localX, int localZ) {
+        return path.resolveSibling("c." + ((regionX << 5) + (localX & 31)) + "." + ((regionZ << 5) + (localZ & 31)) + ".mcc");
+    }
+
+    private Path getExternalTempPath(int index) {
+        Path external = getExternalPath(index & 31, index >> 5);
+        return external.resolveSibling(external.getFileName() + ".tmp");
+    }
+
+    private void deleteExternal(IntList indices) throws IOException {
+        for (int i = 0; i < indices.size(); i++) {
+            int index = indices.getInt(i);
+            Files.deleteIfExists(getExternalPath(index & 31, index >> 5));
+        }
+    }
+
+    // Length of the chunk at the given position, including its compression type
+    private int checkLength(ByteBuffer buffer, int position, int sectors) throws IOException {
+        if (position < HEADER_BYTES || position + 5 > buffer.limit()) {
+            throw new IOException("Chunk outside of region file " + path);
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length + 4 > sectors * SECTOR_BYTES || position + 4 + length > buffer.limit()) {
+            throw new IOException("Invalid chunk length " + length + " in region file " + path);
+        }
+        return length;
+    }
+
+    private static LinCompoundTag read(int compression, InputStream in) throws IOException {
+        InputStream decompressed = switch (compression) {
+            case COMPRESSION_GZIP -> new GZIPInputStream(in);
+            case COMPRESSION_ZLIB -> new InflaterInputStream(in);
+            case COMPRESSION_NONE -> in;
+            case COMPRESSION_LZ4 -> new LZ4BlockInputStream(in);
+            default -> throw new IOException("Unknown chunk compression " + compression);
+        };
+        try (DataInputStream data = new DataInputStream(decompressed)) {
+            return LinRootEntry.readFrom(LinBinaryIO.read(data)).value();
+        }
+    }
+
+    private static OutputStream compress(int compression, OutputStream out) throws IOException {
+        return switch (compression) {
+            case COMPRESSION_GZIP -> new GZIPOutputStream(out);
+            case COMPRESSION_NONE -> out;
+            case COMPRESSION_LZ4 -> new LZ4BlockOutputStream(out);
+            default -> new DeflaterOutputStream(out);
+        };
+    }
+
+    private static void unmap(@Nullable ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect()) {
+            ReflectionUtils.getUnsafe().invokeCleaner(buffer);
+        }
+    }
+
+    /**
+     * Release the mapping of the file. Chunks are read from the file again on next access. Must not be called while
+     * chunks are read.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        unmap(buffer);
+        buffer = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.implementation.SingleThreadQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.blocks.NullChunkGet;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import org.apache.logging.log4j.Logger;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinIntTag;
+import org.enginehub.linbus.tree.LinTagType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Edits the region files of a world that is not loaded, without going through the server's chunk system. Each region file
+ * is memory mapped and processed by its own worker, in parallel with the others. Chunks are decoded into {@link MCAChunk}s,
+ * so existing {@link Filter}s can be applied as they would be to a loaded world, and only the chunks and sections that
+ * changed are encoded again.
+ * <p>
+ * Only chunks saved with the data version of the platform are edited. Chunks of other versions may hold blocks or
+ * properties the registry reads differently, and are left as they are until the server upgrades them.
+ *
+ * @since 2.13.1
+ */
+public class MCAQueue {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    private final Path folder;
+    private final int minY;
+    private final int maxY;
+    private final int dataVersion;
+
+    /**
+     * New instance for a world or region folder.
+     *
+     * @param folder      the world folder, or the folder containing its region files
+     * @param minY        the minimum y of the world, inclusive
+     * @param maxY        the maximum y of the world, inclusive
+     * @param dataVersion the data version of the platform, only chunks saved with it are edited
+     */
+    public MCAQueue(Path folder, int minY, int maxY, int dataVersion) {
+        Path region = folder.resolve("region");
+        this.folder = Files.isDirectory(region) ? region : folder;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * Get the folder containing the region files.
+     */
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * List the region files in the folder.
+     *
+     * @throws IOException if the folder could not be listed
+     */
+    public List<MCAFile> getRegionFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(MCAFile::isRegionFile).map(MCAFile::new).toList();
+        }
+    }
+
+    /**
+     * Apply a filter to every chunk of the world.
+     *
+     * @param filter the filter to apply
+     * @return the filter, joined with the forks used by each worker
+     */
+    public <T extends Filter> T filterWorld(T filter) throws IOException {
+        return filterRegion(filter, null);
+    }
+
+    /**
+     * Apply a filter to the chunks of the world within a region.
+     *
+     * @param filter the filter to apply
+     * @param region the region to apply the filter in, or null for the whole world
+     * @return the filter, joined with the forks used by each worker
+     */
+    public <T extends Filter> T filterRegion(T filter, @Nullable Region region) throws IOException {
+        forEachFile(region, file -> {
+            Filter fork = filter.fork();
+            SingleThreadQueueExtent queue = newQueue(file);
+            ChunkFilterBlock block = null;
+            int bcx = file.getX() << 5;
+            int bcz = file.getZ() << 5;
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    int cx = bcx + x;
+                    int cz = bcz + z;
+                    if ((region != null && !region.containsChunk(cx, cz)) || !file.hasChunk(x, z)
+                            || !fork.appliesChunk(cx, cz)) {
+                        continue;
+                    }
+                    // Chunks are applied by this worker directly rather than submitted, as workers already run in parallel
+                    ChunkHolder holder = ChunkHolder.newInstance();
+                    holder.init(queue, cx, cz);
+                    if (!(holder.getOrCreateGet() instanceof MCAChunk)) {
+                        continue;
+                    }
+                    IQueueChunk chunk = fork.applyChunk(holder, region);
+                    if (chunk == null) {
+                        continue;
+                    }
+                    if (block == null) {
+                        block = queue.createFilterBlock();
+                    }
+                    block.initChunk(cx, cz);
+                    chunk.filterBlocks(fork, block, region, false);
+                    if (!chunk.isEmpty()) {
+                        chunk.call();
+                    }
+                }
+            }
+            file.save();
+        });
+        filter.join();
+        return filter;
+    }
+
+    /**
+     * Delete every chunk of the world matching a predicate, so that they are generated again when next loaded.
+     *
+     * @param predicate the chunks to delete
+     * @return the number of chunks deleted
+     */
+    public int deleteChunks(Predicate<MCAChunk> predicate) throws IOException {
+        return deleteChunks((created, chunk) -> predicate.test(chunk));
+    }
+
+    /**
+     * Delete every chunk of the world matching a predicate, given the chunk and the creation time of its region file in
+     * milliseconds since the epoch, so that they are generated again when next loaded.
+     *
+     * @param predicate the chunks to delete
+     * @return the number of chunks deleted
+     */
+    public int deleteChunks(ChunkPredicate predicate) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        forEachFile(null, file -> {
+            long created = Files.readAttributes(file.getPath(), BasicFileAttributes.class).creationTime().toMillis();
+            SingleThreadQueueExtent queue = newQueue(file);
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    if (!file.hasChunk(x, z)) {
+                        continue;
+                    }
+                    IChunkGet get = queue.getCachedGet((file.getX() << 5) + x, (file.getZ() << 5) + z);
+                    if (get instanceof MCAChunk chunk && predicate.test(created, chunk)) {
+                        file.deleteChunk(x, z);
+                        count.incrementAndGet();
+                    }
+                }
+            }
+            file.save();
+        });
+        return count.get();
+    }
+
+    private void forEachFile(@Nullable Region region, FileTask task) throws IOException {
+        List<MCAFile> files = getRegionFiles();
+        if (region != null) {
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            files = files.stream().filter(file -> file.getX() >= min.x() >> 9 && file.getX() <= max.x() >> 9
+                    && file.getZ() >= min.z() >> 9 && file.getZ() <= max.z() >> 9).toList();
+        }
+        List<MCAFile> finalFiles = files;
+        try {
+            Fawe.instance().getQueueHandler().submit(() -> finalFiles.parallelStream().forEach(file -> {
+                try (file) {
+                    task.run(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to edit region file " + file.getPath(), e);
+                }
+            })).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private SingleThreadQueueExtent newQueue(MCAFile file) {
+        SingleThreadQueueExtent queue = new SingleThreadQueueExtent();
+        queue.init(new WorldBounds(minY, maxY), (chunkX, chunkZ) -> readChunk(file, chunkX, chunkZ), null);
+        return queue;
+    }
+
+    private IChunkGet readChunk(MCAFile file, int chunkX, int chunkZ) {
+        if (chunkX >> 5 != file.getX() || chunkZ >> 5 != file.getZ()) {
+            return NullChunkGet.getInstance();
+        }
+        try {
+            LinCompoundTag root = file.readChunk(chunkX & 31, chunkZ & 31);
+            if (root == null) {
+                return NullChunkGet.getInstance();
+            }
+            LinIntTag version = root.findTag("DataVersion", LinTagType.intTag());
+            if (version == null || version.valueAsInt() != dataVersion) {
+                LOGGER.debug("Skipping chunk {}, {} in {} of data version {}", chunkX, chunkZ, file.getPath(),
+                        version == null ? "unknown" : version.valueAsInt()
+                );
+                return NullChunkGet.getInstance();
+            }
+            MCAChunk chunk = new MCAChunk(file, root, minY >> 4, maxY >> 4);
+            if (!chunk.isGenerated()) {
+                return NullChunkGet.getInstance();
+            }
+            return chunk;
+        } catch (IOException e) {
+            LOGGER.warn("Skipping unreadable chunk {}, {} in {}: {}", chunkX, chunkZ, file.getPath(), e.getMessage());
+            return NullChunkGet.getInstance();
+        }
+    }
+
+    /**
+     * Tests whether a chunk should be deleted.
+     */
+    @FunctionalInterface
+    public interface ChunkPredicate {
+
+        /**
+         * @param fileCreated the creation time of the chunk's region file, in milliseconds since the epoch
+         * @param chunk       the chunk
+         * @return if the chunk should be deleted
+         */
+        boolean test(long fileCreated, MCAChunk chunk) throws IOException;
+
+    }
+
+    @FunctionalInterface
+    private interface FileTask {
+
+        void run(MCAFile file) throws IOException;
+
+    }
+
+    // Provides the height of the world to queues reading its region files
+    private static final class WorldBounds extends NullExtent {
+
+        private final BlockVector3 min;
+        private final BlockVector3 max;
+
+        private WorldBounds(int minY, int maxY) {
+            this.min = BlockVector3.at(Integer.MIN_VALUE, minY, Integer.MIN_VALUE);
+            this.max = BlockVector3.at(Integer.MAX_VALUE, maxY, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public BlockVector3 getMinimumPoint() {
+            return min;
+        }
+
+        @Override
+        public BlockVector3 getMaximumPoint() {
+            return max;
+        }
+
+    }
+
+}
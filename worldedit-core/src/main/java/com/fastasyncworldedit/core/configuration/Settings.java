@@ -129,16 +129,16 @@ public FaweLimit getLimit(Actor actor) {
                         limit.MAX_ACTIONS,
                         newLimit.MAX_ACTIONS != -1 ? newLimit.MAX_ACTIONS : Integer.MAX_VALUE
                 );
-                limit.MAX_CHANGES.set(Math.max(
-                        limit.MAX_CHANGES.get(),
+                limit.setMaxChanges(Math.max(
+                        limit.getMaxChanges(),
                         newLimit.MAX_CHANGES != -1 ? newLimit.MAX_CHANGES : Long.MAX_VALUE
                 ));
                 limit.MAX_BLOCKSTATES.set(Math.max(
                         limit.MAX_BLOCKSTATES.get(),
                         newLimit.MAX_BLOCKSTATES != -1 ? newLimit.MAX_BLOCKSTATES : Integer.MAX_VALUE
                 ));
-                limit.MAX_CHECKS.set(Math.max(
-                        limit.MAX_CHECKS.get(),
+                limit.setMaxChecks(Math.max(
+                        limit.getMaxChecks(),
                         newLimit.MAX_CHECKS != -1 ? newLimit.MAX_CHECKS : Long.MAX_VALUE
                 ));
                 limit.MAX_ENTITIES.set(Math.max(
@@ -536,6 +536,22 @@ public static class HISTORY {
                 " - Must be in the range [64, 33554432]",
         })
         public int BUFFER_SIZE = 531441;
+        @Comment({
+                "The number of separately compressed streams block changes of an edit are recorded into:",
+                " - Chunks recorded into different streams can be recorded by multiple threads at once",
+                " - Each stream in use holds its own compression buffer",
+                " - Edits only use more than one stream once a second thread records their changes",
+                " - 1 records all block changes into a single stream",
+                " - 0 to use the number of parallel threads",
+        })
+        public int RECORDING_SHARDS = 1;
+        @Comment({
+                "The total size in MB of history kept in memory across all sessions, if use-disk is false:",
+                " - Once exceeded, the oldest history is moved to temporary files until it is removed",
+                " - Undoing history that has been moved reads it back from its file",
+                " - 0 to keep all history in memory",
+        })
+        public int MEMORY_BUDGET = 0;
 
         @Comment("Delete history on disk after a number of days")
         public int DELETE_AFTER_DAYS = 7;
@@ -633,6 +649,44 @@ public static class QUEUE {
         @ComputedFrom(node = "queue.parallel-threads", computer = ConfigOptComputation.THREAD_TARGET_SIZE_COMPUTATION.class)
         public int THREAD_TARGET_SIZE_PERCENT = 100 * 2 / Runtime.getRuntime().availableProcessors();
 
+        @Comment({
+                "Number of chunks a player's edit may have placed in a row before other players' edits are given a turn",
+                " - Chunk placement is shared round-robin between players, so a large edit cannot hold up a small one",
+                " - Lower values are fairer to small edits while a large edit is running",
+                " - Higher values have slightly less scheduling overhead",
+        })
+        public int FAIR_SCHEDULING_QUANTUM = 4;
+
+        @Comment({
+                "Number of blocks in one step of a recursive operation (e.g. //fill, //drain, //replacenear) at which the",
+                "masks for the next step are tested on parallel-threads threads",
+                " - Set to -1 to always test on the thread running the operation",
+        })
+        public int RECURSIVE_PARALLEL_THRESHOLD = 4096;
+
+        @Comment({
+                "Memory (in MB) to keep recently read chunk sections in, shared between all edits",
+                " - Edits in the same area as a recent edit read the world faster",
+                " - Changes not made through FAWE are not seen by edits for up to section-cache-expiry-ms, so history may record",
+                "   and undo may restore outdated blocks",
+                " - Set to 0 to disable",
+        })
+        public int SECTION_CACHE_SIZE_MB = 0;
+
+        @Comment({
+                "Time (in ms) after which a cached chunk section is read from the world again",
+                " - Changes not made through FAWE may not be seen by edits for up to this time",
+        })
+        public int SECTION_CACHE_EXPIRY_MS = 2000;
+
+        @Comment({
+                "Reduce the number of chunks edits keep in memory when memory or chunk placement is under pressure",
+                " - Based on memory usage (see slower-memory-percent), time spent in garbage collection and chunk placement time",
+                " - Also clears caches when memory is under pressure",
+                " - Helps avoid edits being cancelled for exceeding max-memory-percent",
+        })
+        public boolean ADAPTIVE_TARGET_SIZE = true;
+
         public static class PROGRESS {
 
             @Comment({"Display constant titles about the progress of a user's edit",
@@ -665,6 +719,13 @@ public static class EXPERIMENTAL {
                 " - 0 means undo operations are not batched."})
         public int UNDO_BATCH_SIZE = 128;
 
+        @Comment({
+                "Apply block changes of undo and redo operations by whole chunk sections instead of block by block",
+                " - Much faster for large edits",
+                " - Only used if blocks are placed through the queue, without inventory use or extents added by other plugins",
+                " - Where a block was changed multiple times in one edit, undo restores the state from before the first change"})
+        public boolean UNDO_BY_SECTION = false;
+
         @Comment({
                 "[UNSAFE] Directly modify the region files. (OBSOLETE - USE ANVIL COMMANDS)",
                 " - IMPROPER USE CAN CAUSE WORLD CORRUPTION!",
@@ -807,6 +868,11 @@ public static class CLIPBOARD {
                 " - levels over 6 require ZSTD 1.4.8+ to be installed to the system"
         })
         public int COMPRESSION_LEVEL = 1;
+        @Comment({
+                "Number of decompressed sections (1048576 blocks, 2MB each) a compressed memory clipboard keeps cached",
+                " - Higher values speed up rotated pastes and patterns reading the clipboard in a random order",
+        })
+        public int MEMORY_CACHED_SECTIONS = 4;
         @Comment("Number of days to keep history on disk before deleting it")
         public int DELETE_AFTER_DAYS = 1;
         @Comment({
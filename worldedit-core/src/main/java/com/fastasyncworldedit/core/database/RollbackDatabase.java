@@ -21,6 +21,7 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
@@ -38,6 +39,8 @@ public class RollbackDatabase extends AsyncNotifyQueue {
     private final World world;
     private final ConcurrentLinkedQueue<RollbackOptimizedHistory> historyChanges = new ConcurrentLinkedQueue<>();
     private Connection connection;
+    // If the R*Tree index over edit bounds and time is available, see initSpatialIndex
+    private volatile boolean spatialIndex;
 
     RollbackDatabase(World world) throws SQLException, ClassNotFoundException {
         super((t, e) -> e.printStackTrace());
@@ -97,10 +100,53 @@ public Future<Boolean> init() {
                     stmt.executeUpdate();
                 }
             }
+            spatialIndex = initSpatialIndex();
             return true;
         });
     }
 
+    /**
+     * Create the R*Tree index over the bounds and time of each edit, kept in sync with the edits table by triggers, and fill
+     * it from existing edits if it is missing or out of date. Queries fall back to scanning the edits table if the SQLite
+     * build does not include the R*Tree module.
+     *
+     * @return true if the index can be used
+     */
+    private boolean initSpatialIndex() {
+        String edits = "`" + this.prefix + "_edits`";
+        String rtree = "`" + this.prefix + "_edits_rtree`";
+        try (Statement stmt = connection.createStatement()) {
+            // REPLACE only fires the delete trigger for the replaced row with recursive triggers enabled
+            stmt.execute("PRAGMA recursive_triggers = ON");
+            stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS " + rtree + " USING rtree_i32(`id`, `minX`, `maxX`, `minZ`, " +
+                    "`maxZ`, `minY`, `maxY`, `minTime`, `maxTime`)");
+            String insert = "INSERT OR REPLACE INTO " + rtree + " VALUES (new.rowid, new.x1, new.x2, new.z1, new.z2, new.y1, " +
+                    "new.y2, new.time, new.time); ";
+            String delete = "DELETE FROM " + rtree + " WHERE `id` = old.rowid; ";
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS `" + this.prefix + "_edits_rtree_insert` AFTER INSERT ON " + edits +
+                    " BEGIN " + insert + "END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS `" + this.prefix + "_edits_rtree_delete` AFTER DELETE ON " + edits +
+                    " BEGIN " + delete + "END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS `" + this.prefix + "_edits_rtree_update` AFTER UPDATE ON " + edits +
+                    " BEGIN " + delete + insert + "END");
+            boolean outdated;
+            try (ResultSet result = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM " + edits + ") != (SELECT COUNT(*) FROM " +
+                    rtree + ")")) {
+                outdated = result.next() && result.getBoolean(1);
+            }
+            if (outdated) {
+                // Edits logged before the index existed, or while it was unavailable
+                LOGGER.info("Building spatial index for rollback database of world {}", world.getName());
+                stmt.executeUpdate("DELETE FROM " + rtree);
+                stmt.executeUpdate("INSERT INTO " + rtree + " SELECT rowid, x1, x2, z1, z2, y1, y2, time, time FROM " + edits);
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.warn("Unable to create spatial index for rollback database, rollback and inspect queries will be slower", e);
+            return false;
+        }
+    }
+
     public Future<Integer> delete(UUID uuid, int id) {
         return call(() -> {
             try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM`" + this.prefix + "_edits` WHERE `player`=? " +
@@ -180,23 +226,39 @@ public Iterable<Supplier<RollbackOptimizedHistory>> getEdits(
         Future<Integer> future = call(() -> {
             try {
                 int count = 0;
-                String stmtStr = """
-                                SELECT * FROM `%s_edits`
-                                  WHERE `time` > ?
-                                    AND `x2` >= ?
-                                    AND `x1` <= ?
-                                    AND `z2` >= ?
-                                    AND `z1` <= ?
-                                    AND `y2` >= ?
-                                    AND `y1` <= ?
-                                """;
+                String stmtStr;
+                if (spatialIndex) {
+                    // Bounds and time are looked up in the R*Tree, the player is checked on the matching rows only
+                    stmtStr = """
+                            SELECT `e`.* FROM `%1$s_edits_rtree` AS `r`
+                              JOIN `%1$s_edits` AS `e` ON `e`.rowid = `r`.`id`
+                              WHERE `r`.`maxTime` > ?
+                                AND `r`.`maxX` >= ?
+                                AND `r`.`minX` <= ?
+                                AND `r`.`maxZ` >= ?
+                                AND `r`.`minZ` <= ?
+                                AND `r`.`maxY` >= ?
+                                AND `r`.`minY` <= ?
+                            """;
+                } else {
+                    stmtStr = """
+                            SELECT * FROM `%1$s_edits` AS `e`
+                              WHERE `time` > ?
+                                AND `x2` >= ?
+                                AND `x1` <= ?
+                                AND `z2` >= ?
+                                AND `z1` <= ?
+                                AND `y2` >= ?
+                                AND `y1` <= ?
+                            """;
+                }
                 if (uuid != null) {
-                    stmtStr += "\n    AND `player`= ?";
+                    stmtStr += "\n    AND `e`.`player`= ?";
                 }
                 if (ascending) {
-                    stmtStr += "\n  ORDER BY `time` ASC, `id` ASC";
+                    stmtStr += "\n  ORDER BY `e`.`time` ASC, `e`.`id` ASC";
                 } else {
-                    stmtStr += "\n  ORDER BY `time` DESC, `id` DESC";
+                    stmtStr += "\n  ORDER BY `e`.`time` DESC, `e`.`id` DESC";
                 }
                 try (PreparedStatement stmt = connection.prepareStatement(stmtStr.formatted(this.prefix))) {
                     stmt.setInt(1, (int) (minTime / 1000));
@@ -211,4 +211,9 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int index, B block) {
         return true;
     }
 
+    @Override
+    public void setOrdinals(int index, int[] ordinals, int offset, int length) {
+        System.arraycopy(ordinals, offset, states, index, length);
+    }
+
 }
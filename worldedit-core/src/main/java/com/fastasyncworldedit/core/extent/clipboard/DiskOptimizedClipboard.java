@@ -21,6 +21,8 @@
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.biome.BiomeTypes;
 import com.sk89q.worldedit.world.block.*;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.logging.log4j.Logger;
 import org.enginehub.linbus.tree.LinCompoundTag;
 import org.enginehub.linbus.tree.LinTagType;
@@ -34,19 +36,39 @@
 import java.nio.channels.OverlappingFileLockException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * A clipboard with disk backed storage. (lower memory + loads on crash)
  * - Uses an auto closable RandomAccessFile for getting / setting id / data
  * - I don't know how to reduce nbt / entities to O(2) complexity, so it is stored in memory.
+ * <p>
+ * Since version 4, blocks are stored in 16x16x16 sections. The header is followed by a table with one 8 byte entry per
+ * section: the int offset of the section data, a char holding the palette size (or the ordinal of a uniform section) and a
+ * byte holding the bits per block. Uniform sections (e.g. all air, which new sections start as) store no data. Other
+ * sections store a char palette of
+ * 2^bits entries followed by bit-packed palette indices, or a char ordinal per block once they need more than 8 bits. Section
+ * data is allocated from the end of the data area when a section first differs from its uniform value or outgrows its
+ * palette. Versions 1 to 3 stored an int ordinal per block and are still read.
+ * </p>
  */
 public class DiskOptimizedClipboard extends LinearClipboard {
 
-    public static final int VERSION = 3;
+    public static final int VERSION = 4;
     private static final Logger LOGGER = LogManagerCompat.getLogger();
-    private static final int HEADER_SIZE = 27; // Current header size
+    private static final int HEADER_SIZE = 35; // Current header size
     private static final int VERSION_1_HEADER_SIZE = 22; // Header size of "version 1"
     private static final int VERSION_2_HEADER_SIZE = 27; // Header size of "version 2" i.e. when NBT/entities could be saved
+    private static final int VERSION_3_HEADER_SIZE = 27; // Header size of "version 3", the last version without sections
+    private static final int DATA_END_HEADER_INDEX = 27;
+    private static final int BIOME_OFFSET_HEADER_INDEX = 31;
+    private static final int SECTION_ENTRY_SIZE = 8;
+    private static final int DIRECT_BITS = 16;
+    // Bytes of section data at each bits per block, a section may leave one of each size behind while growing to direct
+    private static final int MAX_SECTION_BYTES = sectionBytes(1) + sectionBytes(2) + sectionBytes(4) + sectionBytes(8)
+            + sectionBytes(DIRECT_BITS);
+    private static final int MIN_GROWTH = 1 << 20;
+    private static final int SECTION_LOCK_STRIPES = 64;
     private static final Map<String, LockHolder> LOCK_HOLDER_CACHE = new ConcurrentHashMap<>();
 
     private final HashMap<IntTriple, FaweCompoundTag> nbtMap;
@@ -54,13 +76,28 @@ public class DiskOptimizedClipboard extends LinearClipboard {
     private final int headerSize;
 
     private RandomAccessFile braf;
-    private MappedByteBuffer byteBuffer = null;
+    // Volatile as the file may be remapped to grow it while other threads read or write sections
+    private volatile MappedByteBuffer byteBuffer = null;
 
     private FileChannel fileChannel = null;
     private boolean hasBiomes = false;
     private boolean canHaveBiomes = true;
     private int nbtBytesRemaining;
 
+    // Section layout (version 4+)
+    private final boolean sectioned;
+    private final int sectionsX;
+    private final int sectionsZ;
+    private int dataEnd;
+    private int biomeOffset;
+    private int fileEnd;
+    // Guarded by this, as is growing the file
+    private final Int2ObjectOpenHashMap<IntArrayList> freeSectionData = new Int2ObjectOpenHashMap<>();
+    // Mappings replaced by a larger one, still in use by threads that read the field before it was replaced. Unmapped on close
+    private final List<MappedByteBuffer> retiredBuffers = new ArrayList<>();
+    // Writes to a section lock its stripe, so writers of different sections do not contend
+    private final Object[] sectionLocks = Stream.generate(Object::new).limit(SECTION_LOCK_STRIPES).toArray();
+
     /**
      * Creates a new DiskOptimizedClipboard for the given region. Creates or overwrites a file using the given UUID as a name.
      */
@@ -101,10 +138,17 @@ public DiskOptimizedClipboard(BlockVector3 dimensions) {
     public DiskOptimizedClipboard(BlockVector3 dimensions, File file) {
         super(dimensions, BlockVector3.ZERO);
         headerSize = HEADER_SIZE;
-        if (headerSize + ((long) getVolume() << 2) >= Integer.MAX_VALUE) {
+        sectioned = true;
+        sectionsX = (getWidth() + 15) >> 4;
+        sectionsZ = (getLength() + 15) >> 4;
+        long sectionCount = (long) sectionsX * sectionsZ * ((getHeight() + 15) >> 4);
+        long tableEnd = headerSize + sectionCount * SECTION_ENTRY_SIZE;
+        // Worst case, every section is stored directly after growing through every palette size
+        long maxLength = tableEnd + sectionCount * MAX_SECTION_BYTES;
+        if (maxLength >= Integer.MAX_VALUE) {
             throw new IllegalArgumentException(
                     "Dimensions too large for this clipboard format. Use //lazycopy for large selections.");
-        } else if (headerSize + ((long) getVolume() << 2) + (long) ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1) >= Integer.MAX_VALUE) {
+        } else if (maxLength + (long) ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1) >= Integer.MAX_VALUE) {
             LOGGER.error("Dimensions are too large for biomes to be stored in a DiskOptimizedClipboard");
             canHaveBiomes = false;
         }
@@ -123,16 +167,24 @@ public DiskOptimizedClipboard(BlockVector3 dimensions, File file) {
                 e.printStackTrace();
             }
             this.braf = new RandomAccessFile(file, "rw");
-            long fileLength = (long) (getVolume() << 2) + (long) headerSize;
+            long fileLength = Math.min(maxLength, tableEnd + MIN_GROWTH);
             braf.setLength(0);
             braf.setLength(fileLength);
-            this.nbtBytesRemaining = Integer.MAX_VALUE - (int) fileLength;
+            this.dataEnd = (int) tableEnd;
+            this.fileEnd = dataEnd;
+            this.nbtBytesRemaining = Integer.MAX_VALUE - (int) maxLength;
             init();
             // write getLength() etc
             byteBuffer.putChar(2, (char) (VERSION));
             byteBuffer.putChar(4, (char) getWidth());
             byteBuffer.putChar(6, (char) getHeight());
             byteBuffer.putChar(8, (char) getLength());
+            byteBuffer.putInt(DATA_END_HEADER_INDEX, dataEnd);
+            byteBuffer.putInt(BIOME_OFFSET_HEADER_INDEX, 0);
+            // Sections start uniformly air, so air that is copied does not allocate section data
+            for (long entry = headerSize + 4; entry < tableEnd; entry += SECTION_ENTRY_SIZE) {
+                byteBuffer.putChar((int) entry, (char) BlockTypesCache.ReservedIDs.AIR);
+            }
         } catch (IOException e) {
             close();
             throw new RuntimeException(e);
@@ -164,6 +216,9 @@ public DiskOptimizedClipboard(File file) {
     public DiskOptimizedClipboard(File file, int versionOverride) {
         super(readSize(file, versionOverride), BlockVector3.ZERO);
         headerSize = getHeaderSizeOverrideFromVersion(versionOverride);
+        sectioned = versionOverride >= 4;
+        sectionsX = (getWidth() + 15) >> 4;
+        sectionsZ = (getLength() + 15) >> 4;
         nbtMap = new HashMap<>();
         try {
             this.file = file;
@@ -173,7 +228,14 @@ public DiskOptimizedClipboard(File file, int versionOverride) {
             init();
 
             int biomeLength = ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1);
-            canHaveBiomes = (long) headerSize + biomeLength < Integer.MAX_VALUE;
+            if (sectioned) {
+                dataEnd = byteBuffer.getInt(DATA_END_HEADER_INDEX);
+                biomeOffset = byteBuffer.getInt(BIOME_OFFSET_HEADER_INDEX);
+                fileEnd = dataEnd;
+                canHaveBiomes = biomeOffset != 0 || (long) dataEnd + biomeLength < Integer.MAX_VALUE;
+            } else {
+                canHaveBiomes = (long) headerSize + biomeLength < Integer.MAX_VALUE;
+            }
 
             if (headerSize >= VERSION_2_HEADER_SIZE) {
                 readBiomeStatusFromHeader();
@@ -208,10 +270,11 @@ public static DiskOptimizedClipboard loadFromFile(final File file) {
             doc = new DiskOptimizedClipboard(file);
         } catch (FaweClipboardVersionMismatchException e) { // Attempt to recover
             int version = e.getClipboardVersion();
-            if (version == 2){
+            if (version != 1 && version != 3) {
                 throw e;
             }
-            doc = null;
+            // Versions before sections were introduced are still readable
+            doc = new DiskOptimizedClipboard(file, version);
         }
         return doc;
     }
@@ -231,8 +294,8 @@ private static BlockVector3 readSize(File file, int expectedVersion) {
     }
 
     private void loadNBTFromFileFooter(int nbtCount, int entitiesCount, long biomeLength) throws IOException {
-        int biomeBlocksLength = headerSize + (getVolume() << 2) + (hasBiomes ? (int) biomeLength : 0);
-        MappedByteBuffer tmp = fileChannel.map(FileChannel.MapMode.READ_ONLY, biomeBlocksLength, braf.length());
+        int biomeBlocksLength = sectioned ? dataEnd : headerSize + (getVolume() << 2) + (hasBiomes ? (int) biomeLength : 0);
+        MappedByteBuffer tmp = fileChannel.map(FileChannel.MapMode.READ_ONLY, biomeBlocksLength, braf.length() - biomeBlocksLength);
         try (NBTInputStream nbtIS = new NBTInputStream(MainUtil.getCompressedIS(new ByteBufferInputStream(tmp)))) {
             Iterator<CompoundTag> iter = nbtIS.toIterator();
             while (nbtCount > 0 && iter.hasNext()) { // TileEntities are stored "before" entities
@@ -277,6 +340,7 @@ private int getHeaderSizeOverrideFromVersion(int versionOverride) {
         return switch (versionOverride) {
             case 1 -> VERSION_1_HEADER_SIZE;
             case 2 -> VERSION_2_HEADER_SIZE;
+            case 3 -> VERSION_3_HEADER_SIZE;
             default -> HEADER_SIZE;
         };
     }
@@ -320,7 +384,15 @@ private boolean initBiome() {
         if (!canHaveBiomes) {
             return false;
         }
-        if (!hasBiomes) {
+        if (!hasBiomes && sectioned) {
+            int biomeLength = ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1);
+            biomeOffset = allocate(biomeLength);
+            for (int i = 0; i < biomeLength; i++) {
+                byteBuffer.put(biomeOffset + i, (byte) 0);
+            }
+            byteBuffer.putInt(BIOME_OFFSET_HEADER_INDEX, biomeOffset);
+            hasBiomes = true;
+        } else if (!hasBiomes) {
             try {
                 hasBiomes = true;
                 close();
@@ -360,7 +432,7 @@ public boolean setBiome(int x, int y, int z, BiomeType biome) {
     public void setBiome(int index, BiomeType biome) {
         if (initBiome()) {
             try {
-                byteBuffer.put(headerSize + (getVolume() << 2) + index, (byte) biome.getInternalId());
+                byteBuffer.put(getBiomeStart() + index, (byte) biome.getInternalId());
             } catch (IndexOutOfBoundsException e) {
                 LOGGER.info((long) (getHeight() >> 2) * (getLength() >> 2) * (getWidth() >> 2));
                 LOGGER.info(index);
@@ -374,7 +446,7 @@ public BiomeType getBiome(int index) {
         if (!hasBiomes()) {
             return null;
         }
-        int biomeId = byteBuffer.get(headerSize + (getVolume() << 2) + index) & 0xFF;
+        int biomeId = byteBuffer.get(getBiomeStart() + index) & 0xFF;
         return BiomeTypes.get(biomeId);
     }
 
@@ -383,7 +455,7 @@ public void streamBiomes(IntValueReader task) {
         if (!hasBiomes()) {
             return;
         }
-        int mbbIndex = headerSize + (getVolume() << 2);
+        int mbbIndex = getBiomeStart();
         try {
             for (int y = 0; y < getHeight(); y++) {
                 for (int z = 0; z < getLength(); z++) {
@@ -398,6 +470,10 @@ public void streamBiomes(IntValueReader task) {
         }
     }
 
+    private int getBiomeStart() {
+        return sectioned ? biomeOffset : headerSize + (getVolume() << 2);
+    }
+
     @Override
     public BiomeType getBiomeType(int x, int y, int z) {
         return getBiome(getBiomeIndex(x, y, z));
@@ -499,6 +575,13 @@ public void close() {
         try {
             if (byteBuffer != null) {
                 if (headerSize >= VERSION_2_HEADER_SIZE) {
+                    if (sectioned) {
+                        // The footer is rewritten at the end of the data, which may have grown since it was loaded
+                        fileEnd = dataEnd;
+                        nbtBytesRemaining = Integer.MAX_VALUE - dataEnd;
+                        writeNBTSavedCountToHeader(0);
+                        writeEntitiesSavedCountToHeader(0);
+                    }
                     if (Settings.settings().CLIPBOARD.SAVE_CLIPBOARD_NBT_TO_DISK) {
                         try {
                             writeNBTToDisk();
@@ -509,12 +592,20 @@ public void close() {
                     writeBiomeStatusToHeader();
                 }
                 byteBuffer.force();
-                fileChannel.close();
-                braf.close();
-                file.setWritable(true);
                 MappedByteBuffer tmpBuffer = byteBuffer;
                 byteBuffer = null;
                 closeDirectBuffer(tmpBuffer);
+                for (MappedByteBuffer retired : retiredBuffers) {
+                    closeDirectBuffer(retired);
+                }
+                retiredBuffers.clear();
+                if (sectioned) {
+                    // Drop the unused space reserved for section data, the mapping must be released first
+                    braf.setLength(fileEnd);
+                }
+                fileChannel.close();
+                braf.close();
+                file.setWritable(true);
                 fileChannel = null;
                 braf = null;
             } else if (fileChannel != null) {
@@ -608,6 +699,12 @@ private void writeNBTToDisk() throws IOException {
                 return;
             }
 
+            if (sectioned) {
+                ensureCapacity((long) dataEnd + output.length);
+                byteBuffer.put(dataEnd, output);
+                fileEnd = dataEnd + output.length;
+                return;
+            }
             long currentLength = this.braf.length();
             this.braf.setLength(currentLength + baOS.size());
             MappedByteBuffer tempBuffer = fileChannel.map(
@@ -683,6 +780,13 @@ public BaseBlock getFullBlock(int i) {
     @Override
     public BlockState getBlock(int index) {
         try {
+            if (sectioned) {
+                int y = index / getArea();
+                int newI = index - y * getArea();
+                int z = newI / getWidth();
+                int x = newI - z * getWidth();
+                return BlockState.getFromOrdinal(getSectionOrdinal(x, y, z));
+            }
             int diskIndex = headerSize + (index << 2);
             int ordinal = byteBuffer.getInt(diskIndex);
             return BlockState.getFromOrdinal(ordinal);
@@ -693,9 +797,183 @@ public BlockState getBlock(int index) {
 
     @Override
     public BlockState getBlock(int x, int y, int z) {
+        if (sectioned) {
+            try {
+                return BlockState.getFromOrdinal(getSectionOrdinal(x, y, z));
+            } catch (IndexOutOfBoundsException ignored) {
+            }
+            return BlockTypes.AIR.getDefaultState();
+        }
         return getBlock(getIndex(x, y, z));
     }
 
+    private static int sectionBytes(int bits) {
+        // Palette of chars, then 4096 indices of the given bits
+        return bits == DIRECT_BITS ? 4096 << 1 : (2 << bits) + (bits << 9);
+    }
+
+    private int getSectionEntry(int x, int y, int z) {
+        int section = ((y >> 4) * sectionsZ + (z >> 4)) * sectionsX + (x >> 4);
+        return headerSize + section * SECTION_ENTRY_SIZE;
+    }
+
+    private Object getSectionLock(int entry) {
+        return sectionLocks[((entry - headerSize) / SECTION_ENTRY_SIZE) & (SECTION_LOCK_STRIPES - 1)];
+    }
+
+    private int getSectionOrdinal(int x, int y, int z) {
+        int entry = getSectionEntry(x, y, z);
+        int bits = byteBuffer.get(entry + 6);
+        if (bits == 0) {
+            return byteBuffer.getChar(entry + 4);
+        }
+        int data = byteBuffer.getInt(entry);
+        int local = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        if (bits == DIRECT_BITS) {
+            return byteBuffer.getChar(data + (local << 1));
+        }
+        return byteBuffer.getChar(data + (getPaletteIndex(data, bits, local) << 1));
+    }
+
+    private int getPaletteIndex(int data, int bits, int local) {
+        int bitIndex = local * bits;
+        return (byteBuffer.get(data + (2 << bits) + (bitIndex >> 3)) >> (bitIndex & 7)) & ((1 << bits) - 1);
+    }
+
+    private void setPaletteIndex(int data, int bits, int local, int paletteIndex) {
+        int bitIndex = local * bits;
+        int position = data + (2 << bits) + (bitIndex >> 3);
+        int shift = bitIndex & 7;
+        int mask = ((1 << bits) - 1) << shift;
+        byteBuffer.put(position, (byte) ((byteBuffer.get(position) & ~mask) | (paletteIndex << shift)));
+    }
+
+    private void setSectionOrdinal(int x, int y, int z, int ordinal) {
+        int entry = getSectionEntry(x, y, z);
+        synchronized (getSectionLock(entry)) {
+            setSectionOrdinal(entry, x, y, z, ordinal);
+        }
+    }
+
+    private void setSectionOrdinal(int entry, int x, int y, int z, int ordinal) {
+        int bits = byteBuffer.get(entry + 6);
+        if (bits == 0) {
+            if (byteBuffer.getChar(entry + 4) == ordinal) {
+                return;
+            }
+            bits = growSection(entry, 0);
+        }
+        int data = byteBuffer.getInt(entry);
+        int local = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        if (bits == DIRECT_BITS) {
+            byteBuffer.putChar(data + (local << 1), (char) ordinal);
+            return;
+        }
+        int size = byteBuffer.getChar(entry + 4);
+        int paletteIndex = -1;
+        for (int i = 0; i < size; i++) {
+            if (byteBuffer.getChar(data + (i << 1)) == ordinal) {
+                paletteIndex = i;
+                break;
+            }
+        }
+        if (paletteIndex == -1) {
+            if (size == 1 << bits) {
+                growSection(entry, bits);
+                setSectionOrdinal(entry, x, y, z, ordinal);
+                return;
+            }
+            paletteIndex = size;
+            byteBuffer.putChar(data + (size << 1), (char) ordinal);
+            byteBuffer.putChar(entry + 4, (char) (size + 1));
+        }
+        setPaletteIndex(data, bits, local, paletteIndex);
+    }
+
+    /**
+     * Move a section to a new allocation with more bits per block, keeping its palette indices
+     *
+     * @return the new bits per block
+     */
+    private int growSection(int entry, int bits) {
+        int newBits = bits == 0 ? 1 : bits == 8 ? DIRECT_BITS : bits << 1;
+        int newData = allocate(sectionBytes(newBits));
+        int data = byteBuffer.getInt(entry);
+        if (bits == 0) {
+            // The uniform ordinal becomes the only palette entry, every index is 0
+            byteBuffer.putChar(newData, byteBuffer.getChar(entry + 4));
+            for (int i = 2; i < sectionBytes(newBits); i++) {
+                byteBuffer.put(newData + i, (byte) 0);
+            }
+            byteBuffer.putChar(entry + 4, (char) 1);
+        } else if (newBits == DIRECT_BITS) {
+            for (int local = 0; local < 4096; local++) {
+                char ordinal = byteBuffer.getChar(data + (getPaletteIndex(data, bits, local) << 1));
+                byteBuffer.putChar(newData + (local << 1), ordinal);
+            }
+        } else {
+            int size = byteBuffer.getChar(entry + 4);
+            for (int i = 0; i < 1 << newBits; i++) {
+                byteBuffer.putChar(newData + (i << 1), i < size ? byteBuffer.getChar(data + (i << 1)) : 0);
+            }
+            for (int i = 0; i < newBits << 9; i++) {
+                byteBuffer.put(newData + (2 << newBits) + i, (byte) 0);
+            }
+            for (int local = 0; local < 4096; local++) {
+                setPaletteIndex(newData, newBits, local, getPaletteIndex(data, bits, local));
+            }
+        }
+        if (bits != 0) {
+            free(data, sectionBytes(bits));
+        }
+        byteBuffer.putInt(entry, newData);
+        byteBuffer.put(entry + 6, (byte) newBits);
+        return newBits;
+    }
+
+    private synchronized void free(int offset, int length) {
+        freeSectionData.computeIfAbsent(length, k -> new IntArrayList()).add(offset);
+    }
+
+    /**
+     * Allocate space in the data area, reusing space left behind by grown sections where possible
+     *
+     * @return absolute offset of the allocated space
+     */
+    private synchronized int allocate(int length) {
+        IntArrayList free = freeSectionData.get(length);
+        if (free != null && !free.isEmpty()) {
+            return free.removeInt(free.size() - 1);
+        }
+        ensureCapacity((long) dataEnd + length);
+        int offset = dataEnd;
+        dataEnd += length;
+        byteBuffer.putInt(DATA_END_HEADER_INDEX, dataEnd);
+        return offset;
+    }
+
+    private synchronized void ensureCapacity(long length) {
+        if (length <= byteBuffer.capacity()) {
+            return;
+        }
+        if (length >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Dimensions too large for this clipboard format. Use //lazycopy for large selections.");
+        }
+        long capacity = byteBuffer.capacity();
+        long newLength = Math.min(Integer.MAX_VALUE - 1, Math.max(length, capacity + Math.max(capacity >> 1, MIN_GROWTH)));
+        try {
+            MappedByteBuffer old = byteBuffer;
+            old.force();
+            braf.setLength(newLength);
+            byteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, newLength);
+            // Other threads may still be accessing the old mapping, which maps the same file so their writes are not lost
+            retiredBuffers.add(old);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public boolean tile(final int x, final int y, final int z, final FaweCompoundTag tile) throws WorldEditException {
         nbtMap.put(new IntTriple(x, y, z), NbtUtils.withPosition(tile, x, y, z));
@@ -705,12 +983,15 @@ public boolean tile(final int x, final int y, final int z, final FaweCompoundTag
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) {
         try {
-            int index = headerSize + (getIndex(x, y, z) << 2);
             int ordinal = block.getOrdinal();
             if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
                 ordinal = BlockTypesCache.ReservedIDs.AIR;
             }
-            byteBuffer.putInt(index, ordinal);
+            if (sectioned) {
+                setSectionOrdinal(x, y, z, ordinal);
+            } else {
+                byteBuffer.putInt(headerSize + (getIndex(x, y, z) << 2), ordinal);
+            }
             boolean hasNbt = block instanceof BaseBlock && block.hasNbtData();
             if (hasNbt) {
                 setTile(x, y, z, block.getNbtData());
@@ -726,14 +1007,20 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B b
     public <B extends BlockStateHolder<B>> boolean setBlock(int i, B block) {
         try {
             int ordinal = block.getOrdinal();
-            int index = headerSize + (i << 2);
-            byteBuffer.putInt(index, ordinal);
+            if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                ordinal = BlockTypesCache.ReservedIDs.AIR;
+            }
+            int y = i / getArea();
+            int newI = i - y * getArea();
+            int z = newI / getWidth();
+            int x = newI - z * getWidth();
+            if (sectioned) {
+                setSectionOrdinal(x, y, z, ordinal);
+            } else {
+                byteBuffer.putInt(headerSize + (i << 2), ordinal);
+            }
             boolean hasNbt = block instanceof BaseBlock && block.hasNbtData();
             if (hasNbt) {
-                int y = i / getArea();
-                int newI = i - y * getArea();
-                int z = newI / getWidth();
-                int x = newI - z * getWidth();
                 setTile(x, y, z, block.getNbtData());
             }
             return true;
@@ -743,6 +1030,29 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int i, B block) {
         return false;
     }
 
+    @Override
+    public void setOrdinals(int index, int[] ordinals, int offset, int length) {
+        if (!sectioned) {
+            byteBuffer.slice(headerSize + (index << 2), length << 2).asIntBuffer().put(ordinals, offset, length);
+            return;
+        }
+        int y = index / getArea();
+        int newI = index - y * getArea();
+        int z = newI / getWidth();
+        int x = newI - z * getWidth();
+        for (int i = 0; i < length; i++) {
+            int ordinal = ordinals[offset + i];
+            setSectionOrdinal(x, y, z, ordinal == BlockTypesCache.ReservedIDs.__RESERVED__ ? BlockTypesCache.ReservedIDs.AIR : ordinal);
+            if (++x == getWidth()) {
+                x = 0;
+                if (++z == getLength()) {
+                    z = 0;
+                    y++;
+                }
+            }
+        }
+    }
+
     private static class LockHolder {
 
         final FileLock lock;
@@ -20,6 +20,7 @@
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -44,6 +45,23 @@ public LinearClipboard(BlockVector3 dimensions, BlockVector3 offset) {
     // We shouldn't expose methods that directly reference the index as people cannot be trusted to use it properly.
     public abstract <B extends BlockStateHolder<B>> boolean setBlock(int i, B block);
 
+    /**
+     * Set a run of consecutive blocks by their state ordinals, starting at the given index. Ordinals must be valid and not
+     * reserved. Implementations may write directly into their storage, so this is considerably faster than setting each
+     * block individually when filling the clipboard, e.g. from a schematic.
+     *
+     * @param index    the index of the first block to set
+     * @param ordinals the state ordinals to set
+     * @param offset   the offset of the first ordinal in the array
+     * @param length   the number of blocks to set
+     * @since 2.13.1
+     */
+    public void setOrdinals(int index, int[] ordinals, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            setBlock(index + i, BlockTypesCache.states[ordinals[offset + i]]);
+        }
+    }
+
     public abstract BaseBlock getFullBlock(int i);
 
     public abstract BlockState getBlock(int i);
@@ -24,6 +24,7 @@
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class MemoryOptimizedClipboard extends LinearClipboard {
 
@@ -38,12 +39,18 @@ public class MemoryOptimizedClipboard extends LinearClipboard {
 
     private final HashMap<IntTriple, CompoundTag> nbtMap;
 
+    // Decompressed blocks, evicted in approximate LRU order (clock). Loading and eviction is guarded by the monitor of this
+    // clipboard, reads of blocks that are already cached are not, so the clipboard may be read by multiple threads at once.
+    private final AtomicReferenceArray<byte[]> cached;
+    private final boolean[] referenced;
+    private final boolean[] dirty;
+    private final int maxCached;
+    private int cachedCount;
+    private int clockHand;
 
-    private int lastOrdinalsI = -1;
-
-    private byte[] lastOrdinals;
-
-    private boolean saveOrdinals = false;
+    // The block currently written to, which is never evicted
+    private int writeOrdinalsI = -1;
+    private byte[] writeOrdinals;
 
     private final int compressionLevel;
 
@@ -54,6 +61,10 @@ public MemoryOptimizedClipboard(Region region) {
     public MemoryOptimizedClipboard(Region region, int compressionLevel) {
         super(region.getDimensions(), region.getMinimumPoint());
         states = new byte[1 + (getVolume() >> BLOCK_SHIFT)][];
+        cached = new AtomicReferenceArray<>(states.length);
+        referenced = new boolean[states.length];
+        dirty = new boolean[states.length];
+        maxCached = Math.max(1, Settings.settings().CLIPBOARD.MEMORY_CACHED_SECTIONS);
         nbtMap = new HashMap<>();
         this.compressionLevel = compressionLevel;
     }
@@ -122,28 +133,99 @@ public BiomeType getBiome(BlockVector3 position) {
 
     private int getOrdinal(int index) {
         int i = index >> BLOCK_SHIFT;
+        byte[] ordinals = cached.get(i);
+        if (ordinals != null) {
+            if (!referenced[i]) {
+                referenced[i] = true;
+            }
+        } else if (states[i] == null || (ordinals = load(i, false)) == null) {
+            return 0;
+        }
         int li = (index & BLOCK_MASK) << 1;
-        if (i != lastOrdinalsI) {
-            saveOrdinals();
-            byte[] compressed = states[lastOrdinalsI = i];
+        return (((ordinals[li] & 0xFF) << 8) + (ordinals[li + 1] & 0xFF));
+    }
+
+    /**
+     * Get the decompressed block, caching it
+     *
+     * @param i      block index
+     * @param create if an empty block should be created if there is no data for it
+     * @return decompressed block, or null if there is no data and create is false
+     */
+    private synchronized byte[] load(int i, boolean create) {
+        byte[] ordinals = cached.get(i);
+        if (ordinals == null) {
+            byte[] compressed = states[i];
             if (compressed != null) {
-                lastOrdinals = MainUtil.decompress(compressed, lastOrdinals, BLOCK_SIZE, compressionLevel);
+                ordinals = MainUtil.decompress(compressed, null, BLOCK_SIZE, compressionLevel);
+            } else if (create) {
+                ordinals = new byte[BLOCK_SIZE];
             } else {
-                lastOrdinals = null;
-                return 0;
+                return null;
+            }
+            cached.set(i, ordinals);
+            cachedCount++;
+            // Evict after inserting so no more than maxCached blocks stay resident, unless the block being written to is one of
+            // them and is read by another thread
+            while (cachedCount > maxCached) {
+                if (!evict(i)) {
+                    break;
+                }
             }
         }
-        if (lastOrdinals == null) {
-            return 0;
+        referenced[i] = true;
+        return ordinals;
+    }
+
+    /**
+     * Evict one cached block, other than the given block or the block currently written to.
+     *
+     * @param keep block index that must stay cached
+     * @return false if no block could be evicted
+     */
+    private boolean evict(int keep) {
+        // Clear referenced flags for at most two rounds, readers may set them again concurrently
+        for (int step = 0; step < states.length * 2; step++) {
+            int i = clockHand;
+            clockHand = (clockHand + 1) % states.length;
+            byte[] ordinals = cached.get(i);
+            if (ordinals == null || i == keep || i == writeOrdinalsI) {
+                continue;
+            }
+            if (referenced[i] && step < states.length) {
+                referenced[i] = false;
+                continue;
+            }
+            if (dirty[i]) {
+                states[i] = MainUtil.compress(ordinals, buffer, compressionLevel);
+                dirty[i] = false;
+            }
+            // Readers still holding the evicted array keep reading valid data, so it is not reused
+            cached.set(i, null);
+            cachedCount--;
+            return true;
         }
-        return (((lastOrdinals[li] & 0xFF) << 8) + (lastOrdinals[li + 1] & 0xFF));
+        return false;
     }
 
-    private void saveOrdinals() {
-        if (saveOrdinals && lastOrdinals != null) {
-            states[lastOrdinalsI] = MainUtil.compress(lastOrdinals, buffer, compressionLevel);
+    private synchronized void saveOrdinals() {
+        for (int i = 0; i < states.length; i++) {
+            byte[] ordinals = cached.get(i);
+            if (ordinals != null && dirty[i]) {
+                states[i] = MainUtil.compress(ordinals, buffer, compressionLevel);
+                dirty[i] = i == writeOrdinalsI;
+            }
         }
-        saveOrdinals = false;
+    }
+
+    private synchronized byte[] loadForWrite(int i) {
+        // The previous block written to is no longer pinned, so it may be evicted to make room for this one
+        writeOrdinalsI = i;
+        writeOrdinals = null;
+        byte[] ordinals = load(i, true);
+        dirty[i] = true;
+        writeOrdinals = ordinals;
+        return ordinals;
     }
 
     private int lastI;
@@ -161,26 +243,19 @@ private int getLocalIndex(int index) {
 
     private void setOrdinal(int index, int v) {
         int i = getLocalIndex(index);
-        if (i != lastOrdinalsI) {
-            saveOrdinals();
-            byte[] compressed = states[lastOrdinalsI = i];
-            if (compressed != null) {
-                lastOrdinals = MainUtil.decompress(compressed, lastOrdinals, BLOCK_SIZE, compressionLevel);
-            } else {
-                lastOrdinals = null;
-            }
-        }
-        if (lastOrdinals == null) {
-            BlockType bt = BlockTypes.getFromStateOrdinal(v);
-            if (bt.getMaterial().isAir()) {
-                return;
+        byte[] ordinals = writeOrdinals;
+        if (i != writeOrdinalsI || ordinals == null) {
+            if (states[i] == null && cached.get(i) == null) {
+                BlockType bt = BlockTypes.getFromStateOrdinal(v);
+                if (bt.getMaterial().isAir()) {
+                    return;
+                }
             }
-            lastOrdinals = new byte[BLOCK_SIZE];
+            ordinals = loadForWrite(i);
         }
         int li = (index & BLOCK_MASK) << 1;
-        lastOrdinals[li] = (byte) ((v >>> 8) & 0xFF);
-        lastOrdinals[li + 1] = (byte) (v & 0xFF);
-        saveOrdinals = true;
+        ordinals[li] = (byte) ((v >>> 8) & 0xFF);
+        ordinals[li + 1] = (byte) (v & 0xFF);
     }
 
     @Override
@@ -293,4 +368,11 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int index, B block) {
         return true;
     }
 
+    @Override
+    public void setOrdinals(int index, int[] ordinals, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            setOrdinal(index + i, ordinals[offset + i]);
+        }
+    }
+
 }
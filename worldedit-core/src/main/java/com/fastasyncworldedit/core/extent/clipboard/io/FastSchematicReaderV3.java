@@ -2,8 +2,9 @@
 
 import com.fastasyncworldedit.core.extent.clipboard.LinearClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.SimpleClipboard;
+import com.fastasyncworldedit.core.internal.io.ReadAheadInputStream;
 import com.fastasyncworldedit.core.internal.io.ResettableFileInputStream;
-import com.fastasyncworldedit.core.internal.io.VarIntStreamIterator;
+import com.fastasyncworldedit.core.internal.io.VarIntBatchReader;
 import com.fastasyncworldedit.core.math.MutableBlockVector3;
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
 import com.fastasyncworldedit.core.util.IOUtil;
@@ -80,6 +81,7 @@ public class FastSchematicReaderV3 implements ClipboardReader {
     private static final byte CACHE_IDENTIFIER_BIOMES = 0x02;
     private static final byte CACHE_IDENTIFIER_ENTITIES = 0x03;
     private static final byte CACHE_IDENTIFIER_BLOCK_TILE_ENTITIES = 0x04;
+    private static final int PALETTE_DATA_BATCH_SIZE = 1 << 12;
 
     private final InputStream parentStream;
     private final MutableBlockVector3 dimensions = MutableBlockVector3.at(0, 0, 0);
@@ -87,6 +89,7 @@ public class FastSchematicReaderV3 implements ClipboardReader {
 
     private DataInputStream dataInputStream;
     private NBTInputStream nbtInputStream;
+    private ReadAheadInputStream readAhead;
 
     private VersionedDataFixer dataFixer;
     private BlockVector3 offset;
@@ -549,16 +552,27 @@ private void readPalette(
 
     private void readPaletteData(DataInputStream stream, PaletteDataApplier applier) throws IOException {
         int length = stream.readInt();
-        // Write data into clipboard
+        // Write data into clipboard, in batches so linear clipboards can be filled directly
+        int[] batch = new int[PALETTE_DATA_BATCH_SIZE];
         int i = 0;
         if (needsVarIntReading(length)) {
-            for (var iter = new VarIntStreamIterator(stream, length); iter.hasNext(); i++) {
-                applier.apply(i, (char) iter.nextInt());
+            VarIntBatchReader reader = new VarIntBatchReader(stream, length);
+            int read;
+            while ((read = reader.read(batch, 0, batch.length)) > 0) {
+                applier.applyBatch(i, batch, read);
+                i += read;
             }
             return;
         }
+        byte[] bytes = new byte[Math.min(length, batch.length)];
         while (i < length) {
-            applier.apply(i++, (char) stream.readUnsignedByte());
+            int read = Math.min(length - i, bytes.length);
+            stream.readFully(bytes, 0, read);
+            for (int j = 0; j < read; j++) {
+                batch[j] = bytes[j] & 0xFF;
+            }
+            applier.applyBatch(i, batch, read);
+            i += read;
         }
     }
 
@@ -595,7 +609,25 @@ private void indexToPosition(int index, PositionConsumer supplier) {
 
     private PaletteDataApplier getBlockWriter(Clipboard target) {
         if (target instanceof LinearClipboard linearClipboard) {
-            return (index, ordinal) -> linearClipboard.setBlock(index, this.blockPalette[ordinal]);
+            return new PaletteDataApplier() {
+                @Override
+                public void apply(int index, char ordinal) {
+                    linearClipboard.setBlock(index, blockPalette[ordinal]);
+                }
+
+                @Override
+                public void applyBatch(int index, int[] ordinals, int length) {
+                    // setOrdinals skips the mapping of reserved to air setBlock does
+                    for (int i = 0; i < length; i++) {
+                        int ordinal = blockPalette[ordinals[i]].getOrdinal();
+                        if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                            ordinal = BlockTypesCache.ReservedIDs.AIR;
+                        }
+                        ordinals[i] = ordinal;
+                    }
+                    linearClipboard.setOrdinals(index, ordinals, 0, length);
+                }
+            };
         }
         return (index, ordinal) -> indexToPosition(index, (x, y, z) -> target.setBlock(x, y, z, this.blockPalette[ordinal]));
     }
@@ -671,6 +703,9 @@ private boolean areDimensionsAvailable() {
      */
     @Override
     public void close() throws IOException {
+        if (this.readAhead != null) {
+            this.readAhead.stop();
+        }
         parentStream.close(); // closes all underlying resources implicitly
     }
 
@@ -682,6 +717,7 @@ public void close() throws IOException {
      */
     private void reset() throws IOException {
         if (this.supportsReset()) {
+            this.readAhead.stop();
             this.parentStream.reset();
             this.parentStream.mark(Integer.MAX_VALUE);
             this.setSubStreams();
@@ -701,7 +737,9 @@ private boolean supportsReset() {
      * @throws IOException on I/O error.
      */
     private void setSubStreams() throws IOException {
-        final FastBufferedInputStream buffer = new FastBufferedInputStream(new GZIPInputStream(this.parentStream));
+        // Decompress on another thread while the data already decompressed is being decoded
+        this.readAhead = new ReadAheadInputStream(new GZIPInputStream(this.parentStream));
+        final FastBufferedInputStream buffer = new FastBufferedInputStream(this.readAhead);
         this.dataInputStream = new DataInputStream(buffer);
         this.nbtInputStream = new NBTInputStream(buffer);
     }
@@ -821,6 +859,19 @@ private interface PaletteDataApplier {
          */
         void apply(int index, char ordinal);
 
+        /**
+         * Called for consecutive palette data entries, starting at the given index.
+         *
+         * @param index    The index of the first data entry.
+         * @param ordinals The ordinals of the entries as defined in the palette mapping. May be modified by the applier.
+         * @param length   The number of entries.
+         */
+        default void applyBatch(int index, int[] ordinals, int length) {
+            for (int i = 0; i < length; i++) {
+                apply(index + i, (char) ordinals[i]);
+            }
+        }
+
     }
 
     @ApiStatus.Internal
@@ -3,6 +3,7 @@
 import com.fastasyncworldedit.core.Fawe;
 import com.fastasyncworldedit.core.function.visitor.Order;
 import com.fastasyncworldedit.core.internal.io.FaweOutputStream;
+import com.fastasyncworldedit.core.internal.io.WriteBehindOutputStream;
 import com.fastasyncworldedit.core.jnbt.streamer.IntValueReader;
 import com.fastasyncworldedit.core.math.MutableBlockVector3;
 import com.fastasyncworldedit.core.util.IOUtil;
@@ -127,65 +128,66 @@ private void write2(Clipboard clipboard) throws IOException {
             });
 
             ByteArrayOutputStream blocksCompressed = new ByteArrayOutputStream();
-            FaweOutputStream blocksOut = new FaweOutputStream(new DataOutputStream(new LZ4BlockOutputStream(blocksCompressed)));
-
             ByteArrayOutputStream tilesCompressed = new ByteArrayOutputStream();
-            NBTOutputStream tilesOut = new NBTOutputStream(new LZ4BlockOutputStream(tilesCompressed));
 
             List<Integer> paletteList = new ArrayList<>();
             char[] palette = new char[BlockTypesCache.states.length];
             Arrays.fill(palette, Character.MAX_VALUE);
             int paletteMax = 0;
             int numTiles = 0;
+            int blocksSize;
             Clipboard finalClipboard;
             if (clipboard instanceof BlockArrayClipboard) {
                 finalClipboard = ((BlockArrayClipboard) clipboard).getParent();
             } else {
                 finalClipboard = clipboard;
             }
-            Iterator<BlockVector3> iterator = finalClipboard.iterator(Order.YZX);
-            while (iterator.hasNext()) {
-                BlockVector3 pos = iterator.next();
-                BaseBlock block = pos.getFullBlock(finalClipboard);
-                CompoundTag nbt = block.getNbtData();
-                if (nbt != null) {
-                    Map<String, Tag<?, ?>> values = new HashMap<>(nbt.getValue());
-
-                    // Positions are kept in NBT, we don't want that.
-                    values.remove("x");
-                    values.remove("y");
-                    values.remove("z");
-                    values.put("Id", new StringTag(block.getNbtId()));
-
-                    // Remove 'id' if it exists. We want 'Id'.
-                    // Do this after we get "getNbtId" cos otherwise "getNbtId" doesn't work.
-                    // Dum.
-                    values.remove("id");
-                    values.put("Pos", new IntArrayTag(new int[]{
-                            pos.x(),
-                            pos.y(),
-                            pos.z()
-                    }));
-                    numTiles++;
-
-                    tilesOut.writeTagPayload(new CompoundTag(values));
-                }
+            // Closed on failure too, ending the thread writing behind
+            try (FaweOutputStream blocksOut = new FaweOutputStream(new DataOutputStream(
+                    new WriteBehindOutputStream(new LZ4BlockOutputStream(blocksCompressed))));
+                 NBTOutputStream tilesOut = new NBTOutputStream(new LZ4BlockOutputStream(tilesCompressed))) {
+                Iterator<BlockVector3> iterator = finalClipboard.iterator(Order.YZX);
+                while (iterator.hasNext()) {
+                    BlockVector3 pos = iterator.next();
+                    BaseBlock block = pos.getFullBlock(finalClipboard);
+                    CompoundTag nbt = block.getNbtData();
+                    if (nbt != null) {
+                        Map<String, Tag<?, ?>> values = new HashMap<>(nbt.getValue());
+
+                        // Positions are kept in NBT, we don't want that.
+                        values.remove("x");
+                        values.remove("y");
+                        values.remove("z");
+                        values.put("Id", new StringTag(block.getNbtId()));
+
+                        // Remove 'id' if it exists. We want 'Id'.
+                        // Do this after we get "getNbtId" cos otherwise "getNbtId" doesn't work.
+                        // Dum.
+                        values.remove("id");
+                        values.put("Pos", new IntArrayTag(new int[]{
+                                pos.x(),
+                                pos.y(),
+                                pos.z()
+                        }));
+                        numTiles++;
+
+                        tilesOut.writeTagPayload(new CompoundTag(values));
+                    }
 
-                int ordinal = block.getOrdinal();
-                if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
-                    ordinal = BlockTypesCache.ReservedIDs.AIR;
-                }
-                char value = palette[ordinal];
-                if (value == Character.MAX_VALUE) {
-                    int size = paletteMax++;
-                    palette[ordinal] = value = (char) size;
-                    paletteList.add(ordinal);
+                    int ordinal = block.getOrdinal();
+                    if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                        ordinal = BlockTypesCache.ReservedIDs.AIR;
+                    }
+                    char value = palette[ordinal];
+                    if (value == Character.MAX_VALUE) {
+                        int size = paletteMax++;
+                        palette[ordinal] = value = (char) size;
+                        paletteList.add(ordinal);
+                    }
+                    blocksOut.writeVarInt(value);
                 }
-                blocksOut.writeVarInt(value);
+                blocksSize = blocksOut.size();
             }
-            // close
-            tilesOut.close();
-            blocksOut.close();
 
             out.writeNamedTag("PaletteMax", paletteMax);
 
@@ -198,7 +200,7 @@ private void write2(Clipboard clipboard) throws IOException {
             });
 
             out.writeNamedTagName("BlockData", NBTConstants.TYPE_BYTE_ARRAY);
-            rawStream.writeInt(blocksOut.size());
+            rawStream.writeInt(blocksSize);
             try (LZ4BlockInputStream in = new LZ4BlockInputStream(new ByteArrayInputStream(blocksCompressed.toByteArray()))) {
                 IOUtil.copy(in, rawStream);
             }
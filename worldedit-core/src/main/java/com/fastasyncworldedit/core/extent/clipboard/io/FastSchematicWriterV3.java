@@ -1,6 +1,7 @@
 package com.fastasyncworldedit.core.extent.clipboard.io;
 
 import com.fastasyncworldedit.core.function.visitor.Order;
+import com.fastasyncworldedit.core.internal.io.WriteBehindOutputStream;
 import com.fastasyncworldedit.core.util.IOUtil;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTConstants;
@@ -26,6 +27,7 @@
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -223,7 +225,8 @@ private <T> void writePalette(
     ) throws IOException {
         int dataBytesUsed = 0;
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        try (LZ4BlockOutputStream dataOut = new LZ4BlockOutputStream(bytes)) {
+        // Compressed on another thread while the clipboard is being read
+        try (OutputStream dataOut = new WriteBehindOutputStream(new LZ4BlockOutputStream(bytes))) {
             int index = 0;
             char[] palette = new char[capacity];
             Arrays.fill(palette, Character.MAX_VALUE);
@@ -252,7 +255,6 @@ private <T> void writePalette(
             }
             // End Palette tag
             out.write(NBTConstants.TYPE_END);
-            dataOut.finish();
         } finally {
             // Write Data tag
             if (dataBytesUsed > 0) {
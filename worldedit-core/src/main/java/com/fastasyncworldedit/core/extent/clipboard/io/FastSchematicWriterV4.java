@@ -1,6 +1,7 @@
 package com.fastasyncworldedit.core.extent.clipboard.io;
 
 import com.fastasyncworldedit.core.function.visitor.Order;
+import com.fastasyncworldedit.core.internal.io.WriteBehindOutputStream;
 import com.fastasyncworldedit.core.util.IOUtil;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTConstants;
@@ -26,6 +27,7 @@
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -175,7 +177,8 @@ private void writeBiomes(NBTOutputStream biomes, Clipboard clipboard) throws IOE
         Function<BiomeType, String> paletteEntryResolver = BiomeType::id;
         int dataBytesUsed = 0;
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        try (LZ4BlockOutputStream dataOut = new LZ4BlockOutputStream(bytes)) {
+        // Compressed on another thread while the clipboard is being read
+        try (OutputStream dataOut = new WriteBehindOutputStream(new LZ4BlockOutputStream(bytes))) {
             int index = 0;
             char[] palette = new char[capacity];
             Arrays.fill(palette, Character.MAX_VALUE);
@@ -204,7 +207,6 @@ private void writeBiomes(NBTOutputStream biomes, Clipboard clipboard) throws IOE
             }
             // End Palette tag
             out.write(NBTConstants.TYPE_END);
-            dataOut.finish();
         } finally {
             // Write Data tag
             if (dataBytesUsed > 0) {
@@ -269,7 +271,8 @@ private <T> void writePalette(
     ) throws IOException {
         int dataBytesUsed = 0;
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        try (LZ4BlockOutputStream dataOut = new LZ4BlockOutputStream(bytes)) {
+        // Compressed on another thread while the clipboard is being read
+        try (OutputStream dataOut = new WriteBehindOutputStream(new LZ4BlockOutputStream(bytes))) {
             int index = 0;
             int[] palette = new int[capacity];
             Arrays.fill(palette, Integer.MAX_VALUE);
@@ -298,7 +301,6 @@ private <T> void writePalette(
             }
             // End Palette tag
             out.write(NBTConstants.TYPE_END);
-            dataOut.finish();
         } finally {
             // Write Data tag
             if (dataBytesUsed > 0) {
@@ -0,0 +1,114 @@
+package com.fastasyncworldedit.core.extent.filter;
+
+import com.fastasyncworldedit.core.extent.filter.block.FilterBlock;
+import com.fastasyncworldedit.core.math.MutableBlockVector3;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.biome.BiomeType;
+
+import javax.annotation.Nullable;
+
+/**
+ * Copies blocks from a source extent into the blocks filtered, offset by a translation. Applied to the destination region,
+ * so that e.g. a {@link com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent} can copy each destination
+ * chunk on its own thread. The source must support being read by multiple threads at once.
+ *
+ * @since 2.13.1
+ */
+public class ExtentCopyFilter extends ForkedFilter<ExtentCopyFilter> {
+
+    private final Extent source;
+    private final BlockVector3 translation;
+    private final Mask sourceMask;
+    private final boolean copyBiomes;
+    private final MutableBlockVector3 sourcePosition = new MutableBlockVector3();
+    private int copied;
+    private int biomesCopied;
+    private int affected;
+
+    /**
+     * New instance.
+     *
+     * @param source      the extent to copy from
+     * @param translation the offset from source to destination positions
+     * @param sourceMask  the mask source positions must match to be copied, or null to copy every position
+     * @param copyBiomes  if biomes should be copied along with blocks
+     */
+    public ExtentCopyFilter(Extent source, BlockVector3 translation, @Nullable Mask sourceMask, boolean copyBiomes) {
+        super(null);
+        this.source = source;
+        this.translation = translation;
+        this.sourceMask = sourceMask;
+        this.copyBiomes = copyBiomes;
+    }
+
+    private ExtentCopyFilter(ExtentCopyFilter root) {
+        super(root);
+        this.source = root.source;
+        this.translation = root.translation;
+        // Masks keep state while testing, so each thread needs its own
+        this.sourceMask = root.sourceMask == null ? null : root.sourceMask.copy();
+        this.copyBiomes = root.copyBiomes;
+    }
+
+    @Override
+    public ExtentCopyFilter init() {
+        return new ExtentCopyFilter(this);
+    }
+
+    @Override
+    public void join(ExtentCopyFilter filter) {
+        this.copied += filter.getCopied();
+        this.biomesCopied += filter.getBiomesCopied();
+        this.affected += filter.getAffected();
+    }
+
+    @Override
+    public void applyBlock(FilterBlock block) {
+        int x = block.x() - translation.x();
+        int y = block.y() - translation.y();
+        int z = block.z() - translation.z();
+        sourcePosition.setComponents(x, y, z);
+        boolean changed = false;
+        // Like a biome copy combined with a masked block copy, biomes are copied regardless of the mask
+        if (copyBiomes) {
+            BiomeType biome = source.getBiome(sourcePosition);
+            if (biome != null) {
+                block.setBiome(biome);
+                biomesCopied++;
+                changed = true;
+            }
+        }
+        if (sourceMask == null || sourceMask.test(sourcePosition)) {
+            block.setFullBlock(source.getFullBlock(x, y, z));
+            copied++;
+            changed = true;
+        }
+        if (changed) {
+            affected++;
+        }
+    }
+
+    /**
+     * Get the number of blocks copied by this filter, including those of its forks once joined.
+     */
+    public int getCopied() {
+        return copied;
+    }
+
+    /**
+     * Get the number of biomes copied by this filter, including those of its forks once joined.
+     */
+    public int getBiomesCopied() {
+        return biomesCopied;
+    }
+
+    /**
+     * Get the number of positions a block or biome was copied to, including those of its forks once joined.
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+}
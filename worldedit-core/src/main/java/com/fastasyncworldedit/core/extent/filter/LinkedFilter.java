@@ -5,6 +5,7 @@
 import com.fastasyncworldedit.core.internal.simd.VectorizedFilter;
 import com.fastasyncworldedit.core.queue.Filter;
 import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkGet;
 import com.sk89q.worldedit.regions.Region;
 import jdk.incubator.vector.VectorMask;
 import org.jetbrains.annotations.Nullable;
@@ -41,6 +42,16 @@ public R getRight() {
         return this.right;
     }
 
+    @Override
+    public boolean appliesChunk(int chunkX, int chunkZ) {
+        return getLeft().appliesChunk(chunkX, chunkZ) || getRight().appliesChunk(chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean appliesLayer(IChunkGet get, int layer) {
+        return getLeft().appliesLayer(get, layer) || getRight().appliesLayer(get, layer);
+    }
+
     @Override
     public <T extends IChunk> T applyChunk(T chunk, @Nullable Region region) {
         chunk = getLeft().applyChunk(chunk, region);
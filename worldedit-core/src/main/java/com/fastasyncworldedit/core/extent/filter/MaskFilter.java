@@ -2,13 +2,17 @@
 
 import com.fastasyncworldedit.core.extent.filter.block.DelegateFilter;
 import com.fastasyncworldedit.core.extent.filter.block.FilterBlock;
+import com.fastasyncworldedit.core.function.mask.ABlockMask;
 import com.fastasyncworldedit.core.internal.simd.VectorFacade;
 import com.fastasyncworldedit.core.internal.simd.SimdSupport;
 import com.fastasyncworldedit.core.internal.simd.VectorizedFilter;
 import com.fastasyncworldedit.core.internal.simd.VectorizedMask;
 import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IChunkGet;
 import com.sk89q.worldedit.function.mask.AbstractExtentMask;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskUnion;
 import jdk.incubator.vector.IntVector;
 import jdk.incubator.vector.ShortVector;
 import jdk.incubator.vector.VectorMask;
@@ -51,6 +55,60 @@ public void applyBlock(FilterBlock block) {
         }
     }
 
+    @Override
+    public boolean appliesLayer(IChunkGet get, int layer) {
+        if (canTestOrdinals(mask) && !testAny(mask, get.getSectionOrdinals(layer))) {
+            return false;
+        }
+        return getParent().appliesLayer(get, layer);
+    }
+
+    // Whether the mask depends on nothing but the block, so it can be tested against the ordinals present in a section
+    private static boolean canTestOrdinals(Mask mask) {
+        if (mask instanceof ABlockMask) {
+            return true;
+        }
+        if (mask instanceof MaskUnion union) {
+            for (Mask component : union.getMasksArray()) {
+                if (!canTestOrdinals(component)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (mask instanceof MaskIntersection intersection) {
+            for (Mask component : intersection.getMasksArray()) {
+                if (canTestOrdinals(component)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Only called if canTestOrdinals, components of an intersection that cannot be tested are assumed to pass
+    private static boolean testAny(Mask mask, int[] ordinals) {
+        if (mask instanceof ABlockMask blockMask) {
+            return blockMask.testAny(ordinals);
+        }
+        if (mask instanceof MaskUnion union) {
+            for (Mask component : union.getMasksArray()) {
+                if (testAny(component, ordinals)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (mask instanceof MaskIntersection intersection) {
+            for (Mask component : intersection.getMasksArray()) {
+                if (canTestOrdinals(component) && !testAny(component, ordinals)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the number of blocks which passed the Mask test and were applied to
      *
@@ -84,6 +142,16 @@ public VectorizedMaskFilter(final T other, final Mask root, AtomicInteger change
             this.vectorizedMask = Objects.requireNonNull(SimdSupport.vectorizedTargetMask(root), "invalid vectorizable mask");
         }
 
+        /**
+         * Create a new filter with an already vectorized form of the given mask, avoiding rebuilding lookup tables
+         *
+         * @since 2.13.1
+         */
+        public VectorizedMaskFilter(final T other, final Mask root, AtomicInteger changes, VectorizedMask vectorizedMask) {
+            super(other, root, changes);
+            this.vectorizedMask = Objects.requireNonNull(vectorizedMask, "invalid vectorizable mask");
+        }
+
         @Override
         public void applyVector(final VectorFacade get, final VectorFacade set, final VectorMask<Integer> mask) {
             final T parent = getParent();
@@ -107,7 +175,8 @@ public MaskFilter<?> newInstance(final Filter other) {
         @SuppressWarnings("unchecked")
         @Override
         public Filter fork() {
-            return new VectorizedMaskFilter<>((T) getParent().fork(), mask.copy(), changes);
+            // Vectorized masks hold no per-thread state and can be shared by forks
+            return new VectorizedMaskFilter<>((T) getParent().fork(), mask.copy(), changes, vectorizedMask);
         }
 
     }
@@ -72,7 +72,7 @@ public abstract void filter(
     public synchronized final IChunkSet filter(IChunk chunk, IChunkGet get, IChunkSet set, Filter filter) {
         initChunk(chunk.getX(), chunk.getZ());
         for (int layer = get.getMinSectionPosition(); layer <= get.getMaxSectionPosition(); layer++) {
-            if (set.hasSection(layer)) {
+            if (set.hasSection(layer) && filter.appliesLayer(get, layer)) {
                 initLayer(get, set, layer);
                 filter(filter);
             }
@@ -95,8 +95,7 @@ public synchronized final IChunkSet filter(
             region.filter(chunk, filter, this, get, set, full);
         } else {
             for (int layer = get.getMinSectionPosition(); layer <= get.getMaxSectionPosition(); layer++) {
-                //if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(chunk, layer)) {
-                if (!full && !get.hasSection(layer)) {
+                if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(get, layer)) {
                     continue;
                 }
                 initLayer(get, set, layer);
@@ -8,6 +8,7 @@
 import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder;
 import com.fastasyncworldedit.core.util.MathMan;
 import com.fastasyncworldedit.core.util.TaskManager;
+import com.fastasyncworldedit.core.util.collection.LongRingBuffer;
 import com.fastasyncworldedit.core.util.task.RunnableVal;
 import com.sk89q.worldedit.registry.state.DirectionalProperty;
 import com.sk89q.worldedit.registry.state.EnumProperty;
@@ -16,26 +17,41 @@
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.registry.BlockMaterial;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
 
 public class NMSRelighter implements Relighter {
 
     private static final int DISPATCH_SIZE = 64;
+    /**
+     * Block light updates are grouped into tiles of 2^TILE_SHIFT chunk columns square for parallel relighting
+     */
+    private static final int TILE_SHIFT = 2;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    /**
+     * Number of chunks a block light update can reach beyond its own chunk. Removing a light of level 15 clears up to 14 blocks
+     * away, and light re-spread from the edge of the cleared area can travel up to another 14.
+     */
+    private static final int LIGHT_REACH_CHUNKS = 2;
     private static final DirectionalProperty stairDirection;
     private static final EnumProperty stairHalf;
     private static final EnumProperty stairShape;
@@ -51,12 +67,13 @@ public class NMSRelighter implements Relighter {
     public final MutableBlockVector3 mutableBlockPos = new MutableBlockVector3(0, 0, 0);
     private final IQueueExtent<?> queue;
     private final Map<Long, RelightSkyEntry> skyToRelight;
-    private final Object present = new Object();
     private final Map<Long, Integer> chunksToSend;
     private final ConcurrentLinkedQueue<RelightSkyEntry> extendSkyToRelight = new ConcurrentLinkedQueue<>();
-    private final Map<Long, long[][][] /* z y x */> lightQueue;
+    // Chunk key to per-section bitsets of positions (index (y & 15) << 8 | (z & 15) << 4 | (x & 15))
+    private final Map<Long, long[][]> lightQueue;
     private final AtomicBoolean lightLock = new AtomicBoolean(false);
-    private final ConcurrentHashMap<Long, long[][][]> concurrentLightQueue;
+    private final ConcurrentHashMap<Long, long[][]> concurrentLightQueue;
+    private final ConcurrentLinkedQueue<Propagation> propagations = new ConcurrentLinkedQueue<>();
     private final RelightMode relightMode;
     private final int maxY;
     private final int minY;
@@ -103,25 +120,26 @@ public synchronized void removeAndRelight(boolean sky) {
     }
 
     /**
-     * Utility method to reduce duplicated code to ensure values are written to long[][][] without NPEs
+     * Utility method to reduce duplicated code to ensure values are written to the per-section bitsets without NPEs
      *
-     * @param x   x coordinate
-     * @param y   y coordinate
-     * @param z   z coordinate
-     * @param map long[][][] to add values to
+     * @param x        x coordinate
+     * @param y        y coordinate
+     * @param z        z coordinate
+     * @param sections per-section bitsets to add values to
      */
-    private void set(int x, int y, int z, long[][][] map) {
-        long[][] m1 = map[z];
-        if (m1 == null) {
-            m1 = map[z] = new long[16][];
-        }
-        long[] m2 = m1[x];
-        if (m2 == null) {
-            m2 = m1[x] = new long[4];
-        }
+    private void set(int x, int y, int z, long[][] sections) {
         // Account for negative y values by "adding" minY
-        y -= minY;
-        m2[y >> 6] |= 1L << y;
+        int layer = (y - minY) >> 4;
+        long[] bits = sections[layer];
+        if (bits == null) {
+            bits = sections[layer] = new long[64];
+        }
+        int index = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        bits[index >> 6] |= 1L << index;
+    }
+
+    private long[][] newSections() {
+        return new long[(maxY - minY + 1) >> 4][];
     }
 
     public void addLightUpdate(int x, int y, int z) {
@@ -129,25 +147,42 @@ public void addLightUpdate(int x, int y, int z) {
         if (lightLock.compareAndSet(false, true)) {
             synchronized (lightQueue) {
                 try {
-                    long[][][] currentMap = lightQueue.get(index);
-                    if (currentMap == null) {
-                        currentMap = new long[16][][];
-                        this.lightQueue.put(index, currentMap);
+                    long[][] currentMap = lightQueue.computeIfAbsent(index, k -> newSections());
+                    set(x, y, z, currentMap);
+                    if (!concurrentLightQueue.isEmpty()) {
+                        Iterator<Map.Entry<Long, long[][]>> iter = concurrentLightQueue.entrySet().iterator();
+                        while (iter.hasNext()) {
+                            Map.Entry<Long, long[][]> entry = iter.next();
+                            iter.remove();
+                            long[][] existing = lightQueue.putIfAbsent(entry.getKey(), entry.getValue());
+                            if (existing != null) {
+                                merge(existing, entry.getValue());
+                            }
+                        }
                     }
-                    set(x & 15, y, z & 15, currentMap);
-                    this.lightQueue.putAll(concurrentLightQueue);
-                    concurrentLightQueue.clear();
                 } finally {
                     lightLock.set(false);
                 }
             }
         } else {
-            long[][][] currentMap = concurrentLightQueue.get(index);
-            if (currentMap == null) {
-                currentMap = new long[16][][];
-                this.concurrentLightQueue.put(index, currentMap);
+            long[][] currentMap = concurrentLightQueue.computeIfAbsent(index, k -> newSections());
+            set(x, y, z, currentMap);
+        }
+    }
+
+    private static void merge(long[][] into, long[][] from) {
+        for (int layer = 0; layer < from.length; layer++) {
+            long[] bits = from[layer];
+            if (bits == null) {
+                continue;
+            }
+            if (into[layer] == null) {
+                into[layer] = bits;
+                continue;
+            }
+            for (int i = 0; i < bits.length; i++) {
+                into[layer][i] |= bits[i];
             }
-            set(x & 15, y, z & 15, currentMap);
         }
     }
 
@@ -200,187 +235,196 @@ public synchronized void removeLighting() {
         }
     }
 
-    public void updateBlockLight(Map<Long, long[][][]> map) {
-        int size = map.size();
-        if (size == 0) {
+    /**
+     * Update block light from the given pending positions, removing entries from the map as they are processed. Chunk columns
+     * are grouped into tiles of {@link #TILE_SIZE} x {@link #TILE_SIZE} columns. Tiles far enough apart that their light cannot
+     * reach the same chunks are relit in parallel on the {@link #getRelightPool() relight pool}.
+     *
+     * @param map chunk key to per-section bitsets of positions to update, see {@link #addLightUpdate(int, int, int)}
+     */
+    public void updateBlockLight(Map<Long, long[][]> map) {
+        if (map.isEmpty()) {
             return;
         }
-        Queue<MutableBlockVector3> lightPropagationQueue = new ArrayDeque<>(32);
-        Queue<Object[]> lightRemovalQueue = new ArrayDeque<>(32);
-        Map<MutableBlockVector3, Object> visited = new HashMap<>(32);
-        Map<MutableBlockVector3, Object> removalVisited = new HashMap<>(32);
-
         // Make sure BlockTypes is initialised so we can check block characteristics later if needed
         BlockTypes.STONE.getMaterial();
 
-        Iterator<Map.Entry<Long, long[][][]>> iter = map.entrySet().iterator();
-        while (iter.hasNext() && size-- > 0) {
-            Map.Entry<Long, long[][][]> entry = iter.next();
+        Long2ObjectOpenHashMap<Long2ObjectOpenHashMap<long[][]>> tiles = new Long2ObjectOpenHashMap<>();
+        Iterator<Map.Entry<Long, long[][]>> iter = map.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<Long, long[][]> entry = iter.next();
             long index = entry.getKey();
-            long[][][] blocks = entry.getValue();
             int chunkX = MathMan.unpairIntX(index);
             int chunkZ = MathMan.unpairIntY(index);
-            int bx = chunkX << 4;
-            int bz = chunkZ << 4;
-            ChunkHolder<?> iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(chunkX, chunkZ);
-            if (!iChunk.isInit()) {
-                iChunk.init(queue, chunkX, chunkZ);
-            }
-            for (int lz = 0; lz < blocks.length; lz++) {
-                long[][] m1 = blocks[lz];
-                if (m1 == null) {
-                    continue;
+            long tile = MathMan.pairInt(chunkX >> TILE_SHIFT, chunkZ >> TILE_SHIFT);
+            tiles.computeIfAbsent(tile, k -> new Long2ObjectOpenHashMap<>()).put(index, entry.getValue());
+            iter.remove();
+        }
+
+        ExecutorService pool = getRelightPool();
+        if (tiles.size() == 1 || Settings.settings().QUEUE.PARALLEL_THREADS <= 1 || pool == null) {
+            Propagation propagation = takePropagation(false);
+            try {
+                for (Long2ObjectOpenHashMap<long[][]> tile : tiles.values()) {
+                    propagation.run(tile);
                 }
-                for (int lx = 0; lx < m1.length; lx++) {
-                    long[] m2 = m1[lx];
-                    if (m2 == null) {
-                        continue;
+            } finally {
+                releasePropagation(propagation);
+            }
+            return;
+        }
+
+        // Tiles of the same colour are at least one tile apart, so their footprints (tile plus LIGHT_REACH_CHUNKS) are disjoint
+        List<List<Long2ObjectOpenHashMap<long[][]>>> colours = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            colours.add(new ArrayList<>());
+        }
+        Long2IntOpenHashMap footprints = new Long2IntOpenHashMap();
+        for (Long2ObjectMap.Entry<Long2ObjectOpenHashMap<long[][]>> entry : tiles.long2ObjectEntrySet()) {
+            int tileX = MathMan.unpairIntX(entry.getLongKey());
+            int tileZ = MathMan.unpairIntY(entry.getLongKey());
+            colours.get((tileX & 1) | (tileZ & 1) << 1).add(entry.getValue());
+            forEachFootprintChunk(tileX, tileZ, key -> footprints.addTo(key, 1));
+        }
+        int waveSize = Settings.settings().QUEUE.PARALLEL_THREADS;
+        for (List<Long2ObjectOpenHashMap<long[][]>> colour : colours) {
+            for (int i = 0; i < colour.size(); i += waveSize) {
+                relightWave(colour.subList(i, Math.min(colour.size(), i + waveSize)), footprints, pool);
+            }
+        }
+    }
+
+    /**
+     * Relight tiles with disjoint footprints in parallel. The queue is disabled while tiles are processed so that chunks in use
+     * by one thread are not submitted by another thread creating a chunk. Afterwards, chunks no remaining tile can reach are
+     * submitted so memory use stays bounded.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void relightWave(
+            List<Long2ObjectOpenHashMap<long[][]>> wave,
+            Long2IntOpenHashMap footprints,
+            ExecutorService pool
+    ) {
+        boolean queueEnabled = queue.isQueueEnabled();
+        if (queueEnabled) {
+            queue.disableQueue();
+        }
+        List<Propagation> used = new ArrayList<>(wave.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>(wave.size());
+            for (Long2ObjectOpenHashMap<long[][]> tile : wave) {
+                Propagation propagation = takePropagation(true);
+                used.add(propagation);
+                futures.add(pool.submit(() -> propagation.run(tile)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException re) {
+                        throw re;
                     }
-                    for (int i = 0; i < m2.length; i++) {
-                        int yStart = i << 6;
-                        long value = m2[i];
-                        if (value != 0) {
-                            for (int j = 0; j < 64; j++) {
-                                if (((value >> j) & 1) == 1) {
-                                    int x = lx + bx;
-                                    int y = yStart + j + minY;
-                                    int z = lz + bz;
-                                    int oldLevel = iChunk.getEmittedLight(lx, y, lz);
-                                    int newLevel = iChunk.getBrightness(lx, y, lz);
-                                    if (oldLevel != newLevel) {
-                                        iChunk.setBlockLight(lx, y, lz, newLevel);
-                                        MutableBlockVector3 node = new MutableBlockVector3(x, y, z);
-                                        if (newLevel < oldLevel) {
-                                            removalVisited.put(node, present);
-                                            lightRemovalQueue.add(new Object[]{node, oldLevel});
-                                        } else {
-                                            visited.put(node, present);
-                                            lightPropagationQueue.add(node);
-                                        }
-                                    }
-                                }
-                            }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            if (queueEnabled) {
+                queue.enableQueue();
+                queueEnabled = false;
+                for (Long2ObjectOpenHashMap<long[][]> tile : wave) {
+                    long first = tile.keySet().iterator().nextLong();
+                    int tileX = MathMan.unpairIntX(first) >> TILE_SHIFT;
+                    int tileZ = MathMan.unpairIntY(first) >> TILE_SHIFT;
+                    forEachFootprintChunk(tileX, tileZ, key -> {
+                        if (footprints.addTo(key, -1) <= 1) {
+                            footprints.remove(key);
+                        }
+                    });
+                }
+                IQueueExtent rawQueue = queue;
+                for (Propagation propagation : used) {
+                    for (Long2ObjectMap.Entry<ChunkHolder<?>> entry : propagation.chunks.long2ObjectEntrySet()) {
+                        if (!footprints.containsKey(entry.getLongKey())) {
+                            rawQueue.submit(entry.getValue());
                         }
                     }
                 }
             }
-            iter.remove();
-        }
-
-        while (!lightRemovalQueue.isEmpty()) {
-            Object[] val = lightRemovalQueue.poll();
-            MutableBlockVector3 node = (MutableBlockVector3) val[0];
-            int lightLevel = (int) val[1];
-
-            this.computeRemoveBlockLight(
-                    node.x() - 1,
-                    node.y(),
-                    node.z(),
-                    lightLevel,
-                    lightRemovalQueue,
-                    lightPropagationQueue,
-                    removalVisited,
-                    visited
-            );
-            this.computeRemoveBlockLight(
-                    node.x() + 1,
-                    node.y(),
-                    node.z(),
-                    lightLevel,
-                    lightRemovalQueue,
-                    lightPropagationQueue,
-                    removalVisited,
-                    visited
-            );
-            if (node.y() > minY) {
-                this.computeRemoveBlockLight(
-                        node.x(),
-                        node.y() - 1,
-                        node.z(),
-                        lightLevel,
-                        lightRemovalQueue,
-                        lightPropagationQueue,
-                        removalVisited,
-                        visited
-                );
-            }
-            if (node.y() < maxY) {
-                this.computeRemoveBlockLight(
-                        node.x(),
-                        node.y() + 1,
-                        node.z(),
-                        lightLevel,
-                        lightRemovalQueue,
-                        lightPropagationQueue,
-                        removalVisited,
-                        visited
-                );
-            }
-            this.computeRemoveBlockLight(
-                    node.x(),
-                    node.y(),
-                    node.z() - 1,
-                    lightLevel,
-                    lightRemovalQueue,
-                    lightPropagationQueue,
-                    removalVisited,
-                    visited
-            );
-            this.computeRemoveBlockLight(
-                    node.x(),
-                    node.y(),
-                    node.z() + 1,
-                    lightLevel,
-                    lightRemovalQueue,
-                    lightPropagationQueue,
-                    removalVisited,
-                    visited
-            );
-        }
-
-        while (!lightPropagationQueue.isEmpty()) {
-            MutableBlockVector3 node = lightPropagationQueue.poll();
-            ChunkHolder<?> iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(node.x() >> 4, node.z() >> 4);
-            if (!iChunk.isInit()) {
-                iChunk.init(queue, node.x() >> 4, node.z() >> 4);
+        } finally {
+            if (queueEnabled) {
+                queue.enableQueue();
             }
-            int lightLevel = iChunk.getEmittedLight(node.x() & 15, node.y(), node.z() & 15);
-            BlockState state = this.queue.getBlock(node.x(), node.y(), node.z());
-            String id = state.getBlockType().id().toLowerCase(Locale.ROOT);
-            if (lightLevel <= 1) {
-                continue;
+            for (Propagation propagation : used) {
+                releasePropagation(propagation);
             }
-            if (id.contains("slab")) {
-                boolean top = state.getState(slabHalf).equalsIgnoreCase("top");
-                computeSlab(node.x(), node.y(), node.z(), lightLevel, lightPropagationQueue, visited, top);
-            } else if (id.contains("stair")) {
-                boolean top = state.getState(stairHalf).equalsIgnoreCase("top");
-                Direction direction = getStairDir(state);
-                String shape = getStairShape(state);
-                computeStair(
-                        node.x(),
-                        node.y(),
-                        node.z(),
-                        lightLevel,
-                        lightPropagationQueue,
-                        visited,
-                        top,
-                        direction,
-                        shape
-                );
-            } else {
-                computeNormal(node.x(), node.y(), node.z(), lightLevel, lightPropagationQueue, visited);
+        }
+    }
+
+    /**
+     * Get the pool tiles are relit on in parallel.
+     *
+     * @return the pool, or null to relight tiles one after another on the calling thread
+     */
+    @Nullable
+    ExecutorService getRelightPool() {
+        Fawe fawe = Fawe.instance();
+        return fawe == null ? null : fawe.getQueueHandler().getForkJoinPoolPrimary();
+    }
+
+    private static void forEachFootprintChunk(int tileX, int tileZ, LongConsumer consumer) {
+        int minX = (tileX << TILE_SHIFT) - LIGHT_REACH_CHUNKS;
+        int minZ = (tileZ << TILE_SHIFT) - LIGHT_REACH_CHUNKS;
+        int maxX = ((tileX + 1) << TILE_SHIFT) - 1 + LIGHT_REACH_CHUNKS;
+        int maxZ = ((tileZ + 1) << TILE_SHIFT) - 1 + LIGHT_REACH_CHUNKS;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                consumer.accept(MathMan.pairInt(x, z));
             }
         }
     }
 
+    private Propagation takePropagation(boolean exclusive) {
+        Propagation propagation = propagations.poll();
+        if (propagation == null) {
+            propagation = new Propagation();
+        }
+        propagation.exclusive = exclusive;
+        return propagation;
+    }
+
+    private void releasePropagation(Propagation propagation) {
+        propagation.reset();
+        propagations.add(propagation);
+    }
+
+    /**
+     * Pack a block position into a long. x and z take 26 bits each (signed), y relative to the world minimum takes 12 bits, so
+     * the low 4 bits of each component are at fixed offsets for section bitset indexing.
+     */
+    private long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y - minY);
+    }
+
+    private static int unpackX(long node) {
+        return (int) (node >> 38);
+    }
+
+    private static int unpackZ(long node) {
+        return (int) (node << 26 >> 38);
+    }
+
+    private int unpackY(long node) {
+        return (int) (node & 0xFFF) + minY;
+    }
+
     private void computeStair(
             int x,
             int y,
             int z,
             int currentLight,
-            Queue<MutableBlockVector3> queue,
-            Map<MutableBlockVector3, Object> visited,
+            Propagation propagation,
             boolean top,
             Direction direction,
             String shape
@@ -392,12 +436,12 @@ private void computeStair(
                     && !shape.equals("inner_right")) || (direction == Direction.EAST && shape.contains("outer")))) {
                 break east;
             }
-            BlockState state = this.queue.getBlock(x + 1, y, z);
+            BlockState state = propagation.getBlock(x + 1, y, z);
             if (!(checkStairEast(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom"))) {
                 break east;
             }
             if (!state.getBlockType().id().toLowerCase(Locale.ROOT).contains("stair")) {
-                this.computeSpreadBlockLight(x + 1, y, z, currentLight, queue, visited);
+                propagation.spread(x + 1, y, z, currentLight);
                 break east;
             }
             Direction otherDir = getStairDir(state);
@@ -436,7 +480,7 @@ private void computeStair(
                     }
                     break;
             }
-            this.computeSpreadBlockLight(x + 1, y, z, currentLight, queue, visited);
+            propagation.spread(x + 1, y, z, currentLight);
         }
         west:
         {
@@ -445,12 +489,12 @@ private void computeStair(
                     && !shape.equals("inner_right")) || (direction == Direction.WEST && shape.contains("outer")))) {
                 break west;
             }
-            BlockState state = this.queue.getBlock(x - 1, y, z);
+            BlockState state = propagation.getBlock(x - 1, y, z);
             if (!(checkStairWest(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom"))) {
                 break west;
             }
             if (!state.getBlockType().id().toLowerCase(Locale.ROOT).contains("stair")) {
-                this.computeSpreadBlockLight(x - 1, y, z, currentLight, queue, visited);
+                propagation.spread(x - 1, y, z, currentLight);
                 break west;
             }
             Direction otherDir = getStairDir(state);
@@ -489,7 +533,7 @@ private void computeStair(
                     }
                     break;
             }
-            this.computeSpreadBlockLight(x - 1, y, z, currentLight, queue, visited);
+            propagation.spread(x - 1, y, z, currentLight);
         }
         south:
         {
@@ -498,12 +542,12 @@ private void computeStair(
                     && !shape.equals("inner_right")) || (direction == Direction.SOUTH && shape.contains("outer")))) {
                 break south;
             }
-            BlockState state = this.queue.getBlock(x, y, z + 1);
+            BlockState state = propagation.getBlock(x, y, z + 1);
             if (!(checkStairSouth(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom"))) {
                 break south;
             }
             if (!state.getBlockType().id().toLowerCase(Locale.ROOT).contains("stair")) {
-                this.computeSpreadBlockLight(x, y, z + 1, currentLight, queue, visited);
+                propagation.spread(x, y, z + 1, currentLight);
                 break south;
             }
             Direction otherDir = getStairDir(state);
@@ -542,7 +586,7 @@ private void computeStair(
                     }
                     break;
             }
-            this.computeSpreadBlockLight(x, y, z + 1, currentLight, queue, visited);
+            propagation.spread(x, y, z + 1, currentLight);
         }
         north:
         {
@@ -551,12 +595,12 @@ private void computeStair(
                     && !shape.equals("inner_right")) || (direction == Direction.NORTH && shape.contains("outer")))) {
                 break north;
             }
-            BlockState state = this.queue.getBlock(x, y, z - 1);
+            BlockState state = propagation.getBlock(x, y, z - 1);
             if (!(checkStairNorth(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom"))) {
                 break north;
             }
             if (!state.getBlockType().id().toLowerCase(Locale.ROOT).contains("stair")) {
-                this.computeSpreadBlockLight(x, y, z - 1, currentLight, queue, visited);
+                propagation.spread(x, y, z - 1, currentLight);
                 break north;
             }
             Direction otherDir = getStairDir(state);
@@ -595,9 +639,9 @@ private void computeStair(
                     }
                     break;
             }
-            this.computeSpreadBlockLight(x, y, z - 1, currentLight, queue, visited);
+            propagation.spread(x, y, z - 1, currentLight);
         }
-        computeUpDown(x, y, z, currentLight, queue, visited, top);
+        computeUpDown(x, y, z, currentLight, propagation, top);
 
     }
 
@@ -606,39 +650,38 @@ private void computeSlab(
             int y,
             int z,
             int currentLight,
-            Queue<MutableBlockVector3> queue,
-            Map<MutableBlockVector3, Object> visited,
+            Propagation propagation,
             boolean top
     ) {
         {
             // Block East
-            BlockState state = this.queue.getBlock(x + 1, y, z);
+            BlockState state = propagation.getBlock(x + 1, y, z);
             if (checkStairEast(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom")) {
-                this.computeSpreadBlockLight(x + 1, y, z, currentLight, queue, visited);
+                propagation.spread(x + 1, y, z, currentLight);
             }
         }
         {
             // Block West
-            BlockState state = this.queue.getBlock(x - 1, y, z);
+            BlockState state = propagation.getBlock(x - 1, y, z);
             if (checkStairWest(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom")) {
-                this.computeSpreadBlockLight(x - 1, y, z, currentLight, queue, visited);
+                propagation.spread(x - 1, y, z, currentLight);
             }
         }
         {
             // Block South
-            BlockState state = this.queue.getBlock(x, y, z + 1);
+            BlockState state = propagation.getBlock(x, y, z + 1);
             if (checkStairSouth(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom")) {
-                this.computeSpreadBlockLight(x, y, z + 1, currentLight, queue, visited);
+                propagation.spread(x, y, z + 1, currentLight);
             }
         }
         {
             // Block North
-            BlockState state = this.queue.getBlock(x, y, z - 1);
+            BlockState state = propagation.getBlock(x, y, z - 1);
             if (checkStairNorth(state) && isStairOrTrueTop(state, top) && isSlabOrTrueValue(state, top ? "top" : "bottom")) {
-                this.computeSpreadBlockLight(x, y, z - 1, currentLight, queue, visited);
+                propagation.spread(x, y, z - 1, currentLight);
             }
         }
-        computeUpDown(x, y, z, currentLight, queue, visited, top);
+        computeUpDown(x, y, z, currentLight, propagation, top);
     }
 
     private void computeUpDown(
@@ -646,17 +689,16 @@ private void computeUpDown(
             int y,
             int z,
             int currentLight,
-            Queue<MutableBlockVector3> queue,
-            Map<MutableBlockVector3, Object> visited,
+            Propagation propagation,
             boolean top
     ) {
-        BlockState state = this.queue.getBlock(x, y - 1, z);
+        BlockState state = propagation.getBlock(x, y - 1, z);
         if (y > 0 && top && isSlabOrTrueValue(state, "bottom") && isStairOrTrueTop(state, false)) {
-            this.computeSpreadBlockLight(x, y - 1, z, currentLight, queue, visited);
+            propagation.spread(x, y - 1, z, currentLight);
         }
-        state = this.queue.getBlock(x, y + 1, z);
+        state = propagation.getBlock(x, y + 1, z);
         if (y < maxY && !top && isSlabOrTrueValue(state, "top") && isStairOrTrueTop(state, true)) {
-            this.computeSpreadBlockLight(x, y + 1, z, currentLight, queue, visited);
+            propagation.spread(x, y + 1, z, currentLight);
         }
     }
 
@@ -665,44 +707,43 @@ private void computeNormal(
             int y,
             int z,
             int currentLight,
-            Queue<MutableBlockVector3> queue,
-            Map<MutableBlockVector3, Object> visited
+            Propagation propagation
     ) {
         {
             // Block East
-            BlockState state = this.queue.getBlock(x + 1, y, z);
+            BlockState state = propagation.getBlock(x + 1, y, z);
             if (checkStairEast(state) && (isSlabOrTrueValue(state, "top") || isSlabOrTrueValue(state, "bottom"))) {
-                this.computeSpreadBlockLight(x + 1, y, z, currentLight, queue, visited);
+                propagation.spread(x + 1, y, z, currentLight);
             }
         }
         {
             // Block West
-            BlockState state = this.queue.getBlock(x - 1, y, z);
+            BlockState state = propagation.getBlock(x - 1, y, z);
             if (checkStairWest(state) && (isSlabOrTrueValue(state, "top") || isSlabOrTrueValue(state, "bottom"))) {
-                this.computeSpreadBlockLight(x - 1, y, z, currentLight, queue, visited);
+                propagation.spread(x - 1, y, z, currentLight);
             }
         }
         {
             // Block South
-            BlockState state = this.queue.getBlock(x, y, z + 1);
+            BlockState state = propagation.getBlock(x, y, z + 1);
             if (checkStairSouth(state) && (isSlabOrTrueValue(state, "top") || isSlabOrTrueValue(state, "bottom"))) {
-                this.computeSpreadBlockLight(x, y, z + 1, currentLight, queue, visited);
+                propagation.spread(x, y, z + 1, currentLight);
             }
         }
         {
             // Block North
-            BlockState state = this.queue.getBlock(x, y, z - 1);
+            BlockState state = propagation.getBlock(x, y, z - 1);
             if (checkStairNorth(state) && (isSlabOrTrueValue(state, "top") || isSlabOrTrueValue(state, "bottom"))) {
-                this.computeSpreadBlockLight(x, y, z - 1, currentLight, queue, visited);
+                propagation.spread(x, y, z - 1, currentLight);
             }
         }
-        BlockState state = this.queue.getBlock(x, y - 1, z);
+        BlockState state = propagation.getBlock(x, y - 1, z);
         if (y > 0 && isSlabOrTrueValue(state, "bottom") && isStairOrTrueTop(state, false)) {
-            this.computeSpreadBlockLight(x, y - 1, z, currentLight, queue, visited);
+            propagation.spread(x, y - 1, z, currentLight);
         }
-        state = this.queue.getBlock(x, y + 1, z);
+        state = propagation.getBlock(x, y + 1, z);
         if (y < maxY && isSlabOrTrueValue(state, "top") && isStairOrTrueTop(state, false)) {
-            this.computeSpreadBlockLight(x, y + 1, z, currentLight, queue, visited);
+            propagation.spread(x, y + 1, z, currentLight);
         }
     }
 
@@ -794,71 +835,6 @@ private boolean isSlabOrTrueValue(BlockState state, String value) {
         return !state.getBlockType().id().contains("slab") || state.getState(slabHalf).equals(value);
     }
 
-    private void computeRemoveBlockLight(
-            int x,
-            int y,
-            int z,
-            int currentLight,
-            Queue<Object[]> queue,
-            Queue<MutableBlockVector3> spreadQueue,
-            Map<MutableBlockVector3, Object> visited,
-            Map<MutableBlockVector3, Object> spreadVisited
-    ) {
-        ChunkHolder<?> iChunk = (ChunkHolder<?>) this.queue.getOrCreateChunk(x >> 4, z >> 4);
-        if (!iChunk.isInit()) {
-            iChunk.init(this.queue, x >> 4, z >> 4);
-        }
-        int current = iChunk.getEmittedLight(x & 15, y, z & 15);
-        if (current != 0 && current < currentLight) {
-            iChunk.setBlockLight(x, y, z, 0);
-            if (current > 1) {
-                mutableBlockPos.setComponents(x, y, z);
-                if (!visited.containsKey(mutableBlockPos)) {
-                    MutableBlockVector3 index = new MutableBlockVector3(x, y, z);
-                    visited.put(index, present);
-                    queue.add(new Object[]{index, current});
-                }
-            }
-        } else if (current >= currentLight) {
-            mutableBlockPos.setComponents(x, y, z);
-            if (!spreadVisited.containsKey(mutableBlockPos)) {
-                MutableBlockVector3 index = new MutableBlockVector3(x, y, z);
-                spreadVisited.put(index, present);
-                spreadQueue.add(index);
-            }
-        }
-    }
-
-    private void computeSpreadBlockLight(
-            int x,
-            int y,
-            int z,
-            int currentLight,
-            Queue<MutableBlockVector3> queue,
-            Map<MutableBlockVector3, Object> visited
-    ) {
-        BlockMaterial material = this.queue.getBlock(x, y, z).getMaterial();
-        boolean solidNeedsLight = (!material.isSolid() || !material.isFullCube()) && material.getLightOpacity() > 0 && material.getLightValue() == 0;
-        currentLight = !solidNeedsLight ? currentLight - Math.max(1, material.getLightOpacity()) : currentLight - 1;
-        if (currentLight > 0) {
-            ChunkHolder<?> iChunk = (ChunkHolder<?>) this.queue.getOrCreateChunk(x >> 4, z >> 4);
-            if (!iChunk.isInit()) {
-                iChunk.init(this.queue, x >> 4, z >> 4);
-            }
-            int current = iChunk.getEmittedLight(x & 15, y, z & 15);
-            if (currentLight > current) {
-                iChunk.setBlockLight(x & 15, y, z & 15, currentLight);
-                mutableBlockPos.setComponents(x, y, z);
-                if (!visited.containsKey(mutableBlockPos)) {
-                    visited.put(new MutableBlockVector3(x, y, z), present);
-                    if (currentLight > 1) {
-                        queue.add(new MutableBlockVector3(x, y, z));
-                    }
-                }
-            }
-        }
-    }
-
     public void fixLightingSafe(boolean sky) {
         if (isEmpty()) {
             return;
@@ -1229,6 +1205,234 @@ public void smoothSkyLight(RelightSkyEntry chunk, int y, boolean direction) {
         }
     }
 
+    /**
+     * Block light removal and propagation state for one thread. Positions are packed longs (see {@link #pack(int, int, int)}) and
+     * visited positions are tracked as per-section bitsets, so no objects are allocated per block.
+     */
+    private final class Propagation {
+
+        // Pairs of (packed position, light level)
+        private final LongRingBuffer removalQueue = new LongRingBuffer(64);
+        private final LongRingBuffer propagationQueue = new LongRingBuffer(64);
+        private final SectionBitSet removalVisited = new SectionBitSet();
+        private final SectionBitSet visited = new SectionBitSet();
+        // Only used when this propagation has exclusive access to the chunks it touches, otherwise the queue may submit them
+        private final Long2ObjectOpenHashMap<ChunkHolder<?>> chunks = new Long2ObjectOpenHashMap<>();
+        private boolean exclusive;
+
+        private ChunkHolder<?> chunk(int chunkX, int chunkZ) {
+            ChunkHolder<?> iChunk;
+            long key = 0;
+            if (exclusive) {
+                key = MathMan.pairInt(chunkX, chunkZ);
+                iChunk = chunks.get(key);
+                if (iChunk != null) {
+                    return iChunk;
+                }
+            }
+            iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(chunkX, chunkZ);
+            if (!iChunk.isInit()) {
+                iChunk.init(queue, chunkX, chunkZ);
+            }
+            if (exclusive) {
+                chunks.put(key, iChunk);
+            }
+            return iChunk;
+        }
+
+        private BlockState getBlock(int x, int y, int z) {
+            return chunk(x >> 4, z >> 4).getBlock(x & 15, y, z & 15);
+        }
+
+        private void run(Long2ObjectOpenHashMap<long[][]> tile) {
+            for (Long2ObjectMap.Entry<long[][]> entry : tile.long2ObjectEntrySet()) {
+                long index = entry.getLongKey();
+                int chunkX = MathMan.unpairIntX(index);
+                int chunkZ = MathMan.unpairIntY(index);
+                int bx = chunkX << 4;
+                int bz = chunkZ << 4;
+                ChunkHolder<?> iChunk = chunk(chunkX, chunkZ);
+                long[][] sections = entry.getValue();
+                for (int layer = 0; layer < sections.length; layer++) {
+                    long[] bits = sections[layer];
+                    if (bits == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < bits.length; i++) {
+                        long value = bits[i];
+                        while (value != 0) {
+                            int blockIndex = (i << 6) | Long.numberOfTrailingZeros(value);
+                            value &= value - 1;
+                            int lx = blockIndex & 15;
+                            int lz = (blockIndex >> 4) & 15;
+                            int y = minY + (layer << 4) + (blockIndex >> 8);
+                            int oldLevel = iChunk.getEmittedLight(lx, y, lz);
+                            int newLevel = iChunk.getBrightness(lx, y, lz);
+                            if (oldLevel != newLevel) {
+                                iChunk.setBlockLight(lx, y, lz, newLevel);
+                                long node = pack(bx + lx, y, bz + lz);
+                                if (newLevel < oldLevel) {
+                                    removalVisited.add(node);
+                                    removalQueue.add(node);
+                                    removalQueue.add(oldLevel);
+                                } else {
+                                    visited.add(node);
+                                    propagationQueue.add(node);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            while (!removalQueue.isEmpty()) {
+                long node = removalQueue.poll();
+                int lightLevel = (int) removalQueue.poll();
+                int x = unpackX(node);
+                int y = unpackY(node);
+                int z = unpackZ(node);
+                remove(x - 1, y, z, lightLevel);
+                remove(x + 1, y, z, lightLevel);
+                if (y > minY) {
+                    remove(x, y - 1, z, lightLevel);
+                }
+                if (y < maxY) {
+                    remove(x, y + 1, z, lightLevel);
+                }
+                remove(x, y, z - 1, lightLevel);
+                remove(x, y, z + 1, lightLevel);
+            }
+
+            while (!propagationQueue.isEmpty()) {
+                long node = propagationQueue.poll();
+                int x = unpackX(node);
+                int y = unpackY(node);
+                int z = unpackZ(node);
+                ChunkHolder<?> iChunk = chunk(x >> 4, z >> 4);
+                int lightLevel = iChunk.getEmittedLight(x & 15, y, z & 15);
+                if (lightLevel <= 1) {
+                    continue;
+                }
+                BlockState state = iChunk.getBlock(x & 15, y, z & 15);
+                String id = state.getBlockType().id().toLowerCase(Locale.ROOT);
+                if (id.contains("slab")) {
+                    boolean top = state.getState(slabHalf).equalsIgnoreCase("top");
+                    computeSlab(x, y, z, lightLevel, this, top);
+                } else if (id.contains("stair")) {
+                    boolean top = state.getState(stairHalf).equalsIgnoreCase("top");
+                    Direction direction = getStairDir(state);
+                    String shape = getStairShape(state);
+                    computeStair(x, y, z, lightLevel, this, top, direction, shape);
+                } else {
+                    computeNormal(x, y, z, lightLevel, this);
+                }
+            }
+        }
+
+        private void remove(int x, int y, int z, int currentLight) {
+            ChunkHolder<?> iChunk = chunk(x >> 4, z >> 4);
+            int current = iChunk.getEmittedLight(x & 15, y, z & 15);
+            if (current != 0 && current < currentLight) {
+                iChunk.setBlockLight(x & 15, y, z & 15, 0);
+                if (current > 1) {
+                    long node = pack(x, y, z);
+                    if (removalVisited.add(node)) {
+                        removalQueue.add(node);
+                        removalQueue.add(current);
+                    }
+                }
+            } else if (current >= currentLight) {
+                long node = pack(x, y, z);
+                if (visited.add(node)) {
+                    propagationQueue.add(node);
+                }
+            }
+        }
+
+        private void spread(int x, int y, int z, int currentLight) {
+            ChunkHolder<?> iChunk = chunk(x >> 4, z >> 4);
+            BlockMaterial material = iChunk.getBlock(x & 15, y, z & 15).getMaterial();
+            boolean solidNeedsLight = (!material.isSolid() || !material.isFullCube())
+                    && material.getLightOpacity() > 0 && material.getLightValue() == 0;
+            currentLight = !solidNeedsLight ? currentLight - Math.max(1, material.getLightOpacity()) : currentLight - 1;
+            if (currentLight > 0) {
+                int current = iChunk.getEmittedLight(x & 15, y, z & 15);
+                if (currentLight > current) {
+                    iChunk.setBlockLight(x & 15, y, z & 15, currentLight);
+                    long node = pack(x, y, z);
+                    if (visited.add(node) && currentLight > 1) {
+                        propagationQueue.add(node);
+                    }
+                }
+            }
+        }
+
+        private void reset() {
+            removalQueue.clear();
+            propagationQueue.clear();
+            removalVisited.clear();
+            visited.clear();
+            chunks.clear();
+            exclusive = false;
+        }
+
+    }
+
+    /**
+     * Set of packed positions, stored as one 4096 bit array per 16x16x16 section.
+     */
+    private static final class SectionBitSet {
+
+        private static final long SECTION_MASK = ~((0xFL << 38) | (0xFL << 12) | 0xFL);
+
+        private final Long2ObjectOpenHashMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+        private final ArrayDeque<long[]> pool = new ArrayDeque<>();
+        private long lastKey = -1;
+        private long[] lastSection;
+
+        /**
+         * Add a packed position
+         *
+         * @return false if the position was already present
+         */
+        private boolean add(long node) {
+            long key = node & SECTION_MASK;
+            long[] bits;
+            if (key == lastKey) {
+                bits = lastSection;
+            } else {
+                bits = sections.get(key);
+                if (bits == null) {
+                    bits = pool.poll();
+                    if (bits == null) {
+                        bits = new long[64];
+                    }
+                    sections.put(key, bits);
+                }
+                lastKey = key;
+                lastSection = bits;
+            }
+            int index = (int) ((node & 15) << 8 | ((node >>> 12) & 15) << 4 | ((node >>> 38) & 15));
+            long mask = 1L << index;
+            if ((bits[index >> 6] & mask) != 0) {
+                return false;
+            }
+            bits[index >> 6] |= mask;
+            return true;
+        }
+
+        private void clear() {
+            for (long[] bits : sections.values()) {
+                Arrays.fill(bits, 0);
+                pool.add(bits);
+            }
+            sections.clear();
+            lastKey = -1;
+            lastSection = null;
+        }
+
+    }
+
     private static class RelightSkyEntry implements Comparable<RelightSkyEntry> {
 
         public final int x;
@@ -31,6 +31,28 @@ public boolean test(BlockVector3 vector) {
 
     public abstract boolean test(BlockState state);
 
+    /**
+     * Get if a block with any of the given ordinals could pass this mask. Ordinal
+     * {@link BlockTypesCache.ReservedIDs#__RESERVED__} is read as air.
+     *
+     * @param ordinals block ordinals, e.g. from {@link com.fastasyncworldedit.core.queue.IChunkGet#getSectionOrdinals(int)}
+     * @return false if none of the ordinals can pass
+     * @since 2.13.1
+     */
+    public boolean testAny(int[] ordinals) {
+        for (int ordinal : ordinals) {
+            if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                if (replacesAir() || test(BlockTypesCache.states[ordinal])
+                        || test(BlockTypesCache.states[BlockTypesCache.ReservedIDs.AIR])) {
+                    return true;
+                }
+            } else if (test(BlockTypesCache.states[ordinal])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         List<String> strings = new ArrayList<>();
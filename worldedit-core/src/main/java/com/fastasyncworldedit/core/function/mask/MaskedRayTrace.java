@@ -0,0 +1,179 @@
+package com.fastasyncworldedit.core.function.mask;
+
+import com.fastasyncworldedit.core.math.MutableBlockVector3;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.util.Location;
+
+import javax.annotation.Nullable;
+
+/**
+ * Finds the first block along a ray that matches a mask, like {@link MaskedTargetBlock}, but visits every block the ray
+ * passes through exactly once (Amanatides and Woo's grid traversal) rather than sampling the ray at a fixed distance. No
+ * block the ray clips is missed, and no block is tested more than once. Rays can be traced one after another with the same
+ * instance, e.g. to trace for multiple players at once.
+ *
+ * @since 2.13.1
+ */
+public class MaskedRayTrace {
+
+    private static final double VIEW_HEIGHT = 1.65;
+
+    private final Mask mask;
+    private final int minY;
+    private final int maxY;
+    private final MutableBlockVector3 mutable = new MutableBlockVector3();
+
+    /**
+     * New instance.
+     *
+     * @param mask   the mask blocks are tested against
+     * @param extent the extent whose height bounds end traces, usually the extent the mask reads
+     */
+    public MaskedRayTrace(Mask mask, Extent extent) {
+        this.mask = mask;
+        this.minY = extent.getMinY();
+        this.maxY = extent.getMaxY();
+    }
+
+    /**
+     * Get the direction a location is looking in, as used for targeting by {@link com.sk89q.worldedit.util.TargetBlock}.
+     *
+     * @param location the location, e.g. of a player
+     * @return the normalized direction
+     */
+    public static Vector3 getViewDirection(Location location) {
+        double yaw = Math.toRadians((location.getYaw() + 90) % 360);
+        double pitch = Math.toRadians(-location.getPitch());
+        double horizontal = Math.cos(pitch);
+        return Vector3.at(horizontal * Math.cos(yaw), Math.sin(pitch), horizontal * Math.sin(yaw));
+    }
+
+    /**
+     * Get the eye position of a player standing at a location, as used for targeting by
+     * {@link com.sk89q.worldedit.util.TargetBlock}.
+     *
+     * @param location the location of the player
+     * @return the eye position
+     */
+    public static Vector3 getViewOrigin(Location location) {
+        return location.toVector().add(0, VIEW_HEIGHT, 0);
+    }
+
+    /**
+     * Trace the view of a location, e.g. of a player.
+     *
+     * @param location     the location to trace from
+     * @param maxDistance  the maximum distance to trace
+     * @param useLastBlock if the last block not matching the mask should be returned if no block matches
+     * @return the block found, or null if there is none
+     * @see #trace(Vector3, Vector3, double, boolean)
+     */
+    @Nullable
+    public BlockVector3 trace(Location location, double maxDistance, boolean useLastBlock) {
+        return trace(getViewOrigin(location), getViewDirection(location), maxDistance, useLastBlock);
+    }
+
+    /**
+     * Trace multiple rays one after another.
+     *
+     * @param origins      the start of each ray
+     * @param directions   the direction of each ray
+     * @param maxDistance  the maximum distance to trace
+     * @param useLastBlock if the last block not matching the mask should be returned if no block matches
+     * @return the block found for each ray, or null for rays where there is none
+     * @see #trace(Vector3, Vector3, double, boolean)
+     */
+    public BlockVector3[] trace(Vector3[] origins, Vector3[] directions, double maxDistance, boolean useLastBlock) {
+        if (origins.length != directions.length) {
+            throw new IllegalArgumentException("Expected as many directions as origins");
+        }
+        BlockVector3[] result = new BlockVector3[origins.length];
+        for (int i = 0; i < origins.length; i++) {
+            result[i] = trace(origins[i], directions[i], maxDistance, useLastBlock);
+        }
+        return result;
+    }
+
+    /**
+     * Find the first block along a ray that matches the mask. The block the ray starts in is not tested. If no block matches
+     * within the maximum distance, the last block that did not match is returned if {@code useLastBlock} is set, unless the
+     * ray left the height bounds of the extent before. A ray going below the minimum height once it left the bounds ends at
+     * the block where it does.
+     *
+     * @param origin       the start of the ray
+     * @param direction    the direction of the ray, need not be normalized
+     * @param maxDistance  the maximum distance to trace
+     * @param useLastBlock if the last block not matching the mask should be returned if no block matches
+     * @return the block found, or null if there is none
+     */
+    @Nullable
+    public BlockVector3 trace(Vector3 origin, Vector3 direction, double maxDistance, boolean useLastBlock) {
+        double length = direction.length();
+        if (length == 0) {
+            return null;
+        }
+        double dx = direction.x() / length;
+        double dy = direction.y() / length;
+        double dz = direction.z() / length;
+
+        int x = (int) Math.floor(origin.x());
+        int y = (int) Math.floor(origin.y());
+        int z = (int) Math.floor(origin.z());
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        // The distance along the ray to cross one block on each axis, and to reach the next block boundary on each axis
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dz);
+        double nextX = boundary(origin.x(), x, stepX, deltaX);
+        double nextY = boundary(origin.y(), y, stepY, deltaY);
+        double nextZ = boundary(origin.z(), z, stepZ, deltaZ);
+
+        boolean searchForLastBlock = true;
+        BlockVector3 lastBlock = null;
+        while (true) {
+            double distance;
+            if (nextX <= nextY && nextX <= nextZ) {
+                distance = nextX;
+                x += stepX;
+                nextX += deltaX;
+            } else if (nextY <= nextZ) {
+                distance = nextY;
+                y += stepY;
+                nextY += deltaY;
+            } else {
+                distance = nextZ;
+                z += stepZ;
+                nextZ += deltaZ;
+            }
+            if (distance > maxDistance) {
+                return useLastBlock ? lastBlock : null;
+            }
+            if (mask.test(mutable.setComponents(x, y, z))) {
+                return BlockVector3.at(x, y, z);
+            }
+            if (searchForLastBlock) {
+                lastBlock = BlockVector3.at(x, y, z);
+                if (y <= minY || y >= maxY) {
+                    searchForLastBlock = false;
+                }
+            } else if (y <= minY) {
+                return BlockVector3.at(x, y, z);
+            }
+        }
+    }
+
+    private static double boundary(double origin, int block, int step, double delta) {
+        if (step > 0) {
+            return (block + 1 - origin) * delta;
+        } else if (step < 0) {
+            return (origin - block) * delta;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+}
@@ -10,6 +10,7 @@
 import com.fastasyncworldedit.core.internal.io.FaweOutputStream;
 import com.fastasyncworldedit.core.math.IntPair;
 import com.fastasyncworldedit.core.util.MainUtil;
+import com.google.common.io.ByteStreams;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.worldedit.EditSession;
@@ -20,10 +21,24 @@
 import com.sk89q.worldedit.world.World;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -39,6 +54,11 @@ public class DiskStorageHistory extends FaweStreamChangeSet {
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
     private static final Map<String, Map<UUID, Integer>> NEXT_INDEX = new ConcurrentHashMap<>();
+    private static final int INDEX_MAGIC = 0x46415749;
+    private static final int INDEX_ENTRY_SIZE = 32;
+    private static final int FOOTER_SIZE = 16;
+    // Marks a block file read to have no frame index
+    private static final BlockFrame[] UNINDEXED = new BlockFrame[0];
 
     private UUID uuid;
     private File bdFile;
@@ -56,8 +76,26 @@ public class DiskStorageHistory extends FaweStreamChangeSet {
      *
      * [contents]...
      * { short rel x, short rel z, unsigned byte y, short combinedFrom, short combinedTo }
+     *
+     * Changes are recorded into shards, each written to a separate file while recording, in frames covering whole chunks.
+     * Once closed, the files are combined and followed by an index of the frames, so changes within a region can be read
+     * without reading the rest:
+     *
+     * [frames]...
+     * { compressed block data as above }
+     *
+     * [index]
+     * { long offset, long compressed length, int min chunk x, int min chunk z, int max chunk x, int max chunk z }...
+     *
+     * [footer]
+     * { int frame count, long index offset, int magic }
+     *
+     * Files of older versions are a single compressed stream.
      */
     private FaweOutputStream osBD;
+    // Frames of the block data, UNINDEXED if the file has no frame index, null until read. Only ever replaced as a whole, so
+    // concurrent readers see either no index or a complete one
+    private volatile BlockFrame[] frames;
     // biome
     private FaweOutputStream osBIO;
     // NBT From
@@ -131,6 +169,9 @@ public void delete() {
 
     public void deleteFiles() {
         bdFile.delete();
+        for (int i = 0; i < getBlockShardCount(); i++) {
+            getSegmentFile(i).delete();
+        }
         nbtfFile.delete();
         nbttFile.delete();
         entfFile.delete();
@@ -145,7 +186,7 @@ public void undo(Actor actor, Region[] regions) {
             return;
         }
         try (EditSession session = toEditSession(actor, regions)) {
-            session.setBlocks(this, ChangeSetExecutor.Type.UNDO);
+            session.setBlocks(this, ChangeSetExecutor.Type.UNDO, regions);
         }
     }
 
@@ -161,7 +202,7 @@ public void redo(Actor actor, Region[] regions) {
             return;
         }
         EditSession session = toEditSession(actor, regions);
-        session.setBlocks(this, ChangeSetExecutor.Type.REDO);
+        session.setBlocks(this, ChangeSetExecutor.Type.REDO, regions);
     }
 
     public void redo(Actor actor) {
@@ -258,12 +299,152 @@ public void close() throws IOException {
                     osENTCT.close();
                     osENTCT = null;
                 }
+                mergeSegments();
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
     }
 
+    private File getSegmentFile(int segment) {
+        return new File(bdFile.getParentFile(), index + ".bds" + segment);
+    }
+
+    // Combine the files the shards were recorded into, followed by the index of their frames
+    private void mergeSegments() throws IOException {
+        List<File> segments = new ArrayList<>();
+        List<List<BlockFrame>> segmentFrames = new ArrayList<>();
+        for (int i = 0; i < getBlockShardCount(); i++) {
+            File segment = getSegmentFile(i);
+            if (segment.exists()) {
+                segments.add(segment);
+                segmentFrames.add(getBlockFrames(i));
+            }
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+        List<BlockFrame> frames = new ArrayList<>();
+        if (segments.size() == 1) {
+            Files.move(segments.get(0).toPath(), bdFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            frames.addAll(segmentFrames.get(0));
+        }
+        try (FileChannel out = segments.size() == 1
+                ? FileChannel.open(bdFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : FileChannel.open(
+                        bdFile.toPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING
+                )) {
+            if (segments.size() > 1) {
+                for (int i = 0; i < segments.size(); i++) {
+                    long base = out.position();
+                    try (FileChannel in = FileChannel.open(segments.get(i).toPath(), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        for (long position = 0; position < size; ) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                    for (BlockFrame frame : segmentFrames.get(i)) {
+                        frames.add(frame.shift(base));
+                    }
+                }
+            }
+            long indexOffset = out.size();
+            DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out)));
+            for (BlockFrame frame : frames) {
+                index.writeLong(frame.offset());
+                index.writeLong(frame.length());
+                index.writeInt(frame.minChunkX());
+                index.writeInt(frame.minChunkZ());
+                index.writeInt(frame.maxChunkX());
+                index.writeInt(frame.maxChunkZ());
+            }
+            index.writeInt(frames.size());
+            index.writeLong(indexOffset);
+            index.writeInt(INDEX_MAGIC);
+            index.flush();
+        }
+        if (segments.size() > 1) {
+            for (File segment : segments) {
+                segment.delete();
+            }
+        }
+        this.frames = frames.toArray(new BlockFrame[0]);
+    }
+
+    // Frames of the block file, or null if it has no frame index
+    @Nullable
+    private BlockFrame[] getFrames() throws IOException {
+        BlockFrame[] frames = this.frames;
+        if (frames == null) {
+            frames = readIndex();
+        }
+        return frames == UNINDEXED ? null : frames;
+    }
+
+    // Read the frame index of the block file, once
+    private synchronized BlockFrame[] readIndex() throws IOException {
+        if (frames != null) {
+            return frames;
+        }
+        if (!bdFile.exists()) {
+            // Not known yet, the file may still be written
+            return UNINDEXED;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(bdFile, "r")) {
+            long length = file.length();
+            if (length >= FOOTER_SIZE) {
+                file.seek(length - FOOTER_SIZE);
+                int count = file.readInt();
+                long indexOffset = file.readLong();
+                // The size of the index must match as well, old files could end with the magic by chance
+                if (file.readInt() == INDEX_MAGIC && count >= 0 && indexOffset >= 0
+                        && indexOffset + (long) count * INDEX_ENTRY_SIZE == length - FOOTER_SIZE) {
+                    ByteBuffer index = ByteBuffer.allocate(count * INDEX_ENTRY_SIZE);
+                    file.seek(indexOffset);
+                    file.readFully(index.array());
+                    BlockFrame[] frames = new BlockFrame[count];
+                    for (int i = 0; i < count; i++) {
+                        frames[i] = new BlockFrame(
+                                index.getLong(),
+                                index.getLong(),
+                                index.getInt(),
+                                index.getInt(),
+                                index.getInt(),
+                                index.getInt()
+                        );
+                    }
+                    this.frames = frames;
+                    return frames;
+                }
+            }
+        }
+        this.frames = UNINDEXED;
+        return UNINDEXED;
+    }
+
+    // Decompressed block data of a segment, starting with its header
+    private FaweInputStream openSegment(int segment) throws IOException {
+        BlockFrame[] frames = getFrames();
+        if (frames != null) {
+            return openRange(frames[segment].offset(), frames[segment].length());
+        }
+        return MainUtil.getCompressedIS(new FileInputStream(bdFile));
+    }
+
+    private FaweInputStream openRange(long offset, long length) throws IOException {
+        InputStream in = new FileInputStream(bdFile);
+        try {
+            ByteStreams.skipFully(in, offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return MainUtil.getCompressedIS(ByteStreams.limit(in, length));
+    }
+
     @Override
     public int getCompressedSize() {
         return bdFile.exists() ? (int) bdFile.length() : 0;
@@ -312,6 +493,23 @@ public FaweOutputStream getBlockOS(int x, int y, int z) throws IOException {
         }
     }
 
+    @Override
+    protected boolean supportsBlockSegments() {
+        return true;
+    }
+
+    @Override
+    protected boolean supportsBlockFrames() {
+        return true;
+    }
+
+    @Override
+    protected OutputStream getBlockSegmentOS(int segment) throws IOException {
+        File file = getSegmentFile(segment);
+        file.getParentFile().mkdirs();
+        return new FileOutputStream(file);
+    }
+
     @Override
     public FaweOutputStream getBiomeOS() throws IOException {
         if (osBIO != null) {
@@ -371,11 +569,34 @@ public NBTOutputStream getTileRemoveOS() throws IOException {
 
     @Override
     public FaweInputStream getBlockIS() throws IOException {
+        return getBlockIS(0);
+    }
+
+    @Override
+    protected int getBlockSegmentCount() {
+        BlockFrame[] frames;
+        try {
+            frames = getFrames();
+        } catch (IOException e) {
+            LOGGER.error("Could not load block history file {}", bdFile);
+            return 1;
+        }
+        return frames == null ? 1 : frames.length;
+    }
+
+    @Override
+    protected boolean blockSegmentIntersects(int segment, Region[] regions) {
+        BlockFrame[] frames = this.frames;
+        return frames == null || frames == UNINDEXED || frames[segment].intersects(regions);
+    }
+
+    @Override
+    protected FaweInputStream getBlockIS(int segment) throws IOException {
         if (!bdFile.exists()) {
             return null;
         }
         try {
-            FaweInputStream is = MainUtil.getCompressedIS(new FileInputStream(bdFile));
+            FaweInputStream is = openSegment(segment);
             readHeader(is);
             return is;
         } catch (IOException e) {
@@ -449,6 +670,29 @@ public NBTInputStream getTileRemoveIS() throws IOException {
         }
     }
 
+    @Override
+    protected SimpleChangeSetSummary summarizeShallow() {
+        SimpleChangeSetSummary summary = super.summarizeShallow();
+        BlockFrame[] frames = null;
+        try {
+            frames = getFrames();
+        } catch (IOException e) {
+            LOGGER.error("Could not load block history file {}", bdFile);
+        }
+        // The bounds of the frames cover all changes without reading them
+        if (frames != null && frames.length > 0) {
+            summary.minX = summary.minZ = Integer.MAX_VALUE;
+            summary.maxX = summary.maxZ = Integer.MIN_VALUE;
+            for (BlockFrame frame : frames) {
+                summary.minX = Math.min(summary.minX, frame.minChunkX() << 4);
+                summary.minZ = Math.min(summary.minZ, frame.minChunkZ() << 4);
+                summary.maxX = Math.max(summary.maxX, (frame.maxChunkX() << 4) + 15);
+                summary.maxZ = Math.max(summary.maxZ, (frame.maxChunkZ() << 4) + 15);
+            }
+        }
+        return summary;
+    }
+
     @Override
     public SimpleChangeSetSummary summarize(Region region, boolean shallow) {
         if (bdFile.exists()) {
@@ -461,8 +705,8 @@ public IntPair readHeader() {
         int ox = getOriginX();
         int oz = getOriginZ();
         if (ox == 0 && oz == 0 && bdFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(bdFile)) {
-                final FaweInputStream gis = MainUtil.getCompressedIS(fis);
+            // All segments share the same origin
+            try (FaweInputStream gis = openSegment(0)) {
                 // skip mode
                 gis.skipFully(1);
                 // skip version
@@ -471,8 +715,6 @@ public IntPair readHeader() {
                 ox = ((gis.read() << 24) + (gis.read() << 16) + (gis.read() << 8) + gis.read());
                 oz = ((gis.read() << 24) + (gis.read() << 16) + (gis.read() << 8) + gis.read());
                 setOrigin(ox, oz);
-                fis.close();
-                gis.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
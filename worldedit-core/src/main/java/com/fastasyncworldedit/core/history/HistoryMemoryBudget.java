@@ -0,0 +1,153 @@
+package com.fastasyncworldedit.core.history;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.util.TaskManager;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts the memory used by closed {@link MemoryOptimizedHistory} instances of all sessions against
+ * {@code history.memory-budget}. Once the budget is exceeded, the oldest histories are spilled to disk asynchronously, and
+ * accounted again if they could not be spilled. Registering and
+ * removing a history is O(1), and histories that are no longer referenced are released without being removed.
+ *
+ * @since 2.13.1
+ */
+public final class HistoryMemoryBudget {
+
+    private static final HistoryMemoryBudget INSTANCE = new HistoryMemoryBudget();
+
+    // Oldest first
+    private final LinkedHashSet<Entry> entries = new LinkedHashSet<>();
+    private final ReferenceQueue<MemoryOptimizedHistory> released = new ReferenceQueue<>();
+    private final AtomicLong used = new AtomicLong();
+    // Part of used by histories currently being spilled
+    private final AtomicLong spilling = new AtomicLong();
+
+    private HistoryMemoryBudget() {
+    }
+
+    /**
+     * Get the global instance.
+     */
+    public static HistoryMemoryBudget get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the budget in bytes, or 0 if history is never spilled.
+     */
+    public long getLimit() {
+        return Math.max(0, (long) Settings.settings().HISTORY.MEMORY_BUDGET) << 20;
+    }
+
+    /**
+     * Get the number of bytes of history currently accounted against the budget, including histories being spilled.
+     */
+    public long getUsed() {
+        return used.get();
+    }
+
+    /**
+     * Account a closed history against the budget, spilling the oldest histories if it is exceeded.
+     *
+     * @param history the history to account
+     * @param size    the number of bytes the history holds in memory
+     * @return the entry to {@link #remove(Entry)} once the history no longer holds its data in memory, or null if there is
+     *         no budget
+     */
+    Entry add(MemoryOptimizedHistory history, long size) {
+        if (getLimit() == 0) {
+            return null;
+        }
+        Entry entry = new Entry(history, size, released);
+        synchronized (entries) {
+            entries.add(entry);
+        }
+        used.addAndGet(size);
+        trim();
+        return entry;
+    }
+
+    /**
+     * Stop accounting a history, e.g. once it has been spilled or deleted.
+     *
+     * @param entry the entry returned when the history was added
+     */
+    void remove(Entry entry) {
+        boolean removed;
+        synchronized (entries) {
+            entry.removed = true;
+            removed = entries.remove(entry);
+        }
+        // An entry being spilled is not accounted again once the spill completes
+        if (removed) {
+            used.addAndGet(-entry.size);
+        }
+    }
+
+    private void trim() {
+        Reference<? extends MemoryOptimizedHistory> reference;
+        while ((reference = released.poll()) != null) {
+            remove((Entry) reference);
+        }
+        long limit = getLimit();
+        while (used.get() - spilling.get() > limit) {
+            Entry oldest;
+            synchronized (entries) {
+                Iterator<Entry> iterator = entries.iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                oldest = iterator.next();
+                iterator.remove();
+            }
+            if (oldest.get() == null) {
+                used.addAndGet(-oldest.size);
+                continue;
+            }
+            // Stays accounted until spilled, the disk IO is not done by the thread closing a history
+            spilling.addAndGet(oldest.size);
+            TaskManager.taskManager().async(() -> spill(oldest));
+        }
+    }
+
+    private void spill(Entry entry) {
+        try {
+            MemoryOptimizedHistory history = entry.get();
+            if (history == null || history.spill()) {
+                used.addAndGet(-entry.size);
+                return;
+            }
+            // Kept in memory, so accounted again as the newest history rather than retried right away
+            boolean accounted;
+            synchronized (entries) {
+                accounted = !entry.removed && entries.add(entry);
+            }
+            if (!accounted) {
+                used.addAndGet(-entry.size);
+            }
+        } finally {
+            spilling.addAndGet(-entry.size);
+        }
+    }
+
+    static final class Entry extends WeakReference<MemoryOptimizedHistory> {
+
+        private final long size;
+        // Guarded by the entries of the budget
+        private boolean removed;
+
+        private Entry(MemoryOptimizedHistory history, long size, ReferenceQueue<MemoryOptimizedHistory> queue) {
+            super(history, queue);
+            this.size = size;
+        }
+
+    }
+
+}
@@ -9,22 +9,49 @@
 import com.fastasyncworldedit.core.util.MainUtil;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.world.World;
+import org.apache.logging.log4j.Logger;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * ChangeSet optimized for low memory usage
  * - No disk usage
  * - High CPU usage
  * - Low memory usage
+ * Once closed, the data is accounted against the {@link HistoryMemoryBudget} and may be spilled to a temporary file.
  */
 public class MemoryOptimizedHistory extends FaweStreamChangeSet {
 
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // The order closed data is spilled in, followed by the block segments
+    private static final int IDS = 0;
+    private static final int BIOMES = 1;
+    private static final int ENT_C = 2;
+    private static final int ENT_R = 3;
+    private static final int TILE_C = 4;
+    private static final int TILE_R = 5;
+    private static final int SEGMENTS = 6;
+
     private byte[][] ids;
     private FastByteArrayOutputStream idsStream;
     private FaweOutputStream idsStreamZip;
 
+    // Block changes recorded into shards, by segment while recording and once closed only those in use
+    private FastByteArrayOutputStream[] segmentStreams;
+    private byte[][][] segments;
+
     private byte[][] biomes;
     private FastByteArrayOutputStream biomeStream;
     private FaweOutputStream biomeStreamZip;
@@ -45,8 +72,21 @@ public class MemoryOptimizedHistory extends FaweStreamChangeSet {
     private FastByteArrayOutputStream tileRStream;
     private NBTOutputStream tileRStreamZip;
 
+    private boolean accounted;
+    private HistoryMemoryBudget.Entry budgetEntry;
+    // The offset and length of each part in the spill file, with a negative length if the part is absent
+    private long[] spillRanges;
+    private Path spillFile;
+    private Cleaner.Cleanable spillCleanable;
+    private int spilledCompressedSize;
+    private boolean deleted;
+
     public MemoryOptimizedHistory(World world) {
         super(world);
+        int shards = getBlockShardCount();
+        if (shards > 0) {
+            segmentStreams = new FastByteArrayOutputStream[shards];
+        }
     }
 
     @Override
@@ -81,6 +121,7 @@ public void flush() {
     @Override
     public void close() throws IOException {
         super.close();
+        long size = 0;
         synchronized (this) {
             try {
                 if (idsStream != null) {
@@ -89,6 +130,16 @@ public void close() throws IOException {
                     idsStream = null;
                     idsStreamZip = null;
                 }
+                if (segmentStreams != null) {
+                    List<byte[][]> used = new ArrayList<>();
+                    for (FastByteArrayOutputStream segment : segmentStreams) {
+                        if (segment != null) {
+                            used.add(segment.toByteArrays());
+                        }
+                    }
+                    segments = used.toArray(new byte[0][][]);
+                    segmentStreams = null;
+                }
                 if (biomeStream != null) {
                     biomeStreamZip.close();
                     biomes = biomeStream.toByteArrays();
@@ -122,24 +173,180 @@ public void close() throws IOException {
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            if (!accounted) {
+                accounted = true;
+                for (int part = 0; part < getPartCount(); part++) {
+                    size += getSize(getPart(part));
+                }
+            }
+        }
+        // Not synchronized, as adding may spill other histories
+        if (size > 0) {
+            HistoryMemoryBudget.Entry entry = HistoryMemoryBudget.get().add(this, size);
+            synchronized (this) {
+                if (spillRanges == null) {
+                    budgetEntry = entry;
+                }
+            }
         }
     }
 
+    @Override
+    public void delete() {
+        HistoryMemoryBudget.Entry entry;
+        Cleaner.Cleanable cleanable;
+        synchronized (this) {
+            entry = budgetEntry;
+            cleanable = spillCleanable;
+            budgetEntry = null;
+            spillCleanable = null;
+            deleted = true;
+        }
+        if (entry != null) {
+            HistoryMemoryBudget.get().remove(entry);
+        }
+        if (cleanable != null) {
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Move the closed data of this history to a temporary file, to be read back whenever it is needed. The file is deleted
+     * once this history is deleted or no longer referenced.
+     *
+     * @return false if the data is still held in memory, e.g. if it could not be written or this history is not closed
+     */
+    synchronized boolean spill() {
+        if (spillRanges != null || deleted) {
+            return true;
+        }
+        if (segmentStreams != null) {
+            return false;
+        }
+        int partCount = getPartCount();
+        long[] ranges = new long[partCount << 1];
+        Path file = null;
+        try {
+            file = Files.createTempFile("fawe-history-", ".bin");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                long offset = 0;
+                for (int part = 0; part < partCount; part++) {
+                    byte[][] data = getPart(part);
+                    long length = data == null ? -1 : getSize(data);
+                    ranges[part << 1] = offset;
+                    ranges[(part << 1) + 1] = length;
+                    if (data != null) {
+                        for (byte[] array : data) {
+                            out.write(array);
+                        }
+                        offset += length;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not spill history to disk, keeping it in memory", e);
+            if (file != null) {
+                deleteSpillFile(file);
+            }
+            return false;
+        }
+        budgetEntry = null;
+        spilledCompressedSize = getCompressedSize();
+        spillFile = file;
+        spillRanges = ranges;
+        Path toDelete = file;
+        spillCleanable = CLEANER.register(this, () -> deleteSpillFile(toDelete));
+        ids = biomes = entC = entR = tileC = tileR = null;
+        if (segments != null) {
+            segments = new byte[segments.length][][];
+        }
+        return true;
+    }
+
+    private static void deleteSpillFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.error("Could not delete spilled history {}", file, e);
+        }
+    }
+
+    private int getPartCount() {
+        return SEGMENTS + (segments == null ? 0 : segments.length);
+    }
+
+    private byte[][] getPart(int part) {
+        return switch (part) {
+            case IDS -> ids;
+            case BIOMES -> biomes;
+            case ENT_C -> entC;
+            case ENT_R -> entR;
+            case TILE_C -> tileC;
+            case TILE_R -> tileR;
+            default -> segments[part - SEGMENTS];
+        };
+    }
+
+    private static long getSize(byte[][] data) {
+        long size = 0;
+        if (data != null) {
+            for (byte[] array : data) {
+                size += array.length;
+            }
+        }
+        return size;
+    }
+
+    // Get the closed data of a part, reading it back from the spill file if it has been spilled
+    private synchronized FastByteArraysInputStream openPart(int part) throws IOException {
+        if (spillRanges == null) {
+            byte[][] data = getPart(part);
+            return data == null ? null : new FastByteArraysInputStream(data);
+        }
+        long length = spillRanges[(part << 1) + 1];
+        if (length < 0) {
+            return null;
+        }
+        byte[] data = new byte[(int) length];
+        try (RandomAccessFile raf = new RandomAccessFile(spillFile.toFile(), "r")) {
+            raf.seek(spillRanges[part << 1]);
+            raf.readFully(data);
+        }
+        return new FastByteArraysInputStream(new byte[][]{data});
+    }
+
     @Override
     public int getCompressedSize() {
-        if (ids == null) {
-            return 0;
+        if (spillRanges != null) {
+            return spilledCompressedSize;
         }
         int count = 0;
-        for (byte[] array : ids) {
-            count += 4 + array.length;
+        if (ids != null) {
+            for (byte[] array : ids) {
+                count += 4 + array.length;
+            }
+        }
+        if (segments != null) {
+            for (byte[][] segment : segments) {
+                if (segment == null) {
+                    continue;
+                }
+                for (byte[] array : segment) {
+                    count += 4 + array.length;
+                }
+            }
         }
         return count;
     }
 
     @Override
     public long getSizeInMemory() {
-        return 92 + getCompressedSize();
+        return 92 + (spillRanges == null ? getCompressedSize() : 0);
+    }
+
+    @Override
+    public long getSizeOnDisk() {
+        return spillRanges == null ? 0 : spilledCompressedSize;
     }
 
     @Override
@@ -157,11 +364,37 @@ public FaweOutputStream getBlockOS(int x, int y, int z) throws IOException {
     }
 
     @Override
-    public FaweInputStream getBiomeIS() throws IOException {
-        if (biomes == null) {
-            return null;
+    protected boolean supportsBlockSegments() {
+        return true;
+    }
+
+    @Override
+    protected OutputStream getBlockSegmentOS(int segment) {
+        // Called under the lock of the shard of the segment, which is also held when the shard is closed
+        FastByteArrayOutputStream stream = new FastByteArrayOutputStream(Settings.settings().HISTORY.BUFFER_SIZE);
+        segmentStreams[segment] = stream;
+        return stream;
+    }
+
+    @Override
+    protected int getBlockSegmentCount() {
+        return segments == null ? 1 : segments.length;
+    }
+
+    @Override
+    protected FaweInputStream getBlockIS(int segment) throws IOException {
+        if (segments == null) {
+            return getBlockIS();
         }
-        return MainUtil.getCompressedIS(new FastByteArraysInputStream(biomes));
+        FaweInputStream result = MainUtil.getCompressedIS(openPart(SEGMENTS + segment));
+        readHeader(result);
+        return result;
+    }
+
+    @Override
+    public FaweInputStream getBiomeIS() throws IOException {
+        FastByteArraysInputStream in = openPart(BIOMES);
+        return in == null ? null : MainUtil.getCompressedIS(in);
     }
 
     @Override
@@ -178,10 +411,11 @@ public FaweOutputStream getBiomeOS() throws IOException {
 
     @Override
     public FaweInputStream getBlockIS() throws IOException {
-        if (ids == null) {
+        FastByteArraysInputStream in = openPart(IDS);
+        if (in == null) {
             return null;
         }
-        FaweInputStream result = MainUtil.getCompressedIS(new FastByteArraysInputStream(ids));
+        FaweInputStream result = MainUtil.getCompressedIS(in);
         readHeader(result);
         return result;
     }
@@ -224,22 +458,26 @@ public NBTOutputStream getTileRemoveOS() throws IOException {
 
     @Override
     public NBTInputStream getEntityCreateIS() throws IOException {
-        return entC == null ? null : new NBTInputStream(MainUtil.getCompressedIS(new FastByteArraysInputStream(entC)));
+        FastByteArraysInputStream in = openPart(ENT_C);
+        return in == null ? null : new NBTInputStream(MainUtil.getCompressedIS(in));
     }
 
     @Override
     public NBTInputStream getEntityRemoveIS() throws IOException {
-        return entR == null ? null : new NBTInputStream(MainUtil.getCompressedIS(new FastByteArraysInputStream(entR)));
+        FastByteArraysInputStream in = openPart(ENT_R);
+        return in == null ? null : new NBTInputStream(MainUtil.getCompressedIS(in));
     }
 
     @Override
     public NBTInputStream getTileCreateIS() throws IOException {
-        return tileC == null ? null : new NBTInputStream(MainUtil.getCompressedIS(new FastByteArraysInputStream(tileC)));
+        FastByteArraysInputStream in = openPart(TILE_C);
+        return in == null ? null : new NBTInputStream(MainUtil.getCompressedIS(in));
     }
 
     @Override
     public NBTInputStream getTileRemoveIS() throws IOException {
-        return tileR == null ? null : new NBTInputStream(MainUtil.getCompressedIS(new FastByteArraysInputStream(tileR)));
+        FastByteArraysInputStream in = openPart(TILE_R);
+        return in == null ? null : new NBTInputStream(MainUtil.getCompressedIS(in));
     }
 
     @Override
@@ -11,7 +11,6 @@
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.UUID;
 
 public class RollbackOptimizedHistory extends DiskStorageHistory {
@@ -20,12 +19,15 @@ public class RollbackOptimizedHistory extends DiskStorageHistory {
 
     private long time;
 
-    private int minX;
-    private int maxX;
-    private int minY;
-    private int maxY;
-    private int minZ;
-    private int maxZ;
+    // Volatile as block changes may be recorded by multiple threads, only written under the lock of this history
+    private volatile int minX;
+    private volatile int maxX;
+    private volatile int minY;
+    private volatile int maxY;
+    private volatile int minZ;
+    private volatile int maxZ;
+    // Written last when the bounds are first set
+    private volatile boolean hasBounds;
     private String command;
 
     public RollbackOptimizedHistory(World world, UUID uuid, int index) {
@@ -55,6 +57,7 @@ public RollbackOptimizedHistory(
         this.maxX = region.getMaximumX();
         this.maxY = region.getMaximumY();
         this.maxZ = region.getMaximumZ();
+        this.hasBounds = true;
         this.blockSize = (int) size;
         this.command = command;
         this.closed = true;
@@ -90,6 +93,7 @@ public void setDimensions(BlockVector3 pos1, BlockVector3 pos2) {
         this.maxX = pos2.x();
         this.maxY = pos2.y();
         this.maxZ = pos2.z();
+        this.hasBounds = true;
     }
 
     public void setTime(long time) {
@@ -109,59 +113,52 @@ public void close() throws IOException {
     @Override
     public void add(int x, int y, int z, int combinedFrom, int combinedTo) {
         super.add(x, y, z, combinedFrom, combinedTo);
-        if (x < minX) {
-            minX = x;
-        } else if (x > maxX) {
-            maxX = x;
-        }
-        if (y < minY) {
-            minY = y;
-        } else if (y > maxY) {
-            maxY = y;
-        }
-        if (z < minZ) {
-            minZ = z;
-        } else if (z > maxZ) {
-            maxZ = z;
-        }
+        expand(x, y, z);
     }
 
     @Override
     public void addBiomeChange(int x, int y, int z, BiomeType from, BiomeType to) {
         super.addBiomeChange(x, y, z, from, to);
-        if (x < minX) {
-            minX = x;
-        } else if (x > maxX) {
-            maxX = x;
-        }
-        if (y < minY) {
-            minY = y;
-        } else if (y > maxY) {
-            maxY = y;
-        }
-        if (z < minZ) {
-            minZ = z;
-        } else if (z > maxZ) {
-            maxZ = z;
-        }
+        expand(x, y, z);
     }
 
-    @Override
-    public void writeHeader(OutputStream os, int x, int y, int z) throws IOException {
-        minX = x;
-        maxX = x;
-        minY = y;
-        maxY = y;
-        minZ = z;
-        maxZ = z;
-        super.writeHeader(os, x, y, z);
+    private void expand(int x, int y, int z) {
+        // Bounds only grow, so any value read without the lock is within the current bounds and at worst the lock is taken
+        // unnecessarily
+        if (hasBounds && x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+            return;
+        }
+        synchronized (this) {
+            if (!hasBounds) {
+                minX = maxX = x;
+                minY = maxY = y;
+                minZ = maxZ = z;
+                hasBounds = true;
+                return;
+            }
+            if (x < minX) {
+                minX = x;
+            } else if (x > maxX) {
+                maxX = x;
+            }
+            if (y < minY) {
+                minY = y;
+            } else if (y > maxY) {
+                maxY = y;
+            }
+            if (z < minZ) {
+                minZ = z;
+            } else if (z > maxZ) {
+                maxZ = z;
+            }
+        }
     }
 
-    public BlockVector3 getMinimumPoint() {
+    public synchronized BlockVector3 getMinimumPoint() {
         return BlockVector3.at(minX, minY, minZ);
     }
 
-    public BlockVector3 getMaximumPoint() {
+    public synchronized BlockVector3 getMaximumPoint() {
         return BlockVector3.at(maxX, maxY, maxZ);
     }
 
@@ -55,6 +55,8 @@
  * {@link #processSet(IChunk, IChunkGet, IChunkSet)} is synchronized to guarantee consistency.
  * To avoid many blocking threads on this method, changes are enqueued in {@link #queue}.
  * This allows to keep other threads free for other work.
+ * Implementations recording block changes into shards only synchronize per shard, see {@link #getBlockLock(int, int)},
+ * and record chunks on the posting thread instead.
  */
 public abstract class AbstractChangeSet implements ChangeSet, IBatchProcessor {
 
@@ -123,10 +125,50 @@ public Extent construct(Extent child) {
     }
 
     @Override
-    public final synchronized IChunkSet processSet(IChunk chunk, IChunkGet get, IChunkSet set) {
+    public final IChunkSet processSet(IChunk chunk, IChunkGet get, IChunkSet set) {
         int bx = chunk.getX() << 4;
         int bz = chunk.getZ() << 4;
 
+        processTilesAndEntities(bx, bz, get, set);
+        while (true) {
+            Object lock = getBlockLock(chunk.getX(), chunk.getZ());
+            synchronized (lock) {
+                // The lock of a chunk may change while waiting for it, see getBlockLock
+                if (lock == getBlockLock(chunk.getX(), chunk.getZ())) {
+                    processBlocks(bx, bz, get, set);
+                    break;
+                }
+            }
+        }
+        processBiomes(bx, bz, get, set);
+        return set;
+    }
+
+    /**
+     * Get the lock block changes of the given chunk are recorded under. Implementations able to record block changes of
+     * different chunks at once return a lock per region of the world, all other changes are recorded under the lock of
+     * this change set. The lock of a chunk may change, changes are only recorded while holding the lock currently returned.
+     *
+     * @param chunkX chunk x coordinate
+     * @param chunkZ chunk z coordinate
+     * @return the lock to hold while recording block changes of the chunk
+     * @since 2.13.1
+     */
+    protected Object getBlockLock(int chunkX, int chunkZ) {
+        return this;
+    }
+
+    /**
+     * Get if {@link #processSet(IChunk, IChunkGet, IChunkSet)} may be called for different chunks at once, see
+     * {@link #getBlockLock(int, int)}. If so, chunks are recorded by the threads posting them rather than a single worker.
+     *
+     * @since 2.13.1
+     */
+    protected boolean isConcurrent() {
+        return false;
+    }
+
+    private synchronized void processTilesAndEntities(int bx, int bz, IChunkGet get, IChunkSet set) {
         Map<BlockVector3, FaweCompoundTag> tilesFrom = get.tiles();
         Map<BlockVector3, FaweCompoundTag> tilesTo = set.tiles();
         if (!tilesFrom.isEmpty()) {
@@ -162,6 +204,9 @@ public final synchronized IChunkSet processSet(IChunk chunk, IChunkGet get, IChu
                 addEntityCreate(tag);
             }
         }
+    }
+
+    private void processBlocks(int bx, int bz, IChunkGet get, IChunkSet set) {
         for (int layer = get.getMinSectionPosition(); layer <= get.getMaxSectionPosition(); layer++) {
             if (!set.hasSection(layer)) {
                 continue;
@@ -199,7 +244,9 @@ public final synchronized IChunkSet processSet(IChunk chunk, IChunkGet get, IChu
                 }
             }
         }
+    }
 
+    private synchronized void processBiomes(int bx, int bz, IChunkGet get, IChunkSet set) {
         BiomeType[][] biomes = set.getBiomes();
         if (biomes != null) {
             for (int layer = get.getMinSectionPosition(); layer <= get.getMaxSectionPosition(); layer++) {
@@ -224,17 +271,16 @@ public final synchronized IChunkSet processSet(IChunk chunk, IChunkGet get, IChu
                 }
             }
         }
-        return set;
     }
 
     @Override
     public void postProcess(final IChunk chunk, final IChunkGet get, final IChunkSet set) {
-        addWriteTask(() -> processSet(chunk, get, set));
+        addWriteTask(() -> processSet(chunk, get, set), Fawe.isMainThread() || isConcurrent());
     }
 
     @Override
     public Future<?> postProcessSet(final IChunk chunk, final IChunkGet get, final IChunkSet set) {
-        return addWriteTask(() -> processSet(chunk, get, set));
+        return addWriteTask(() -> processSet(chunk, get, set), Fawe.isMainThread() || isConcurrent());
     }
 
     @Override
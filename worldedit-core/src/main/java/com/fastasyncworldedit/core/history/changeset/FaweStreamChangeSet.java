@@ -11,25 +11,36 @@
 import com.fastasyncworldedit.core.internal.io.FaweInputStream;
 import com.fastasyncworldedit.core.internal.io.FaweOutputStream;
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
 import com.fastasyncworldedit.core.util.MainUtil;
 import com.fastasyncworldedit.core.util.MathMan;
+import com.google.common.io.CountingOutputStream;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockTypes;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.EOFException;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -37,10 +48,21 @@
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.concurrent.Exchanger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
 /**
  * FAWE stream ChangeSet offering support for extended-height worlds
+ * <p>
+ * Implementations supporting {@link #getBlockSegmentOS(int) segments} record block changes into a number of shards, each
+ * written to its own compressed segment, so chunks in different shards can be recorded at once. All changes of a chunk go to
+ * the same shard, keeping their order. Segments are read one after another.
+ * <p>
+ * Changes are only spread over the shards once a second thread records changes. Until then all changes go to the first
+ * shard, so edits recorded by a single thread only hold a single compressed stream.
+ * <p>
+ * Implementations supporting {@link #supportsBlockFrames() frames} additionally split each segment into frames covering whole
+ * chunks, compressed on their own, so that the changes within a region can be read without reading the whole segment.
  */
 public abstract class FaweStreamChangeSet extends AbstractChangeSet {
 
@@ -48,6 +70,9 @@ public abstract class FaweStreamChangeSet extends AbstractChangeSet {
     private static final int VERSION = 2;
     // equivalent to Short#MIN_VALUE three times stored with [(x) & 0xff, ((rx) >> 8) & 0xff]
     private static final byte[] MAGIC_NEW_RELATIVE = new byte[]{0, (byte) 128, 0, (byte) 128, 0, (byte) 128};
+    // Changes after which a frame is finished once the next change is in a different chunk
+    private static final int BLOCK_FRAME_CHANGES = 4096;
+    private static final int BLOCK_FRAME_BUFFER_SIZE = 1 << 16;
     private int mode;
     private final int compression;
     private final int minY;
@@ -60,6 +85,14 @@ public abstract class FaweStreamChangeSet extends AbstractChangeSet {
     protected FaweStreamIdDelegate idDel;
     protected FaweStreamPositionDelegate posDel;
 
+    // null if all block changes are written to the single stream of getBlockOS
+    @Nullable
+    private final BlockShard[] shards;
+    private final Object shardOriginLock = new Object();
+    private boolean shardOriginSet;
+    private final AtomicReference<Thread> firstRecorder = new AtomicReference<>();
+    private volatile boolean spreadShards;
+
     public FaweStreamChangeSet(World world) {
         this(world, Settings.settings().HISTORY.COMPRESSION_LEVEL, Settings.settings().HISTORY.STORE_REDO, Settings.settings().HISTORY.SMALL_EDITS);
     }
@@ -69,6 +102,33 @@ public FaweStreamChangeSet(World world, int compression, boolean storeRedo, bool
         this.compression = compression;
         this.minY = world.getMinY();
         init(storeRedo, smallLoc);
+        this.shards = createShards();
+    }
+
+    @Nullable
+    private BlockShard[] createShards() {
+        if (!supportsBlockSegments()) {
+            return null;
+        }
+        int count = Settings.settings().HISTORY.RECORDING_SHARDS;
+        if (count <= 0) {
+            count = Settings.settings().QUEUE.PARALLEL_THREADS;
+        }
+        if (count <= 1) {
+            if (!supportsBlockFrames()) {
+                return null;
+            }
+            // Frames are only written by shards
+            count = 1;
+        } else {
+            // power of two so a shard can be selected by masking
+            count = Integer.highestOneBit(count - 1) << 1;
+        }
+        BlockShard[] shards = new BlockShard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new BlockShard(i);
+        }
+        return shards;
     }
 
     private void init(boolean storeRedo, boolean smallLoc) {
@@ -109,8 +169,13 @@ public interface FaweStreamIdDelegate {
 
     protected void setupStreamDelegates(int mode) {
         this.mode = mode;
+        this.idDel = createIdDelegate(mode);
+        this.posDel = createPositionDelegate(mode);
+    }
+
+    private FaweStreamIdDelegate createIdDelegate(int mode) {
         if (mode == 3 || mode == 4) {
-            idDel = new FaweStreamIdDelegate() {
+            return new FaweStreamIdDelegate() {
                 @Override
                 public void writeChange(FaweOutputStream stream, int combinedFrom, int combinedTo) throws IOException {
                     stream.writeVarInt(combinedFrom);
@@ -135,7 +200,7 @@ public void readCombined(FaweInputStream is, MutableFullBlockChange change) thro
                 }
             };
         } else {
-            idDel = new FaweStreamIdDelegate() {
+            return new FaweStreamIdDelegate() {
                 @Override
                 public void writeChange(FaweOutputStream stream, int combinedFrom, int to) throws IOException {
                     stream.writeVarInt(combinedFrom);
@@ -153,8 +218,11 @@ public void readCombined(FaweInputStream is, MutableFullBlockChange change) thro
                 }
             };
         }
+    }
+
+    private FaweStreamPositionDelegate createPositionDelegate(int mode) {
         if (mode == 1 || mode == 4) { // small
-            posDel = new FaweStreamPositionDelegate() {
+            return new FaweStreamPositionDelegate() {
                 int lx;
                 int ly;
                 int lz;
@@ -198,7 +266,7 @@ public int readZ(FaweInputStream in) throws IOException {
                 }
             };
         } else {
-            posDel = new FaweStreamPositionDelegate() {
+            return new FaweStreamPositionDelegate() {
                 final byte[] buffer = new byte[6];
                 int lx;
                 int ly;
@@ -257,10 +325,17 @@ public int readZ(FaweInputStream is) throws IOException {
     }
 
     public void writeHeader(OutputStream os, int x, int y, int z) throws IOException {
+        setOrigin(x, z);
+        writeHeader(os);
+        setupStreamDelegates(mode);
+    }
+
+    private void writeHeader(OutputStream os) throws IOException {
+        int x = originX;
+        int z = originZ;
         os.write(mode);
         // Allows for version detection of history in case of changes to format.
         os.write(VERSION);
-        setOrigin(x, z);
         os.write((byte) (x >> 24));
         os.write((byte) (x >> 16));
         os.write((byte) (x >> 8));
@@ -269,7 +344,6 @@ public void writeHeader(OutputStream os, int x, int y, int z) throws IOException
         os.write((byte) (z >> 16));
         os.write((byte) (z >> 8));
         os.write((byte) (z));
-        setupStreamDelegates(mode);
     }
 
     public void readHeader(InputStream is) throws IOException {
@@ -292,21 +366,89 @@ public FaweOutputStream getCompressedOS(OutputStream os) throws IOException {
 
     @Override
     public boolean isEmpty() {
-        if (blockSize > 0) {
+        if (blockSize > 0 || shardSize() > 0) {
             return false;
         }
         if (!super.isEmpty()) {
             return false;
         }
         flush();
-        return blockSize == 0;
+        return blockSize == 0 && shardSize() == 0;
     }
 
     @Override
     public long longSize() {
         // Flush so we can accurately get the size
         flush();
-        return blockSize;
+        return blockSize + shardSize();
+    }
+
+    private long shardSize() {
+        if (shards == null) {
+            return 0;
+        }
+        long size = 0;
+        for (BlockShard shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    @Override
+    protected Object getBlockLock(int chunkX, int chunkZ) {
+        if (shards == null) {
+            return this;
+        }
+        if (!spreadShards && shards.length > 1) {
+            Thread current = Thread.currentThread();
+            if (!firstRecorder.compareAndSet(null, current) && firstRecorder.get() != current) {
+                // Under the lock of the first shard, so a chunk being recorded into it is not split over two shards
+                synchronized (shards[0]) {
+                    spreadShards = true;
+                }
+            }
+        }
+        return shards[currentShardIndex(chunkX, chunkZ)];
+    }
+
+    @Override
+    protected boolean isConcurrent() {
+        return shards != null;
+    }
+
+    private int currentShardIndex(int chunkX, int chunkZ) {
+        // Chunks recorded into the first shard before spreading are read before any other shard, so their order is kept
+        return spreadShards ? shardIndex(chunkX, chunkZ) : 0;
+    }
+
+    private int shardIndex(int chunkX, int chunkZ) {
+        int hash = chunkX * 0x9E3779B9 + chunkZ * 0x85EBCA6B;
+        return (hash ^ (hash >>> 16)) & (shards.length - 1);
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        if (shards != null) {
+            // Not under the lock of this change set, shards acquire it when opened
+            for (BlockShard shard : shards) {
+                try {
+                    shard.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        if (shards != null) {
+            for (BlockShard shard : shards) {
+                shard.close();
+            }
+        }
     }
 
     @Override
@@ -322,6 +464,90 @@ public long getSizeOnDisk() {
         return 0;
     }
 
+    /**
+     * Get if block changes may be recorded into multiple segments, written to through {@link #getBlockSegmentOS(int)}
+     * rather than {@link #getBlockOS(int, int, int)}. Called from the constructor.
+     *
+     * @since 2.13.1
+     */
+    protected boolean supportsBlockSegments() {
+        return false;
+    }
+
+    /**
+     * Get if block changes recorded into segments are split into frames, see {@link #getBlockFrames(int)}. Only used if
+     * {@link #supportsBlockSegments()} returns true. Called from the constructor.
+     *
+     * @since 2.13.1
+     */
+    protected boolean supportsBlockFrames() {
+        return false;
+    }
+
+    /**
+     * Get the frames a segment of block changes was written as, once closed. Without {@link #supportsBlockFrames() frames}
+     * support, a segment is a single frame.
+     *
+     * @param segment index of the segment, less than {@link #getBlockShardCount()}
+     * @return frames of the segment in the order written, empty if nothing was written to it
+     * @since 2.13.1
+     */
+    protected List<BlockFrame> getBlockFrames(int segment) {
+        return shards == null ? List.of() : List.copyOf(shards[segment].frames);
+    }
+
+    /**
+     * Get if a segment of block changes may contain changes within any of the given regions.
+     *
+     * @param segment index of the segment, less than {@link #getBlockSegmentCount()}
+     * @param regions the regions
+     * @since 2.13.1
+     */
+    protected boolean blockSegmentIntersects(int segment, Region[] regions) {
+        return true;
+    }
+
+    /**
+     * Get the number of shards block changes are recorded into, or 0 if they are written to a single stream.
+     *
+     * @since 2.13.1
+     */
+    protected int getBlockShardCount() {
+        return shards == null ? 0 : shards.length;
+    }
+
+    /**
+     * Open the output a segment of block changes is written to. Compression and the segment header are handled by the
+     * caller. Only called if {@link #supportsBlockSegments()} returns true.
+     *
+     * @param segment index of the segment, less than {@link #getBlockShardCount()}
+     * @return output of the segment
+     * @since 2.13.1
+     */
+    protected OutputStream getBlockSegmentOS(int segment) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get the number of segments recorded block changes can be read from.
+     *
+     * @since 2.13.1
+     */
+    protected int getBlockSegmentCount() {
+        return 1;
+    }
+
+    /**
+     * Get the block changes of a segment, with its header read.
+     *
+     * @param segment index of the segment, less than {@link #getBlockSegmentCount()}
+     * @return block changes of the segment, or null if there are none
+     * @since 2.13.1
+     */
+    protected FaweInputStream getBlockIS(int segment) throws IOException {
+        return getBlockIS();
+    }
+
     public abstract FaweOutputStream getBlockOS(int x, int y, int z) throws IOException;
 
     public abstract FaweOutputStream getBiomeOS() throws IOException;
@@ -361,6 +587,14 @@ public int getOriginZ() {
 
     @Override
     public void add(int x, int y, int z, int combinedFrom, int combinedTo) {
+        if (shards != null) {
+            try {
+                shards[currentShardIndex(x >> 4, z >> 4)].add(x, y, z, combinedFrom, combinedTo);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
         blockSize++;
         try {
             FaweOutputStream stream = getBlockOS(x, y, z);
@@ -443,8 +677,22 @@ public void addEntityCreate(final FaweCompoundTag tag) {
     }
 
     public Iterator<MutableBlockChange> getBlockIterator(final boolean dir) throws IOException {
-        final FaweInputStream is = getBlockIS();
-        if (is == null) {
+        return getBlockIterator(dir, null);
+    }
+
+    /**
+     * Get an iterator over the recorded block changes, only reading segments that may contain changes within the given
+     * regions, as far as the implementation can tell from {@link #blockSegmentIntersects(int, Region[])}. Changes outside the
+     * regions may still be returned, so they must be filtered elsewhere, e.g. by an edit session restricted to the regions.
+     *
+     * @param dir     true for redo, false for undo
+     * @param regions the regions to read changes within, or null to read all changes
+     * @return iterator over the block changes
+     * @since 2.13.1
+     */
+    public Iterator<MutableBlockChange> getBlockIterator(final boolean dir, @Nullable Region[] regions) throws IOException {
+        final BlockReader reader = new BlockReader(regions);
+        if (!reader.next()) {
             return Collections.emptyIterator();
         }
         final MutableBlockChange change = new MutableBlockChange(0, 0, 0, BlockTypes.AIR.getInternalId());
@@ -453,20 +701,13 @@ public Iterator<MutableBlockChange> getBlockIterator(final boolean dir) throws I
 
             public MutableBlockChange read() {
                 try {
-                    change.x = posDel.readX(is) + originX;
-                    change.y = posDel.readY(is);
-                    change.z = posDel.readZ(is) + originZ;
-                    idDel.readCombined(is, change, dir);
-                    return change;
-                } catch (EOFException ignored) {
+                    if (reader.read(change, dir)) {
+                        return change;
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
-                try {
-                    is.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                reader.close();
                 return null;
             }
 
@@ -550,40 +791,59 @@ public void remove() {
 
     @Override
     public Iterator<Change> getIterator(BlockBag blockBag, int mode, boolean redo) {
+        return getIterator(blockBag, mode, redo, null);
+    }
+
+    /**
+     * Get an iterator over the recorded changes, only reading block changes of segments that may contain changes within the
+     * given regions, see {@link #getBlockIterator(boolean, Region[])}.
+     *
+     * @param regions the regions to read block changes within, or null to read all changes
+     * @since 2.13.1
+     */
+    public Iterator<Change> getIterator(BlockBag blockBag, int mode, boolean redo, @Nullable Region[] regions) {
         if (blockBag != null && mode > 0) {
             try {
-                return (Iterator<Change>) (Iterator<?>) getFullBlockIterator(blockBag, mode, redo);
+                return (Iterator<Change>) (Iterator<?>) getFullBlockIterator(blockBag, mode, redo, regions);
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
-        return getIterator(redo);
+        return getIterator(redo, true, regions);
     }
 
     public Iterator<MutableFullBlockChange> getFullBlockIterator(BlockBag blockBag, int inventory, final boolean dir) throws
             IOException {
-        final FaweInputStream is = new FaweInputStream(getBlockIS());
+        return getFullBlockIterator(blockBag, inventory, dir, null);
+    }
+
+    /**
+     * Get an iterator over the recorded block changes using the given block bag, only reading segments that may contain
+     * changes within the given regions, see {@link #getBlockIterator(boolean, Region[])}.
+     *
+     * @param regions the regions to read changes within, or null to read all changes
+     * @since 2.13.1
+     */
+    public Iterator<MutableFullBlockChange> getFullBlockIterator(
+            BlockBag blockBag,
+            int inventory,
+            final boolean dir,
+            @Nullable Region[] regions
+    ) throws IOException {
+        final BlockReader reader = new BlockReader(regions);
         final MutableFullBlockChange change = new MutableFullBlockChange(blockBag, inventory, dir);
         return new Iterator<MutableFullBlockChange>() {
             private MutableFullBlockChange last = read();
 
             public MutableFullBlockChange read() {
                 try {
-                    change.x = posDel.readX(is) + originX;
-                    change.y = posDel.readY(is);
-                    change.z = posDel.readZ(is) + originZ;
-                    idDel.readCombined(is, change);
-                    return change;
-                } catch (EOFException ignored) {
+                    if (reader.read(change)) {
+                        return change;
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
-                    e.printStackTrace();
-                }
-                try {
-                    is.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
                 }
+                reader.close();
                 return null;
             }
 
@@ -709,14 +969,30 @@ public void remove() {
 
     @Override
     public ChangeExchangeCoordinator getCoordinatedChanges(BlockBag blockBag, int mode, boolean dir) {
+        return getCoordinatedChanges(blockBag, mode, dir, null);
+    }
+
+    /**
+     * Get the recorded changes exchanged in batches, only reading block changes of segments that may contain changes within
+     * the given regions, see {@link #getBlockIterator(boolean, Region[])}.
+     *
+     * @param regions the regions to read block changes within, or null to read all changes
+     * @since 2.13.1
+     */
+    public ChangeExchangeCoordinator getCoordinatedChanges(BlockBag blockBag, int mode, boolean dir, @Nullable Region[] regions) {
         try {
-            return coordinatedChanges(blockBag, mode, dir);
+            return coordinatedChanges(blockBag, mode, dir, regions);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private ChangeExchangeCoordinator coordinatedChanges(final BlockBag blockBag, final int mode, boolean dir) throws IOException {
+    private ChangeExchangeCoordinator coordinatedChanges(
+            final BlockBag blockBag,
+            final int mode,
+            boolean dir,
+            @Nullable Region[] regions
+    ) throws IOException {
         close();
         var tileCreate = tileChangePopulator(getTileCreateIS(), true);
         var tileRemove = tileChangePopulator(getTileRemoveIS(), false);
@@ -724,7 +1000,9 @@ private ChangeExchangeCoordinator coordinatedChanges(final BlockBag blockBag, fi
         var entityCreate = entityChangePopulator(getEntityCreateIS(), true);
         var entityRemove = entityChangePopulator(getEntityRemoveIS(), false);
 
-        var blockChange = blockBag != null && mode > 0 ? fullBlockChangePopulator(blockBag, mode, dir) : blockChangePopulator(dir);
+        var blockChange = blockBag != null && mode > 0
+                ? fullBlockChangePopulator(blockBag, mode, dir, regions)
+                : blockChangePopulator(dir, regions);
 
         var biomeChange = biomeChangePopulator(dir);
 
@@ -857,10 +1135,14 @@ public boolean accepts(final Change change) {
         return new Populator();
     }
 
-    private ChangePopulator<MutableFullBlockChange> fullBlockChangePopulator(BlockBag blockBag, int mode, boolean dir) throws
-            IOException {
-        final FaweInputStream is = getBlockIS();
-        if (is == null) {
+    private ChangePopulator<MutableFullBlockChange> fullBlockChangePopulator(
+            BlockBag blockBag,
+            int mode,
+            boolean dir,
+            @Nullable Region[] regions
+    ) throws IOException {
+        final BlockReader reader = new BlockReader(regions);
+        if (!reader.next()) {
             return ChangePopulator.empty();
         }
         class Populator implements ChangePopulator<MutableFullBlockChange> {
@@ -873,20 +1155,13 @@ class Populator implements ChangePopulator<MutableFullBlockChange> {
             @Override
             public @Nullable MutableFullBlockChange populate(@NotNull final MutableFullBlockChange change) {
                 try {
-                    change.x = posDel.readX(is) + originX;
-                    change.y = posDel.readY(is);
-                    change.z = posDel.readZ(is) + originZ;
-                    idDel.readCombined(is, change);
-                    return change;
-                } catch (EOFException ignored) {
+                    if (reader.read(change)) {
+                        return change;
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
-                try {
-                    is.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                reader.close();
                 return null;
             }
 
@@ -900,9 +1175,9 @@ public boolean accepts(final Change change) {
 
     }
 
-    private ChangePopulator<MutableBlockChange> blockChangePopulator(boolean dir) throws IOException {
-        final FaweInputStream is = getBlockIS();
-        if (is == null) {
+    private ChangePopulator<MutableBlockChange> blockChangePopulator(boolean dir, @Nullable Region[] regions) throws IOException {
+        final BlockReader reader = new BlockReader(regions);
+        if (!reader.next()) {
             return ChangePopulator.empty();
         }
         class Populator implements ChangePopulator<MutableBlockChange> {
@@ -915,20 +1190,13 @@ class Populator implements ChangePopulator<MutableBlockChange> {
             @Override
             public @Nullable MutableBlockChange populate(@NotNull final MutableBlockChange change) {
                 try {
-                    change.x = posDel.readX(is) + originX;
-                    change.y = posDel.readY(is);
-                    change.z = posDel.readZ(is) + originZ;
-                    idDel.readCombined(is, change, dir);
-                    return change;
-                } catch (EOFException ignored) {
+                    if (reader.read(change, dir)) {
+                        return change;
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
-                try {
-                    is.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                reader.close();
                 return null;
             }
 
@@ -989,6 +1257,32 @@ public boolean accepts(final Change change) {
 
     @Override
     public Iterator<Change> getIterator(final boolean dir) {
+        return getIterator(dir, true);
+    }
+
+    /**
+     * Get an iterator over the recorded changes.
+     *
+     * @param dir    true for redo, false for undo
+     * @param blocks false to leave out block changes, e.g. if they are applied by {@link #applyBlockChanges(Extent, boolean)}
+     * @return iterator over the changes
+     * @since 2.13.1
+     */
+    public Iterator<Change> getIterator(final boolean dir, final boolean blocks) {
+        return getIterator(dir, blocks, null);
+    }
+
+    /**
+     * Get an iterator over the recorded changes, only reading block changes of segments that may contain changes within the
+     * given regions, see {@link #getBlockIterator(boolean, Region[])}.
+     *
+     * @param dir     true for redo, false for undo
+     * @param blocks  false to leave out block changes, e.g. if they are applied by {@link #applyBlockChanges(Extent, boolean)}
+     * @param regions the regions to read block changes within, or null to read all changes
+     * @return iterator over the changes
+     * @since 2.13.1
+     */
+    public Iterator<Change> getIterator(final boolean dir, final boolean blocks, @Nullable Region[] regions) {
         try {
             close();
             final Iterator<MutableTileChange> tileCreate = getTileIterator(getTileCreateIS(), true);
@@ -997,7 +1291,9 @@ public Iterator<Change> getIterator(final boolean dir) {
             final Iterator<MutableEntityChange> entityCreate = getEntityIterator(getEntityCreateIS(), true);
             final Iterator<MutableEntityChange> entityRemove = getEntityIterator(getEntityRemoveIS(), false);
 
-            final Iterator<MutableBlockChange> blockChange = getBlockIterator(dir);
+            final Iterator<MutableBlockChange> blockChange = blocks
+                    ? getBlockIterator(dir, regions)
+                    : Collections.emptyIterator();
 
             final Iterator<MutableBiomeChange> biomeChange = getBiomeIterator(dir);
 
@@ -1042,6 +1338,114 @@ public Change next() {
         return Collections.emptyIterator();
     }
 
+    /**
+     * Get if {@link #applyBlockChanges(Extent, boolean)} can apply block changes to the given extent.
+     *
+     * @since 2.13.1
+     */
+    public static boolean canApplyBlockChanges(Extent extent) {
+        return extent instanceof ParallelQueueExtent || extent instanceof IQueueExtent;
+    }
+
+    /**
+     * Apply the recorded block changes by whole chunk sections rather than block by block. Changes are collected into
+     * sections until a number of them is pending, which are then merged into the chunks of the extent at once. Undo sets
+     * the state a block had before the first change recorded for it, redo the state after the last.
+     *
+     * @param extent extent to apply the changes to, see {@link #canApplyBlockChanges(Extent)}
+     * @param dir    true for redo, false for undo
+     * @throws UncheckedIOException if the changes could not be read
+     * @since 2.13.1
+     */
+    public void applyBlockChanges(Extent extent, boolean dir) {
+        applyBlockChanges(extent, dir, null);
+    }
+
+    /**
+     * Apply the recorded block changes by whole chunk sections, only reading segments that may contain changes within the
+     * given regions, see {@link #applyBlockChanges(Extent, boolean)} and {@link #getBlockIterator(boolean, Region[])}.
+     *
+     * @param regions the regions to read changes within, or null to read all changes
+     * @since 2.13.1
+     */
+    public void applyBlockChanges(Extent extent, boolean dir, @Nullable Region[] regions) {
+        final int minSection = minY >> 4;
+        final int sectionCount = (getWorld().getMaxY() >> 4) - minSection + 1;
+        final int maxPendingSections = Math.max(64, Settings.settings().QUEUE.TARGET_SIZE * 4);
+        final Long2ObjectOpenHashMap<int[][]> pending = new Long2ObjectOpenHashMap<>();
+        // Positions already undone, by section, kept once pending sections are merged as a chunk may be read again later
+        final Long2ObjectOpenHashMap<long[][]> undone = dir ? null : new Long2ObjectOpenHashMap<>();
+        final MutableBlockChange change = new MutableBlockChange(0, 0, 0, BlockTypes.AIR.getInternalId());
+        int pendingSections = 0;
+        long lastChunk = 0;
+        int[][] sections = null;
+        BlockReader reader = null;
+        try {
+            close();
+            reader = new BlockReader(regions);
+            while (reader.read(change, dir)) {
+                int layer = (change.y >> 4) - minSection;
+                if (layer < 0 || layer >= sectionCount) {
+                    continue;
+                }
+                long chunk = MathMan.pairInt(change.x >> 4, change.z >> 4);
+                // Changes are recorded chunk by chunk, so usually the chunk is the same as for the previous change
+                if (sections == null || chunk != lastChunk) {
+                    sections = pending.get(chunk);
+                    if (sections == null) {
+                        if (pendingSections >= maxPendingSections) {
+                            mergeSections(extent, pending, minSection);
+                            pending.clear();
+                            pendingSections = 0;
+                        }
+                        sections = new int[sectionCount][];
+                        pending.put(chunk, sections);
+                    }
+                    lastChunk = chunk;
+                }
+                int[] blocks = sections[layer];
+                if (blocks == null) {
+                    blocks = sections[layer] = new int[4096];
+                    pendingSections++;
+                }
+                int index = ((change.y & 15) << 8) | ((change.z & 15) << 4) | (change.x & 15);
+                if (!dir) {
+                    long[][] doneSections = undone.get(chunk);
+                    if (doneSections == null) {
+                        undone.put(chunk, doneSections = new long[sectionCount][]);
+                    }
+                    long[] done = doneSections[layer];
+                    if (done == null) {
+                        done = doneSections[layer] = new long[4096 >> 6];
+                    }
+                    if ((done[index >> 6] & (1L << index)) != 0) {
+                        continue;
+                    }
+                    done[index >> 6] |= 1L << index;
+                }
+                blocks[index] = change.ordinal;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+        if (!pending.isEmpty()) {
+            mergeSections(extent, pending, minSection);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mergeSections(Extent extent, Long2ObjectMap<int[][]> chunks, int minSection) {
+        if (extent instanceof ParallelQueueExtent parallel) {
+            parallel.mergeSections(chunks, minSection);
+        } else {
+            ((IQueueExtent<IQueueChunk>) extent).mergeSections(chunks, minSection);
+        }
+    }
+
     @Override
     public Iterator<Change> backwardIterator() {
         return getIterator(false);
@@ -1064,23 +1468,260 @@ public SimpleChangeSetSummary summarize(Region region, boolean shallow) {
         if (region != null && !region.contains(ox, oz)) {
             return summary;
         }
-        try (FaweInputStream fis = getBlockIS()) {
+        BlockReader reader = new BlockReader(region == null ? null : new Region[]{region});
+        try {
             if (!shallow) {
                 int amount = (Settings.settings().HISTORY.BUFFER_SIZE - HEADER_SIZE) / 9;
                 MutableFullBlockChange change = new MutableFullBlockChange(null, 0, false);
-                for (int i = 0; i < amount; i++) {
-                    int x = posDel.readX(fis) + ox;
-                    int y = posDel.readY(fis);
-                    int z = posDel.readZ(fis) + ox;
-                    idDel.readCombined(fis, change);
-                    summary.add(x, z, change.to);
+                for (int i = 0; i < amount && reader.read(change); i++) {
+                    summary.add(change.x, change.z, change.to);
                 }
             }
-        } catch (EOFException ignored) {
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            reader.close();
         }
         return summary;
     }
 
+    /**
+     * Block changes of the chunks mapped to one shard, written to their own segment. Positions are encoded relative to the
+     * previous one written to the same frame, so each frame has its own delegates.
+     */
+    private final class BlockShard {
+
+        private final int segment;
+        private final List<BlockFrame> frames = new ArrayList<>();
+        private CountingOutputStream segmentStream;
+        private FaweOutputStream stream;
+        private FaweStreamPositionDelegate posDel;
+        private FaweStreamIdDelegate idDel;
+        // Written under the lock of the shard only
+        private volatile long size;
+        private long frameOffset;
+        private int frameChanges;
+        private int lastChunkX;
+        private int lastChunkZ;
+        private int minChunkX;
+        private int minChunkZ;
+        private int maxChunkX;
+        private int maxChunkZ;
+
+        private BlockShard(int segment) {
+            this.segment = segment;
+        }
+
+        private synchronized void add(int x, int y, int z, int combinedFrom, int combinedTo) throws IOException {
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+            if (stream == null) {
+                open(x, z);
+            } else if (frameChanges >= BLOCK_FRAME_CHANGES && (chunkX != lastChunkX || chunkZ != lastChunkZ)
+                    && supportsBlockFrames()) {
+                finishFrame();
+                openFrame();
+            }
+            if (frameChanges++ == 0) {
+                minChunkX = maxChunkX = chunkX;
+                minChunkZ = maxChunkZ = chunkZ;
+            } else {
+                minChunkX = Math.min(minChunkX, chunkX);
+                minChunkZ = Math.min(minChunkZ, chunkZ);
+                maxChunkX = Math.max(maxChunkX, chunkX);
+                maxChunkZ = Math.max(maxChunkZ, chunkZ);
+            }
+            lastChunkX = chunkX;
+            lastChunkZ = chunkZ;
+            size++;
+            posDel.write(stream, x - originX, y, z - originZ);
+            idDel.writeChange(stream, combinedFrom, combinedTo);
+        }
+
+        private void open(int x, int z) throws IOException {
+            // All segments share the origin of the first change recorded. Not the lock of this change set, which may be held
+            // while waiting for shards
+            synchronized (shardOriginLock) {
+                if (!shardOriginSet) {
+                    setOrigin(x, z);
+                    shardOriginSet = true;
+                }
+            }
+            segmentStream = new CountingOutputStream(getBlockSegmentOS(segment));
+            openFrame();
+        }
+
+        private void openFrame() throws IOException {
+            frameOffset = segmentStream.getCount();
+            frameChanges = 0;
+            if (supportsBlockFrames()) {
+                // Finishing a frame must not close the segment
+                OutputStream frameOut = new FilterOutputStream(segmentStream) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+                stream = MainUtil.getCompressedOS(frameOut, compression, BLOCK_FRAME_BUFFER_SIZE);
+            } else {
+                stream = getCompressedOS(segmentStream);
+            }
+            writeHeader(stream);
+            posDel = createPositionDelegate(mode);
+            idDel = createIdDelegate(mode);
+        }
+
+        private void finishFrame() throws IOException {
+            stream.close();
+            if (frameChanges > 0) {
+                long length = segmentStream.getCount() - frameOffset;
+                frames.add(new BlockFrame(frameOffset, length, minChunkX, minChunkZ, maxChunkX, maxChunkZ));
+            }
+        }
+
+        private synchronized void flush() throws IOException {
+            if (stream != null) {
+                stream.flush();
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            if (stream != null) {
+                finishFrame();
+                segmentStream.close();
+                stream = null;
+            }
+        }
+
+    }
+
+    /**
+     * A frame of block changes within a segment, starting with its own header and compressed on its own, so it can be read
+     * without the rest of the segment. Covers all changes of the chunks recorded into it at the time, within the given chunk
+     * bounds.
+     *
+     * @param offset    offset of the frame in bytes
+     * @param length    compressed length of the frame in bytes
+     * @param minChunkX minimum chunk x coordinate of the changes in the frame
+     * @param minChunkZ minimum chunk z coordinate of the changes in the frame
+     * @param maxChunkX maximum chunk x coordinate of the changes in the frame
+     * @param maxChunkZ maximum chunk z coordinate of the changes in the frame
+     * @since 2.13.1
+     */
+    public record BlockFrame(long offset, long length, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+
+        /**
+         * Get this frame at an offset moved by the given number of bytes, e.g. once its segment is combined with others.
+         */
+        public BlockFrame shift(long bytes) {
+            return new BlockFrame(offset + bytes, length, minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+        }
+
+        /**
+         * Get if the frame may contain changes within any of the given regions.
+         */
+        public boolean intersects(Region[] regions) {
+            for (Region region : regions) {
+                BlockVector3 min = region.getMinimumPoint();
+                BlockVector3 max = region.getMaximumPoint();
+                if (min.x() >> 4 <= maxChunkX && max.x() >> 4 >= minChunkX
+                        && min.z() >> 4 <= maxChunkZ && max.z() >> 4 >= minChunkZ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Reads the block changes of all segments, one after another, skipping segments without changes in the regions read.
+     */
+    private final class BlockReader {
+
+        private final int segments;
+        @Nullable
+        private final Region[] regions;
+        private int segment;
+        private FaweInputStream is;
+        private FaweStreamPositionDelegate posDel;
+        private FaweStreamIdDelegate idDel;
+
+        private BlockReader(@Nullable Region[] regions) {
+            this.segments = getBlockSegmentCount();
+            this.regions = regions;
+        }
+
+        /**
+         * Open the next segment containing changes.
+         *
+         * @return false if there are no segments left
+         */
+        private boolean next() throws IOException {
+            close();
+            while (segment < segments) {
+                if (regions != null && !blockSegmentIntersects(segment, regions)) {
+                    segment++;
+                    continue;
+                }
+                FaweInputStream next = getBlockIS(segment++);
+                if (next != null) {
+                    // Reading the header set up the delegates of the change set for this segment
+                    is = next;
+                    posDel = FaweStreamChangeSet.this.posDel;
+                    idDel = FaweStreamChangeSet.this.idDel;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean read(MutableBlockChange change, boolean dir) throws IOException {
+            while (is != null || next()) {
+                try {
+                    change.x = posDel.readX(is) + originX;
+                    change.y = posDel.readY(is);
+                    change.z = posDel.readZ(is) + originZ;
+                    idDel.readCombined(is, change, dir);
+                    return true;
+                } catch (EOFException ignored) {
+                    close();
+                }
+            }
+            return false;
+        }
+
+        private boolean read(MutableFullBlockChange change) throws IOException {
+            while (is != null || next()) {
+                try {
+                    change.x = posDel.readX(is) + originX;
+                    change.y = posDel.readY(is);
+                    change.z = posDel.readZ(is) + originZ;
+                    idDel.readCombined(is, change);
+                    return true;
+                } catch (EOFException ignored) {
+                    close();
+                }
+            }
+            return false;
+        }
+
+        private void close() {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                is = null;
+            }
+        }
+
+    }
+
 }
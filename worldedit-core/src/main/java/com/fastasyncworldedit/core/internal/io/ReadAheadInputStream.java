@@ -0,0 +1,198 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a source stream ahead of the consumer on a separate thread, e.g. so a stream is decompressed while the data already
+ * decompressed is being decoded. The source must not be used by anything else until {@link #stop()} or {@link #close()}.
+ * <p>
+ * Streams that are no longer referenced without having been stopped stop reading ahead once garbage collected.
+ *
+ * @since 2.13.1
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("FAWE Stream Pipeline - %d").setDaemon(true).build()
+    );
+    // Ends the tasks of abandoned streams, which must therefore not reference the stream itself
+    static final Cleaner CLEANER = Cleaner.create();
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int DEFAULT_BUFFERS = 4;
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final Pipe pipe;
+    private final Future<?> reader;
+    private final Cleaner.Cleanable cleanable;
+    private byte[] current = new byte[0];
+    private int position;
+
+    /**
+     * New instance reading ahead 64 KiB at a time, up to 256 KiB ahead of the consumer.
+     *
+     * @param source the stream to read from
+     */
+    public ReadAheadInputStream(InputStream source) {
+        this(source, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFERS);
+    }
+
+    /**
+     * New instance.
+     *
+     * @param source     the stream to read from
+     * @param bufferSize the number of bytes read from the source at once
+     * @param buffers    the number of buffers that may be read ahead of the consumer
+     */
+    public ReadAheadInputStream(InputStream source, int bufferSize, int buffers) {
+        this.source = source;
+        Pipe pipe = new Pipe(source, buffers);
+        this.pipe = pipe;
+        this.reader = EXECUTOR.submit(() -> pipe.readAhead(bufferSize));
+        this.cleanable = CLEANER.register(this, pipe::stop);
+    }
+
+    private boolean fill() throws IOException {
+        if (current == END) {
+            return false;
+        }
+        try {
+            current = pipe.filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        position = 0;
+        if (current == END) {
+            IOException e = pipe.error;
+            if (e != null) {
+                throw e;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == current.length && !fill()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == current.length && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    /**
+     * Stop reading ahead and wait for the source to no longer be in use, without closing it. Data read ahead but not yet
+     * consumed is discarded.
+     */
+    public void stop() throws IOException {
+        cleanable.clean();
+        try {
+            reader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        pipe.filled.clear();
+        current = END;
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            stop();
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * State shared with the task reading ahead.
+     */
+    private static final class Pipe {
+
+        private final InputStream source;
+        private final BlockingQueue<byte[]> filled;
+        private volatile boolean stopped;
+        private volatile IOException error;
+
+        private Pipe(InputStream source, int buffers) {
+            this.source = source;
+            this.filled = new ArrayBlockingQueue<>(buffers);
+        }
+
+        private void stop() {
+            stopped = true;
+        }
+
+        private void readAhead(int bufferSize) {
+            try {
+                byte[] buffer = new byte[bufferSize];
+                int read;
+                while (!stopped && (read = source.readNBytes(buffer, 0, bufferSize)) > 0) {
+                    if (!offer(read == bufferSize ? buffer.clone() : Arrays.copyOf(buffer, read))) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // The consumer must still be handed the end, or it waits for more data forever
+                error = e instanceof IOException io ? io : new IOException(e);
+            }
+            try {
+                offer(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Wait for the consumer to make space, giving up once stopped
+        private boolean offer(byte[] buffer) throws InterruptedException {
+            while (!filled.offer(buffer, 50, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
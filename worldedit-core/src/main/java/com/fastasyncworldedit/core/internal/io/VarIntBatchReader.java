@@ -0,0 +1,104 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Reads a fixed number of var-int encoded bytes from a stream and decodes them in batches, rather than one byte at a time
+ * like {@link VarIntStreamIterator}. Runs of values that fit into a single byte, e.g. the palette indices of most
+ * schematics, are decoded eight at a time.
+ *
+ * @since 2.13.1
+ */
+public class VarIntBatchReader {
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long CONTINUATION_BITS = 0x8080808080808080L;
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 13;
+
+    private final DataInput input;
+    private final byte[] buffer;
+    private int remaining;
+    private int position;
+    private int limit;
+
+    /**
+     * New instance.
+     *
+     * @param input  the stream to read from
+     * @param length the number of bytes of var-int data to read from the stream
+     */
+    public VarIntBatchReader(DataInput input, int length) {
+        this.input = input;
+        this.remaining = length;
+        this.buffer = new byte[Math.max(MAX_VARINT_BYTES, Math.min(length, DEFAULT_BUFFER_SIZE))];
+    }
+
+    /**
+     * Decode up to {@code length} values into the given array.
+     *
+     * @param values the array to decode into
+     * @param offset the offset in the array to start at
+     * @param length the maximum number of values to decode
+     * @return the number of values decoded, less than {@code length} only once all data has been read
+     * @throws IOException if the stream could not be read or the data is not valid var-int data
+     */
+    public int read(int[] values, int offset, int length) throws IOException {
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            if (limit - position < MAX_VARINT_BYTES && remaining > 0) {
+                refill();
+            }
+            if (position == limit) {
+                break;
+            }
+            if (end - i >= 8 && limit - position >= 8) {
+                long word = (long) LONG_VIEW.get(buffer, position);
+                if ((word & CONTINUATION_BITS) == 0) {
+                    for (int j = 0; j < 8; j++) {
+                        values[i + j] = buffer[position + j];
+                    }
+                    i += 8;
+                    position += 8;
+                    continue;
+                }
+            }
+            values[i++] = readVarInt();
+        }
+        return i - offset;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int bitsRead = 0; ; bitsRead += 7) {
+            if (position == limit) {
+                throw new IOException("Ran out of bytes while reading VarInt (probably corrupted data)");
+            }
+            byte next = buffer[position++];
+            value |= (next & 0x7F) << bitsRead;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+            if (bitsRead >= 7 * (MAX_VARINT_BYTES - 1)) {
+                throw new IOException("VarInt too big (probably corrupted data)");
+            }
+        }
+    }
+
+    // Move the bytes not yet decoded to the front, so a var-int is never split across reads
+    private void refill() throws IOException {
+        int kept = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, kept);
+        int read = Math.min(remaining, buffer.length - kept);
+        input.readFully(buffer, kept, read);
+        remaining -= read;
+        position = 0;
+        limit = kept + read;
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Writes to a target stream on a separate thread, e.g. so data is compressed while more data is being produced. Writes are
+ * buffered and handed over once the buffer is full, and are only guaranteed to have reached the target once
+ * {@link #close()} returns. The target must not be used by anything else until then.
+ * <p>
+ * Data of streams that are no longer referenced without having been closed is discarded once garbage collected.
+ *
+ * @since 2.13.1
+ */
+public class WriteBehindOutputStream extends OutputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int DEFAULT_BUFFERS = 4;
+    private static final byte[] END = new byte[0];
+
+    private final OutputStream target;
+    private final Pipe pipe;
+    private final Future<?> writer;
+    private final Cleaner.Cleanable cleanable;
+    private byte[] buffer;
+    private int count;
+    private boolean closed;
+
+    /**
+     * New instance handing over 64 KiB at a time, with up to 256 KiB waiting to be written.
+     *
+     * @param target the stream to write to
+     */
+    public WriteBehindOutputStream(OutputStream target) {
+        this(target, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFERS);
+    }
+
+    /**
+     * New instance.
+     *
+     * @param target     the stream to write to
+     * @param bufferSize the number of bytes handed over to be written at once
+     * @param buffers    the number of buffers that may be waiting to be written
+     */
+    public WriteBehindOutputStream(OutputStream target, int bufferSize, int buffers) {
+        this.target = target;
+        Pipe pipe = new Pipe(target, buffers);
+        this.pipe = pipe;
+        this.buffer = new byte[bufferSize];
+        this.writer = ReadAheadInputStream.EXECUTOR.submit(pipe::writeBehind);
+        this.cleanable = ReadAheadInputStream.CLEANER.register(this, pipe::abandon);
+    }
+
+    private void checkError() throws IOException {
+        Throwable e = pipe.error;
+        if (e != null) {
+            // A new exception each time, as it may be thrown again by close() and cannot suppress itself
+            throw new IOException("Failed to write behind", e);
+        }
+    }
+
+    private void put(byte[] data) throws IOException {
+        try {
+            pipe.pending.put(data);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void handOver() throws IOException {
+        checkError();
+        if (count == 0) {
+            return;
+        }
+        if (count == buffer.length) {
+            put(buffer);
+            buffer = new byte[buffer.length];
+        } else {
+            put(Arrays.copyOf(buffer, count));
+        }
+        count = 0;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            handOver();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                handOver();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Hand over buffered data to be written. Unlike other streams, this does not wait for the data to be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        handOver();
+    }
+
+    /**
+     * Wait for all data to be written, then close the target.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            handOver();
+        } finally {
+            try {
+                put(END);
+                writer.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            } finally {
+                // Ends the task if it was not ended above
+                cleanable.clean();
+            }
+        }
+        checkError();
+        target.close();
+    }
+
+    /**
+     * State shared with the task writing behind.
+     */
+    private static final class Pipe {
+
+        private final OutputStream target;
+        private final BlockingQueue<byte[]> pending;
+        private volatile Throwable error;
+
+        private Pipe(OutputStream target, int buffers) {
+            this.target = target;
+            this.pending = new ArrayBlockingQueue<>(buffers);
+        }
+
+        // The producer is gone, discard what it handed over and end the task
+        private void abandon() {
+            pending.clear();
+            pending.offer(END);
+        }
+
+        private void writeBehind() {
+            try {
+                byte[] data;
+                while ((data = pending.take()) != END) {
+                    if (error == null) {
+                        try {
+                            target.write(data);
+                        } catch (Throwable e) {
+                            // Keep taking buffers until the end so the producer is never blocked on a full queue, it fails
+                            // on its next hand over
+                            error = e;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
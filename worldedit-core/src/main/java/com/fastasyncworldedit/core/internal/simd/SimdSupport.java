@@ -2,23 +2,34 @@
 
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.extent.filter.block.DelegateFilter;
+import com.fastasyncworldedit.core.function.mask.ABlockMask;
 import com.fastasyncworldedit.core.function.mask.InverseMask;
 import com.fastasyncworldedit.core.function.mask.SingleBlockStateMask;
+import com.fastasyncworldedit.core.math.random.TrueRandom;
 import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.util.collection.RandomCollection;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
 import com.sk89q.worldedit.function.mask.ExistingBlockMask;
 import com.sk89q.worldedit.function.mask.InverseSingleBlockStateMask;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
 import jdk.incubator.vector.IntVector;
 import jdk.incubator.vector.ShortVector;
 import jdk.incubator.vector.VectorMask;
 import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 
 public class SimdSupport {
 
@@ -50,6 +61,8 @@ public static boolean useVectorApi() {
             case SingleBlockStateMask single -> vectorizedTargetMask(single.getBlockState().getOrdinal());
             case InverseSingleBlockStateMask inverse -> vectorizedTargetMaskInverse(inverse.getBlockState().getOrdinal());
             case ExistingBlockMask ignored -> vectorizedTargetMaskNonAir();
+            case ABlockMask blockMask -> vectorizedTargetMaskTable(blockMask::test);
+            case BlockTypeMask typeMask -> vectorizedTargetMaskTable(typeMask::test);
             case InverseMask inverse -> {
                 final VectorizedMask base = vectorizedTargetMask(inverse.inverse());
                 if (base == null) {
@@ -66,6 +79,18 @@ private static VectorizedMask vectorizedTargetMaskNonAir() {
         return (set, get, species) -> get.get(species).compare(VectorOperators.UNSIGNED_GT, BlockTypesCache.ReservedIDs.VOID_AIR);
     }
 
+    private static VectorizedMask vectorizedTargetMaskTable(Predicate<BlockState> predicate) {
+        // one lane per ordinal, gathered with the ordinals of the get vector as indices
+        final BlockState[] states = BlockTypesCache.states;
+        final int[] table = new int[states.length];
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] != null && predicate.test(states[i])) {
+                table[i] = 1;
+            }
+        }
+        return (set, get, species) -> get.gather(species, table).compare(VectorOperators.NE, 0);
+    }
+
     private static VectorizedMask vectorizedTargetMask(int ordinal) {
         return (set, get, species) -> get.get(species).compare(VectorOperators.EQ, (short) ordinal);
     }
@@ -89,10 +114,57 @@ private static VectorizedMask vectorizedTargetMaskInverse(int ordinal) {
                     blockStateHolder,
                     blockStateHolder.getOrdinal()
             );
+            case RandomPattern random -> vectorizedRandomPattern(random);
             default -> null;
         };
     }
 
+    private static @Nullable VectorizedFilter vectorizedRandomPattern(RandomPattern pattern) {
+        // An empty pattern has no collection yet
+        RandomCollection<Pattern> collection = pattern.getCollection();
+        Map<Pattern, Double> weights = pattern.getWeights();
+        if (collection == null || weights.isEmpty()) {
+            return null;
+        }
+        // Seeded randoms depend on the position, which vector lanes don't carry
+        if (!(collection.getRandom() instanceof TrueRandom)) {
+            return null;
+        }
+        double total = 0;
+        for (Map.Entry<Pattern, Double> entry : weights.entrySet()) {
+            if (plainOrdinal(entry.getKey()) == -1) {
+                return null;
+            }
+            total += entry.getValue();
+        }
+        if (total <= 0) {
+            return null;
+        }
+        // Each pattern gets a contiguous run of the table proportional to its weight
+        int[] table = new int[VectorizedRandomPattern.TABLE_SIZE];
+        double cumulative = 0;
+        int start = 0;
+        for (Map.Entry<Pattern, Double> entry : weights.entrySet()) {
+            cumulative += entry.getValue();
+            int end = (int) Math.round(cumulative / total * table.length);
+            if (end == start) {
+                // Weight too small to be represented in the table
+                return null;
+            }
+            Arrays.fill(table, start, end, plainOrdinal(entry.getKey()));
+            start = end;
+        }
+        return new VectorizedRandomPattern<>(pattern, table);
+    }
+
+    private static int plainOrdinal(Pattern pattern) {
+        return switch (pattern) {
+            case BaseBlock block -> block.getNbtReference() == null ? block.getOrdinal() : -1;
+            case BlockStateHolder<?> blockStateHolder -> blockStateHolder.getOrdinal();
+            default -> -1;
+        };
+    }
+
     private static final class VectorizedPattern<T extends Filter> extends DelegateFilter<T> implements VectorizedFilter {
 
         private final int ordinal;
@@ -117,4 +189,52 @@ public void applyVector(final VectorFacade get, final VectorFacade set, final Ve
 
     }
 
+    /**
+     * Weighted random of plain block states. Each lane draws its own index into a table of ordinals, where the number of
+     * entries of each state is proportional to its weight, from a per-lane xorshift generator.
+     */
+    private static final class VectorizedRandomPattern<T extends Filter> extends DelegateFilter<T> implements VectorizedFilter {
+
+        private static final int TABLE_BITS = 12;
+        static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+        private final int[] table;
+        private final int[] indices;
+        private IntVector state;
+
+        public VectorizedRandomPattern(final T parent, int[] table) {
+            super(parent);
+            this.table = table;
+            final VectorSpecies<Integer> species = IntVector.SPECIES_PREFERRED;
+            this.indices = new int[species.length()];
+            int[] seeds = new int[species.length()];
+            for (int i = 0; i < seeds.length; i++) {
+                // xorshift must not start at zero
+                seeds[i] = ThreadLocalRandom.current().nextInt() | 1;
+            }
+            this.state = IntVector.fromArray(species, seeds, 0);
+        }
+
+        @Override
+        public Filter newInstance(final Filter other) {
+            return new VectorizedRandomPattern<>(other, table);
+        }
+
+        @Override
+        public void applyVector(final VectorFacade get, final VectorFacade set, final VectorMask<Integer> mask) {
+            IntVector x = this.state;
+            x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 13));
+            x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 17));
+            x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 5));
+            this.state = x;
+            x.lanewise(VectorOperators.LSHR, Integer.SIZE - TABLE_BITS).intoArray(indices, 0);
+            IntVector ordinals = IntVector.fromArray(mask.vectorSpecies(), table, 0, indices, 0);
+            IntVector s = set.getOrZero(mask.vectorSpecies());
+            // only change the lanes the mask dictates us to change, keep the rest
+            s = s.blend(ordinals, mask);
+            set.setOrIgnore(s);
+        }
+
+    }
+
 }
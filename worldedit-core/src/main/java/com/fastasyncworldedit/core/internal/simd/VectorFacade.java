@@ -25,6 +25,20 @@ public IntVector get(VectorSpecies<Integer> species) {
         return IntVector.fromArray(species, this.data, this.index);
     }
 
+    /**
+     * {@return the values of {@code table} at the indices held by the current vector}
+     *
+     * @param species the species to use
+     * @param table   the table to gather from, large enough for every value in the data
+     * @since 2.13.1
+     */
+    public IntVector gather(VectorSpecies<Integer> species, int[] table) {
+        if (this.data == null) {
+            load();
+        }
+        return IntVector.fromArray(species, table, 0, this.data, this.index);
+    }
+
     public IntVector getOrZero(VectorSpecies<Integer> species) {
         if (this.data == null) {
             return IntVector.zero(species);
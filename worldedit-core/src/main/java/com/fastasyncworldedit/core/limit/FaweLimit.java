@@ -38,6 +38,10 @@ public class FaweLimit {
 
     public static FaweLimit MAX;
 
+    // Changes and checks are consumed per block, so are leased to each thread rather than decremented directly
+    private volatile LeasedBudget changeLeases;
+    private volatile LeasedBudget checkLeases;
+
     static {
         MAX = new FaweLimit() {
             @Override
@@ -139,8 +143,91 @@ public void THROW_MAX_ENTITIES(int amt) {
         MAX.MAX_BUTCHER_RADIUS = Integer.MAX_VALUE;
     }
 
+    private LeasedBudget changeLeases() {
+        LeasedBudget leases = changeLeases;
+        if (leases == null || leases.pool() != MAX_CHANGES) {
+            synchronized (this) {
+                leases = changeLeases;
+                if (leases == null || leases.pool() != MAX_CHANGES) {
+                    changeLeases = leases = new LeasedBudget(MAX_CHANGES);
+                }
+            }
+        }
+        return leases;
+    }
+
+    private LeasedBudget checkLeases() {
+        LeasedBudget leases = checkLeases;
+        if (leases == null || leases.pool() != MAX_CHECKS) {
+            synchronized (this) {
+                leases = checkLeases;
+                if (leases == null || leases.pool() != MAX_CHECKS) {
+                    checkLeases = leases = new LeasedBudget(MAX_CHECKS);
+                }
+            }
+        }
+        return leases;
+    }
+
+    /**
+     * Return the changes and checks leased to threads to {@link #MAX_CHANGES} and {@link #MAX_CHECKS}, so that they are
+     * exact. Called before the limit is read, and should be called once an edit has finished.
+     *
+     * @since 2.13.1
+     */
+    public void reclaim() {
+        LeasedBudget leases = changeLeases;
+        if (leases != null) {
+            leases.reclaim();
+        }
+        leases = checkLeases;
+        if (leases != null) {
+            leases.reclaim();
+        }
+    }
+
+    /**
+     * Get the changes left, including those leased to threads.
+     *
+     * @since 2.13.1
+     */
+    public long getMaxChanges() {
+        LeasedBudget leases = changeLeases();
+        leases.reclaim();
+        return leases.pool().get();
+    }
+
+    /**
+     * Set the changes left, discarding those leased to threads.
+     *
+     * @since 2.13.1
+     */
+    public void setMaxChanges(long changes) {
+        changeLeases().set(changes);
+    }
+
+    /**
+     * Get the checks left, including those leased to threads.
+     *
+     * @since 2.13.1
+     */
+    public long getMaxChecks() {
+        LeasedBudget leases = checkLeases();
+        leases.reclaim();
+        return leases.pool().get();
+    }
+
+    /**
+     * Set the checks left, discarding those leased to threads.
+     *
+     * @since 2.13.1
+     */
+    public void setMaxChecks(long checks) {
+        checkLeases().set(checks);
+    }
+
     public boolean MAX_CHANGES() {
-        return MAX_CHANGES.decrementAndGet() < 0;
+        return !changeLeases().consume();
     }
 
     public boolean MAX_FAILS() {
@@ -148,7 +235,7 @@ public boolean MAX_FAILS() {
     }
 
     public boolean MAX_CHECKS() {
-        return MAX_CHECKS.decrementAndGet() < 0;
+        return !checkLeases().consume();
     }
 
     public boolean MAX_ITERATIONS() {
@@ -164,7 +251,7 @@ public boolean MAX_ENTITIES() {
     }
 
     public void THROW_MAX_CHANGES() {
-        if (MAX_CHANGES.decrementAndGet() < 0) {
+        if (!changeLeases().consume()) {
             throw FaweCache.MAX_CHANGES;
         }
     }
@@ -176,7 +263,7 @@ public void THROW_MAX_FAILS() {
     }
 
     public void THROW_MAX_CHECKS() {
-        if (MAX_CHECKS.decrementAndGet() < 0) {
+        if (!checkLeases().consume()) {
             throw FaweCache.MAX_CHECKS;
         }
     }
@@ -203,7 +290,7 @@ public void THROW_MAX_CHANGES(int amt) {
         if (amt == 0) {
             return;
         }
-        if (MAX_CHANGES.addAndGet(-amt) < 0) {
+        if (!changeLeases().consume(amt)) {
             throw FaweCache.MAX_CHANGES;
         }
     }
@@ -212,7 +299,7 @@ public void THROW_MAX_CHANGES(long amt) {
         if (amt == 0) {
             return;
         }
-        if (MAX_CHANGES.addAndGet(-amt) < 0) {
+        if (!changeLeases().consume(amt)) {
             throw FaweCache.MAX_CHANGES;
         }
     }
@@ -230,7 +317,7 @@ public void THROW_MAX_CHECKS(int amt) {
         if (amt == 0) {
             return;
         }
-        if (MAX_CHECKS.addAndGet(-amt) < 0) {
+        if (!checkLeases().consume(amt)) {
             throw FaweCache.MAX_CHECKS;
         }
     }
@@ -239,7 +326,7 @@ public void THROW_MAX_CHECKS(long amt) {
         if (amt == 0) {
             return;
         }
-        if (MAX_CHECKS.addAndGet(-amt) < 0) {
+        if (!checkLeases().consume(amt)) {
             throw FaweCache.MAX_CHECKS;
         }
     }
@@ -272,9 +359,9 @@ public void THROW_MAX_ENTITIES(int amt) {
     }
 
     public boolean isUnlimited() {
-        return MAX_CHANGES.get() == Long.MAX_VALUE
+        return getMaxChanges() == Long.MAX_VALUE
                 && MAX_FAILS.get() == Integer.MAX_VALUE
-                && MAX_CHECKS.get() == Long.MAX_VALUE
+                && getMaxChecks() == Long.MAX_VALUE
                 && MAX_ITERATIONS.get() == Integer.MAX_VALUE
                 && MAX_BLOCKSTATES.get() == Integer.MAX_VALUE
                 && MAX_ENTITIES.get() == Integer.MAX_VALUE
@@ -302,10 +389,12 @@ public boolean isUnlimited() {
      * @since 2.12.0
      */
     public FaweLimit getLimitUsed(FaweLimit originalLimit) {
+        originalLimit.reclaim();
+        reclaim();
         FaweLimit newLimit = new FaweLimit();
-        newLimit.MAX_CHANGES = new AtomicLong(originalLimit.MAX_CHANGES.get() - this.MAX_CHANGES.get());
+        newLimit.MAX_CHANGES = new AtomicLong(originalLimit.getMaxChanges() - getMaxChanges());
         newLimit.MAX_FAILS = new AtomicInteger(originalLimit.MAX_FAILS.get() - this.MAX_FAILS.get());
-        newLimit.MAX_CHECKS = new AtomicLong(originalLimit.MAX_CHECKS.get() - this.MAX_CHECKS.get());
+        newLimit.MAX_CHECKS = new AtomicLong(originalLimit.getMaxChecks() - getMaxChecks());
         newLimit.MAX_ITERATIONS = new AtomicInteger(originalLimit.MAX_ITERATIONS.get() - this.MAX_ITERATIONS.get());
         newLimit.MAX_BLOCKSTATES = new AtomicInteger(originalLimit.MAX_BLOCKSTATES.get() - this.MAX_BLOCKSTATES.get());
         newLimit.MAX_ENTITIES = new AtomicInteger(originalLimit.MAX_ENTITIES.get() - this.MAX_ENTITIES.get());
@@ -313,10 +402,12 @@ public FaweLimit getLimitUsed(FaweLimit originalLimit) {
     }
 
     public void set(FaweLimit limit) {
+        limit.reclaim();
+        reclaim();
         MAX_ACTIONS = limit.MAX_ACTIONS;
-        MAX_CHANGES.set(limit.MAX_CHANGES.get());
+        setMaxChanges(limit.getMaxChanges());
         MAX_FAILS.set(limit.MAX_FAILS.get());
-        MAX_CHECKS.set(limit.MAX_CHECKS.get());
+        setMaxChecks(limit.getMaxChecks());
         MAX_ITERATIONS.set(limit.MAX_ITERATIONS.get());
         MAX_BLOCKSTATES.set(limit.MAX_BLOCKSTATES.get());
         MAX_ENTITIES.set(limit.MAX_ENTITIES.get());
@@ -350,6 +441,9 @@ public FaweLimit copy() {
         limit.MAX_ENTITIES = MAX_ENTITIES;
         limit.MAX_FAILS = MAX_FAILS;
         limit.MAX_ITERATIONS = MAX_ITERATIONS;
+        // Copies share the same budgets, so must share their leases too
+        limit.changeLeases = changeLeases();
+        limit.checkLeases = checkLeases();
         limit.MAX_HISTORY = MAX_HISTORY;
         limit.SCHEM_FILE_SIZE_LIMIT = SCHEM_FILE_SIZE_LIMIT;
         limit.SCHEM_FILE_NUM_LIMIT = SCHEM_FILE_NUM_LIMIT;
@@ -370,7 +464,7 @@ public FaweLimit copy() {
 
     @Override
     public String toString() {
-        return MAX_CHANGES + "";
+        return getMaxChanges() + "";
     }
 
 }
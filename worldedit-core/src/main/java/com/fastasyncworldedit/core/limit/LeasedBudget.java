@@ -0,0 +1,117 @@
+package com.fastasyncworldedit.core.limit;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out a shared budget to threads in leases, so that threads consuming it one at a time, e.g. the workers of a
+ * parallel edit, mostly update a counter of their own rather than all contending on the shared one.
+ * <p>
+ * Every unit consumed is taken from the shared budget first, so no more than the budget is ever consumed. A lease is at
+ * most {@value #MAX_LEASE} and at most 1/16th of what is left, and once the shared budget runs out all leases are returned
+ * to it before failing. Only while other threads lease concurrently may a thread fail with up to {@value #MAX_LEASE} per
+ * thread still leased. {@link #reclaim()} returns all leases, making the shared budget exact once consumers are done.
+ */
+final class LeasedBudget {
+
+    static final long MAX_LEASE = 1024;
+
+    private final AtomicLong pool;
+    private final Queue<AtomicLong> leases = new ConcurrentLinkedQueue<>();
+    // Leases must not reference this, so that the thread local can be collected along with it
+    private final ThreadLocal<AtomicLong> lease = ThreadLocal.withInitial(this::newLease);
+
+    LeasedBudget(AtomicLong pool) {
+        this.pool = pool;
+    }
+
+    private AtomicLong newLease() {
+        AtomicLong lease = new AtomicLong();
+        leases.add(lease);
+        return lease;
+    }
+
+    /**
+     * Get the shared budget this leases from.
+     */
+    AtomicLong pool() {
+        return pool;
+    }
+
+    /**
+     * Consume one unit of the budget.
+     *
+     * @return false if the budget has been exceeded, in which case the shared budget is decremented regardless
+     */
+    boolean consume() {
+        AtomicLong lease = this.lease.get();
+        if (lease.decrementAndGet() >= 0) {
+            return true;
+        }
+        // Only this thread decrements its lease, and leases are only reclaimed while positive
+        lease.incrementAndGet();
+        long grant = take();
+        if (grant == 0) {
+            reclaim();
+            grant = take();
+        }
+        if (grant == 0) {
+            pool.decrementAndGet();
+            return false;
+        }
+        lease.addAndGet(grant - 1);
+        return true;
+    }
+
+    /**
+     * Consume an amount of the budget from the shared budget directly, reclaiming leases first if it would not suffice.
+     *
+     * @return false if the budget has been exceeded, in which case the shared budget is decremented regardless
+     */
+    boolean consume(long amount) {
+        if (pool.get() < amount) {
+            reclaim();
+        }
+        return pool.addAndGet(-amount) >= 0;
+    }
+
+    private long take() {
+        while (true) {
+            long available = pool.get();
+            if (available <= 0) {
+                return 0;
+            }
+            long grant = Math.max(1, Math.min(MAX_LEASE, available >> 4));
+            if (pool.compareAndSet(available, available - grant)) {
+                return grant;
+            }
+        }
+    }
+
+    /**
+     * Set the shared budget, discarding what is left of all leases rather than returning it on top of the new budget.
+     */
+    void set(long budget) {
+        for (AtomicLong lease : leases) {
+            lease.set(0);
+        }
+        pool.set(budget);
+    }
+
+    /**
+     * Return what is left of all leases to the shared budget.
+     */
+    void reclaim() {
+        for (AtomicLong lease : leases) {
+            long remaining;
+            while ((remaining = lease.get()) > 0) {
+                if (lease.compareAndSet(remaining, 0)) {
+                    pool.addAndGet(remaining);
+                    break;
+                }
+            }
+        }
+    }
+
+}
@@ -11,15 +11,17 @@
  */
 public interface Filter {
 
-//    /**
-//     * Checks whether a chunk should be read.
-//     *
-//     * @param chunkX the x coordinate in the chunk
-//     * @param chunkZ the z coordinate in the chunk
-//     */
-//    default boolean appliesChunk(int chunkX, int chunkZ) {
-//        return true;
-//    }
+    /**
+     * Checks whether a chunk should be read. Chunks this returns false for are skipped entirely, so it must only do so if
+     * the filter would not change anything in the chunk.
+     *
+     * @param chunkX the x coordinate in the chunk
+     * @param chunkZ the z coordinate in the chunk
+     * @since 2.13.1
+     */
+    default boolean appliesChunk(int chunkX, int chunkZ) {
+        return true;
+    }
 
     /**
      * Do something with the IChunk<br>
@@ -28,9 +30,18 @@ public interface Filter {
         return chunk;
     }
 
-//    default boolean appliesLayer(IChunk chunk, int layer) {
-//        return true;
-//    }
+    /**
+     * Checks whether a section of a chunk should be filtered. Sections this returns false for are skipped without visiting
+     * their blocks, so it must only do so if {@link #applyBlock(FilterBlock)} would not change or count anything in the
+     * section, e.g. as none of the blocks in {@link IChunkGet#getSectionOrdinals(int)} can pass a mask.
+     *
+     * @param get   the blocks of the chunk before filtering
+     * @param layer the section y
+     * @since 2.13.1
+     */
+    default boolean appliesLayer(IChunkGet get, int layer) {
+        return true;
+    }
 
     /**
      * Make changes to the block here<br> - e.g., block.setId(...)<br> - Note: Performance is
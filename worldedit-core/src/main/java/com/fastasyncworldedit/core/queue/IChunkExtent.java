@@ -1,6 +1,7 @@
 package com.fastasyncworldedit.core.queue;
 
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.registry.state.PropertyGroup;
 import com.fastasyncworldedit.core.util.NbtUtils;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
@@ -118,6 +119,58 @@ default int getOpacity(int x, int y, int z) {
         return chunk.getOpacity(x & 15, y, z & 15);
     }
 
+    @Override
+    default int getHighestTerrainBlock(int x, int z, int minY, int maxY) {
+        minY = Math.max(getMinY(), minY);
+        maxY = Math.min(maxY, getMaxY());
+        final IChunk chunk = getOrCreateChunk(x >> 4, z >> 4);
+        return Math.max(minY, chunk.getHighestSolidBlock(x & 15, z & 15, minY, maxY));
+    }
+
+    @Override
+    default int getNearestSurfaceLayer(int x, int z, int y, int minY, int maxY) {
+        int clampedMinY = Math.max(getMinY(), minY);
+        int clampedMaxY = Math.min(maxY, getMaxY());
+        if (y >= clampedMinY && y <= clampedMaxY) {
+            final IChunk chunk = getOrCreateChunk(x >> 4, z >> 4);
+            int highest = chunk.getHighestSolidBlock(x & 15, z & 15, clampedMinY, clampedMaxY);
+            // Starting above all terrain, the nearest surface can only be the highest terrain block
+            if (highest < y) {
+                if (highest < clampedMinY) {
+                    return clampedMinY << 4;
+                }
+                if (y - highest <= clampedMaxY - y) {
+                    return (highest << 4) - (15 - PropertyGroup.LEVEL.get(getBlock(x, highest, z)));
+                }
+                return highest << 4;
+            }
+        }
+        return Extent.super.getNearestSurfaceLayer(x, z, y, minY, maxY);
+    }
+
+    @Override
+    default int getNearestSurfaceTerrainBlock(
+            int x,
+            int z,
+            int y,
+            int minY,
+            int maxY,
+            int failedMin,
+            int failedMax,
+            boolean ignoreAir
+    ) {
+        int clampedMinY = Math.max(getMinY(), minY);
+        int clampedMaxY = Math.min(maxY, getMaxY());
+        int start = Math.max(clampedMinY, Math.min(clampedMaxY, y));
+        final IChunk chunk = getOrCreateChunk(x >> 4, z >> 4);
+        int highest = chunk.getHighestSolidBlock(x & 15, z & 15, clampedMinY, clampedMaxY);
+        // Starting above all terrain, the nearest surface can only be the highest terrain block
+        if (highest < start && highest >= clampedMinY) {
+            return highest;
+        }
+        return Extent.super.getNearestSurfaceTerrainBlock(x, z, y, minY, maxY, failedMin, failedMax, ignoreAir);
+    }
+
     @Override
     default Entity createEntity(Location location, BaseEntity entity) {
         return createEntity(location, entity, UUID.randomUUID());
@@ -1,14 +1,17 @@
 package com.fastasyncworldedit.core.queue;
 
+import com.fastasyncworldedit.core.FaweCache;
 import com.fastasyncworldedit.core.extent.processor.heightmap.HeightMapType;
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extent.InputExtent;
+import com.sk89q.worldedit.function.mask.SolidBlockMask;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
 
 import javax.annotation.Nullable;
 import java.util.Set;
@@ -43,6 +46,54 @@ default BiomeType getBiome(BlockVector3 position) {
     @Override
     int[] getHeightMap(HeightMapType type);
 
+    /**
+     * Get the distinct ordinals of the blocks in a section, e.g. to decide whether the section needs to be visited at all.
+     * Sections that are not present are reported as only containing {@link BlockTypesCache.ReservedIDs#__RESERVED__},
+     * which is read as air. Implementations with a palette at hand may override this to avoid reading every block.
+     *
+     * @param layer the section y
+     * @return the distinct ordinals in the section, in no particular order
+     * @since 2.13.1
+     */
+    default int[] getSectionOrdinals(int layer) {
+        if (!hasSection(layer)) {
+            return new int[]{BlockTypesCache.ReservedIDs.__RESERVED__};
+        }
+        return FaweCache.INSTANCE.distinctOrdinals(load(layer));
+    }
+
+    /**
+     * Get the highest movement blocking block of a column, as found by
+     * {@link com.sk89q.worldedit.extent.Extent#getHighestTerrainBlock(int, int, int, int)}. Sections are read in bulk, and
+     * empty sections are skipped rather than probed block by block.
+     *
+     * @param x    the column x, within the chunk
+     * @param z    the column z, within the chunk
+     * @param minY the minimum y to consider, inclusive
+     * @param maxY the maximum y to consider, inclusive
+     * @return the y of the highest movement blocking block, or less than {@code minY} if there is none
+     * @since 2.13.1
+     */
+    default int getHighestSolidBlock(int x, int z, int minY, int maxY) {
+        minY = Math.max(minY, getMinY());
+        maxY = Math.min(maxY, getMaxY());
+        int column = (z & 15) << 4 | (x & 15);
+        for (int layer = maxY >> 4; layer >= minY >> 4; layer--) {
+            if (!hasNonEmptySection(layer)) {
+                continue;
+            }
+            int[] blocks = load(layer);
+            int sectionY = layer << 4;
+            int bottom = Math.max(0, minY - sectionY);
+            for (int y = Math.min(15, maxY - sectionY); y >= bottom; y--) {
+                if (SolidBlockMask.isSolid(BlockTypesCache.states[blocks[y << 8 | column]])) {
+                    return sectionY + y;
+                }
+            }
+        }
+        return minY - 1;
+    }
+
     default void optimize() {
 
     }
@@ -10,6 +10,7 @@
 import com.sk89q.worldedit.util.SideEffectSet;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -36,6 +37,28 @@ default boolean setBiome(BlockVector3 position, BiomeType biome) {
 
     void setBlocks(int layer, int[] data);
 
+    /**
+     * Set the blocks of a section, keeping blocks already set where the given data is
+     * {@link BlockTypesCache.ReservedIDs#__RESERVED__}.
+     *
+     * @param layer section layer
+     * @param data  block ordinals of the section, may be used as is if nothing was set in the section yet
+     * @since 2.13.1
+     */
+    default void mergeBlocks(int layer, int[] data) {
+        int[] blocks = loadIfPresent(layer);
+        if (blocks == null) {
+            setBlocks(layer, data);
+            return;
+        }
+        for (int i = 0; i < 4096; i++) {
+            int ordinal = data[i];
+            if (ordinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                blocks[i] = ordinal;
+            }
+        }
+    }
+
     boolean isEmpty();
 
     @Override
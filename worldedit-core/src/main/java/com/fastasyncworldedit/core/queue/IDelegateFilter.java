@@ -9,6 +9,16 @@ public interface IDelegateFilter extends Filter {
 
     Filter getParent();
 
+    @Override
+    default boolean appliesChunk(int chunkX, int chunkZ) {
+        return getParent().appliesChunk(chunkX, chunkZ);
+    }
+
+    @Override
+    default boolean appliesLayer(IChunkGet get, int layer) {
+        return getParent().appliesLayer(get, layer);
+    }
+
     @Override
     default <V extends IChunk> V applyChunk(V chunk, @Nullable Region region) {
         return getParent().applyChunk(chunk, region);
@@ -5,12 +5,14 @@
 import com.fastasyncworldedit.core.internal.simd.SimdSupport;
 import com.fastasyncworldedit.core.internal.simd.VectorizedCharFilterBlock;
 import com.fastasyncworldedit.core.internal.simd.VectorizedFilter;
+import com.fastasyncworldedit.core.util.MathMan;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.SideEffectSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import org.jetbrains.annotations.ApiStatus;
 
 import javax.annotation.Nullable;
@@ -98,6 +100,17 @@ default BlockVector3 getMaximumPoint() {
      */
     SideEffectSet getSideEffectSet();
 
+    /**
+     * Set the key chunk submissions from this extent are scheduled under. Submissions of different owners are processed
+     * round-robin, so the owner should identify the actor (or edit) the work is being done for. Reset when the queue is
+     * re-initialised.
+     *
+     * @param owner owner key, or null to use a key unique to this extent
+     * @since 2.13.1
+     */
+    default void setOwner(@Nullable Object owner) {
+    }
+
     /**
      * Submit a task to the extent to be queued as if it were a chunk
      */
@@ -155,6 +168,39 @@ default Operation commit() {
      */
     boolean isEmpty();
 
+    /**
+     * Merge whole sections of blocks into a chunk and submit it, see {@link IChunkSet#mergeBlocks(int, int[])}.
+     *
+     * @param chunkX             chunk x coordinate
+     * @param chunkZ             chunk z coordinate
+     * @param sections           block ordinals of each section starting at minSectionPosition, null if unchanged
+     * @param minSectionPosition layer of the first section
+     * @since 2.13.1
+     */
+    default void mergeSections(int chunkX, int chunkZ, int[][] sections, int minSectionPosition) {
+        T chunk = this.getOrCreateChunk(chunkX, chunkZ);
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] != null) {
+                chunk.mergeBlocks(i + minSectionPosition, sections[i]);
+            }
+        }
+        this.submit(chunk);
+    }
+
+    /**
+     * Merge whole sections of blocks into multiple chunks, see {@link #mergeSections(int, int, int[][], int)}.
+     *
+     * @param chunks             sections by chunk, keyed by {@link MathMan#pairInt(int, int)} of the chunk coordinates
+     * @param minSectionPosition layer of the first section of each chunk
+     * @since 2.13.1
+     */
+    default void mergeSections(Long2ObjectMap<int[][]> chunks, int minSectionPosition) {
+        for (Long2ObjectMap.Entry<int[][]> entry : chunks.long2ObjectEntrySet()) {
+            long key = entry.getLongKey();
+            mergeSections(MathMan.unpairIntX(key), MathMan.unpairIntY(key), entry.getValue(), minSectionPosition);
+        }
+    }
+
     default ChunkFilterBlock apply(
             @Nullable ChunkFilterBlock block,
             Filter filter,
@@ -163,9 +209,9 @@ default ChunkFilterBlock apply(
             int chunkZ,
             boolean full
     ) {
-//        if (!filter.appliesChunk(chunkX, chunkZ)) {
-//            return block;
-//        }
+        if (!filter.appliesChunk(chunkX, chunkZ)) {
+            return block;
+        }
         T chunk = this.getOrCreateChunk(chunkX, chunkZ);
 
         T newChunk = filter.applyChunk(chunk, region);
@@ -1,5 +1,6 @@
 package com.fastasyncworldedit.core.queue.implementation;
 
+import com.fastasyncworldedit.core.Fawe;
 import com.fastasyncworldedit.core.FaweCache;
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.extent.NullExtent;
@@ -18,6 +19,7 @@
 import com.fastasyncworldedit.core.queue.Filter;
 import com.fastasyncworldedit.core.queue.IQueueChunk;
 import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.util.MathMan;
 import com.fastasyncworldedit.core.util.task.FaweThread;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.WorldEditException;
@@ -41,12 +43,16 @@
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinTask;
 
 public class ParallelQueueExtent extends PassthroughExtent {
@@ -62,6 +68,8 @@ public class ParallelQueueExtent extends PassthroughExtent {
     private final boolean[] faweExceptionReasonsUsed = new boolean[FaweException.Type.values().length];
     private final boolean fastmode;
     private final SideEffectSet sideEffectSet;
+    // Key the per-thread queues' chunk submissions are scheduled under, shared so the whole edit is one lane
+    private Object owner = new Object();
     private int changes;
 
     public ParallelQueueExtent(QueueHandler handler, World world, boolean fastmode, @Nullable SideEffectSet sideEffectSet) {
@@ -78,6 +86,19 @@ public ParallelQueueExtent(QueueHandler handler, World world, boolean fastmode,
         }
         this.fastmode = fastmode;
         this.sideEffectSet = sideEffectSet == null ? SideEffectSet.defaults() : sideEffectSet;
+        ((IQueueExtent<?>) super.getExtent()).setOwner(owner);
+    }
+
+    /**
+     * Set the key chunk submissions of this extent are scheduled under, e.g. the UUID of the actor performing the edit.
+     *
+     * @param owner owner key, or null to use a key unique to this extent
+     * @see IQueueExtent#setOwner(Object)
+     * @since 2.13.1
+     */
+    public void setOwner(@Nullable Object owner) {
+        this.owner = owner != null ? owner : new Object();
+        ((IQueueExtent<?>) super.getExtent()).setOwner(this.owner);
     }
 
     /**
@@ -130,6 +151,7 @@ IQueueExtent<IQueueChunk> getNewQueue() {
         queue.setFastMode(fastmode);
         queue.setSideEffectSet(sideEffectSet);
         queue.setFaweExceptionArray(faweExceptionReasonsUsed);
+        queue.setOwner(owner);
         queue.setTargetSize(Settings.settings().QUEUE.TARGET_SIZE * Settings.settings().QUEUE.THREAD_TARGET_SIZE_PERCENT / 100);
         return queue;
     }
@@ -168,6 +190,41 @@ public <T extends Filter> T apply(Region region, T filter, boolean full) {
         return filter;
     }
 
+    /**
+     * Merge whole sections of blocks into multiple chunks using the parallel threads, see
+     * {@link IQueueExtent#mergeSections(Long2ObjectMap, int)}. Returns once all chunks have been submitted, rethrowing
+     * any failure to merge a chunk.
+     *
+     * @param chunks             sections by chunk, keyed by {@link MathMan#pairInt(int, int)} of the chunk coordinates
+     * @param minSectionPosition layer of the first section of each chunk
+     * @since 2.13.1
+     */
+    public void mergeSections(Long2ObjectMap<int[][]> chunks, int minSectionPosition) {
+        if (chunks.size() <= 1 || Settings.settings().QUEUE.PARALLEL_THREADS <= 1) {
+            getExtent().mergeSections(chunks, minSectionPosition);
+            return;
+        }
+        final List<Long2ObjectMap.Entry<int[][]>> entries = new ArrayList<>(chunks.long2ObjectEntrySet());
+        final Map<Thread, IQueueExtent<IQueueChunk>> queues = new ConcurrentHashMap<>();
+        ForkJoinTask<?> task = this.handler.submit(() -> {
+            entries.parallelStream().forEach(entry -> {
+                IQueueExtent<IQueueChunk> queue = queues.computeIfAbsent(Thread.currentThread(), __ -> getNewQueue());
+                enter(queue);
+                try {
+                    long key = entry.getLongKey();
+                    queue.mergeSections(MathMan.unpairIntX(key), MathMan.unpairIntY(key), entry.getValue(), minSectionPosition);
+                } catch (FaweException e) {
+                    Fawe.handleFaweException(faweExceptionReasonsUsed, e, LOGGER);
+                } finally {
+                    exit();
+                }
+            });
+            queues.values().parallelStream().forEach(IQueueExtent::flush);
+        });
+        // Not caught, an undo must not report success with only part of the blocks restored
+        task.join();
+    }
+
     @Override
     protected Operation commitBefore() {
         return new Operation() {
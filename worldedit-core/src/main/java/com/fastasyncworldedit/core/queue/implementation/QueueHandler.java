@@ -1,7 +1,6 @@
 package com.fastasyncworldedit.core.queue.implementation;
 
 import com.fastasyncworldedit.core.Fawe;
-import com.fastasyncworldedit.core.FaweCache;
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.queue.IBatchProcessor;
 import com.fastasyncworldedit.core.queue.IChunkCache;
@@ -11,18 +10,21 @@
 import com.fastasyncworldedit.core.queue.IQueueExtent;
 import com.fastasyncworldedit.core.queue.Trimable;
 import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkCache;
-import com.fastasyncworldedit.core.util.MemUtil;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkSectionCache;
 import com.fastasyncworldedit.core.util.TaskManager;
 import com.fastasyncworldedit.core.util.collection.CleanableThreadLocal;
+import com.fastasyncworldedit.core.util.task.FairQueuedExecutor;
 import com.fastasyncworldedit.core.util.task.FaweForkJoinWorkerThreadFactory;
 import com.fastasyncworldedit.core.wrappers.WorldWrapper;
 import com.google.common.util.concurrent.Futures;
 import com.sk89q.worldedit.world.World;
 import org.jetbrains.annotations.ApiStatus;
 
+import javax.annotation.Nullable;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.Callable;
@@ -33,7 +35,6 @@
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -71,11 +72,14 @@ public abstract class QueueHandler implements Trimable, Runnable {
             false
     );
     /**
-     * Main "work-horse" queue for FAWE. Handles chunk submission (and chunk submission alone). Blocking in order to forcibly
-     * prevent overworking/over-submission of chunk process tasks.
+     * Main "work-horse" queue for FAWE. Handles chunk submission (and chunk submission alone). Chunks are queued per edit
+     * owner and processed round-robin between owners so a large edit cannot hold up smaller ones.
      */
-    private final ThreadPoolExecutor blockingExecutor = FaweCache.INSTANCE.newBlockingExecutor(
-            "FAWE QueueHandler Blocking Executor - %d");
+    private final FairQueuedExecutor chunkExecutor = new FairQueuedExecutor(
+            "FAWE QueueHandler Chunk Executor - %d",
+            Settings.settings().QUEUE.PARALLEL_THREADS,
+            Settings.settings().QUEUE.FAIR_SCHEDULING_QUANTUM
+    );
     /**
      * Queue for tasks to be completed on the main thread. These take priority of tasks submitted to syncWhenFree queue
      */
@@ -87,6 +91,17 @@ public abstract class QueueHandler implements Trimable, Runnable {
     private final ConcurrentLinkedQueue<FutureTask> syncWhenFree = new ConcurrentLinkedQueue<>();
 
     private final Map<World, WeakReference<IChunkCache<IChunkGet>>> chunkGetCache = new HashMap<>();
+    /**
+     * Section data shared by the chunk GET caches of all worlds, or null if disabled
+     */
+    @Nullable
+    private final ChunkSectionCache sectionCache = Settings.settings().QUEUE.SECTION_CACHE_SIZE_MB <= 0 ? null :
+            new ChunkSectionCache(
+                    Settings.settings().QUEUE.SECTION_CACHE_SIZE_MB * 1024L * 1024L,
+                    Settings.settings().QUEUE.SECTION_CACHE_EXPIRY_MS,
+                    Settings.settings().QUEUE.PARALLEL_THREADS
+            );
+    private final QueueSizeController sizeController = new QueueSizeController(chunkExecutor, sectionCache);
     private final CleanableThreadLocal<IQueueExtent<IQueueChunk>> queuePool = new CleanableThreadLocal<>(QueueHandler.this::create);
     /**
      * Used to calculate elapsed time in milliseconds and ensure block placement doesn't lag the
@@ -99,9 +114,43 @@ protected QueueHandler() {
         TaskManager.taskManager().repeat(this, 1);
     }
 
+    /**
+     * Get the executor chunk submissions are processed on.
+     *
+     * @since 2.13.1
+     */
+    @ApiStatus.Internal
+    public FairQueuedExecutor getChunkExecutor() {
+        return chunkExecutor;
+    }
+
+    /**
+     * @deprecated Use {@link #getChunkExecutor()}, chunk submissions are no longer processed on a blocking thread pool.
+     */
     @ApiStatus.Internal
-    public ThreadPoolExecutor getBlockingExecutor() {
-        return blockingExecutor;
+    @Deprecated(forRemoval = true, since = "2.13.1")
+    public ExecutorService getBlockingExecutor() {
+        return chunkExecutor;
+    }
+
+    /**
+     * Get the chunk section cache shared between all queues, e.g. for its hit rate.
+     *
+     * @return the section cache, or null if disabled
+     * @since 2.13.1
+     */
+    @Nullable
+    public ChunkSectionCache getSectionCache() {
+        return sectionCache;
+    }
+
+    /**
+     * Get the controller scaling queue sizes to memory pressure.
+     *
+     * @since 2.13.1
+     */
+    public QueueSizeController getQueueSizeController() {
+        return sizeController;
     }
 
     @Override
@@ -109,15 +158,9 @@ public void run() {
         if (!Fawe.isMainThread()) {
             throw new IllegalStateException("Not main thread");
         }
+        sizeController.update();
         if (!syncTasks.isEmpty()) {
             long currentAllocate = getAllocate();
-
-            if (!MemUtil.isMemoryFree()) {
-                // TODO reduce mem usage
-                // FaweCache trim
-                // Preloader trim
-            }
-
             operate(syncTasks, last, currentAllocate);
         } else if (!syncWhenFree.isEmpty()) {
             operate(syncWhenFree, last, getAllocate());
@@ -127,13 +170,47 @@ public void run() {
     }
 
     /**
-     * Get if the {@code blockingExecutor} is saturated with tasks or not. Under-utilisation implies the queue has space for
+     * Get if the {@code chunkExecutor} is saturated with tasks or not. Under-utilisation implies the queue has space for
      * more submissions.
      *
-     * @return true if {@code blockingExecutor} is not saturated with tasks
+     * @return true if {@code chunkExecutor} is not saturated with tasks
      */
     public boolean isUnderutilized() {
-        return blockingExecutor.getActiveCount() < blockingExecutor.getMaximumPoolSize();
+        return chunkExecutor.isUnderutilized();
+    }
+
+    /**
+     * Get if the given owner may submit more chunks. True if the {@code chunkExecutor} is not saturated with tasks, or if the
+     * owner does not have a backlog of its own, in which case its submissions will be processed on its next round-robin turn
+     * regardless of other owners' backlogs.
+     *
+     * @param owner owner key as given to {@link #submit(Object, IQueueChunk)}
+     * @return true if the owner may submit more chunks
+     * @since 2.13.1
+     */
+    public boolean isUnderutilized(Object owner) {
+        return chunkExecutor.isUnderutilized(owner);
+    }
+
+    /**
+     * Get the chunk submission statistics (queue depth, wait time) of the given owner.
+     *
+     * @param owner owner key as given to {@link #submit(Object, IQueueChunk)}
+     * @return statistics or null if the owner has not submitted recently
+     * @since 2.13.1
+     */
+    @Nullable
+    public FairQueuedExecutor.LaneStats getSubmissionStats(Object owner) {
+        return chunkExecutor.getStats(owner);
+    }
+
+    /**
+     * Get the chunk submission statistics (queue depth, wait time) of every owner that has submitted recently.
+     *
+     * @since 2.13.1
+     */
+    public List<FairQueuedExecutor.LaneStats> getSubmissionStats() {
+        return chunkExecutor.getStats();
     }
 
     private long getAllocate() {
@@ -376,24 +453,44 @@ private void notifySync(Object object) {
     }
 
     /**
-     * Internal use only. Specifically for submitting {@link IQueueChunk} for "processing" an edit. Submits to the blocking
-     * executor, the main "work-horse" queue for FAWE. Handles chunk submission (and chunk submission alone). Blocking in order
-     * to forcibly prevent overworking/over-submission of chunk process tasks.
+     * Internal use only. Specifically for submitting {@link IQueueChunk} for "processing" an edit. Submits to the chunk
+     * executor, the main "work-horse" queue for FAWE, in the shared default lane.
      *
      * @param chunk chunk
      * @param <T>
      * @return Future representing task
      */
     public <T extends Future<T>> T submit(IQueueChunk<T> chunk) {
-//        if (MemUtil.isMemoryFree()) { TODO NOT IMPLEMENTED - optimize this
-//            return (T) forkJoinPoolSecondary.submit(chunk);
-//        }
-        return (T) blockingExecutor.submit(chunk);
+        return submit(null, chunk);
+    }
+
+    /**
+     * Internal use only. Specifically for submitting {@link IQueueChunk} for "processing" an edit. Submits to the chunk
+     * executor, the main "work-horse" queue for FAWE. Chunks are queued per owner and owners take turns being processed.
+     *
+     * @param owner key identifying the edit or actor the chunk belongs to, null for the shared default lane
+     * @param chunk chunk
+     * @param <T>
+     * @return Future representing task
+     * @since 2.13.1
+     */
+    public <T extends Future<T>> T submit(@Nullable Object owner, IQueueChunk<T> chunk) {
+        return (T) chunkExecutor.submit(owner, (Callable<T>) chunk);
     }
 
     @ApiStatus.Internal
     public <T extends Future<T>> T submitToBlocking(Callable<T> callable) {
-        return (T) blockingExecutor.submit(callable);
+        return submitToBlocking(null, callable);
+    }
+
+    /**
+     * Submit a task to the chunk executor in the given owner's lane, to be processed as if it were a chunk.
+     *
+     * @since 2.13.1
+     */
+    @ApiStatus.Internal
+    public <T extends Future<T>> T submitToBlocking(@Nullable Object owner, Callable<T> callable) {
+        return (T) chunkExecutor.submit(owner, callable);
     }
 
     /**
@@ -410,7 +507,11 @@ public IChunkCache<IChunkGet> getOrCreateWorldCache(World world) {
                     return cached;
                 }
             }
-            final IChunkCache<IChunkGet> created = new ChunkCache<>(world);
+            IChunkCache<IChunkGet> source = world;
+            if (sectionCache != null) {
+                source = sectionCache.attach(world.getName(), source);
+            }
+            final IChunkCache<IChunkGet> created = new ChunkCache<>(source);
             chunkGetCache.put(world, new WeakReference<>(created));
             return created;
         }
@@ -510,6 +611,9 @@ public IQueueExtent<IQueueChunk> getQueue(World world, IBatchProcessor processor
     @Override
     public boolean trim(boolean aggressive) {
         boolean result = true;
+        if (aggressive && sectionCache != null) {
+            sectionCache.clear();
+        }
         synchronized (chunkGetCache) {
             final Iterator<Map.Entry<World, WeakReference<IChunkCache<IChunkGet>>>> iter = chunkGetCache
                     .entrySet().iterator();
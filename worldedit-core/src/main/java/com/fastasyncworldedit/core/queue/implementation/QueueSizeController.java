@@ -0,0 +1,196 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+import com.fastasyncworldedit.core.FaweCache;
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkSectionCache;
+import com.fastasyncworldedit.core.util.MemUtil;
+import com.fastasyncworldedit.core.util.task.FairQueuedExecutor;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scales the number of chunks queues keep in memory and in flight to the memory and time available. Heap usage after
+ * garbage collection, time spent in garbage collection and the time chunk submissions take to complete are sampled
+ * periodically. While any of them is too high the scale is halved, otherwise it slowly recovers, so edits back off before
+ * memory runs out rather than being cancelled once it has.
+ * <p>
+ * When pressure is first detected, shared caches are cleared and worker threads are asked to drop their
+ * {@link FaweCache} buffers, see {@link #trimThreadIfRequested()}.
+ *
+ * @since 2.13.1
+ */
+public class QueueSizeController {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long TRIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // Fraction of wall time spent in garbage collection above which memory is considered under pressure
+    private static final double MAX_GC_TIME_FRACTION = 0.1;
+    // Mean time from a chunk being submitted to it having been processed above which chunks are backing up
+    private static final long MAX_COMMIT_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_STEP = 0.1;
+
+    private static final ThreadLocal<int[]> THREAD_TRIM_EPOCH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final FairQueuedExecutor executor;
+    @Nullable
+    private final ChunkSectionCache sectionCache;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+
+    private volatile double scale = 1;
+    private volatile boolean pressure;
+    private volatile int trimEpoch;
+
+    private long lastSample;
+    private long lastTrim;
+    private long lastGcMillis;
+    private long lastCompleted;
+    private long lastLatencyNanos;
+
+    QueueSizeController(FairQueuedExecutor executor, @Nullable ChunkSectionCache sectionCache) {
+        this.executor = executor;
+        this.sectionCache = sectionCache;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                heapPools.add(pool);
+            }
+        }
+        this.lastSample = nanoTime();
+        // The origin of nanoTime is arbitrary, so caches may be trimmed as soon as pressure is first detected
+        this.lastTrim = lastSample - TRIM_INTERVAL_NANOS;
+        this.lastGcMillis = gcMillis();
+    }
+
+    /**
+     * Sample memory and submission statistics and adjust the scale, if the sampling interval has passed. Expected to be
+     * called frequently from a single thread.
+     */
+    void update() {
+        long now = nanoTime();
+        long elapsed = now - lastSample;
+        if (elapsed < SAMPLE_INTERVAL_NANOS || !Settings.settings().QUEUE.ADAPTIVE_TARGET_SIZE) {
+            return;
+        }
+        lastSample = now;
+
+        long gcMillis = gcMillis();
+        double gcFraction = TimeUnit.MILLISECONDS.toNanos(gcMillis - lastGcMillis) / (double) elapsed;
+        lastGcMillis = gcMillis;
+
+        long completed = executor.getCompletedCount();
+        long latencyNanos = executor.getTotalLatencyNanos();
+        long commits = completed - lastCompleted;
+        long meanLatency = commits <= 0 ? 0 : (latencyNanos - lastLatencyNanos) / commits;
+        lastCompleted = completed;
+        lastLatencyNanos = latencyNanos;
+
+        boolean heapLimited = usedPercent() >= Settings.settings().SLOWER_MEMORY_PERCENT;
+        boolean underPressure = heapLimited || gcFraction > MAX_GC_TIME_FRACTION || meanLatency > MAX_COMMIT_LATENCY_NANOS;
+        if (underPressure) {
+            scale *= DECREASE_FACTOR;
+            if ((heapLimited || gcFraction > MAX_GC_TIME_FRACTION) && now - lastTrim > TRIM_INTERVAL_NANOS) {
+                lastTrim = now;
+                trim();
+            }
+        } else if (scale < 1) {
+            scale = Math.min(1, scale + INCREASE_STEP);
+        }
+        pressure = underPressure;
+    }
+
+    private void trim() {
+        LOGGER.debug("Memory pressure detected, reducing queue sizes and trimming caches");
+        if (sectionCache != null) {
+            sectionCache.clear();
+        }
+        FaweCache.INSTANCE.trim(false);
+        trimEpoch++;
+    }
+
+    /**
+     * Get the number of chunks a queue with the given target size should keep before submitting, no less than the size used
+     * once memory is limited.
+     *
+     * @param targetSize the configured target size
+     * @return the scaled target size
+     */
+    public int scaleTargetSize(int targetSize) {
+        int floor = Settings.settings().QUEUE.PARALLEL_THREADS + 8;
+        if (targetSize <= floor) {
+            return targetSize;
+        }
+        return Math.max(floor, (int) (targetSize * scale));
+    }
+
+    /**
+     * Get if memory or chunk submission was under pressure when last sampled. Queues should wait on their submissions more
+     * eagerly while it is.
+     */
+    public boolean isUnderPressure() {
+        return pressure;
+    }
+
+    /**
+     * Get the current scale applied to queue target sizes, between 0 and 1.
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Drop the calling thread's {@link FaweCache} buffers if a trim was requested since this thread last checked. Thread
+     * local buffers can only be released by the thread owning them, so worker threads call this between chunks.
+     */
+    public void trimThreadIfRequested() {
+        int epoch = trimEpoch;
+        int[] seen = THREAD_TRIM_EPOCH.get();
+        if (seen[0] != epoch) {
+            seen[0] = epoch;
+            FaweCache.INSTANCE.trimThreadLocals();
+        }
+    }
+
+    // Time and memory are read through the following methods so that tests can simulate pressure
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    // Heap usage as of the last collection of each pool, so garbage awaiting collection is not counted
+    int usedPercent() {
+        long max = Runtime.getRuntime().maxMemory();
+        long used = 0;
+        if (heapPools.isEmpty()) {
+            used = MemUtil.getUsedBytes();
+        } else {
+            for (MemoryPoolMXBean pool : heapPools) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        return (int) (used * 100 / max);
+    }
+
+}
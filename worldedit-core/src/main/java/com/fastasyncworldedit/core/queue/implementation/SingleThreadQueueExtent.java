@@ -32,6 +32,7 @@
 import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
@@ -71,6 +72,7 @@ public class SingleThreadQueueExtent extends ExtentBatchProcessorHolder implemen
     private int exceptionCount = 0;
     private SideEffectSet sideEffectSet = SideEffectSet.defaults();
     private int targetSize = Settings.settings().QUEUE.TARGET_SIZE;
+    private Object owner = null;
 
     public SingleThreadQueueExtent() {
     }
@@ -83,6 +85,11 @@ public SingleThreadQueueExtent(int minY, int maxY) {
         this.maxY = maxY;
     }
 
+    @Override
+    public boolean isQueueEnabled() {
+        return enabledQueue;
+    }
+
     @Override
     public void enableQueue() {
         enabledQueue = true;
@@ -137,6 +144,20 @@ public World getWorld() {
         return world;
     }
 
+    @Override
+    public void setOwner(@Nullable Object owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Get the key chunk submissions from this queue are scheduled under, this queue if no owner has been set.
+     *
+     * @since 2.13.1
+     */
+    public Object getOwner() {
+        return owner != null ? owner : this;
+    }
+
     public void setTargetSize(int targetSize) {
         this.targetSize = targetSize;
     }
@@ -175,6 +196,7 @@ protected synchronized void reset() {
         this.world = null;
         this.faweExceptionReasonsUsed = new boolean[FaweException.Type.values().length];
         this.targetSize = Settings.settings().QUEUE.TARGET_SIZE;
+        this.owner = null;
     }
 
     /**
@@ -263,12 +285,12 @@ private <V extends Future<V>> V submitUnchecked(IQueueChunk chunk) {
             }
         }
 
-        return (V) Fawe.instance().getQueueHandler().submit(chunk);
+        return (V) Fawe.instance().getQueueHandler().submit(getOwner(), chunk);
     }
 
     @Override
     public <V extends Future<V>> V submitTaskUnchecked(Callable<V> callable) {
-        V future = (V) Fawe.instance().getQueueHandler().submitToBlocking(callable);
+        V future = (V) Fawe.instance().getQueueHandler().submitToBlocking(getOwner(), callable);
         submissions.add(future);
         return future;
     }
@@ -335,15 +357,20 @@ public final IQueueChunk getOrCreateChunk(int x, int z) {
             }
             final int size = chunks.size();
             final boolean lowMem = MemUtil.isMemoryLimited();
+            final QueueSizeController sizeController = Fawe.instance().getQueueHandler().getQueueSizeController();
             // If queueing is enabled AND either of the following
             //  - memory is low & queue size > num threads + 8
-            //  - queue size > target size and primary queue has less than num threads submissions
-            int targetSize = lowMem ? Settings.settings().QUEUE.PARALLEL_THREADS + 8 : this.targetSize;
-            if (enabledQueue && size > targetSize && (lowMem || Fawe.instance().getQueueHandler().isUnderutilized())) {
+            //  - queue size > target size (scaled down under memory pressure) and either the chunk executor has idle threads
+            //    or this queue's owner has no backlog
+            int targetSize = lowMem ? Settings.settings().QUEUE.PARALLEL_THREADS + 8 : sizeController.scaleTargetSize(
+                    this.targetSize);
+            if (enabledQueue && size > targetSize
+                    && (lowMem || Fawe.instance().getQueueHandler().isUnderutilized(getOwner()))) {
                 chunk = chunks.removeFirst();
                 final Future future = submitUnchecked(chunk);
                 if (future != null && !future.isDone()) {
-                    pollSubmissions(targetSize, lowMem);
+                    // Wait on submissions rather than only dropping completed ones while under pressure
+                    pollSubmissions(targetSize, lowMem || sizeController.isUnderPressure());
                     submissions.add(future);
                 }
             }
@@ -152,6 +152,26 @@ public int[] update(int layer, int[] data, boolean aggressive) {
         return data;
     }
 
+    /**
+     * Read a section that is not loaded yet, {@link #update(int, int[], boolean)} without existing data by default.
+     *
+     * @param layer section index relative to the minimum section
+     * @since 2.13.1
+     */
+    protected int[] loadSection(int layer, boolean aggressive) {
+        return update(layer, null, aggressive);
+    }
+
+    /**
+     * Whether the given array of a section is shared with other chunks, so it must be copied instead of written to.
+     *
+     * @param layer section index relative to the minimum section
+     * @since 2.13.1
+     */
+    protected boolean isSharedSection(int layer, int[] arr) {
+        return false;
+    }
+
     protected int[] loadPrivately(int layer) {
         layer -= getMinSectionPosition();
         if (sections[layer] != null) {
@@ -280,19 +300,26 @@ public final int get(IntBlocks blocks, int layer, int index) {
 
         public final synchronized void set(IntBlocks blocks, int layer, int index, int value) {
             layer -= blocks.minSectionPosition;
-            get(blocks, layer)[index] = value;
+            int[] arr = get(blocks, layer);
+            if (blocks.isSharedSection(layer, arr)) {
+                synchronized (blocks.sectionLocks[layer]) {
+                    arr = blocks.blocks[layer] = arr.clone();
+                }
+            }
+            arr[index] = value;
         }
 
         static int[] getSkipFull(IntBlocks blocks, int layer, boolean aggressive) {
             int[] arr = blocks.blocks[layer];
             if (arr == null) {
-                arr = blocks.blocks[layer] = blocks.update(layer, null, aggressive);
+                arr = blocks.blocks[layer] = blocks.loadSection(layer, aggressive);
                 if (arr == null) {
                     throw new IllegalStateException("Array cannot be null: " + blocks.getClass());
                 }
             } else {
-                blocks.blocks[layer] = blocks.update(layer, arr, aggressive);
-                if (blocks.blocks[layer] == null) {
+                // Shared arrays are replaced rather than refilled in place
+                arr = blocks.blocks[layer] = blocks.update(layer, blocks.isSharedSection(layer, arr) ? null : arr, aggressive);
+                if (arr == null) {
                     throw new IllegalStateException("Array cannot be null (update): " + blocks.getClass());
                 }
             }
@@ -3,19 +3,73 @@
 import com.fastasyncworldedit.core.queue.IBlocks;
 import com.fastasyncworldedit.core.queue.IChunkGet;
 import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkSectionCache;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
 
 public abstract class IntGetBlocks extends IntBlocks implements IChunkGet {
 
+    @Nullable
+    private volatile ChunkSectionCache.WorldSections sectionCache;
+    // Arrays of sections that are also held by the section cache, copied before they are written to
+    private final int[][] sharedSections;
+
     /**
      * New instance given the min/max section indices
      */
     public IntGetBlocks(final int minSectionPosition, final int maxSectionPosition) {
         super(minSectionPosition, maxSectionPosition);
+        this.sharedSections = new int[sectionCount][];
+    }
+
+    /**
+     * Set the shared cache sections of this chunk are read through, or null to read them from the world directly.
+     *
+     * @since 2.13.1
+     */
+    public void setSectionCache(@Nullable ChunkSectionCache.WorldSections sectionCache) {
+        this.sectionCache = sectionCache;
+    }
+
+    /**
+     * Remove the sections of this chunk from the shared cache, if any, e.g. as they are about to be written to.
+     *
+     * @since 2.13.1
+     */
+    public void invalidateSectionCache() {
+        ChunkSectionCache.WorldSections cache = this.sectionCache;
+        if (cache != null) {
+            cache.invalidate(getX(), getZ(), minSectionPosition, maxSectionPosition);
+        }
+    }
+
+    @Override
+    protected int[] loadSection(int layer, boolean aggressive) {
+        ChunkSectionCache.WorldSections cache = this.sectionCache;
+        if (cache == null) {
+            return super.loadSection(layer, aggressive);
+        }
+        int sectionY = layer + minSectionPosition;
+        int[] data = cache.get(getX(), getZ(), sectionY);
+        if (data == null) {
+            long version = cache.version(getX(), getZ());
+            data = super.loadSection(layer, aggressive);
+            if (data == null || !cache.put(getX(), getZ(), sectionY, version, data)) {
+                sharedSections[layer] = null;
+                return data;
+            }
+        }
+        sharedSections[layer] = data;
+        return data;
+    }
+
+    @Override
+    protected boolean isSharedSection(int layer, int[] arr) {
+        return arr != null && sharedSections[layer] == arr;
     }
 
     @Override
@@ -29,6 +83,7 @@ public synchronized boolean trim(boolean aggressive) {
         for (int i = 0; i < sectionCount; i++) {
             sections[i] = EMPTY;
             blocks[i] = null;
+            sharedSections[i] = null;
         }
         return true;
     }
@@ -52,6 +107,7 @@ public synchronized boolean trim(boolean aggressive, int layer) {
         layer -= minSectionPosition;
         sections[layer] = EMPTY;
         blocks[layer] = null;
+        sharedSections[layer] = null;
         return true;
     }
 
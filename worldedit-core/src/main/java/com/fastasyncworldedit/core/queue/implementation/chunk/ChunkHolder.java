@@ -1,5 +1,6 @@
 package com.fastasyncworldedit.core.queue.implementation.chunk;
 
+import com.fastasyncworldedit.core.Fawe;
 import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
 import com.fastasyncworldedit.core.extent.processor.EmptyBatchProcessor;
 import com.fastasyncworldedit.core.extent.processor.heightmap.HeightMapType;
@@ -10,9 +11,11 @@
 import com.fastasyncworldedit.core.queue.IChunkSet;
 import com.fastasyncworldedit.core.queue.IQueueChunk;
 import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.blocks.IntGetBlocks;
 import com.fastasyncworldedit.core.util.MemUtil;
 import com.sk89q.worldedit.entity.Entity;
 import com.fastasyncworldedit.core.util.task.FaweThread;
+import com.sk89q.worldedit.function.mask.SolidBlockMask;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
@@ -21,9 +24,11 @@
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +59,7 @@ public static ChunkHolder newInstance() {
     private boolean createCopy = false;
     private long initTime = -1L;
     private SideEffectSet sideEffectSet;
+    private volatile SolidHeights solidHeights; // The highest movement blocking block of each column of chunkExisting
 
     private ChunkHolder() {
         this.delegate = NULL;
@@ -115,6 +121,11 @@ public void setBlocks(int layer, int[] data) {
         delegate.set(this).setBlocks(layer, data);
     }
 
+    @Override
+    public void mergeBlocks(int layer, int[] data) {
+        delegate.set(this).mergeBlocks(layer, data);
+    }
+
     @Override
     public int[] load(int layer) {
         return getOrCreateGet().load(layer);
@@ -945,14 +956,21 @@ public boolean tile(final int x, final int y, final int z, final FaweCompoundTag
     }
 
     /**
-     * Get or create the existing part of this chunk.
+     * Get or create the existing part of this chunk. Safe to call from several threads reading the same chunk.
      */
     public final IChunkGet getOrCreateGet() {
-        if (chunkExisting == null) {
-            chunkExisting = newWrappedGet();
-            chunkExisting.trim(MemUtil.isMemoryLimited());
+        IChunkGet get = chunkExisting;
+        if (get == null) {
+            synchronized (this) {
+                get = chunkExisting;
+                if (get == null) {
+                    get = newWrappedGet();
+                    get.trim(MemUtil.isMemoryLimited());
+                    chunkExisting = get;
+                }
+            }
         }
-        return chunkExisting;
+        return get;
     }
 
     /**
@@ -1026,10 +1044,22 @@ public synchronized T call() {
     @Override
     public <U extends Future<U>> U call(IQueueExtent<? extends IChunk> owner, IChunkSet set, Runnable finalize) {
         if (set != null) {
+            Fawe.instance().getQueueHandler().getQueueSizeController().trimThreadIfRequested();
             IChunkGet get = getOrCreateGet();
             try {
                 get.lockCall();
                 trackExtent();
+                final Runnable applied;
+                if (get instanceof IntGetBlocks blocks) {
+                    // Other queues must not read cached sections from before this write, invalidate again once applied
+                    blocks.invalidateSectionCache();
+                    applied = () -> {
+                        blocks.invalidateSectionCache();
+                        finalize.run();
+                    };
+                } else {
+                    applied = finalize;
+                }
                 boolean postProcess = !(getExtent().getPostProcessor() instanceof EmptyBatchProcessor);
                 final int copyKey = get.setCreateCopy(postProcess);
                 final IChunkSet iChunkSet = getExtent().processSet(this, get, set);
@@ -1037,10 +1067,10 @@ public <U extends Future<U>> U call(IQueueExtent<? extends IChunk> owner, IChunk
                 if (postProcess) {
                     finalizer = () -> {
                         getExtent().postProcess(this, get.getCopy(copyKey), iChunkSet);
-                        finalize.run();
+                        applied.run();
                     };
                 } else {
-                    finalizer = finalize;
+                    finalizer = applied;
                 }
                 return get.call(extent, set, finalizer);
             } finally {
@@ -1185,6 +1215,48 @@ public int[] getHeightMap(HeightMapType type) {
         return delegate.getHeightMap(this, type);
     }
 
+    @Override
+    public int getHighestSolidBlock(int x, int z, int minY, int maxY) {
+        IChunkGet get = getOrCreateGet();
+        SolidHeights heights = solidHeights;
+        if (heights == null || heights.get() != get) {
+            solidHeights = heights = new SolidHeights(get, computeSolidHeights(get));
+        }
+        int highest = heights.heights()[(z & 15) << 4 | (x & 15)];
+        if (highest <= maxY) {
+            return highest;
+        }
+        return get.getHighestSolidBlock(x, z, minY, maxY);
+    }
+
+    // Find the highest movement blocking block of all columns at once, reading each section only once
+    private static int[] computeSolidHeights(IChunkGet get) {
+        int none = get.getMinY() - 1;
+        int[] heights = new int[256];
+        Arrays.fill(heights, none);
+        int remaining = heights.length;
+        for (int layer = get.getMaxSectionPosition(); layer >= get.getMinSectionPosition() && remaining > 0; layer--) {
+            if (!get.hasNonEmptySection(layer)) {
+                continue;
+            }
+            int[] blocks = get.load(layer);
+            for (int y = 15; y >= 0 && remaining > 0; y--) {
+                int index = y << 8;
+                for (int column = 0; column < heights.length; column++) {
+                    if (heights[column] == none && SolidBlockMask.isSolid(BlockTypesCache.states[blocks[index + column]])) {
+                        heights[column] = (layer << 4) + y;
+                        remaining--;
+                    }
+                }
+            }
+        }
+        return heights;
+    }
+
+    private record SolidHeights(IChunkGet get, int[] heights) {
+
+    }
+
     @Override
     public @Nullable FaweCompoundTag entity(final UUID uuid) {
         return delegate.get(this).entity(uuid);
@@ -0,0 +1,197 @@
+package com.fastasyncworldedit.core.queue.implementation.chunk;
+
+import com.fastasyncworldedit.core.queue.IChunkCache;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.implementation.blocks.IntGetBlocks;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Block data of recently read chunk sections, shared between all queues. Concurrent or consecutive edits in the same area
+ * copy sections from here instead of converting them from the world's palette again.
+ * <p>
+ * Entries are weighed by their size in bytes and the least recently used are evicted once the budget is exceeded. As the
+ * world may also change outside of edits, entries expire a short time after being read. Chunks written to through a
+ * {@link ChunkHolder} are invalidated.
+ * <p>
+ * Each chunk has a version that is incremented when it is invalidated. Sections are cached with the version of their chunk
+ * from before they were read from the world, so sections read concurrently to an invalidation are never served.
+ * <p>
+ * Cached arrays are shared between all chunks reading them and must not be modified.
+ *
+ * @since 2.13.1
+ */
+public class ChunkSectionCache {
+
+    // int[4096] plus array header
+    private static final int SECTION_BYTES = 4096 * Integer.BYTES + 16;
+    private static final int VERSION_STRIPES = 4096;
+
+    private final Cache<Key, Entry> cache;
+    // Chunks hashing to the same stripe share a version, invalidating one drops the others too
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * Create a new cache
+     *
+     * @param maxBytes      maximum size of all cached sections in bytes
+     * @param expiryMillis  time after which a cached section is read from the world again
+     * @param concurrency   expected number of threads accessing the cache concurrently
+     */
+    public ChunkSectionCache(long maxBytes, long expiryMillis, int concurrency) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry value) -> SECTION_BYTES)
+                .expireAfterWrite(expiryMillis, TimeUnit.MILLISECONDS)
+                .concurrencyLevel(Math.max(1, concurrency))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Wrap a chunk cache so the {@link IntGetBlocks} it creates read through this cache.
+     *
+     * @param worldName name of the world the chunks are in
+     * @param delegate  cache creating the chunks
+     * @return wrapping chunk cache
+     */
+    public IChunkCache<IChunkGet> attach(String worldName, IChunkCache<IChunkGet> delegate) {
+        final WorldSections sections = sections(worldName);
+        return new IChunkCache<>() {
+            @Override
+            public IChunkGet get(int chunkX, int chunkZ) {
+                IChunkGet get = delegate.get(chunkX, chunkZ);
+                if (get instanceof IntGetBlocks blocks) {
+                    blocks.setSectionCache(sections);
+                }
+                return get;
+            }
+
+            @Override
+            public boolean trim(boolean aggressive) {
+                return delegate.trim(aggressive);
+            }
+        };
+    }
+
+    @VisibleForTesting
+    WorldSections sections(String worldName) {
+        return new WorldSections(worldName);
+    }
+
+    /**
+     * Get the hit, miss and eviction counts of this cache since it was created.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Get the approximate number of sections cached.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Remove all cached sections.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private record Key(String world, int chunkX, int chunkZ, int layer) {
+
+    }
+
+    private record Entry(long version, int[] blocks) {
+
+    }
+
+    /**
+     * View of the cache for a single world.
+     */
+    public final class WorldSections {
+
+        private final String world;
+
+        private WorldSections(String world) {
+            this.world = world;
+        }
+
+        /**
+         * Get the cached blocks of a section. The array is shared and must not be modified.
+         *
+         * @param layer section y, not relative to the minimum section
+         * @return the blocks, or null if the section is not cached
+         */
+        public int[] get(int chunkX, int chunkZ, int layer) {
+            Key key = new Key(world, chunkX, chunkZ, layer);
+            Entry cached = cache.getIfPresent(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.version() != version(chunkX, chunkZ)) {
+                cache.asMap().remove(key, cached);
+                return null;
+            }
+            return cached.blocks();
+        }
+
+        /**
+         * Get the current version of a chunk, to be obtained before reading sections of it that are then
+         * {@link #put(int, int, int, long, int[]) put} into the cache.
+         */
+        public long version(int chunkX, int chunkZ) {
+            return versions.get(stripe(chunkX, chunkZ));
+        }
+
+        /**
+         * Cache the blocks of a section. The array is not copied and must not be modified afterwards if it was cached.
+         *
+         * @param layer   section y, not relative to the minimum section
+         * @param version {@link #version(int, int) version} of the chunk from before the blocks were read
+         * @return false if the chunk was invalidated since and the blocks were not cached
+         */
+        public boolean put(int chunkX, int chunkZ, int layer, long version, int[] blocks) {
+            int stripe = stripe(chunkX, chunkZ);
+            if (versions.get(stripe) != version) {
+                return false;
+            }
+            Key key = new Key(world, chunkX, chunkZ, layer);
+            Entry entry = new Entry(version, blocks);
+            cache.put(key, entry);
+            // An invalidation between the check and the put may have missed the entry
+            if (versions.get(stripe) != version) {
+                cache.asMap().remove(key, entry);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Remove the cached sections of a chunk, and drop sections of it currently being read from the world.
+         *
+         * @param minLayer lowest section y to remove
+         * @param maxLayer highest section y to remove
+         */
+        public void invalidate(int chunkX, int chunkZ, int minLayer, int maxLayer) {
+            versions.incrementAndGet(stripe(chunkX, chunkZ));
+            for (int layer = minLayer; layer <= maxLayer; layer++) {
+                cache.invalidate(new Key(world, chunkX, chunkZ, layer));
+            }
+        }
+
+        private int stripe(int chunkX, int chunkZ) {
+            int hash = (world.hashCode() * 31 + chunkX) * 31 + chunkZ;
+            return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+        }
+
+    }
+
+}
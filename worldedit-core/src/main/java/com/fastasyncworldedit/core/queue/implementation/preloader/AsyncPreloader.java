@@ -2,6 +2,7 @@
 
 import com.fastasyncworldedit.core.Fawe;
 import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.implementation.QueueSizeController;
 import com.fastasyncworldedit.core.util.FaweTimer;
 import com.fastasyncworldedit.core.util.TaskManager;
 import com.fastasyncworldedit.core.util.collection.MutablePair;
@@ -95,7 +96,9 @@ public void run() {
             return;
         }
         Iterator<Map.Entry<UUID, MutablePair<World, Set<BlockVector2>>>> plrIter = update.entrySet().iterator();
-        while (timer.getTPS() > 18 && plrIter.hasNext()) {
+        // Loading more chunks while memory is under pressure would only make it worse
+        QueueSizeController sizeController = Fawe.instance().getQueueHandler().getQueueSizeController();
+        while (timer.getTPS() > 18 && !sizeController.isUnderPressure() && plrIter.hasNext()) {
             if (cancelled.get()) {
                 return;
             }
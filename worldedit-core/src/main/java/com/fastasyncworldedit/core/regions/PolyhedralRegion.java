@@ -1,5 +1,11 @@
 package com.fastasyncworldedit.core.regions;
 
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.math.MutableBlockVector3;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.IChunkSet;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.AbstractRegion;
@@ -9,6 +15,7 @@
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -323,4 +330,108 @@ public AbstractRegion clone() {
         return new PolyhedralRegion(this);
     }
 
+    @Override
+    public void filter(
+            final IChunk chunk, final Filter filter, ChunkFilterBlock block,
+            final IChunkGet get, final IChunkSet set, boolean full
+    ) {
+        if (!isDefined()) {
+            return;
+        }
+        // The region is the surface of its triangles, so only test the blocks near each triangle rather than testing every
+        // block of the bounding box against every triangle
+        final BlockVector3 min = getMinimumPoint();
+        final BlockVector3 max = getMaximumPoint();
+        int bcx = chunk.getX() << 4;
+        int bcz = chunk.getZ() << 4;
+        int minX = Math.max(bcx, min.x());
+        int maxX = Math.min(bcx + 15, max.x());
+        int minZ = Math.max(bcz, min.z());
+        int maxZ = Math.min(bcz + 15, max.z());
+        if (minX > maxX || minZ > maxZ) {
+            return;
+        }
+        List<Triangle> candidates = new ArrayList<>();
+        List<int[]> bounds = new ArrayList<>();
+        for (Triangle triangle : triangles) {
+            // A block can only overlap a triangle if it overlaps the bounding box of the triangle
+            int[] box = new int[6];
+            for (int axis = 0; axis < 3; axis++) {
+                double low = Double.POSITIVE_INFINITY;
+                double high = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < 3; i++) {
+                    int coordinate = component(triangle.getVertex(i), axis);
+                    low = Math.min(low, coordinate);
+                    high = Math.max(high, coordinate);
+                }
+                box[axis] = (int) Math.ceil(low - 0.5 - Triangle.RADIUS);
+                box[axis + 3] = (int) Math.floor(high - 0.5 + Triangle.RADIUS);
+            }
+            box[0] = Math.max(box[0], minX);
+            box[3] = Math.min(box[3], maxX);
+            box[1] = Math.max(box[1], min.y());
+            box[4] = Math.min(box[4], max.y());
+            box[2] = Math.max(box[2], minZ);
+            box[5] = Math.min(box[5], maxZ);
+            if (box[0] <= box[3] && box[1] <= box[4] && box[2] <= box[5]) {
+                candidates.add(triangle);
+                bounds.add(box);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        int minSection = Math.max(get.getMinSectionPosition(), min.y() >> 4);
+        int maxSection = Math.min(get.getMaxSectionPosition(), max.y() >> 4);
+        MutableBlockVector3 position = new MutableBlockVector3();
+        long[] contained = new long[64];
+        for (int layer = minSection; layer <= maxSection; layer++) {
+            if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(get, layer)) {
+                continue;
+            }
+            int layerMinY = layer << 4;
+            int layerMaxY = layerMinY + 15;
+            boolean any = false;
+            Arrays.fill(contained, 0);
+            for (int i = 0; i < candidates.size(); i++) {
+                Triangle triangle = candidates.get(i);
+                int[] box = bounds.get(i);
+                int minY = Math.max(box[1], layerMinY);
+                int maxY = Math.min(box[4], layerMaxY);
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = box[2]; z <= box[5]; z++) {
+                        for (int x = box[0]; x <= box[3]; x++) {
+                            int index = (y & 15) << 8 | (z & 15) << 4 | x & 15;
+                            if ((contained[index >> 6] & 1L << index) == 0
+                                    && triangle.contains(position.setComponents(x, y, z))) {
+                                contained[index >> 6] |= 1L << index;
+                                any = true;
+                            }
+                        }
+                    }
+                }
+            }
+            if (!any) {
+                continue;
+            }
+            block = block.initLayer(get, set, layer);
+            for (int word = 0; word < 64; word++) {
+                long bits = contained[word];
+                while (bits != 0) {
+                    int index = word << 6 | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    block.filter(filter, index & 15, index >> 8, (index >> 4) & 15);
+                }
+            }
+        }
+    }
+
+    private static int component(BlockVector3 vector, int axis) {
+        return switch (axis) {
+            case 0 -> vector.x();
+            case 1 -> vector.y();
+            default -> vector.z();
+        };
+    }
+
 }
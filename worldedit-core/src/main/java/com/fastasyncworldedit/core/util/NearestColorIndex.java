@@ -0,0 +1,134 @@
+package com.fastasyncworldedit.core.util;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+/**
+ * Finds the color of a palette nearest to a color by {@link TextureUtil#colorDistance(int, int)}, giving the same result as
+ * scanning the palette in order for the first color with the smallest distance. Colors are bucketed into a grid over RGB
+ * space, and cells are searched in shells around the cell of the color until no closer color can remain. The distance is
+ * at least {@code 2r² + 4g² + 2b²} for channel differences r, g and b, which bounds the distance of each shell.
+ * <p>
+ * Instances are immutable once built, so they can be shared by all forks of a {@link TextureUtil}.
+ */
+final class NearestColorIndex {
+
+    private static final int CELL_BITS = 4;
+    private static final int CELLS = 256 >> CELL_BITS;
+    private static final int CELL_SIZE = 1 << CELL_BITS;
+
+    private final Object source;
+    private final int[] colors;
+    private final boolean matchAlpha;
+    // Grids of the indices of colors, by alpha if it has to match
+    private final Int2ObjectOpenHashMap<Grid> grids = new Int2ObjectOpenHashMap<>();
+
+    /**
+     * New instance.
+     *
+     * @param source     what the palette was taken from, to tell if the index is still current
+     * @param colors     the palette
+     * @param matchAlpha if only colors with the same alpha as the color searched for can be nearest
+     */
+    NearestColorIndex(Object source, int[] colors, boolean matchAlpha) {
+        this.source = source;
+        this.colors = colors;
+        this.matchAlpha = matchAlpha;
+        Int2ObjectOpenHashMap<int[]> counts = new Int2ObjectOpenHashMap<>();
+        for (int color : colors) {
+            counts.computeIfAbsent(alphaKey(color), key -> new int[CELLS * CELLS * CELLS + 1])[cell(color) + 1]++;
+        }
+        counts.forEach((key, starts) -> {
+            for (int i = 1; i < starts.length; i++) {
+                starts[i] += starts[i - 1];
+            }
+            grids.put((int) key, new Grid(starts, new int[starts[starts.length - 1]]));
+        });
+        Int2ObjectOpenHashMap<int[]> filled = new Int2ObjectOpenHashMap<>();
+        for (int i = 0; i < colors.length; i++) {
+            Grid grid = grids.get(alphaKey(colors[i]));
+            int[] next = filled.computeIfAbsent(alphaKey(colors[i]), key -> grid.starts.clone());
+            // Indices are added in order, so each cell lists them in palette order
+            grid.indices[next[cell(colors[i])]++] = i;
+        }
+    }
+
+    /**
+     * Get what the palette was taken from.
+     */
+    Object getSource() {
+        return source;
+    }
+
+    /**
+     * Find the color of the palette nearest to a color.
+     *
+     * @param color        the color to search for
+     * @param excludeEqual if colors equal to the color searched for are skipped
+     * @return the index of the nearest color in the palette, the lowest if several are equally near, or -1 if there is none
+     */
+    int nearest(int color, boolean excludeEqual) {
+        Grid grid = grids.get(alphaKey(color));
+        if (grid == null) {
+            return -1;
+        }
+        int red = (color >> 16) & 0xFF;
+        int green = (color >> 8) & 0xFF;
+        int blue = color & 0xFF;
+        int cellRed = red >> CELL_BITS;
+        int cellGreen = green >> CELL_BITS;
+        int cellBlue = blue >> CELL_BITS;
+        long min = Long.MAX_VALUE;
+        int closest = -1;
+        for (int shell = 0; shell < CELLS; shell++) {
+            if (closest != -1 && shell > 0) {
+                // A color in this shell differs by more than the cells between it and the color searched for in a channel
+                long difference = (long) (shell - 1) * CELL_SIZE + 1;
+                if (2 * difference * difference > min) {
+                    break;
+                }
+            }
+            for (int r = Math.max(0, cellRed - shell); r <= Math.min(CELLS - 1, cellRed + shell); r++) {
+                for (int g = Math.max(0, cellGreen - shell); g <= Math.min(CELLS - 1, cellGreen + shell); g++) {
+                    boolean onShell = Math.abs(r - cellRed) == shell || Math.abs(g - cellGreen) == shell;
+                    // Inside the shell only the cells at either end of the blue axis are on it
+                    int step = onShell ? 1 : Math.max(1, 2 * shell);
+                    for (int b = cellBlue - shell; b <= cellBlue + shell; b += step) {
+                        if (b < 0 || b >= CELLS) {
+                            continue;
+                        }
+                        int cell = (r * CELLS + g) * CELLS + b;
+                        for (int i = grid.starts[cell]; i < grid.starts[cell + 1]; i++) {
+                            int index = grid.indices[i];
+                            int other = colors[index];
+                            if (excludeEqual && other == color) {
+                                continue;
+                            }
+                            long distance = TextureUtil.colorDistance(color, other);
+                            if (distance < min || (distance == min && index < closest)) {
+                                min = distance;
+                                closest = index;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    private int alphaKey(int color) {
+        return matchAlpha ? (color >> 24) & 0xFF : 0;
+    }
+
+    private static int cell(int color) {
+        int red = ((color >> 16) & 0xFF) >> CELL_BITS;
+        int green = ((color >> 8) & 0xFF) >> CELL_BITS;
+        int blue = (color & 0xFF) >> CELL_BITS;
+        return (red * CELLS + green) * CELLS + blue;
+    }
+
+    private record Grid(int[] starts, int[] indices) {
+
+    }
+
+}
@@ -346,6 +346,11 @@ public class TextureUtil implements TextureHolder {
      * https://github.com/erich666/Mineways/blob/master/Win/biomes.cpp
      */
     protected BiomeColor[] validBiomes;
+    // Built on first use from the arrays above, and rebuilt if they are replaced
+    private volatile NearestColorIndex blockIndex;
+    private volatile NearestColorIndex layerIndex;
+    private volatile NearestColorIndex mixBiomeIndex;
+    private volatile NearestColorIndex biomeIndex;
 
     /**
      * Do not use. Use {@link Fawe#getTextureUtil()}
@@ -675,26 +680,11 @@ public TextureUtil fork() {
      * @return matching block
      */
     public BlockType getNearestBlock(int color) {
-        long min = Long.MAX_VALUE;
-        int closest = 0;
-        int red1 = (color >> 16) & 0xFF;
-        int green1 = (color >> 8) & 0xFF;
-        int blue1 = (color) & 0xFF;
-        int alpha = (color >> 24) & 0xFF;
-        for (int i = 0; i < validColors.length; i++) {
-            int other = validColors[i];
-            if (((other >> 24) & 0xFF) == alpha) {
-                long distance = colorDistance(red1, green1, blue1, other);
-                if (distance < min) {
-                    min = distance;
-                    closest = validBlockIds[i];
-                }
-            }
-        }
-        if (min == Long.MAX_VALUE) {
+        int closest = getBlockIndex().nearest(color, false);
+        if (closest == -1) {
             return null;
         }
-        return BlockTypesCache.values[closest];
+        return BlockTypesCache.values[validBlockIds[closest]];
     }
 
     /**
@@ -704,48 +694,23 @@ public BlockType getNearestBlock(int color) {
      * @return matching block
      */
     public BlockType getNextNearestBlock(int color) {
-        long min = Long.MAX_VALUE;
-        int closest = 0;
-        int red1 = (color >> 16) & 0xFF;
-        int green1 = (color >> 8) & 0xFF;
-        int blue1 = (color) & 0xFF;
-        int alpha = (color >> 24) & 0xFF;
-        for (int i = 0; i < validColors.length; i++) {
-            int other = validColors[i];
-            if (other != color && ((other >> 24) & 0xFF) == alpha) {
-                long distance = colorDistance(red1, green1, blue1, other);
-                if (distance < min) {
-                    min = distance;
-                    closest = validBlockIds[i];
-                }
-            }
-        }
-        if (min == Long.MAX_VALUE) {
+        int closest = getBlockIndex().nearest(color, true);
+        if (closest == -1) {
             return null;
         }
-        return BlockTypesCache.values[closest];
+        return BlockTypesCache.values[validBlockIds[closest]];
     }
 
     /**
      * Returns the block combined ids as an array.
      */
     public BlockType[] getNearestLayer(int color) {
-        int[] closest = null;
-        long min = Long.MAX_VALUE;
-        int red1 = (color >> 16) & 0xFF;
-        int green1 = (color >> 8) & 0xFF;
-        int blue1 = (color) & 0xFF;
-        int alpha = (color >> 24) & 0xFF;
-        for (int i = 0; i < validLayerColors.length; i++) {
-            int other = validLayerColors[i];
-            if (((other >> 24) & 0xFF) == alpha) {
-                long distance = colorDistance(red1, green1, blue1, other);
-                if (distance < min) {
-                    min = distance;
-                    closest = validLayerBlocks[i];
-                }
-            }
+        NearestColorIndex index = layerIndex;
+        if (index == null || index.getSource() != validLayerColors) {
+            layerIndex = index = new NearestColorIndex(validLayerColors, validLayerColors, true);
         }
+        int nearest = index.nearest(color, false);
+        int[] closest = nearest == -1 ? null : validLayerBlocks[nearest];
         BlockType[] result = new BlockType[2];
         result[0] = BlockTypesCache.values[closest[0]];
         result[1] = BlockTypesCache.values[closest[1]];
@@ -837,21 +802,14 @@ protected boolean getIsBlockCloserThanBiome(int[] blockAndBiomeIdOutput, int col
     protected int getBiomeMix(int[] biomeIdsOutput, int color) {
         long closest = Long.MAX_VALUE;
         int closestAverage = Integer.MAX_VALUE;
-        long min = Long.MAX_VALUE;
-        int red1 = (color >> 16) & 0xFF;
-        int green1 = (color >> 8) & 0xFF;
-        int blue1 = (color) & 0xFF;
-        int alpha = (color >> 24) & 0xFF;
-        for (int i = 0; i < validMixBiomeColors.length; i++) {
-            int other = validMixBiomeColors[i];
-            if (((other >> 24) & 0xFF) == alpha) {
-                long distance = colorDistance(red1, green1, blue1, other);
-                if (distance < min) {
-                    min = distance;
-                    closest = validMixBiomeIds[i];
-                    closestAverage = other;
-                }
-            }
+        NearestColorIndex index = mixBiomeIndex;
+        if (index == null || index.getSource() != validMixBiomeColors) {
+            mixBiomeIndex = index = new NearestColorIndex(validMixBiomeColors, validMixBiomeColors, true);
+        }
+        int nearest = index.nearest(color, false);
+        if (nearest != -1) {
+            closest = validMixBiomeIds[nearest];
+            closestAverage = validMixBiomeColors[nearest];
         }
         biomeIdsOutput[0] = (int) ((closest) & 0xFF);
         biomeIdsOutput[1] = (int) ((closest >> 8) & 0xFF);
@@ -870,19 +828,25 @@ public BiomeColor getNearestBiome(int color) {
         if (grass == 0) {
             return null;
         }
-        BiomeColor closest = null;
-        long min = Long.MAX_VALUE;
-        int red = (color >> 16) & 0xFF;
-        int green = (color >> 8) & 0xFF;
-        int blue = (color) & 0xFF;
-        for (BiomeColor biome : validBiomes) {
-            long distance = colorDistance(red, green, blue, biome.grassCombined);
-            if (distance < min) {
-                min = distance;
-                closest = biome;
+        BiomeColor[] biomes = validBiomes;
+        NearestColorIndex index = biomeIndex;
+        if (index == null || index.getSource() != biomes) {
+            int[] colors = new int[biomes.length];
+            for (int i = 0; i < biomes.length; i++) {
+                colors[i] = biomes[i].grassCombined;
             }
+            biomeIndex = index = new NearestColorIndex(biomes, colors, false);
+        }
+        int closest = index.nearest(color, false);
+        return closest == -1 ? null : biomes[closest];
+    }
+
+    private NearestColorIndex getBlockIndex() {
+        NearestColorIndex index = blockIndex;
+        if (index == null || index.getSource() != validColors) {
+            blockIndex = index = new NearestColorIndex(validColors, validColors, true);
         }
-        return closest;
+        return index;
     }
 
     protected File getFolder() {
@@ -1085,11 +1049,12 @@ public void loadModTextures() throws IOException {
                                 }
                             }
 
-                            validMixBiomeColors = new int[layerColors.size()];
+                            int[] mixBiomeColors = new int[layerColors.size()];
                             for (int i = 0; i < layerColors.size(); i++) {
-                                validMixBiomeColors[i] = (int) layerColors.getLong(i);
+                                mixBiomeColors[i] = (int) layerColors.getLong(i);
                             }
                             validMixBiomeIds = layerIds.toLongArray();
+                            validMixBiomeColors = mixBiomeColors;
                         }
 
                     }
@@ -1098,18 +1063,21 @@ public void loadModTextures() throws IOException {
                 }
             }
         }
-        // Convert the color map to a simple array
-        validBlockIds = new int[colorMap.size()];
-        validColors = new int[colorMap.size()];
+        // Convert the color map to a simple array. The arrays are only published once filled, as the nearest color indices
+        // tell if they are stale by the identity of the array
+        int[] blockIds = new int[colorMap.size()];
+        int[] colors = new int[colorMap.size()];
         int index = 0;
         for (Int2ObjectMap.Entry<Integer> entry : colorMap.int2ObjectEntrySet()) {
             int combinedId = entry.getIntKey();
             int color = entry.getValue();
             blockColors[combinedId] = color;
-            validBlockIds[index] = combinedId;
-            validColors[index] = color;
+            blockIds[index] = combinedId;
+            colors[index] = color;
             index++;
         }
+        validBlockIds = blockIds;
+        validColors = colors;
         ArrayList<Long> distances = new ArrayList<>(distanceMap.values());
         Collections.sort(distances);
         this.distances = new long[distances.size()];
@@ -1138,13 +1106,15 @@ protected void calculateLayerArrays() {
                 }
             }
         }
-        this.validLayerColors = new int[colorLayerMap.size()];
-        this.validLayerBlocks = new int[colorLayerMap.size()][];
+        int[] layerColors = new int[colorLayerMap.size()];
+        int[][] layerBlocks = new int[colorLayerMap.size()][];
         int index = 0;
         for (Int2ObjectMap.Entry<int[]> entry : colorLayerMap.int2ObjectEntrySet()) {
-            validLayerColors[index] = entry.getIntKey();
-            validLayerBlocks[index++] = entry.getValue();
+            layerColors[index] = entry.getIntKey();
+            layerBlocks[index++] = entry.getValue();
         }
+        this.validLayerBlocks = layerBlocks;
+        this.validLayerColors = layerColors;
     }
 
     protected BlockType getNearestBlock(BlockType block, boolean darker) {
@@ -0,0 +1,77 @@
+package com.fastasyncworldedit.core.util.collection;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Growable FIFO queue of primitive longs backed by a power-of-two ring. Not thread safe.
+ *
+ * @since 2.13.1
+ */
+public class LongRingBuffer {
+
+    private long[] values;
+    private int mask;
+    private int head;
+    private int tail;
+
+    /**
+     * Create a new buffer
+     *
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     */
+    public LongRingBuffer(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, initialCapacity - 1)) << 1;
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void add(long value) {
+        values[tail] = value;
+        tail = (tail + 1) & mask;
+        if (tail == head) {
+            grow();
+        }
+    }
+
+    /**
+     * Remove and return the oldest value
+     *
+     * @throws NoSuchElementException if the buffer is empty
+     */
+    public long poll() {
+        if (head == tail) {
+            throw new NoSuchElementException();
+        }
+        long value = values[head];
+        head = (head + 1) & mask;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int size() {
+        return (tail - head) & mask;
+    }
+
+    /**
+     * Remove all values, keeping the current capacity
+     */
+    public void clear() {
+        head = tail = 0;
+    }
+
+    private void grow() {
+        long[] grown = new long[values.length << 1];
+        // Buffer is full, head == tail
+        int firstPart = values.length - head;
+        System.arraycopy(values, head, grown, 0, firstPart);
+        System.arraycopy(values, 0, grown, firstPart, head);
+        head = 0;
+        tail = values.length;
+        values = grown;
+        mask = grown.length - 1;
+    }
+
+}
@@ -0,0 +1,483 @@
+package com.fastasyncworldedit.core.util.task;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor that keeps a separate queue ("lane") of tasks per key and hands tasks to its worker threads in weighted
+ * round-robin order across lanes. A key may have up to {@code quantum * weight} tasks started in a row before the next
+ * lane is given a turn, so a key submitting a large amount of work cannot starve a key that only submits a little.
+ * <p>
+ * Threads other than the main thread and the workers of this executor that submit to a lane whose backlog is over the help
+ * threshold run one of that lane's queued tasks themselves before returning, i.e. a producer that is outpacing the workers
+ * steals back its own work instead of growing the backlog further. The main thread only ever queues tasks, as tasks may
+ * wait for it.
+ *
+ * @since 2.13.1
+ */
+public class FairQueuedExecutor extends AbstractExecutorService {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final long LANE_EXPIRY_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Key used for tasks submitted without a key
+     */
+    public static final Object DEFAULT_KEY = new Object() {
+        @Override
+        public String toString() {
+            return "default";
+        }
+    };
+
+    private final Map<Object, Lane> lanes = new ConcurrentHashMap<>();
+    private final LinkedBlockingDeque<Lane> ready = new LinkedBlockingDeque<>();
+    private final Thread[] workers;
+    private final int quantum;
+    private final int helpThreshold;
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicInteger alive;
+    private volatile boolean shutdown;
+    private volatile long lastSweep = System.nanoTime();
+
+    private final TaskFailureLogger failureLogger = new TaskFailureLogger(LOGGER);
+
+    /**
+     * Create a new executor and start its worker threads.
+     *
+     * @param name     thread name format, e.g. {@code "FAWE Fair Executor - %d"}
+     * @param nThreads number of worker threads
+     * @param quantum  number of tasks a lane of weight 1 may have started in a row before the next lane is given a turn
+     */
+    public FairQueuedExecutor(String name, int nThreads, int quantum) {
+        nThreads = Math.max(1, nThreads);
+        this.quantum = Math.max(1, quantum);
+        this.helpThreshold = nThreads * 4;
+        this.alive = new AtomicInteger(nThreads);
+        ThreadFactory factory = new ThreadFactoryBuilder().setNameFormat(name).setDaemon(true).build();
+        this.workers = new Thread[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            workers[i] = factory.newThread(this::work);
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Submit a task to the lane of the given key.
+     *
+     * @param key      lane key, compared by {@link Object#equals(Object)}. Null for the default lane.
+     * @param callable task
+     * @param <T>      result type
+     * @return future representing the task
+     */
+    public <T> Future<T> submit(Object key, Callable<T> callable) {
+        LaneTask<T> task = new LaneTask<>(lane(key), callable);
+        enqueue(task);
+        return task;
+    }
+
+    /**
+     * Submit a task to the lane of the given key.
+     *
+     * @param key      lane key, compared by {@link Object#equals(Object)}. Null for the default lane.
+     * @param runnable task
+     * @return future representing the task
+     */
+    public Future<?> submit(Object key, Runnable runnable) {
+        LaneTask<Object> task = new LaneTask<>(lane(key), runnable, null);
+        enqueue(task);
+        return task;
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        submit(DEFAULT_KEY, command);
+    }
+
+    /**
+     * Set the weight of a key's lane. A lane with weight {@code n} may have {@code n} times as many tasks started per turn as a
+     * lane with weight 1. Weights persist only while the lane exists, i.e. until it has been idle for a while.
+     *
+     * @param key    lane key
+     * @param weight weight, at least 1
+     */
+    public void setWeight(Object key, int weight) {
+        lane(key).weight = Math.max(1, weight);
+    }
+
+    /**
+     * Get if there are workers not currently running a task, or if the lane of the given key has fewer tasks waiting than
+     * there are workers. Either implies the key may submit more work without being the cause of a backlog.
+     *
+     * @param key lane key or null for the default lane
+     * @return true if the key may submit more work
+     */
+    public boolean isUnderutilized(Object key) {
+        if (isUnderutilized()) {
+            return true;
+        }
+        Lane lane = lanes.get(key == null ? DEFAULT_KEY : key);
+        return lane == null || lane.depth.get() < workers.length;
+    }
+
+    /**
+     * Get if there are workers not currently running a task.
+     *
+     * @return true if there are idle workers
+     */
+    public boolean isUnderutilized() {
+        return running.get() < workers.length;
+    }
+
+    /**
+     * Get the number of worker threads
+     */
+    public int getParallelism() {
+        return workers.length;
+    }
+
+    /**
+     * Get the number of tasks currently being run
+     */
+    public int getActiveCount() {
+        return running.get();
+    }
+
+    /**
+     * Get the number of tasks completed since this executor was created
+     *
+     * @since 2.13.1
+     */
+    public long getCompletedCount() {
+        return completedTasks.sum();
+    }
+
+    /**
+     * Get the total time completed tasks took from being submitted to completing, in nanoseconds
+     *
+     * @since 2.13.1
+     */
+    public long getTotalLatencyNanos() {
+        return latencyNanos.sum();
+    }
+
+    /**
+     * Get the statistics of the lane of the given key.
+     *
+     * @param key lane key or null for the default lane
+     * @return statistics or null if the key has no lane
+     */
+    public LaneStats getStats(Object key) {
+        Lane lane = lanes.get(key == null ? DEFAULT_KEY : key);
+        return lane == null ? null : lane.stats();
+    }
+
+    /**
+     * Get the statistics of every current lane.
+     */
+    public List<LaneStats> getStats() {
+        List<LaneStats> result = new ArrayList<>(lanes.size());
+        for (Lane lane : lanes.values()) {
+            result.add(lane.stats());
+        }
+        return result;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Nonnull
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> remaining = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            Runnable task;
+            while ((task = lane.tasks.poll()) != null) {
+                lane.depth.decrementAndGet();
+                remaining.add(task);
+            }
+        }
+        ready.clear();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        return remaining;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && alive.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread worker : workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return isTerminated();
+            }
+            TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+        }
+        return isTerminated();
+    }
+
+    private Lane lane(Object key) {
+        if (key == null) {
+            key = DEFAULT_KEY;
+        }
+        Lane lane = lanes.get(key);
+        if (lane == null) {
+            sweep();
+            lane = lanes.computeIfAbsent(key, Lane::new);
+        }
+        return lane;
+    }
+
+    /**
+     * Remove lanes that have been empty for a while so keys do not accumulate. A task submitted to a lane concurrently with its
+     * removal is still run, only its statistics are lost.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_INTERVAL_NANOS) {
+            return;
+        }
+        lastSweep = now;
+        lanes.values().removeIf(lane -> lane.key != DEFAULT_KEY && lane.depth.get() == 0
+                && !lane.scheduled.get() && now - lane.lastSubmit > LANE_EXPIRY_NANOS);
+    }
+
+    private void enqueue(LaneTask<?> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        Lane lane = task.lane;
+        lane.lastSubmit = task.enqueued;
+        lane.submitted.increment();
+        int depth = lane.depth.incrementAndGet();
+        lane.tasks.add(task);
+        lane.schedule();
+        // The main thread never helps: a chunk task may wait for the main thread, and would stall the tick regardless
+        if (depth > helpThreshold && !isWorker(Thread.currentThread()) && !Fawe.isMainThread()) {
+            LaneTask<?> own = lane.tasks.poll();
+            if (own != null) {
+                own.run();
+            }
+        }
+    }
+
+    private boolean isWorker(Thread thread) {
+        for (Thread worker : workers) {
+            if (worker == thread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Lane lane;
+                try {
+                    lane = ready.pollFirst(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    if (shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+                if (lane == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+                LaneTask<?> task = lane.tasks.poll();
+                if (task == null) {
+                    lane.scheduled.set(false);
+                    // A task may have been added between the poll and clearing the flag
+                    if (!lane.tasks.isEmpty()) {
+                        lane.schedule();
+                    }
+                    continue;
+                }
+                // Hand the lane on before running the task so other workers can keep draining it (if it still has credit) or
+                // move on to the next lane
+                if (lane.credit.decrementAndGet() > 0) {
+                    ready.offerFirst(lane);
+                } else {
+                    lane.credit.set(quantum * lane.weight);
+                    ready.offerLast(lane);
+                }
+                task.run();
+            }
+        } finally {
+            alive.decrementAndGet();
+        }
+    }
+
+    private void report(Future<?> future) {
+        Throwable throwable;
+        try {
+            future.get();
+            return;
+        } catch (CancellationException e) {
+            throwable = e;
+        } catch (ExecutionException e) {
+            throwable = e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        failureLogger.log(throwable);
+    }
+
+    /**
+     * Snapshot of the statistics of a lane.
+     *
+     * @param key            lane key
+     * @param weight         lane weight
+     * @param depth          number of tasks waiting to be started
+     * @param submitted      total number of tasks submitted
+     * @param started        total number of tasks started
+     * @param completed      total number of tasks completed
+     * @param totalWaitNanos total time tasks waited between submission and being started
+     * @param maxWaitNanos   longest time a task waited between submission and being started
+     * @since 2.13.1
+     */
+    public record LaneStats(Object key, int weight, int depth, long submitted, long started, long completed,
+                            long totalWaitNanos, long maxWaitNanos) {
+
+        /**
+         * Get the mean time tasks waited between submission and being started in milliseconds
+         */
+        public double averageWaitMillis() {
+            return started == 0 ? 0 : totalWaitNanos / 1e6 / started;
+        }
+
+    }
+
+    private final class Lane {
+
+        private final Object key;
+        private final ConcurrentLinkedQueue<LaneTask<?>> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        // If the lane is currently in the ready deque (or held by a worker about to re-add it)
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder started = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private volatile int weight = 1;
+        private volatile long lastSubmit = System.nanoTime();
+        // Tasks the lane may still have started this turn. Atomic as a worker may poll the lane again as soon as it has been
+        // re-offered, i.e. while the previous worker is still running its task
+        private final AtomicInteger credit = new AtomicInteger(quantum);
+
+        private Lane(Object key) {
+            this.key = key;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                ready.offerLast(this);
+            }
+        }
+
+        private LaneStats stats() {
+            return new LaneStats(key, weight, depth.get(), submitted.sum(), started.sum(), completed.sum(),
+                    waitNanos.sum(),
+                    maxWaitNanos.get()
+            );
+        }
+
+    }
+
+    private final class LaneTask<T> extends FutureTask<T> {
+
+        private final Lane lane;
+        private final long enqueued = System.nanoTime();
+
+        private LaneTask(Lane lane, Callable<T> callable) {
+            super(callable);
+            this.lane = lane;
+        }
+
+        private LaneTask(Lane lane, Runnable runnable, T result) {
+            super(runnable, result);
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            long wait = System.nanoTime() - enqueued;
+            lane.depth.decrementAndGet();
+            lane.started.increment();
+            lane.waitNanos.add(wait);
+            lane.maxWaitNanos.accumulate(wait);
+            running.incrementAndGet();
+            try {
+                super.run();
+            } finally {
+                running.decrementAndGet();
+                latencyNanos.add(System.nanoTime() - enqueued);
+                completedTasks.increment();
+            }
+            report(this);
+        }
+
+        // Count completion before waiters are released so the statistics are consistent with the future
+        @Override
+        protected void set(T value) {
+            lane.completed.increment();
+            super.set(value);
+        }
+
+        @Override
+        protected void setException(Throwable throwable) {
+            lane.completed.increment();
+            super.setException(throwable);
+        }
+
+    }
+
+}
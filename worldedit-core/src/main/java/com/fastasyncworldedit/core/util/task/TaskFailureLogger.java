@@ -0,0 +1,63 @@
+package com.fastasyncworldedit.core.util.task;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.internal.exception.FaweException;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Logs the exceptions tasks of an executor failed with, without flooding the log when many tasks fail alike. An exception is
+ * logged in full when its message differs from the last one, and only its message otherwise, up to once per parallel
+ * thread in a row. Each type of {@link FaweException} other than {@link FaweException.Type#OTHER} is only logged once.
+ *
+ * @since 2.13.1
+ */
+public class TaskFailureLogger {
+
+    private final Logger logger;
+    private final boolean[] faweExceptionReasonsUsed = new boolean[FaweException.Type.values().length];
+    private int lastException = Integer.MIN_VALUE;
+    private int count = 0;
+
+    /**
+     * New instance.
+     *
+     * @param logger the logger to log to
+     */
+    public TaskFailureLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Log the exception a task failed with.
+     *
+     * @param throwable the exception
+     */
+    public synchronized void log(Throwable throwable) {
+        if (throwable instanceof FaweException) {
+            handleFaweException((FaweException) throwable);
+        } else if (throwable.getCause() instanceof FaweException) {
+            handleFaweException((FaweException) throwable.getCause());
+        } else {
+            int hash = throwable.getMessage() != null ? throwable.getMessage().hashCode() : 0;
+            if (hash != lastException) {
+                lastException = hash;
+                logger.catching(throwable);
+                count = 0;
+            } else if (count < Settings.settings().QUEUE.PARALLEL_THREADS) {
+                logger.warn(throwable.getMessage());
+                count++;
+            }
+        }
+    }
+
+    private void handleFaweException(FaweException e) {
+        FaweException.Type type = e.getType();
+        if (type == FaweException.Type.OTHER) {
+            logger.catching(e);
+        } else if (!faweExceptionReasonsUsed[type.ordinal()]) {
+            faweExceptionReasonsUsed[type.ordinal()] = true;
+            logger.warn("FaweException: " + e.getMessage());
+        }
+    }
+
+}
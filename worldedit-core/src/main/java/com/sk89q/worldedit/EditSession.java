@@ -464,7 +464,7 @@ public void setRawChangeSet(@Nullable AbstractChangeSet set) {
      */
     @Deprecated
     public long getBlockChangeLimit() {
-        return originalLimit.MAX_CHANGES.get();
+        return originalLimit.getMaxChanges();
     }
 
     /**
@@ -473,7 +473,7 @@ public long getBlockChangeLimit() {
      * @param limit the limit (&gt;= 0) or -1 for no limit
      */
     public void setBlockChangeLimit(long limit) {
-        this.limit.MAX_CHANGES.set(limit);
+        this.limit.setMaxChanges(limit);
     }
 
     /**
@@ -924,14 +924,9 @@ public boolean setBiome(int x, int y, int z, BiomeType biome) {
      * @return height of highest block found or 'minY'
      */
     public int getHighestTerrainBlock(int x, int z, int minY, int maxY) {
-        //FAWE start - check movement blocker
-        for (int y = maxY; y >= minY; --y) {
-            if (getBlock(x, y, z).getBlockType().getMaterial().isMovementBlocker()) {
-                return y;
-            }
-            //FAWE end
-        }
-        return minY;
+        //FAWE start - let the extent answer, e.g. a queue from the heights cached for each chunk
+        return getExtent().getHighestTerrainBlock(x, z, minY, maxY);
+        //FAWE end
     }
 
     /**
@@ -1160,9 +1155,29 @@ public void undo(EditSession editSession) {
 
     //FAWE start
     public void setBlocks(ChangeSet changeSet, ChangeSetExecutor.Type type) {
+        setBlocks(changeSet, type, null);
+    }
+
+    /**
+     * Apply the changes of a change set, only reading block changes that may be within the given regions, see
+     * {@link ChangeSetExecutor#create(ChangeSet, UndoContext, ChangeSetExecutor.Type, BlockBag, int, Region[])}.
+     *
+     * @param changeSet the change set
+     * @param type      undo or redo
+     * @param regions   the regions to read block changes within, or null to read all changes
+     * @since 2.13.1
+     */
+    public void setBlocks(ChangeSet changeSet, ChangeSetExecutor.Type type, @Nullable Region[] regions) {
         final UndoContext context = new UndoContext();
         context.setExtent(bypassAll);
-        Operations.completeBlindly(ChangeSetExecutor.create(changeSet, context, type, getBlockBag(), getLimit().INVENTORY_MODE));
+        Operations.completeBlindly(ChangeSetExecutor.create(
+                changeSet,
+                context,
+                type,
+                getBlockBag(),
+                getLimit().INVENTORY_MODE,
+                regions
+        ));
         flushQueue();
         changes = 1;
     }
@@ -1286,7 +1301,7 @@ public void flushQueue() {
         // Check fails
         FaweLimit used = getLimitUsed();
         if (used.MAX_FAILS.get() > 0) {
-            if (used.MAX_CHANGES.get() > 0 || used.MAX_ENTITIES.get() > 0) {
+            if (used.getMaxChanges() > 0 || used.MAX_ENTITIES.get() > 0) {
                 actor.print(Caption.of("fawe.error.worldedit.some.fails", used.MAX_FAILS));
             } else if (new ExtentTraverser<>(getExtent()).findAndGet(FaweRegionExtent.class) != null) {
                 actor.print(Caption.of("fawe.cancel.reason.outside.region"));
@@ -496,8 +496,14 @@ public EditSessionBuilder compile() {
                     );
                     queue = parallel.getExtent();
                     extent = parallel;
+                    if (actor != null) {
+                        parallel.setOwner(actor.getUniqueId());
+                    }
                 } else {
                     extent = queue = Fawe.instance().getQueueHandler().getQueue(world);
+                    if (actor != null) {
+                        queue.setOwner(actor.getUniqueId());
+                    }
                 }
                 queue.setSideEffectSet(sideEffectSet);
             } else {
@@ -155,7 +155,7 @@ public void copy(
                 ((long) max.x() - (long) min.x() + 1) * ((long) max.y() - (long) min.y() + 1) * ((long) max.z() - (long) min
                         .z() + 1);
         FaweLimit limit = actor.getLimit();
-        if (volume >= limit.MAX_CHECKS.get()) {
+        if (volume >= limit.getMaxChecks()) {
             throw FaweCache.MAX_CHECKS;
         }
         session.setClipboard(null);
@@ -189,7 +189,7 @@ public void lazyCopy(
         long volume = (((long) max.x() - (long) min.x() + 1) * ((long) max.y() - (long) min.y() + 1) * ((long) max.z() - (long) min
                 .z() + 1));
         FaweLimit limit = actor.getLimit();
-        if (volume >= limit.MAX_CHECKS.get()) {
+        if (volume >= limit.getMaxChecks()) {
             throw FaweCache.MAX_CHECKS;
         }
         session.setClipboard(null);
@@ -262,10 +262,10 @@ public void cut(
         long volume = (((long) max.x() - (long) min.x() + 1) * ((long) max.y() - (long) min.y() + 1) * ((long) max.z() - (long) min
                 .z() + 1));
         FaweLimit limit = actor.getLimit();
-        if (volume >= limit.MAX_CHECKS.get()) {
+        if (volume >= limit.getMaxChecks()) {
             throw FaweCache.MAX_CHECKS;
         }
-        if (volume >= limit.MAX_CHANGES.get()) {
+        if (volume >= limit.getMaxChanges()) {
             throw FaweCache.MAX_CHANGES;
         }
         session.setClipboard(null);
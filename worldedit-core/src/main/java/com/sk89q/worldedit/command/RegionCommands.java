@@ -463,7 +463,7 @@ public int smooth(
         long volume = (((long) max.x() - (long) min.x() + 1) * ((long) max.y() - (long) min.y() + 1) * ((long) max.z() - (long) min
                 .z() + 1));
         FaweLimit limit = actor.getLimit();
-        if (volume >= limit.MAX_CHECKS.get()) {
+        if (volume >= limit.getMaxChecks()) {
             throw FaweCache.MAX_CHECKS;
         }
         int affected;
@@ -27,7 +27,7 @@
 import com.fastasyncworldedit.core.command.tool.scroll.ScrollTool;
 import com.fastasyncworldedit.core.configuration.Caption;
 import com.fastasyncworldedit.core.extent.ResettableExtent;
-import com.fastasyncworldedit.core.function.mask.MaskedTargetBlock;
+import com.fastasyncworldedit.core.function.mask.MaskedRayTrace;
 import com.fastasyncworldedit.core.function.pattern.PatternTraverser;
 import com.fastasyncworldedit.core.util.BrushCache;
 import com.fastasyncworldedit.core.util.MaskTraverser;
@@ -414,8 +414,8 @@ private Vector3 offset(Vector3 target, Vector3 playerPos) {
     private Vector3 trace(EditSession editSession, Player player, int range, boolean useLastBlock) {
         Mask mask = traceMask == null ? new SolidBlockMask(editSession) : traceMask;
         new MaskTraverser(mask).reset(editSession);
-        MaskedTargetBlock tb = new MaskedTargetBlock(mask, player, range, 0.2);
-        return tb.getMaskedTargetBlock(useLastBlock);
+        BlockVector3 target = new MaskedRayTrace(mask, editSession).trace(player.getLocation(), range, useLastBlock);
+        return target == null ? null : target.toVector3();
     }
 
     public boolean act(BrushAction action, Player player, LocalSession session) {
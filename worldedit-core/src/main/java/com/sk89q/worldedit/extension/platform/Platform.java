@@ -39,6 +39,7 @@
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -289,5 +290,14 @@ default IBatchProcessor getPlatformPostProcessor(boolean fastMode) {
     default PlacementStateProcessor getPlatformPlacementProcessor(Extent extent, BlockTypeMask mask, @Nullable Region region) {
         return null;
     }
+
+    /**
+     * Get the folder world folders are stored in. Defaults to the working directory of the server.
+     *
+     * @since 2.13.1
+     */
+    default Path getWorldContainer() {
+        return Path.of("").toAbsolutePath();
+    }
     //FAWE end
 }
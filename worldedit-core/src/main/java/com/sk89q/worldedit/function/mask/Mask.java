@@ -30,6 +30,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -80,7 +81,7 @@ default <T extends Filter> MaskFilter<T> toFilter(T filter) {
             }
             if (vectorizedFilter != null) {
                 // also pass original?
-                return new MaskFilter.VectorizedMaskFilter(vectorizedFilter, this);
+                return new MaskFilter.VectorizedMaskFilter(vectorizedFilter, this, new AtomicInteger(), mask);
             }
         }
         return new MaskFilter<>(filter, this);
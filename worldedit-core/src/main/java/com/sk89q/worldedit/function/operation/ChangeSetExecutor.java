@@ -22,11 +22,15 @@
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.history.changeset.AbstractChangeSet;
 import com.fastasyncworldedit.core.history.changeset.ChangeExchangeCoordinator;
+import com.fastasyncworldedit.core.history.changeset.FaweStreamChangeSet;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.history.UndoContext;
 import com.sk89q.worldedit.history.change.Change;
 import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.regions.Region;
+
+import javax.annotation.Nullable;
 
 import java.util.Iterator;
 
@@ -59,6 +63,11 @@ public void perform(Change change, UndoContext context) {
 
     private final Iterator<Change> iterator;
     private final ChangeExchangeCoordinator changeExchangeCoordinator;
+    //FAWE start - block changes applied by chunk section
+    private final FaweStreamChangeSet sectionChangeSet;
+    @Nullable
+    private final Region[] regions;
+    //FAWE end
     private final Type type;
     private final UndoContext context;
 
@@ -70,14 +79,46 @@ public void perform(Change change, UndoContext context) {
      * @param context   the undo context
      */
     //FAWE start - BlockBag & inventory
-    private ChangeSetExecutor(ChangeSet changeSet, Type type, UndoContext context, BlockBag blockBag, int inventory) {
+    private ChangeSetExecutor(
+            ChangeSet changeSet,
+            Type type,
+            UndoContext context,
+            BlockBag blockBag,
+            int inventory,
+            @Nullable Region[] regions
+    ) {
         checkNotNull(changeSet);
         checkNotNull(type);
         checkNotNull(context);
 
         this.type = type;
         this.context = context;
-        if (changeSet instanceof AbstractChangeSet abstractChangeSet) {
+        this.regions = regions;
+        if (changeSet instanceof FaweStreamChangeSet streamChangeSet
+                && Settings.settings().EXPERIMENTAL.UNDO_BY_SECTION
+                && (blockBag == null || inventory == 0)
+                && FaweStreamChangeSet.canApplyBlockChanges(context.getExtent())) {
+            // Blocks are applied separately, the iterator only covers tiles, entities and biomes
+            this.sectionChangeSet = streamChangeSet;
+            this.iterator = streamChangeSet.getIterator(type == Type.REDO, false, regions);
+            this.changeExchangeCoordinator = null;
+            return;
+        }
+        this.sectionChangeSet = null;
+        if (changeSet instanceof FaweStreamChangeSet streamChangeSet) {
+            if (Settings.settings().EXPERIMENTAL.UNDO_BATCH_SIZE > 0) {
+                this.changeExchangeCoordinator = streamChangeSet.getCoordinatedChanges(
+                        blockBag,
+                        inventory,
+                        type == Type.REDO,
+                        regions
+                );
+                this.iterator = null;
+            } else {
+                this.iterator = streamChangeSet.getIterator(blockBag, inventory, type == Type.REDO, regions);
+                this.changeExchangeCoordinator = null;
+            }
+        } else if (changeSet instanceof AbstractChangeSet abstractChangeSet) {
             if (Settings.settings().EXPERIMENTAL.UNDO_BATCH_SIZE > 0) {
                 this.changeExchangeCoordinator = abstractChangeSet.getCoordinatedChanges(blockBag, inventory, type == Type.REDO);
                 this.iterator = null;
@@ -97,6 +138,11 @@ private ChangeSetExecutor(ChangeSet changeSet, Type type, UndoContext context, B
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
+        // FAWE start - block changes by chunk section
+        if (this.sectionChangeSet != null) {
+            this.sectionChangeSet.applyBlockChanges(context.getExtent(), type == Type.REDO, regions);
+        }
+        // FAWE end
         // FAWE start - ChangeExchangeCoordinator
         if (this.changeExchangeCoordinator != null) {
             try (this.changeExchangeCoordinator) {
@@ -134,7 +180,31 @@ public static ChangeSetExecutor create(
             BlockBag blockBag,
             int inventory
     ) {
-        return new ChangeSetExecutor(changeSet, type, context, blockBag, inventory);
+        return new ChangeSetExecutor(changeSet, type, context, blockBag, inventory, null);
+    }
+
+    /**
+     * Create a new undo or redo operation, only reading block changes of a {@link FaweStreamChangeSet} that may be within the
+     * given regions. Changes outside the regions may still be read, so the extent of the context must filter them.
+     *
+     * @param changeSet the change set
+     * @param context   an undo context
+     * @param type      type of change
+     * @param blockBag  the block bag, or null
+     * @param inventory the inventory mode
+     * @param regions   the regions to read block changes within, or null to read all changes
+     * @return an operation
+     * @since 2.13.1
+     */
+    public static ChangeSetExecutor create(
+            ChangeSet changeSet,
+            UndoContext context,
+            Type type,
+            BlockBag blockBag,
+            int inventory,
+            @Nullable Region[] regions
+    ) {
+        return new ChangeSetExecutor(changeSet, type, context, blockBag, inventory, regions);
     }
     //FAWE end
 
@@ -146,7 +216,7 @@ public static ChangeSetExecutor create(
      * @return an operation
      */
     public static ChangeSetExecutor createUndo(ChangeSet changeSet, UndoContext context) {
-        return new ChangeSetExecutor(changeSet, Type.UNDO, context, null, 0);
+        return new ChangeSetExecutor(changeSet, Type.UNDO, context, null, 0, null);
     }
 
     /**
@@ -157,7 +227,7 @@ public static ChangeSetExecutor createUndo(ChangeSet changeSet, UndoContext cont
      * @return an operation
      */
     public static ChangeSetExecutor createRedo(ChangeSet changeSet, UndoContext context) {
-        return new ChangeSetExecutor(changeSet, Type.REDO, context, null, 0);
+        return new ChangeSetExecutor(changeSet, Type.REDO, context, null, 0, null);
     }
 
 }
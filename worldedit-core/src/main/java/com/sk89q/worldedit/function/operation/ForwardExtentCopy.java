@@ -24,7 +24,11 @@
 import com.fastasyncworldedit.core.extent.BlockTranslateExtent;
 import com.fastasyncworldedit.core.extent.OncePerChunkExtent;
 import com.fastasyncworldedit.core.extent.PositionTransformExtent;
+import com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.WorldCopyClipboard;
+import com.fastasyncworldedit.core.extent.filter.ExtentCopyFilter;
 import com.fastasyncworldedit.core.extent.processor.ExtentBatchProcessorHolder;
 import com.fastasyncworldedit.core.function.RegionMaskTestFunction;
 import com.fastasyncworldedit.core.function.block.BiomeCopy;
@@ -41,11 +45,13 @@
 import com.fastasyncworldedit.core.util.ProcessorTraverser;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.entity.metadata.EntityProperties;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.function.CombinedRegionFunction;
 import com.sk89q.worldedit.function.RegionFunction;
@@ -364,7 +370,15 @@ public Operation resume(RunContext run) throws WorldEditException {
             }
         }
 
-        if (blockCopy == null) {
+        // In-memory and disk clipboards may be read by multiple threads, so a plain paste that does not read back what it pastes
+        // can copy each destination chunk on its own worker
+        ExtentCopyFilter chunkCopy = null;
+        if (blockCopy == null && transExt == null && repetitions == 1 && sourceFunction == null && filterFunction == null
+                && isConcurrentReadable(source) && !overlaps(region, translation)
+                && new ExtentTraverser<>(destination).find(ParallelQueueExtent.class) != null) {
+            Mask mask = sourceMask == Masks.alwaysTrue() ? null : sourceMask;
+            chunkCopy = new ExtentCopyFilter(source, translation, mask, copyingBiomes && region instanceof FlatRegion);
+        } else if (blockCopy == null) {
             RegionFunction maskFunc = null;
 
             if (sourceFunction != null) {
@@ -429,7 +443,17 @@ public Operation resume(RunContext run) throws WorldEditException {
         Collection<Entity> entities = copyingEntities ? getEntities(source, region) : Collections.emptySet();
 
         for (int i = 0; i < repetitions; i++) {
-            Operations.completeBlindly(blockCopy);
+            if (chunkCopy != null) {
+                Region destinationRegion = region.clone();
+                destinationRegion.shift(translation);
+                destination.apply(destinationRegion, chunkCopy, true);
+                if (destination instanceof EditSession editSession) {
+                    editSession.setSize(editSession.getBlockChangeCount() + chunkCopy.getCopied()
+                            + chunkCopy.getBiomesCopied());
+                }
+            } else {
+                Operations.completeBlindly(blockCopy);
+            }
 
             if (!entities.isEmpty()) {
                 ExtentEntityCopy entityCopy = new ExtentEntityCopy(
@@ -456,7 +480,7 @@ public Operation resume(RunContext run) throws WorldEditException {
             }
 
         }
-        affectedBlocks += blockCopy.getAffected();
+        affectedBlocks += chunkCopy != null ? chunkCopy.getAffected() : blockCopy.getAffected();
         if (copyingBiomes) {
             // We know biomes will have happened unless something else has gone wrong. Just calculate it.
             affectedBiomeCols += source.fullySupports3DBiomes() ? (getAffected() >> 2) : (region.getWidth() * region.getLength());
@@ -465,6 +489,32 @@ public Operation resume(RunContext run) throws WorldEditException {
         return null;
     }
 
+    //FAWE start
+    /**
+     * Whether the source is a clipboard holding its own blocks that may be read by multiple threads. Clipboards reading another
+     * extent, such as {@link WorldCopyClipboard}, may read blocks already pasted by another worker.
+     */
+    private static boolean isConcurrentReadable(Extent source) {
+        Extent clipboard = source instanceof BlockArrayClipboard blockArray ? blockArray.getParent() : source;
+        if (clipboard instanceof CPUOptimizedClipboard cpu) {
+            // Tiles are moved to their index lazily on first read, do so before workers read them
+            cpu.convertTilesToIndex();
+            return true;
+        }
+        return clipboard instanceof MemoryOptimizedClipboard || clipboard instanceof DiskOptimizedClipboard;
+    }
+
+    private static boolean overlaps(Region region, BlockVector3 translation) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        BlockVector3 toMin = min.add(translation);
+        BlockVector3 toMax = max.add(translation);
+        return min.x() <= toMax.x() && toMin.x() <= max.x()
+                && min.y() <= toMax.y() && toMin.y() <= max.y()
+                && min.z() <= toMax.z() && toMin.z() <= max.z();
+    }
+    //FAWE end
+
     /**
      * If setting enabled, Creates a new OncePerChunkExtent instance to retain a list of entities for the given source extent,
      * then add it to the source extent. If setting is not set simply returns the entities from {@link Extent#getEntities()} Accepts an
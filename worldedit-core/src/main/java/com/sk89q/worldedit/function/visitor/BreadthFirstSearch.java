@@ -19,13 +19,17 @@
 
 package com.sk89q.worldedit.function.visitor;
 
+import com.fastasyncworldedit.core.Fawe;
 import com.fastasyncworldedit.core.configuration.Caption;
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.math.BlockVectorSet;
 import com.fastasyncworldedit.core.math.MutableBlockVector3;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
 import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
 import com.fastasyncworldedit.core.queue.implementation.SingleThreadQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder;
 import com.fastasyncworldedit.core.util.ExtentTraverser;
+import com.fastasyncworldedit.core.util.MathMan;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.sk89q.worldedit.WorldEdit;
@@ -39,12 +43,22 @@
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -278,6 +292,39 @@ public void setMaxBranch(int maxBranch) {
      */
     protected abstract boolean isVisitable(BlockVector3 from, BlockVector3 to);
 
+    //FAWE start - concurrent visits
+
+    /**
+     * Whether {@link #isVisitable(BlockVector3, BlockVector3)} may be called from several threads at once. Each thread calls
+     * {@link #enterConcurrentVisits()} before its first test and {@link #exitConcurrentVisits()} after its last. Large layers
+     * of such a search are tested in parallel, see {@link Settings.QUEUE#RECURSIVE_PARALLEL_THRESHOLD}. The function is
+     * always applied on the thread running the search, in the same order as a sequential search.
+     *
+     * @return true if positions may be tested concurrently
+     * @since 2.13.1
+     */
+    protected boolean isConcurrentVisitable() {
+        return false;
+    }
+
+    /**
+     * Prepare the calling thread to test positions concurrently with other threads, e.g. by creating thread-confined copies
+     * of masks.
+     *
+     * @since 2.13.1
+     */
+    protected void enterConcurrentVisits() {
+    }
+
+    /**
+     * Release anything created for the calling thread by {@link #enterConcurrentVisits()}.
+     *
+     * @since 2.13.1
+     */
+    protected void exitConcurrentVisits() {
+    }
+    //FAWE end
+
     /**
      * Get the number of affected objects.
      *
@@ -323,26 +370,10 @@ public Operation resume(RunContext run) throws WorldEditException {
                     singleQueue.addChunkLoad(chunk.x(), chunk.z());
                 }
             }
-            for (BlockVector3 from : queue) {
-                if (function.apply(from)) {
-                    affected++;
-                }
-                for (int i = 0, j = 0; i < dirs.length && j < maxBranch; i++) {
-                    BlockVector3 direction = dirs[i];
-                    int y = from.y() + direction.y();
-                    if (y < minY || y > maxY) {
-                        continue;
-                    }
-                    int x = from.x() + direction.x();
-                    int z = from.z() + direction.z();
-                    if (!visited.contains(x, y, z)) {
-                        if (isVisitable(from, mutable.setComponents(x, y, z))) {
-                            j++;
-                            visited.add(x, y, z);
-                            tempQueue.add(x, y, z);
-                        }
-                    }
-                }
+            if (shouldVisitConcurrently(dirs)) {
+                visitLayerConcurrently(dirs, tempQueue);
+            } else {
+                visitLayer(dirs, mutable, tempQueue);
             }
             if (currentDepth == maxDepth) {
                 break;
@@ -357,6 +388,213 @@ public Operation resume(RunContext run) throws WorldEditException {
         return null;
     }
 
+    //FAWE start
+    private void visitLayer(BlockVector3[] dirs, MutableBlockVector3 mutable, BlockVectorSet tempQueue) throws WorldEditException {
+        for (BlockVector3 from : queue) {
+            if (function.apply(from)) {
+                affected++;
+            }
+            for (int i = 0, j = 0; i < dirs.length && j < maxBranch; i++) {
+                BlockVector3 direction = dirs[i];
+                int y = from.y() + direction.y();
+                if (y < minY || y > maxY) {
+                    continue;
+                }
+                int x = from.x() + direction.x();
+                int z = from.z() + direction.z();
+                if (!visited.contains(x, y, z)) {
+                    if (isVisitable(from, mutable.setComponents(x, y, z))) {
+                        j++;
+                        visited.add(x, y, z);
+                        tempQueue.add(x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean shouldVisitConcurrently(BlockVector3[] dirs) {
+        int threshold = Settings.settings().QUEUE.RECURSIVE_PARALLEL_THRESHOLD;
+        return threshold >= 0 && dirs.length <= Integer.SIZE && Settings.settings().QUEUE.PARALLEL_THREADS > 1
+                && isConcurrentVisitable() && queue.size() >= threshold && getConcurrentVisitPool() != null;
+    }
+
+    /**
+     * Get the pool large layers are tested on, or null if layers may not be tested concurrently.
+     */
+    @VisibleForTesting
+    ExecutorService getConcurrentVisitPool() {
+        Fawe fawe = Fawe.instance();
+        return fawe != null ? fawe.getQueueHandler().getForkJoinPoolPrimary() : null;
+    }
+
+    /**
+     * Create the chunks the workers of a layer may read, and their existing (get) parts, on this thread. Together with the
+     * queue being disabled this means workers only ever look up chunks, and no chunk is submitted while it is being read.
+     * Neighbouring chunks are included so masks reading adjacent blocks do not create chunks concurrently either.
+     */
+    private void prepareLayerChunks(LongSet layerChunks) {
+        LongOpenHashSet prepared = new LongOpenHashSet(layerChunks.size() * 2);
+        LongIterator iterator = layerChunks.iterator();
+        while (iterator.hasNext()) {
+            long pair = iterator.nextLong();
+            int chunkX = MathMan.unpairIntX(pair);
+            int chunkZ = MathMan.unpairIntY(pair);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if (prepared.add(MathMan.pairInt(chunkX + dx, chunkZ + dz))) {
+                        IQueueChunk<?> chunk = singleQueue.getOrCreateChunk(chunkX + dx, chunkZ + dz);
+                        if (chunk instanceof ChunkHolder<?> holder) {
+                            holder.getOrCreateGet();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the neighbours of the current layer on multiple threads, partitioned by chunk, against the visited set as it was at
+     * the start of the layer. The function is then applied and visitable neighbours claimed on this thread, in the order a
+     * sequential search would, so maxBranch is honoured and the result does not depend on thread timing.
+     * <p>
+     * The queue is disabled while the layer is tested, as NMSRelighter does, so that no chunk is submitted or evicted while
+     * workers read through it.
+     */
+    private void visitLayerConcurrently(BlockVector3[] dirs, BlockVectorSet tempQueue) throws WorldEditException {
+        int size = queue.size();
+        long[] layer = new long[size];
+        Long2ObjectOpenHashMap<IntArrayList> chunks = new Long2ObjectOpenHashMap<>();
+        int count = 0;
+        for (BlockVector3 from : queue) {
+            layer[count] = MathMan.tripleWorldCoord(from.x(), from.y(), from.z());
+            chunks.computeIfAbsent(MathMan.pairInt(from.x() >> 4, from.z() >> 4), k -> new IntArrayList()).add(count);
+            count++;
+        }
+        List<IntArrayList> groups = new ArrayList<>(chunks.values());
+        // Bit i is set if the neighbour in dirs[i] was unvisited and visitable
+        int[] visitable = new int[size];
+        boolean queueEnabled = singleQueue != null && singleQueue.isQueueEnabled();
+        if (queueEnabled) {
+            singleQueue.disableQueue();
+        }
+        try {
+            if (singleQueue != null) {
+                prepareLayerChunks(chunks.keySet());
+            }
+            testLayer(dirs, layer, groups, visitable);
+        } finally {
+            if (queueEnabled) {
+                singleQueue.enableQueue();
+            }
+        }
+
+        MutableBlockVector3 from = new MutableBlockVector3();
+        for (int index = 0; index < size; index++) {
+            long triple = layer[index];
+            from.setComponents(
+                    (int) MathMan.untripleWorldCoordX(triple),
+                    (int) MathMan.untripleWorldCoordY(triple),
+                    (int) MathMan.untripleWorldCoordZ(triple)
+            );
+            if (function.apply(from)) {
+                affected++;
+            }
+            int bits = visitable[index];
+            for (int j = 0; bits != 0 && j < maxBranch; bits &= bits - 1) {
+                BlockVector3 direction = dirs[Integer.numberOfTrailingZeros(bits)];
+                int x = from.x() + direction.x();
+                int y = from.y() + direction.y();
+                int z = from.z() + direction.z();
+                if (visited.add(x, y, z)) {
+                    j++;
+                    tempQueue.add(x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the bits of {@code visitable} for each position of the layer, testing groups of positions on the pool. Returns only
+     * once every worker has finished, also if one of them failed, so no worker reads once the queue is enabled again.
+     */
+    private void testLayer(BlockVector3[] dirs, long[] layer, List<IntArrayList> groups, int[] visitable) {
+        ExecutorService pool = getConcurrentVisitPool();
+        int tasks = Math.min(Settings.settings().QUEUE.PARALLEL_THREADS, groups.size());
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        AtomicInteger nextGroup = new AtomicInteger();
+        for (int t = 0; t < tasks; t++) {
+            futures.add(pool.submit(() -> {
+                enterConcurrentVisits();
+                try {
+                    MutableBlockVector3 from = new MutableBlockVector3();
+                    MutableBlockVector3 to = new MutableBlockVector3();
+                    int groupIndex;
+                    while ((groupIndex = nextGroup.getAndIncrement()) < groups.size()) {
+                        IntArrayList group = groups.get(groupIndex);
+                        for (int k = 0; k < group.size(); k++) {
+                            int index = group.getInt(k);
+                            long triple = layer[index];
+                            from.setComponents(
+                                    (int) MathMan.untripleWorldCoordX(triple),
+                                    (int) MathMan.untripleWorldCoordY(triple),
+                                    (int) MathMan.untripleWorldCoordZ(triple)
+                            );
+                            int bits = 0;
+                            for (int i = 0; i < dirs.length; i++) {
+                                BlockVector3 direction = dirs[i];
+                                int y = from.y() + direction.y();
+                                if (y < minY || y > maxY) {
+                                    continue;
+                                }
+                                int x = from.x() + direction.x();
+                                int z = from.z() + direction.z();
+                                if (!visited.contains(x, y, z) && isVisitable(from, to.setComponents(x, y, z))) {
+                                    bits |= 1 << i;
+                                }
+                            }
+                            visitable[index] = bits;
+                        }
+                    }
+                } finally {
+                    exitConcurrentVisits();
+                }
+            }));
+        }
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    // Stop the remaining workers after their current group, but still wait for them
+                    nextGroup.set(groups.size());
+                    continue;
+                } catch (ExecutionException e) {
+                    nextGroup.set(groups.size());
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                throw new RuntimeException(new InterruptedException());
+            }
+        }
+        if (failure instanceof RuntimeException re) {
+            throw re;
+        } else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+    //FAWE end
+
     //FAWE start
     public int getDepth() {
         return currentDepth;
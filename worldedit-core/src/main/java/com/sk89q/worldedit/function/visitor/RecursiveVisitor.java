@@ -35,6 +35,10 @@
 public class RecursiveVisitor extends BreadthFirstSearch {
 
     private final Mask mask;
+    //FAWE start - concurrent visits
+    private final ThreadLocal<Mask> workerMask = new ThreadLocal<>();
+    private final boolean concurrent;
+    //FAWE end
 
     /**
      * Create a new recursive visitor.
@@ -75,18 +79,40 @@ public RecursiveVisitor(Mask mask, RegionFunction function, int maxDepth, int mi
      * @param maxDepth the maximum number of iterations
      * @param minY     minimum allowable y to visit. Inclusive.
      * @param maxY     maximum allowable y to visit. Inclusive.
-     * @param extent   the extent for preloading
+     * @param extent   the extent for preloading. If given, large layers may also be tested on multiple threads, each using its
+     *                 own {@link Mask#copy() copy} of the mask
      */
     public RecursiveVisitor(Mask mask, RegionFunction function, int maxDepth, int minY, int maxY, Extent extent) {
         super(function, maxDepth, minY, maxY, extent);
         checkNotNull(mask);
         this.mask = mask;
+        this.concurrent = extent != null;
     }
     //FAWE end
 
     @Override
     protected boolean isVisitable(BlockVector3 from, BlockVector3 to) {
-        return mask.test(to);
+        //FAWE start - concurrent visits
+        Mask local = workerMask.get();
+        return (local != null ? local : mask).test(to);
+        //FAWE end
+    }
+
+    //FAWE start - concurrent visits
+    @Override
+    protected boolean isConcurrentVisitable() {
+        return concurrent;
+    }
+
+    @Override
+    protected void enterConcurrentVisits() {
+        workerMask.set(mask.copy());
+    }
+
+    @Override
+    protected void exitConcurrentVisits() {
+        workerMask.remove();
     }
+    //FAWE end
 
 }
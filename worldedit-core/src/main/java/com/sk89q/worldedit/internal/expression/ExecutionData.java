@@ -19,31 +19,81 @@
 
 package com.sk89q.worldedit.internal.expression;
 
+import java.time.Duration;
 import java.time.Instant;
 
 import static java.util.Objects.requireNonNull;
 
-public record ExecutionData(SlotTable slots, Functions functions, Instant deadline) {
+//FAWE start - class instead of record, reused between evaluations of the same expression
+/**
+ * The state an expression is executed with. Compiled expressions hold no state of their own, so a single compiled
+ * expression may be executed with a different instance per thread.
+ */
+public final class ExecutionData {
+
     /**
      * Special execution context for evaluating constant values. As long as no variables are used, it can be considered
      * constant.
      */
-    public static final ExecutionData CONSTANT_EVALUATOR = new ExecutionData(null, null, Instant.MAX);
+    public static final ExecutionData CONSTANT_EVALUATOR = new ExecutionData(null, null);
+
+    // Check the clock once every this many loop iterations, reading it costs more than most loop bodies
+    private static final int DEADLINE_CHECK_MASK = 15;
+
+    private final SlotTable slots;
+    private final Functions functions;
+    private boolean timed;
+    private long deadlineNanos;
+    private int checks;
+
+    /**
+     * Create a new execution context without a deadline.
+     *
+     * @since 2.13.1
+     */
+    public ExecutionData(SlotTable slots, Functions functions) {
+        this.slots = slots;
+        this.functions = functions;
+    }
+
+    public ExecutionData(SlotTable slots, Functions functions, Instant deadline) {
+        this(slots, functions);
+        try {
+            setTimeout(Duration.between(Instant.now(), deadline).toNanos());
+        } catch (ArithmeticException ignored) {
+            // Too far in the future to time
+        }
+    }
 
-    @Override
     public SlotTable slots() {
         return requireNonNull(slots, "Cannot use variables in a constant");
     }
 
-    @Override
     public Functions functions() {
         return requireNonNull(functions, "Cannot use functions in a constant");
     }
 
+    /**
+     * Set the deadline to the given time from now, resetting any previous deadline.
+     *
+     * @param timeoutMillis time in milliseconds evaluation may take
+     * @since 2.13.1
+     */
+    public void setTimeoutMillis(int timeoutMillis) {
+        setTimeout(timeoutMillis * 1_000_000L);
+    }
+
+    private void setTimeout(long timeoutNanos) {
+        this.deadlineNanos = System.nanoTime() + timeoutNanos;
+        this.timed = true;
+        this.checks = 0;
+    }
+
     public void checkDeadline() {
-        if (Instant.now().isAfter(deadline)) {
+        if (timed && (++checks & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadlineNanos > 0) {
             throw new ExpressionTimeoutException("Calculations exceeded time limit.");
         }
     }
 
 }
+//FAWE end
@@ -31,11 +31,8 @@
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
-import java.time.Instant;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * Compiles and evaluates expressions.
@@ -67,13 +64,17 @@
 public class Expression implements Cloneable {
 //FAWE end
 
-    private final SlotTable slots = new SlotTable();
+    //FAWE start - not shared with clones
+    private final SlotTable slots;
+    //FAWE end
     private final List<String> providedSlots;
     private final ExpressionParser.AllStatementsContext root;
     private final Functions functions = Functions.create();
     private final CompiledExpression compiledExpression;
     //FAWE start
     private final String initialExpression;
+    private final int[] providedIndices;
+    private final ExecutionData executionData;
     //FAWE end
 
     public static Expression compile(String expression, String... variableNames) throws ExpressionException {
@@ -83,6 +84,7 @@ public static Expression compile(String expression, String... variableNames) thr
     private Expression(String expression, String... variableNames) throws ExpressionException {
         //FAWE start
         this.initialExpression = expression;
+        this.slots = new SlotTable();
         //FAWE end
 
         slots.putSlot("e", new LocalSlot.Constant(Math.E));
@@ -98,6 +100,12 @@ private Expression(String expression, String... variableNames) throws Expression
                     ));
         }
         this.providedSlots = ImmutableList.copyOf(variableNames);
+        //FAWE start
+        this.providedIndices = new int[variableNames.length];
+        for (int i = 0; i < variableNames.length; i++) {
+            providedIndices[i] = slots.getIndex(variableNames[i]);
+        }
+        //FAWE end
 
         CharStream cs = CharStreams.fromString(expression, "<input>");
         ExpressionLexer lexer = new ExpressionLexer(cs);
@@ -114,72 +122,57 @@ private Expression(String expression, String... variableNames) throws Expression
             throw new ParserException(parser.getState(), e);
         }
         ParseTreeWalker.DEFAULT.walk(new ExpressionValidator(slots.keySet(), functions), root);
-        this.compiledExpression = new ExpressionCompiler().compileExpression(root, functions);
+        //FAWE start
+        this.compiledExpression = new ExpressionCompiler().compileExpression(root, functions, slots);
+        this.executionData = new ExecutionData(slots, functions);
+        //FAWE end
     }
 
-    private Expression(String expression, Set<String> variableNames) throws ExpressionException {
-        this.initialExpression = expression;
-
-        slots.putSlot("e", new LocalSlot.Constant(Math.E));
-        slots.putSlot("pi", new LocalSlot.Constant(Math.PI));
-        slots.putSlot("true", new LocalSlot.Constant(1));
-        slots.putSlot("false", new LocalSlot.Constant(0));
-
-        for (String variableName : variableNames) {
-            slots.initVariable(variableName)
-                    .orElseThrow(() -> new ExpressionException(
-                            -1,
-                            "Tried to overwrite identifier '" + variableName + "'"
-                    ));
+    //FAWE start - shares the compiled expression, only the evaluation state is per instance
+    private Expression(Expression source) {
+        this.initialExpression = source.initialExpression;
+        this.providedSlots = source.providedSlots;
+        this.providedIndices = source.providedIndices;
+        this.root = source.root;
+        this.compiledExpression = source.compiledExpression;
+        this.slots = source.slots.copyLayout();
+        for (int index : providedIndices) {
+            slots.initVariable(index);
         }
-        this.providedSlots = ImmutableList.copyOf(variableNames);
-
-        CharStream cs = CharStreams.fromString(expression, "<input>");
-        ExpressionLexer lexer = new ExpressionLexer(cs);
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(new LexerErrorListener());
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        ExpressionParser parser = new ExpressionParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(new ParserErrorListener());
-        try {
-            root = parser.allStatements();
-            Objects.requireNonNull(root, "Unable to parse root, but no exceptions?");
-        } catch (ParseCancellationException e) {
-            throw new ParserException(parser.getState(), e);
-        }
-        ParseTreeWalker.DEFAULT.walk(new ExpressionValidator(slots.keySet(), functions), root);
-        this.compiledExpression = new ExpressionCompiler().compileExpression(root, functions);
+        this.executionData = new ExecutionData(slots, functions);
     }
+    //FAWE end
 
     public double evaluate(double... values) throws EvaluationException {
         return evaluate(values, WorldEdit.getInstance().getConfiguration().calculationTimeout);
     }
 
     public double evaluate(double[] values, int timeout) throws EvaluationException {
+        //FAWE start - provided slots are looked up by index and the execution data is reused
         for (int i = 0; i < values.length; ++i) {
-            String slotName = providedSlots.get(i);
-            LocalSlot.Variable slot = slots.getVariable(slotName)
-                    .orElseThrow(() -> new EvaluationException(
-                            -1,
-                            "Tried to assign to non-variable " + slotName + "."
-                    ));
-
+            if (!(slots.getSlot(providedIndices[i]) instanceof LocalSlot.Variable slot)) {
+                throw new EvaluationException(-1, "Tried to assign to non-variable " + providedSlots.get(i) + ".");
+            }
             slot.setValue(values[i]);
         }
 
-        Instant deadline = Instant.now().plusMillis(timeout);
+        executionData.setTimeoutMillis(timeout);
         // evaluation exceptions are thrown out of this method
-        Double result = compiledExpression.execute(new ExecutionData(slots, functions, deadline));
+        Double result = compiledExpression.execute(executionData);
+        //FAWE end
         if (result == null) {
             throw new EvaluationException(-1, "Expression must result in a value");
         }
         return result;
     }
 
+    //FAWE start - constants are folded and dead branches dropped when compiling
+    /**
+     * Does nothing, expressions are optimized when they are compiled.
+     */
     public void optimize() {
-        // TODO optimizing
     }
+    //FAWE end
 
     @Override
     public String toString() {
@@ -199,8 +192,13 @@ public void setEnvironment(ExpressionEnvironment environment) {
     }
 
     //FAWE start
+
+    /**
+     * Create a copy of this expression that can be evaluated independently of it, for example on another thread. The
+     * compiled expression is shared, variables and the environment are not.
+     */
     public Expression clone() {
-        Expression expression = new Expression(initialExpression, new HashSet<>(providedSlots));
+        Expression expression = new Expression(this);
         expression.setEnvironment(getEnvironment().clone());
         return expression;
     }
@@ -21,6 +21,7 @@
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
@@ -33,8 +34,11 @@
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
+import javax.annotation.Nullable;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -167,45 +171,41 @@ private static void addStaticFunctionHandles(
         ));
     }
 
-    private void addInstanceFunctionHandles(
+    //FAWE start - instance functions are kept unbound, see getUnboundHandle
+    private static void addInstanceFunctionHandles(
             SetMultimap<String, MethodHandle> map,
             MethodHandles.Lookup lookup
     ) throws NoSuchMethodException, IllegalAccessException {
         map.put("megabuf", lookup.findSpecial(Functions.class, "megabuf",
                         methodType(double.class, double.class), Functions.class
-                )
-                .bindTo(this));
+                ));
         map.put("megabuf", lookup.findSpecial(Functions.class, "megabuf",
                         methodType(double.class, double.class, double.class), Functions.class
-                )
-                .bindTo(this));
+                ));
         map.put("closest", lookup.findSpecial(Functions.class, "closest",
                         methodType(double.class, double.class, double.class, double.class, double.class,
                                 double.class, double.class
                         ), Functions.class
-                )
-                .bindTo(this));
+                ));
 
         // rely on expression field
         map.put("query", lookup.findSpecial(Functions.class, "query",
                         methodType(double.class, double.class, double.class, double.class, LocalSlot.class,
                                 LocalSlot.class
                         ), Functions.class
-                )
-                .bindTo(this));
+                ));
         map.put("queryAbs", lookup.findSpecial(Functions.class, "queryAbs",
                         methodType(double.class, double.class, double.class, double.class, LocalSlot.class,
                                 LocalSlot.class
                         ), Functions.class
-                )
-                .bindTo(this));
+                ));
         map.put("queryRel", lookup.findSpecial(Functions.class, "queryRel",
                         methodType(double.class, double.class, double.class, double.class, LocalSlot.class,
                                 LocalSlot.class
                         ), Functions.class
-                )
-                .bindTo(this));
+                ));
     }
+    //FAWE end
 
     private static double rotate(Variable x, Variable y, double angle) {
         final double cosF = Math.cos(angle);
@@ -235,21 +235,77 @@ private static double swap(Variable x, Variable y) {
     private final SetMultimap<String, MethodHandle> map;
     private ExpressionEnvironment environment;
 
+    //FAWE start
+    private static final SetMultimap<String, MethodHandle> INSTANCE_HANDLES;
+    private static final Set<String> PURE_FUNCTIONS;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        SetMultimap<String, MethodHandle> instanceMap = HashMultimap.create();
+        SetMultimap<String, MethodHandle> mathMap = HashMultimap.create();
+        try {
+            addInstanceFunctionHandles(instanceMap, lookup);
+            addMathHandles(mathMap, lookup);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        INSTANCE_HANDLES = ImmutableSetMultimap.copyOf(
+                Multimaps.transformValues(instanceMap, Functions::clean)
+        );
+        PURE_FUNCTIONS = ImmutableSet.copyOf(mathMap.keySet());
+    }
+    //FAWE end
+
     private Functions() {
         MethodHandles.Lookup lookup = MethodHandles.lookup();
         SetMultimap<String, MethodHandle> map = HashMultimap.create();
         try {
             addMathHandles(map, lookup);
             addStaticFunctionHandles(map, lookup);
-            addInstanceFunctionHandles(map, lookup);
         } catch (NoSuchMethodException | IllegalAccessException e) {
             throw new IllegalStateException(e);
         }
+        //FAWE start - bind the shared instance handles
+        INSTANCE_HANDLES.forEach((name, handle) -> map.put(name, handle.bindTo(this)));
+        //FAWE end
         this.map = ImmutableSetMultimap.copyOf(
                 Multimaps.transformValues(map, Functions::clean)
         );
     }
 
+    //FAWE start
+
+    /**
+     * Get the handle of an instance function taking the {@link Functions} to call it on as its first parameter, rather
+     * than being bound to an instance. Compiled expressions use these to call the functions of the context they are
+     * executed with.
+     *
+     * @param name      name of the function
+     * @param boundType type of the handle bound to an instance, as returned by {@link #getMap()}
+     * @return the unbound handle, or null if the function is not an instance function
+     * @since 2.13.1
+     */
+    @Nullable
+    public static MethodHandle getUnboundHandle(String name, MethodType boundType) {
+        for (MethodHandle handle : INSTANCE_HANDLES.get(name)) {
+            if (handle.type().dropParameterTypes(0, 1).equals(boundType)) {
+                return handle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get if the function with the given name always returns the same result for the same arguments and has no side
+     * effects, so calls with constant arguments can be evaluated once when compiling.
+     *
+     * @since 2.13.1
+     */
+    public static boolean isPure(String name) {
+        return PURE_FUNCTIONS.contains(name);
+    }
+    //FAWE end
+
     public SetMultimap<String, MethodHandle> getMap() {
         return map;
     }
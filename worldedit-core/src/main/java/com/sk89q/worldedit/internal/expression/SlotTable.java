@@ -19,35 +19,123 @@
 
 package com.sk89q.worldedit.internal.expression;
 
-import java.util.HashMap;
-import java.util.Map;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.Set;
 
+//FAWE start - slots are stored by index, compiled expressions resolve names to indices once
 public class SlotTable {
 
-    private final Map<String, LocalSlot> slots = new HashMap<>();
+    private final Object2IntMap<String> indices;
+    private String[] names;
+    private LocalSlot[] slots;
+
+    public SlotTable() {
+        this.indices = new Object2IntOpenHashMap<>();
+        this.indices.defaultReturnValue(-1);
+        this.names = new String[8];
+        this.slots = new LocalSlot[8];
+    }
+
+    private SlotTable(SlotTable layout) {
+        this.indices = new Object2IntOpenHashMap<>(layout.indices);
+        this.indices.defaultReturnValue(-1);
+        this.names = layout.names.clone();
+        this.slots = new LocalSlot[layout.slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (layout.slots[i] instanceof LocalSlot.Constant constant) {
+                slots[i] = constant;
+            }
+        }
+    }
+
+    /**
+     * Create a table with the same slot indices and constants as this one, but without any variables.
+     *
+     * @since 2.13.1
+     */
+    public SlotTable copyLayout() {
+        return new SlotTable(this);
+    }
+
+    /**
+     * Get the index of the slot with the given name, assigning one if the name has none yet. Indices stay the same for
+     * the lifetime of this table and of tables copied from it.
+     *
+     * @since 2.13.1
+     */
+    public int getIndex(String name) {
+        int index = indices.getInt(name);
+        if (index == -1) {
+            index = indices.size();
+            if (index == slots.length) {
+                slots = Arrays.copyOf(slots, index << 1);
+                names = Arrays.copyOf(names, index << 1);
+            }
+            names[index] = name;
+            indices.put(name, index);
+        }
+        return index;
+    }
+
+    /**
+     * Get the slot at the given index.
+     *
+     * @return the slot, or null if it was not initialized
+     * @since 2.13.1
+     */
+    @Nullable
+    public LocalSlot getSlot(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Initialize the variable at the given index if the slot is empty.
+     *
+     * @return the variable, or null if the slot holds a constant
+     * @since 2.13.1
+     */
+    @Nullable
+    public LocalSlot.Variable initVariable(int index) {
+        LocalSlot slot = slots[index];
+        if (slot == null) {
+            LocalSlot.Variable variable = new LocalSlot.Variable(0);
+            slots[index] = variable;
+            return variable;
+        }
+        return slot instanceof LocalSlot.Variable variable ? variable : null;
+    }
 
     public Set<String> keySet() {
-        return slots.keySet();
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < indices.size(); i++) {
+            if (slots[i] != null) {
+                keys.add(names[i]);
+            }
+        }
+        return keys;
     }
 
     public void putSlot(String name, LocalSlot slot) {
-        slots.put(name, slot);
+        slots[getIndex(name)] = slot;
     }
 
     public boolean containsSlot(String name) {
-        return slots.containsKey(name);
+        return getSlotOrNull(name) != null;
     }
 
     public Optional<LocalSlot.Variable> initVariable(String name) {
-        slots.computeIfAbsent(name, n -> new LocalSlot.Variable(0));
-        return getVariable(name);
+        return Optional.ofNullable(initVariable(getIndex(name)));
     }
 
     public Optional<LocalSlot> getSlot(String name) {
-        return Optional.ofNullable(slots.get(name));
+        return Optional.ofNullable(getSlotOrNull(name));
     }
 
     public Optional<LocalSlot.Variable> getVariable(String name) {
@@ -57,8 +145,15 @@ public Optional<LocalSlot.Variable> getVariable(String name) {
     }
 
     public OptionalDouble getSlotValue(String name) {
-        LocalSlot slot = slots.get(name);
+        LocalSlot slot = getSlotOrNull(name);
         return slot == null ? OptionalDouble.empty() : OptionalDouble.of(slot.value());
     }
 
+    @Nullable
+    private LocalSlot getSlotOrNull(String name) {
+        int index = indices.getInt(name);
+        return index == -1 ? null : slots[index];
+    }
+
 }
+//FAWE end
@@ -26,6 +26,7 @@
 import com.sk89q.worldedit.internal.expression.ExpressionHelper;
 import com.sk89q.worldedit.internal.expression.Functions;
 import com.sk89q.worldedit.internal.expression.LocalSlot;
+import com.sk89q.worldedit.internal.expression.SlotTable;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectMap;
 import org.antlr.v4.runtime.CommonToken;
@@ -38,7 +39,9 @@
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -87,11 +90,50 @@ class CompilingVisitor extends ExpressionBaseVisitor<MethodHandle> {
      * value passed in. EVERY handle returned from an overridden method must be of the first type.
      */
     private final Functions functions;
+    //FAWE start
+    /*
+     * Names are resolved to slot indices while compiling. Handles known to always return the same value are tracked so
+     * operations on them are folded into a single constant, and branches they decide are dropped.
+     */
+    private final SlotTable slots;
+    private final Map<MethodHandle, Double> constants = new IdentityHashMap<>();
+    // Context for evaluating switch labels, which may call functions but may not use variables
+    private final ExecutionData constantData;
 
-    CompilingVisitor(Functions functions) {
+    CompilingVisitor(Functions functions, SlotTable slots) {
         this.functions = functions;
+        this.slots = slots;
+        this.constantData = new ExecutionData(null, functions);
     }
 
+    /**
+     * Method handle (ExecutionData)Double, returns the given value.
+     */
+    private MethodHandle constant(double value) {
+        MethodHandle handle = ExpressionHandles.dropData(MethodHandles.constant(Double.class, value));
+        constants.put(handle, value);
+        return handle;
+    }
+
+    /**
+     * Get the value the handle always returns.
+     *
+     * @return the value, or null if the handle is not a known constant
+     */
+    private Double constantValue(MethodHandle handle) {
+        return constants.get(handle);
+    }
+
+    private boolean isConstant(MethodHandle... handles) {
+        for (MethodHandle handle : handles) {
+            if (!constants.containsKey(handle)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //FAWE end
+
     private Token extractToken(ParserRuleContext ctx) {
         List<TerminalNode> children = ctx.children.stream()
                 .filter(TerminalNode.class::isInstance)
@@ -128,6 +170,11 @@ private MethodHandle evaluateForNamedValue(ParserRuleContext ctx, String name) {
         );
         // now pass `result` into `guard`
         MethodHandle result = evaluate(ctx).handle();
+        //FAWE start - constants are never null
+        if (isConstant(result)) {
+            return result;
+        }
+        //FAWE end
         return MethodHandles.collectArguments(guard, 0, result);
     }
 
@@ -149,11 +196,20 @@ private MethodHandle evaluateConditional(
             ParserRuleContext falseBranch
     ) {
         // easiest one of the bunch
+        //FAWE start - drop the branch a constant condition never takes, it is still compiled to report errors
+        MethodHandle value = evaluateForNamedValue(condition, "a boolean");
+        MethodHandle trueHandle = trueBranch == null ? NULL_DOUBLE : evaluate(trueBranch).handle();
+        MethodHandle falseHandle = falseBranch == null ? NULL_DOUBLE : evaluate(falseBranch).handle();
+        Double constantCondition = constantValue(value);
+        if (constantCondition != null) {
+            return constantCondition != 0 ? trueHandle : falseHandle;
+        }
         return MethodHandles.guardWithTest(
-                evaluateBoolean(condition),
-                trueBranch == null ? NULL_DOUBLE : evaluate(trueBranch).handle(),
-                falseBranch == null ? NULL_DOUBLE : evaluate(falseBranch).handle()
+                MethodHandles.collectArguments(DOUBLE_TO_BOOL, 0, value),
+                trueHandle,
+                falseHandle
         );
+        //FAWE end
     }
 
     @Override
@@ -168,10 +224,18 @@ public MethodHandle visitTernaryExpr(ExpressionParser.TernaryExprContext ctx) {
 
     @Override
     public MethodHandle visitWhileStatement(ExpressionParser.WhileStatementContext ctx) {
+        //FAWE start - a loop that never runs evaluates to nothing
+        MethodHandle value = evaluateForNamedValue(ctx.condition, "a boolean");
+        ExecNode body = evaluate(ctx.body);
+        Double constantCondition = constantValue(value);
+        if (constantCondition != null && constantCondition == 0) {
+            return NULL_DOUBLE;
+        }
         return ExpressionHandles.whileLoop(
-                evaluateBoolean(ctx.condition),
-                evaluate(ctx.body)
+                MethodHandles.collectArguments(DOUBLE_TO_BOOL, 0, value),
+                body
         );
+        //FAWE end
     }
 
     @Override
@@ -197,6 +261,9 @@ public MethodHandle visitSimpleForStatement(ExpressionParser.SimpleForStatementC
         return ExpressionHandles.simpleForLoop(
                 evaluateForValue(ctx.first),
                 evaluateForValue(ctx.last),
+                //FAWE start
+                slots.getIndex(ctx.counter.getText()),
+                //FAWE end
                 ctx.counter,
                 evaluate(ctx.body)
         );
@@ -249,7 +316,9 @@ public MethodHandle visitSwitchStatement(ExpressionParser.SwitchStatementContext
             ExecNode node = evaluate(body);
             if (label instanceof ExpressionParser.CaseContext) {
                 ExpressionParser.CaseContext caseContext = (ExpressionParser.CaseContext) label;
-                double key = (double) ExpressionHandles.constantInvoke(evaluateForValue(caseContext.constant));
+                //FAWE start - functions are not bound to an instance, provide them
+                double key = (double) ExpressionHandles.standardInvoke(evaluateForValue(caseContext.constant), constantData);
+                //FAWE end
                 ExpressionHelper.check(!cases.containsKey(key), body, "Duplicate cases detected.");
                 cases.put(key, node);
             } else {
@@ -269,8 +338,11 @@ public MethodHandle visitExpressionStatement(ExpressionParser.ExpressionStatemen
     public MethodHandle visitPostCrementExpr(ExpressionParser.PostCrementExprContext ctx) {
         Token target = ctx.target;
         int opType = ctx.op.getType();
+        //FAWE start
+        int index = slots.getIndex(target.getText());
         return ExpressionHandles.call(data -> {
-            LocalSlot.Variable variable = ExpressionHandles.getVariable(data, target);
+            LocalSlot.Variable variable = ExpressionHandles.getVariable(data, index, target);
+            //FAWE end
             double value = variable.value();
             double result = value;
             if (opType == INCREMENT) {
@@ -287,8 +359,11 @@ public MethodHandle visitPostCrementExpr(ExpressionParser.PostCrementExprContext
     public MethodHandle visitPreCrementExpr(ExpressionParser.PreCrementExprContext ctx) {
         Token target = ctx.target;
         int opType = ctx.op.getType();
+        //FAWE start
+        int index = slots.getIndex(target.getText());
         return ExpressionHandles.call(data -> {
-            LocalSlot.Variable variable = ExpressionHandles.getVariable(data, target);
+            LocalSlot.Variable variable = ExpressionHandles.getVariable(data, index, target);
+            //FAWE end
             double value = variable.value();
             if (opType == INCREMENT) {
                 value++;
@@ -307,6 +382,11 @@ public MethodHandle visitPlusMinusExpr(ExpressionParser.PlusMinusExprContext ctx
             case PLUS:
                 return value;
             case MINUS:
+                //FAWE start
+                if (isConstant(value)) {
+                    return constant(-constantValue(value));
+                }
+                //FAWE end
                 return ExpressionHandles.call(data ->
                         -(double) ExpressionHandles.standardInvoke(value, data)
                 );
@@ -316,7 +396,13 @@ public MethodHandle visitPlusMinusExpr(ExpressionParser.PlusMinusExprContext ctx
 
     @Override
     public MethodHandle visitNotExpr(ExpressionParser.NotExprContext ctx) {
-        MethodHandle expr = evaluateBoolean(ctx.expr);
+        //FAWE start
+        MethodHandle value = evaluateForNamedValue(ctx.expr, "a boolean");
+        if (isConstant(value)) {
+            return constant(ExpressionHandles.boolToDouble(constantValue(value) == 0));
+        }
+        MethodHandle expr = MethodHandles.collectArguments(DOUBLE_TO_BOOL, 0, value);
+        //FAWE end
         return ExpressionHandles.call(data ->
                 ExpressionHandles.boolToDouble(!(boolean) ExpressionHandles.standardInvoke(expr, data))
         );
@@ -325,6 +411,11 @@ public MethodHandle visitNotExpr(ExpressionParser.NotExprContext ctx) {
     @Override
     public MethodHandle visitComplementExpr(ExpressionParser.ComplementExprContext ctx) {
         MethodHandle expr = evaluateForValue(ctx.expr);
+        //FAWE start
+        if (isConstant(expr)) {
+            return constant((double) ~(long) (double) constantValue(expr));
+        }
+        //FAWE end
         // Looks weird. In order:
         // - Convert back to double from following long
         // - Convert to long from double value
@@ -336,8 +427,14 @@ public MethodHandle visitComplementExpr(ExpressionParser.ComplementExprContext c
 
     @Override
     public MethodHandle visitConditionalAndExpr(ExpressionParser.ConditionalAndExprContext ctx) {
-        MethodHandle left = evaluateBoolean(ctx.left);
+        //FAWE start
+        MethodHandle leftValue = evaluateForNamedValue(ctx.left, "a boolean");
         MethodHandle right = evaluateForValue(ctx.right);
+        if (isConstant(leftValue)) {
+            return constantValue(leftValue) != 0 ? right : constant(ExpressionHandles.boolToDouble(false));
+        }
+        MethodHandle left = MethodHandles.collectArguments(DOUBLE_TO_BOOL, 0, leftValue);
+        //FAWE end
         return MethodHandles.guardWithTest(
                 left,
                 right,
@@ -351,6 +448,11 @@ public MethodHandle visitConditionalAndExpr(ExpressionParser.ConditionalAndExprC
     public MethodHandle visitConditionalOrExpr(ExpressionParser.ConditionalOrExprContext ctx) {
         MethodHandle left = evaluateForValue(ctx.left);
         MethodHandle right = evaluateForValue(ctx.right);
+        //FAWE start
+        if (isConstant(left)) {
+            return constantValue(left) != 0 ? left : right;
+        }
+        //FAWE end
         // Inject left as primary condition, on failure take right with data parameter
         // logic = (Double,ExecutionData)Double
         MethodHandle logic = MethodHandles.guardWithTest(
@@ -380,6 +482,11 @@ private MethodHandle evaluateBinary(
     ) {
         MethodHandle mhLeft = evaluateForValue(left);
         MethodHandle mhRight = evaluateForValue(right);
+        //FAWE start
+        if (isConstant(mhLeft, mhRight)) {
+            return constant(op.applyAsDouble(constantValue(mhLeft), constantValue(mhRight)));
+        }
+        //FAWE end
         // Map two data args to two double args, then evaluate op
         MethodHandle doubleData = MethodHandles.filterArguments(
                 CALL_BINARY_OP.bindTo(op), 0,
@@ -500,6 +607,11 @@ private static boolean almostEqual2sComplement(double a, double b) {
     public MethodHandle visitPostfixExpr(ExpressionParser.PostfixExprContext ctx) {
         MethodHandle value = evaluateForValue(ctx.expr);
         if (ctx.op.getType() == EXCLAMATION_MARK) {
+            //FAWE start
+            if (isConstant(value)) {
+                return constant(factorial(constantValue(value)));
+            }
+            //FAWE end
             return ExpressionHandles.call(data ->
                     factorial((double) ExpressionHandles.standardInvoke(value, data))
             );
@@ -538,15 +650,18 @@ public MethodHandle visitAssignment(ExpressionParser.AssignmentContext ctx) {
         int type = extractToken(ctx.assignmentOperator()).getType();
         Token target = ctx.target;
         MethodHandle getArg = evaluateForValue(ctx.expression());
+        //FAWE start
+        int index = slots.getIndex(target.getText());
+        //FAWE end
         return ExpressionHandles.call(data -> {
             double value;
             double arg = (double) ExpressionHandles.standardInvoke(getArg, data);
             LocalSlot.Variable variable;
             if (type == ASSIGN) {
-                variable = ExpressionHandles.initVariable(data, target);
+                variable = ExpressionHandles.initVariable(data, index, target);
                 value = arg;
             } else {
-                variable = ExpressionHandles.getVariable(data, target);
+                variable = ExpressionHandles.getVariable(data, index, target);
                 value = variable.value();
                 switch (type) {
                     case POWER_ASSIGN:
@@ -593,13 +708,31 @@ public MethodHandle visitFunctionCall(ExpressionParser.FunctionCallContext ctx)
             }
             arguments[i] = transformed;
         }
+        //FAWE start
+        boolean foldable = Functions.isPure(fnName) && isConstant(arguments);
+        MethodHandle unbound = Functions.getUnboundHandle(fnName, handle.type());
+        if (unbound != null) {
+            // Call the functions of the context executed with, so the compiled expression can be shared between contexts
+            MethodHandle[] withFunctions = new MethodHandle[arguments.length + 1];
+            withFunctions[0] = ExpressionHandles.GET_FUNCTIONS;
+            System.arraycopy(arguments, 0, withFunctions, 1, arguments.length);
+            handle = unbound;
+            arguments = withFunctions;
+        }
+        //FAWE end
         // Take each of our data accepting arguments, apply them over the source method
         MethodHandle manyData = MethodHandles.filterArguments(handle, 0, arguments);
         // Collapse every data into one argument
         int[] permutation = new int[arguments.length];
-        return MethodHandles.permuteArguments(
+        //FAWE start - evaluate pure functions of constants once
+        MethodHandle call = MethodHandles.permuteArguments(
                 manyData, ExpressionHandles.COMPILED_EXPRESSION_SIG, permutation
         );
+        if (foldable) {
+            return constant((double) ExpressionHandles.constantInvoke(call));
+        }
+        return call;
+        //FAWE end
     }
 
     // MH: (ExecutionData)T; (depends on target)
@@ -620,20 +753,28 @@ private MethodHandle getArgument(String fnName, MethodType type, int i, ParserRu
         // small hack
         CommonToken fake = new CommonToken(arg.start);
         fake.setText(handleName);
-        return ExpressionHandles.mhGetVariable(fake);
+        //FAWE start
+        return ExpressionHandles.mhGetVariable(slots.getIndex(handleName), fake);
+        //FAWE end
     }
 
     @Override
     public MethodHandle visitConstantExpression(ExpressionParser.ConstantExpressionContext ctx) {
-        return ExpressionHandles.dropData(
-                MethodHandles.constant(Double.class, Double.parseDouble(ctx.getText()))
-        );
+        //FAWE start
+        return constant(Double.parseDouble(ctx.getText()));
+        //FAWE end
     }
 
     @Override
     public MethodHandle visitIdExpr(ExpressionParser.IdExprContext ctx) {
         Token source = ctx.source;
-        return ExpressionHandles.call(data -> ExpressionHandles.getSlotValue(data, source));
+        //FAWE start - constants such as pi can never be reassigned
+        int index = slots.getIndex(source.getText());
+        if (slots.getSlot(index) instanceof LocalSlot.Constant constant) {
+            return constant(constant.value());
+        }
+        return ExpressionHandles.call(data -> ExpressionHandles.getSlotValue(data, index, source));
+        //FAWE end
     }
 
     /**
@@ -684,6 +825,11 @@ private MethodHandle aggregateHandleResult(MethodHandle oldResult, MethodHandle
         if (result == DEFAULT_RESULT) {
             return oldResult;
         }
+        //FAWE start - constant statements have no side effects, only their value could be used
+        if (isConstant(oldResult)) {
+            return result;
+        }
+        //FAWE end
         // Add a dummy Double parameter to the end
         // MH:dummyDouble = (ExecutionData, Double)Double
         MethodHandle dummyDouble = MethodHandles.dropArguments(
@@ -22,6 +22,7 @@
 import com.sk89q.worldedit.antlr.ExpressionParser;
 import com.sk89q.worldedit.internal.expression.CompiledExpression;
 import com.sk89q.worldedit.internal.expression.Functions;
+import com.sk89q.worldedit.internal.expression.SlotTable;
 
 import java.lang.invoke.LambdaConversionException;
 import java.lang.invoke.LambdaMetafactory;
@@ -63,11 +64,14 @@ public class ExpressionCompiler {
         }
     }
 
+    //FAWE start - names are resolved to indices in the given slot table
     public CompiledExpression compileExpression(
             ExpressionParser.AllStatementsContext root,
-            Functions functions
+            Functions functions,
+            SlotTable slots
     ) {
-        MethodHandle invokable = root.accept(new CompilingVisitor(functions));
+        MethodHandle invokable = root.accept(new CompilingVisitor(functions, slots));
+        //FAWE end
         // catch ReturnExpression and substitute its result
         invokable = MethodHandles.catchException(
                 invokable,
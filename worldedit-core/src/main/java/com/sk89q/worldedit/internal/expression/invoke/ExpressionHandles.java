@@ -24,6 +24,7 @@
 import com.sk89q.worldedit.internal.expression.EvaluationException;
 import com.sk89q.worldedit.internal.expression.ExecutionData;
 import com.sk89q.worldedit.internal.expression.ExpressionHelper;
+import com.sk89q.worldedit.internal.expression.Functions;
 import com.sk89q.worldedit.internal.expression.LocalSlot;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectMap;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectMaps;
@@ -36,7 +37,6 @@
 import java.lang.invoke.MethodType;
 import java.util.Objects;
 import java.util.function.DoubleBinaryOperator;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.sk89q.worldedit.internal.expression.ExpressionHelper.check;
@@ -73,6 +73,10 @@ class ExpressionHandles {
     static final MethodHandle NEW_RETURN_EXCEPTION;
     // (ReturnException)Double;
     static final MethodHandle RETURN_EXCEPTION_GET_RESULT;
+    //FAWE start
+    // (ExecutionData)Functions;
+    static final MethodHandle GET_FUNCTIONS;
+    //FAWE end
 
     static final MethodHandle NULL_DOUBLE = dropData(constant(Double.class, null));
 
@@ -86,7 +90,7 @@ class ExpressionHandles {
                     methodType(Double.class, ExecutionData.class)
             );
             GET_VARIABLE = lookup.findStatic(ExpressionHandles.class, "getVariable",
-                    methodType(LocalSlot.Variable.class, ExecutionData.class, Token.class)
+                    methodType(LocalSlot.Variable.class, ExecutionData.class, int.class, Token.class)
             );
             WHILE_FOR_LOOP_IMPL = lookup.findStatic(
                     ExpressionHandles.class,
@@ -100,7 +104,7 @@ class ExpressionHandles {
             );
             SIMPLE_FOR_LOOP_IMPL = lookup.findStatic(ExpressionHandles.class, "simpleForLoopImpl",
                     methodType(Double.class, ExecutionData.class, MethodHandle.class,
-                            MethodHandle.class, Token.class, ExecNode.class
+                            MethodHandle.class, int.class, Token.class, ExecNode.class
                     )
             );
             SWITCH_IMPL = lookup.findStatic(ExpressionHandles.class, "switchImpl",
@@ -130,6 +134,11 @@ class ExpressionHandles {
             RETURN_EXCEPTION_GET_RESULT = lookup.findVirtual(ReturnException.class,
                     "getResult", methodType(Double.class)
             );
+            //FAWE start
+            GET_FUNCTIONS = lookup.findVirtual(ExecutionData.class, "functions",
+                    methodType(Functions.class)
+            );
+            //FAWE end
         } catch (NoSuchMethodException | IllegalAccessException e) {
             throw new IllegalStateException(e);
         }
@@ -198,41 +207,48 @@ static MethodHandle dedupData(MethodHandle doubleData) {
         );
     }
 
-    static LocalSlot.Variable initVariable(ExecutionData data, Token nameToken) {
-        String name = nameToken.getText();
-        return data.slots().initVariable(name)
-                .orElseThrow(() -> ExpressionHelper.evalException(
-                        nameToken, "Cannot overwrite non-variable '" + name + "'"
-                ));
+    //FAWE start - slots are looked up by the index resolved when compiling, the token is only used for errors
+    static LocalSlot.Variable initVariable(ExecutionData data, int index, Token nameToken) {
+        LocalSlot.Variable variable = data.slots().initVariable(index);
+        if (variable == null) {
+            throw ExpressionHelper.evalException(
+                    nameToken, "Cannot overwrite non-variable '" + nameToken.getText() + "'"
+            );
+        }
+        return variable;
     }
 
-    private static Supplier<EvaluationException> varNotInitException(Token nameToken) {
-        return () -> ExpressionHelper.evalException(
+    private static EvaluationException varNotInitException(Token nameToken) {
+        return ExpressionHelper.evalException(
                 nameToken, "'" + nameToken.getText() + "' is not initialized yet"
         );
     }
 
-    static MethodHandle mhGetVariable(Token nameToken) {
-        return insertArguments(GET_VARIABLE, 1, nameToken);
+    static MethodHandle mhGetVariable(int index, Token nameToken) {
+        return insertArguments(GET_VARIABLE, 1, index, nameToken);
     }
 
-    static LocalSlot.Variable getVariable(ExecutionData data, Token nameToken) {
-        String name = nameToken.getText();
-        LocalSlot slot = data.slots().getSlot(name)
-                .orElseThrow(varNotInitException(nameToken));
+    static LocalSlot.Variable getVariable(ExecutionData data, int index, Token nameToken) {
+        LocalSlot slot = data.slots().getSlot(index);
+        if (slot == null) {
+            throw varNotInitException(nameToken);
+        }
         if (!(slot instanceof LocalSlot.Variable)) {
             throw ExpressionHelper.evalException(
-                    nameToken, "'" + name + "' is not a variable"
+                    nameToken, "'" + nameToken.getText() + "' is not a variable"
             );
         }
         return (LocalSlot.Variable) slot;
     }
 
-    static double getSlotValue(ExecutionData data, Token nameToken) {
-        String name = nameToken.getText();
-        return data.slots().getSlotValue(name)
-                .orElseThrow(varNotInitException(nameToken));
+    static double getSlotValue(ExecutionData data, int index, Token nameToken) {
+        LocalSlot slot = data.slots().getSlot(index);
+        if (slot == null) {
+            throw varNotInitException(nameToken);
+        }
+        return slot.value();
     }
+    //FAWE end
 
     /**
      * Returns a method handle that calls
@@ -348,11 +364,14 @@ private static Double doWhileLoopImpl(
     static MethodHandle simpleForLoop(
             MethodHandle first,
             MethodHandle last,
+            //FAWE start
+            int counterIndex,
+            //FAWE end
             Token counter,
             ExecNode body
     ) {
         return insertArguments(SIMPLE_FOR_LOOP_IMPL, 1,
-                first, last, counter, body
+                first, last, counterIndex, counter, body
         );
     }
 
@@ -360,6 +379,9 @@ private static Double simpleForLoopImpl(
             ExecutionData data,
             MethodHandle getFirst,
             MethodHandle getLast,
+            //FAWE start
+            int counterIndex,
+            //FAWE end
             Token counterToken,
             ExecNode body
     ) {
@@ -367,7 +389,7 @@ private static Double simpleForLoopImpl(
         int iterations = 0;
         double first = (double) standardInvoke(getFirst, data);
         double last = (double) standardInvoke(getLast, data);
-        LocalSlot.Variable variable = initVariable(data, counterToken);
+        LocalSlot.Variable variable = initVariable(data, counterIndex, counterToken);
         for (double i = first; i <= last; i++) {
             checkIterations(iterations, body.positionInLine());
             data.checkDeadline();
@@ -30,9 +30,9 @@
 import javax.annotation.Nullable;
 import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 
@@ -171,26 +171,100 @@ public int getLength() {
      */
     @Override
     public Set<BlockVector2> getChunks() {
-        final Set<BlockVector2> chunks = new HashSet<>();
-
         final BlockVector3 minBlock = getMinimumPoint();
         final BlockVector3 maxBlock = getMaximumPoint();
 
-        //FAWE start
-        final BlockVector2 min = BlockVector2.at(minBlock.x() >> 4, minBlock.z() >> 4);
-        final BlockVector2 max = BlockVector2.at(maxBlock.x() >> 4, maxBlock.z() >> 4);
+        //FAWE start - enumerate chunks lazily rather than testing every chunk of the bounding box up front
+        return new ChunkSet(minBlock.x() >> 4, minBlock.z() >> 4, maxBlock.x() >> 4, maxBlock.z() >> 4);
         //FAWE end
+    }
+
+    //FAWE start
+
+    /**
+     * The chunks of the bounding box that {@link #containsChunk(int, int)}, tested as they are iterated. The size is only
+     * counted when it is first asked for.
+     */
+    private final class ChunkSet extends AbstractSet<BlockVector2> {
+
+        private final int minX;
+        private final int minZ;
+        private final int maxX;
+        private final int maxZ;
+        private int size = -1;
+
+        private ChunkSet(int minX, int minZ, int maxX, int maxZ) {
+            this.minX = minX;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxZ = maxZ;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof BlockVector2 chunk)) {
+                return false;
+            }
+            return chunk.x() >= minX && chunk.x() <= maxX && chunk.z() >= minZ && chunk.z() <= maxZ
+                    && containsChunk(chunk.x(), chunk.z());
+        }
 
-        for (int X = min.x(); X <= max.x(); ++X) {
-            for (int Z = min.z(); Z <= max.z(); ++Z) {
-                if (containsChunk(X, Z)) {
-                    chunks.add(BlockVector2.at(X, Z));
+        @Override
+        public int size() {
+            if (size == -1) {
+                int count = 0;
+                for (int x = minX; x <= maxX; x++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        if (containsChunk(x, z)) {
+                            count++;
+                        }
+                    }
                 }
+                size = count;
             }
+            return size;
+        }
+
+        @Override
+        public Iterator<BlockVector2> iterator() {
+            return new Iterator<>() {
+                private int x = minX;
+                private int z = minZ;
+                private BlockVector2 next = advance();
+
+                private BlockVector2 advance() {
+                    while (x <= maxX) {
+                        while (z <= maxZ) {
+                            int chunkZ = z++;
+                            if (containsChunk(x, chunkZ)) {
+                                return BlockVector2.at(x, chunkZ);
+                            }
+                        }
+                        x++;
+                        z = minZ;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public BlockVector2 next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    BlockVector2 result = next;
+                    next = advance();
+                    return result;
+                }
+            };
         }
 
-        return chunks;
     }
+    //FAWE end
 
     @Override
     public Set<BlockVector3> getChunkCubes() {
@@ -19,6 +19,11 @@
 
 package com.sk89q.worldedit.regions;
 
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.IChunkSet;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.polyhedron.Edge;
@@ -334,5 +339,67 @@ public AbstractRegion clone() {
     public boolean containsEntireCuboid(int bx, int tx, int by, int ty, int bz, int tz) {
         return false;
     }
+
+    @Override
+    public void filter(
+            final IChunk chunk, final Filter filter, final ChunkFilterBlock block,
+            final IChunkGet get, final IChunkSet set, boolean full
+    ) {
+        if (!isDefined()) {
+            return;
+        }
+        // The region is convex, so it contains an interval of each column. Clip each column against the plane of each
+        // triangle rather than testing each block against every triangle
+        final BlockVector3 min = getMinimumPoint();
+        final BlockVector3 max = getMaximumPoint();
+        int bcx = chunk.getX() << 4;
+        int bcz = chunk.getZ() << 4;
+        int[] minYs = new int[256];
+        int[] maxYs = new int[256];
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int index = z << 4 | x;
+                minYs[index] = 0;
+                maxYs[index] = -1;
+                int bx = bcx + x;
+                int bz = bcz + z;
+                if (bx < min.x() || bx > max.x() || bz < min.z() || bz > max.z()) {
+                    continue;
+                }
+                double lower = min.y();
+                double upper = max.y();
+                for (Triangle triangle : triangles) {
+                    Vector3 normal = triangle.getNormal();
+                    if (normal.y() == 0) {
+                        if (triangle.above(Vector3.at(bx, 0, bz))) {
+                            lower = Double.POSITIVE_INFINITY;
+                            break;
+                        }
+                        continue;
+                    }
+                    double bound = (triangle.getMaxDotProduct() - normal.x() * bx - normal.z() * bz) / normal.y();
+                    if (normal.y() > 0) {
+                        upper = Math.min(upper, bound);
+                    } else {
+                        lower = Math.max(lower, bound);
+                    }
+                }
+                int minY = lower > max.y() ? max.y() + 1 : (int) Math.ceil(lower);
+                int maxY = upper < min.y() ? min.y() - 1 : (int) Math.floor(upper);
+                // Rounding may put a bound off by one, so widen the interval by one and settle the ends with contains
+                minY = Math.max(minY - 1, min.y());
+                maxY = Math.min(maxY + 1, max.y());
+                while (minY <= maxY && !contains(bx, minY, bz)) {
+                    minY++;
+                }
+                while (maxY >= minY && !contains(bx, maxY, bz)) {
+                    maxY--;
+                }
+                minYs[index] = minY;
+                maxYs[index] = maxY;
+            }
+        }
+        filter(chunk, filter, block, get, set, minYs, maxYs, full);
+    }
     //FAWE end
 }
@@ -343,6 +343,9 @@ private void filterSpherePartial(
         int cy = center.y();
         int cz = center.z();
 
+        if (!filter.appliesLayer(get, layer)) {
+            return;
+        }
         block.initLayer(get, set, layer);
 
         int by = layer << 4;
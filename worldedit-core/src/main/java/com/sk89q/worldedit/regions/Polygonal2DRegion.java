@@ -20,6 +20,11 @@
 package com.sk89q.worldedit.regions;
 
 import com.fastasyncworldedit.core.configuration.Caption;
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.IChunkSet;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
@@ -530,5 +535,32 @@ public boolean containsEntireCuboid(int bx, int tx, int by, int ty, int bz, int
         }
         return true;
     }
+
+    @Override
+    public void filter(
+            final IChunk chunk, final Filter filter, final ChunkFilterBlock block,
+            final IChunkGet get, final IChunkSet set, boolean full
+    ) {
+        if (points.size() < 3) {
+            return;
+        }
+        // Whether a column is contained does not depend on y, so test each column once rather than each block
+        int bcx = chunk.getX() << 4;
+        int bcz = chunk.getZ() << 4;
+        int[] minYs = new int[256];
+        int[] maxYs = new int[256];
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                if (contains(bcx + x, bcz + z)) {
+                    minYs[z << 4 | x] = minY;
+                    maxYs[z << 4 | x] = maxY;
+                } else {
+                    minYs[z << 4 | x] = 0;
+                    maxYs[z << 4 | x] = -1;
+                }
+            }
+        }
+        filter(chunk, filter, block, get, set, minYs, maxYs, full);
+    }
     //FAWE end
 }
@@ -269,10 +269,12 @@ default void filter(
         int minSection = Math.max(get.getMinSectionPosition(), getMinimumY() >> 4);
         int maxSection = Math.min(get.getMaxSectionPosition(), getMaximumY() >> 4);
         for (int layer = minSection; layer <= maxSection; layer++) {
-            //if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(chunk, layer)) {
             if (!full && !get.hasSection(layer)) {
                 return;
             }
+            if (!filter.appliesLayer(get, layer)) {
+                continue;
+            }
             block = block.initLayer(get, set, layer);
             block.filter(filter, this);
         }
@@ -320,8 +322,7 @@ default void filter(
             int layer,
             boolean full
     ) {
-        //if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(chunk, layer)) {
-        if (!full && !get.hasSection(layer)) {
+        if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(get, layer)) {
             return;
         }
         block = block.initLayer(get, set, layer);
@@ -343,8 +344,7 @@ default void filter(
             int maxZ,
             boolean full
     ) {
-        //if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(chunk, layer)) {
-        if (!full && !get.hasSection(layer)) {
+        if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(get, layer)) {
             return;
         }
         block = block.initLayer(get, set, layer);
@@ -362,14 +362,76 @@ default void filter(
             int yEnd,
             boolean full
     ) {
-        //if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(chunk, layer)) {
-        if (!full && !get.hasSection(layer)) {
+        if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(get, layer)) {
             return;
         }
         block = block.initLayer(get, set, layer);
         block.filter(filter, yStart, yEnd);
     }
 
+    /**
+     * Filter the blocks of a chunk between a minimum and maximum y in each column, for regions that can find the contained
+     * interval of a column faster than testing each block. Adjacent columns of a row with the same interval are filtered as
+     * one cuboid.
+     *
+     * @param minYs the minimum y of each column, indexed by {@code z << 4 | x}
+     * @param maxYs the maximum y of each column, inclusive, or less than the minimum y to filter nothing in the column
+     * @since 2.13.1
+     */
+    default void filter(
+            final IChunk chunk,
+            final Filter filter,
+            ChunkFilterBlock block,
+            final IChunkGet get,
+            final IChunkSet set,
+            final int[] minYs,
+            final int[] maxYs,
+            boolean full
+    ) {
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < 256; i++) {
+            if (minYs[i] <= maxYs[i]) {
+                minY = Math.min(minY, minYs[i]);
+                maxY = Math.max(maxY, maxYs[i]);
+            }
+        }
+        if (minY > maxY) {
+            return;
+        }
+        int minSection = Math.max(get.getMinSectionPosition(), minY >> 4);
+        int maxSection = Math.min(get.getMaxSectionPosition(), maxY >> 4);
+        for (int layer = minSection; layer <= maxSection; layer++) {
+            if ((!full && !get.hasSection(layer)) || !filter.appliesLayer(get, layer)) {
+                continue;
+            }
+            int layerMinY = layer << 4;
+            int layerMaxY = layerMinY + 15;
+            boolean initialised = false;
+            for (int z = 0; z < 16; z++) {
+                int x = 0;
+                while (x < 16) {
+                    int yStart = Math.max(minYs[z << 4 | x], layerMinY);
+                    int yEnd = Math.min(maxYs[z << 4 | x], layerMaxY);
+                    int endX = x;
+                    while (endX < 15
+                            && Math.max(minYs[z << 4 | endX + 1], layerMinY) == yStart
+                            && Math.min(maxYs[z << 4 | endX + 1], layerMaxY) == yEnd) {
+                        endX++;
+                    }
+                    if (yStart <= yEnd) {
+                        if (!initialised) {
+                            block = block.initLayer(get, set, layer);
+                            initialised = true;
+                        }
+                        block.filter(filter, x, yStart & 15, z, endX, yEnd & 15, z);
+                    }
+                    x = endX + 1;
+                }
+            }
+        }
+    }
+
     default boolean containsEntireCuboid(int bx, int tx, int by, int ty, int bz, int tz) {
         return contains(bx, by, bz)
                 && contains(bx, by, tz)
@@ -93,6 +93,30 @@ public boolean above(Vector3 pt) {
         return normal.dot(pt) > maxDotProduct;
     }
 
+    //FAWE start
+
+    /**
+     * Returns the normal of the plane the triangle is in, pointing away from the points below it.
+     *
+     * @return the normalized normal
+     * @since 2.13.1
+     */
+    public Vector3 getNormal() {
+        return normal;
+    }
+
+    /**
+     * Returns the largest dot product of the normal with a vertex of the triangle. Points with a larger dot product are
+     * {@link #above(Vector3)} the triangle.
+     *
+     * @return the largest dot product
+     * @since 2.13.1
+     */
+    public double getMaxDotProduct() {
+        return maxDotProduct;
+    }
+    //FAWE end
+
     /**
      * Set the triangle's tag.
      *
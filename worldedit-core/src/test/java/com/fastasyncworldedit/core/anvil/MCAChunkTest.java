@@ -0,0 +1,67 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinListTag;
+import org.enginehub.linbus.tree.LinTagType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MCAChunkTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUpRegistry() {
+        BundledRegistryPlatform.register();
+    }
+
+    private MCAChunk read(LinCompoundTag entry) throws IOException {
+        LinListTag.Builder<LinCompoundTag> palette = LinListTag.builder(LinTagType.compoundTag());
+        palette.add(LinCompoundTag.builder().putString("Name", "minecraft:stone").build());
+        palette.add(entry);
+        LinCompoundTag section = LinCompoundTag.builder()
+                .putByte("Y", (byte) 0)
+                .put("block_states", LinCompoundTag.builder().put("palette", palette.build()).build())
+                .build();
+        LinListTag.Builder<LinCompoundTag> sections = LinListTag.builder(LinTagType.compoundTag());
+        sections.add(section);
+        LinCompoundTag root = LinCompoundTag.builder()
+                .putInt("xPos", 0)
+                .putInt("zPos", 0)
+                .put("sections", sections.build())
+                .build();
+        return new MCAChunk(new MCAFile(directory.resolve("r.0.0.mca")), root, -4, 19);
+    }
+
+    private static LinCompoundTag log(String key, String value) {
+        return LinCompoundTag.builder()
+                .putString("Name", "minecraft:oak_log")
+                .put("Properties", LinCompoundTag.builder().putString(key, value).build())
+                .build();
+    }
+
+    @Test
+    void knownPropertiesAreRead() {
+        assertDoesNotThrow(() -> read(log("axis", "x")));
+    }
+
+    @Test
+    void unknownPropertyMakesChunkUnreadable() {
+        assertThrows(IOException.class, () -> read(log("bark", "x")));
+    }
+
+    @Test
+    void unknownPropertyValueMakesChunkUnreadable() {
+        assertThrows(IOException.class, () -> read(log("axis", "w")));
+    }
+
+}
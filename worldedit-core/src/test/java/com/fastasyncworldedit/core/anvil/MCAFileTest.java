@@ -0,0 +1,167 @@
+package com.fastasyncworldedit.core.anvil;
+
+import org.enginehub.linbus.stream.LinBinaryIO;
+import org.enginehub.linbus.tree.LinByteArrayTag;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinRootEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MCAFileTest {
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int TIMESTAMP = 1_600_000_000;
+
+    @TempDir
+    Path directory;
+
+    private static LinCompoundTag chunk(int id) {
+        return LinCompoundTag.builder().putInt("id", id).putString("name", "chunk " + id).build();
+    }
+
+    private static byte[] zlib(LinCompoundTag tag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            LinBinaryIO.write(out, new LinRootEntry("", tag));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write region r.0.0 with chunk 0,0 stored in the file, chunk 1,0 stored externally and chunk 2,0 stored in the file.
+     */
+    private Path writeRegion() throws IOException {
+        byte[] first = zlib(chunk(0));
+        byte[] third = zlib(chunk(2));
+        ByteBuffer buffer = ByteBuffer.allocate(SECTOR_BYTES * 5);
+        writeChunk(buffer, 0, 2, first, 2);
+        // External chunks only store their compression type with the external flag in the file
+        writeChunk(buffer, 1, 3, new byte[0], 2 | 128);
+        writeChunk(buffer, 2, 4, third, 2);
+        Files.write(directory.resolve("c.1.0.mcc"), zlib(chunk(1)));
+        Path path = directory.resolve("r.0.0.mca");
+        Files.write(path, buffer.array());
+        return path;
+    }
+
+    private static void writeChunk(ByteBuffer buffer, int index, int sector, byte[] data, int type) {
+        buffer.putInt(index << 2, sector << 8 | 1);
+        buffer.putInt(SECTOR_BYTES + (index << 2), TIMESTAMP + index);
+        buffer.putInt(sector * SECTOR_BYTES, data.length + 1);
+        buffer.put(sector * SECTOR_BYTES + 4, (byte) type);
+        buffer.put(sector * SECTOR_BYTES + 5, data);
+    }
+
+    @Test
+    void saveKeepsUntouchedAndExternalChunks() throws IOException {
+        Path path = writeRegion();
+        try (MCAFile file = new MCAFile(path)) {
+            assertEquals(chunk(1), file.readChunk(1, 0));
+            file.setChunk(2, 0, chunk(20));
+            file.setChunk(5, 3, chunk(53));
+            file.save();
+            assertFalse(file.isModified());
+        }
+        assertFalse(Files.exists(directory.resolve("r.0.0.mca.tmp")));
+
+        try (MCAFile file = new MCAFile(path)) {
+            assertEquals(chunk(0), file.readChunk(0, 0));
+            assertEquals(TIMESTAMP, file.getTimestamp(0, 0));
+            assertEquals(chunk(1), file.readChunk(1, 0));
+            assertEquals(TIMESTAMP + 1, file.getTimestamp(1, 0));
+            assertTrue(Files.exists(directory.resolve("c.1.0.mcc")));
+            assertEquals(chunk(20), file.readChunk(2, 0));
+            assertEquals(chunk(53), file.readChunk(5, 3));
+            assertEquals(MCAFile.COMPRESSION_ZLIB, file.getCompression(2, 0));
+            assertFalse(file.hasChunk(3, 0));
+            assertNull(file.readChunk(3, 0));
+        }
+    }
+
+    @Test
+    void changedChunksReadBeforeSaving() throws IOException {
+        Path path = writeRegion();
+        try (MCAFile file = new MCAFile(path)) {
+            file.setChunk(0, 0, chunk(10));
+            file.deleteChunk(2, 0);
+            assertEquals(chunk(10), file.readChunk(0, 0));
+            assertFalse(file.hasChunk(2, 0));
+            // Saving reads the unchanged chunks from the file it replaces
+            file.save();
+            assertEquals(chunk(10), file.readChunk(0, 0));
+            assertEquals(chunk(1), file.readChunk(1, 0));
+            assertNull(file.readChunk(2, 0));
+        }
+    }
+
+    @Test
+    void largeChunksAreStoredExternally() throws IOException {
+        Path path = writeRegion();
+        byte[] noise = new byte[(256 * SECTOR_BYTES) + 1];
+        new Random(42).nextBytes(noise);
+        LinCompoundTag large = LinCompoundTag.builder().put("noise", LinByteArrayTag.of(noise)).build();
+        try (MCAFile file = new MCAFile(path)) {
+            file.setChunk(0, 0, large);
+            file.save();
+        }
+        assertTrue(Files.exists(directory.resolve("c.0.0.mcc")));
+        try (MCAFile file = new MCAFile(path)) {
+            assertEquals(large, file.readChunk(0, 0));
+            assertEquals(chunk(1), file.readChunk(1, 0));
+            assertEquals(chunk(2), file.readChunk(2, 0));
+        }
+    }
+
+    @Test
+    void failedSaveKeepsExternalChunks() throws IOException {
+        Path path = writeRegion();
+        byte[] noise = new byte[(256 * SECTOR_BYTES) + 1];
+        new Random(42).nextBytes(noise);
+        LinCompoundTag large = LinCompoundTag.builder().put("noise", LinByteArrayTag.of(noise)).build();
+        // The new region file cannot be written where a directory is in the way
+        Files.createDirectory(directory.resolve("r.0.0.mca.tmp"));
+        try (MCAFile file = new MCAFile(path)) {
+            file.setChunk(0, 0, large);
+            file.setChunk(1, 0, large);
+            file.deleteChunk(2, 0);
+            assertThrows(IOException.class, file::save);
+        }
+        assertFalse(Files.exists(directory.resolve("c.0.0.mcc")));
+        assertFalse(Files.exists(directory.resolve("c.0.0.mcc.tmp")));
+        assertFalse(Files.exists(directory.resolve("c.1.0.mcc.tmp")));
+        try (MCAFile file = new MCAFile(path)) {
+            assertEquals(chunk(0), file.readChunk(0, 0));
+            assertEquals(chunk(1), file.readChunk(1, 0));
+            assertEquals(chunk(2), file.readChunk(2, 0));
+        }
+    }
+
+    @Test
+    void deletingAllChunksDeletesFile() throws IOException {
+        Path path = writeRegion();
+        try (MCAFile file = new MCAFile(path)) {
+            file.deleteChunk(0, 0);
+            file.deleteChunk(1, 0);
+            file.deleteChunk(2, 0);
+            file.save();
+        }
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(directory.resolve("c.1.0.mcc")));
+    }
+
+}
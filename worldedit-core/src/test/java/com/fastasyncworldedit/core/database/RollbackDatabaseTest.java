@@ -0,0 +1,306 @@
+package com.fastasyncworldedit.core.database;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.IFawe;
+import com.fastasyncworldedit.core.history.RollbackOptimizedHistory;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+/**
+ * Edits looked up through the R*Tree index must be the edits whose bounds and time match, however they were logged, replaced,
+ * updated, deleted or migrated.
+ */
+class RollbackDatabaseTest {
+
+    private static final String WORLD = "world";
+    private static final UUID[] PLAYERS = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+
+    private final List<Edit> edits = new ArrayList<>();
+    private final Random random = new Random(0x5EED);
+    private final long now = System.currentTimeMillis() / 1000;
+
+    @TempDir
+    Path directory;
+
+    private MockedStatic<Fawe> fawe;
+    private World world;
+
+    @BeforeEach
+    void setUp() {
+        IFawe platform = mock(IFawe.class);
+        when(platform.getDirectory()).thenReturn(directory.toFile());
+        fawe = mockStatic(Fawe.class);
+        fawe.when(Fawe::platform).thenReturn(platform);
+        world = mock(World.class);
+        when(world.getName()).thenReturn(WORLD);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fawe.close();
+    }
+
+    @Test
+    void loggedEditsAreIndexed() throws Exception {
+        RollbackDatabase database = new SynchronousRollbackDatabase(world);
+        try {
+            for (int i = 0; i < 300; i++) {
+                log(database, randomEdit(PLAYERS[i % PLAYERS.length], i / PLAYERS.length));
+            }
+            assertIndexed(database.getConnection());
+            assertQueriesMatch(database);
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    void changedEditsAreReindexed() throws Exception {
+        RollbackDatabase database = new SynchronousRollbackDatabase(world);
+        try {
+            for (int i = 0; i < 200; i++) {
+                log(database, randomEdit(PLAYERS[i % PLAYERS.length], i / PLAYERS.length));
+            }
+
+            // Logging an edit again replaces the row, moving it to its new bounds
+            for (int i = 0; i < 40; i++) {
+                Edit edit = edits.get(random.nextInt(edits.size()));
+                edits.remove(edit);
+                log(database, randomEdit(edit.player, edit.id));
+            }
+            assertIndexed(database.getConnection());
+            assertQueriesMatch(database);
+
+            // Updated in place
+            try (PreparedStatement stmt = database.getConnection().prepareStatement(
+                    "UPDATE `_edits` SET `x1` = `x1` + 500, `x2` = `x2` + 500 WHERE `player` = ?")) {
+                stmt.setBytes(1, toBytes(PLAYERS[0]));
+                stmt.executeUpdate();
+            }
+            edits.replaceAll(edit -> edit.player.equals(PLAYERS[0]) ? edit.shiftX(500) : edit);
+            assertIndexed(database.getConnection());
+            assertQueriesMatch(database);
+
+            for (int i = 0; i < 40; i++) {
+                Edit edit = edits.remove(random.nextInt(edits.size()));
+                assertEquals(1, database.delete(edit.player, edit.id).get());
+            }
+            database.purge(505).get();
+            edits.removeIf(edit -> edit.time < now - 505);
+            assertIndexed(database.getConnection());
+            assertQueriesMatch(database);
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    void existingEditsAreIndexedOnLoad() throws Exception {
+        File file = directory.resolve("history").resolve(WORLD).resolve("summary.db").toFile();
+        assertTrue(file.getParentFile().mkdirs());
+        // Edits logged before the index existed, both in the current table and the legacy table they are migrated from
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE `_edits` (`player` BLOB(16) NOT NULL,`id` INT NOT NULL, `time` INT NOT NULL,`x1` " +
+                        "INT NOT NULL,`x2` INT NOT NULL,`z1` INT NOT NULL,`z2` INT NOT NULL,`y1` INT NOT NULL, `y2` INT NOT " +
+                        "NULL, `size` BIGINT NOT NULL, `command` VARCHAR, PRIMARY KEY (player, id))");
+                stmt.execute("CREATE TABLE `edits` (`player` BLOB(16) NOT NULL,`id` INT NOT NULL, `time` INT NOT NULL,`x1` " +
+                        "INT NOT NULL,`x2` INT NOT NULL,`z1` INT NOT NULL,`z2` INT NOT NULL,`y1` INT NOT NULL, `y2` INT NOT " +
+                        "NULL, PRIMARY KEY (player, id))");
+            }
+            for (int i = 0; i < 100; i++) {
+                insert(connection, false, randomEdit(PLAYERS[i % PLAYERS.length], i / PLAYERS.length));
+            }
+            for (int i = 100; i < 150; i++) {
+                insert(connection, true, randomEdit(PLAYERS[i % PLAYERS.length], i / PLAYERS.length));
+            }
+        }
+
+        RollbackDatabase database = new SynchronousRollbackDatabase(world);
+        try {
+            try (ResultSet result = database.getConnection().getMetaData().getTables(null, null, "edits", null)) {
+                assertFalse(result.next(), "legacy table was not dropped");
+            }
+            assertIndexed(database.getConnection());
+            assertQueriesMatch(database);
+
+            // Edits dropped from the index, e.g. while the R*Tree module was unavailable
+            try (Statement stmt = database.getConnection().createStatement()) {
+                stmt.executeUpdate("DELETE FROM `_edits_rtree` WHERE `id` % 3 = 0");
+            }
+        } finally {
+            database.close();
+        }
+
+        database = new SynchronousRollbackDatabase(world);
+        try {
+            assertIndexed(database.getConnection());
+            assertQueriesMatch(database);
+        } finally {
+            database.close();
+        }
+    }
+
+    private Edit randomEdit(UUID player, int id) {
+        int x = random.nextInt(2000) - 1000;
+        int y = random.nextInt(384) - 64;
+        int z = random.nextInt(2000) - 1000;
+        return new Edit(
+                player,
+                id,
+                // A few seconds apart, so purging is not affected by the clock ticking
+                now - 10 * random.nextInt(100),
+                x,
+                x + random.nextInt(200),
+                y,
+                Math.min(319, y + random.nextInt(100)),
+                z,
+                z + random.nextInt(200)
+        );
+    }
+
+    private void log(RollbackDatabase database, Edit edit) throws Exception {
+        BlockVector3 pos1 = BlockVector3.at(edit.x1, edit.y1, edit.z1);
+        BlockVector3 pos2 = BlockVector3.at(edit.x2, edit.y2, edit.z2);
+        CuboidRegion region = new CuboidRegion(pos1, pos2);
+        database.logEdit(new RollbackOptimizedHistory(world, edit.player, edit.id, edit.time * 1000, 0, region, "//set")).get();
+        edits.add(edit);
+    }
+
+    // As the database stores edits, keeping the 128 offset of heights
+    private static void insert(Connection connection, boolean legacy, Edit edit) throws SQLException {
+        String columns = "`player`, `id`, `time`, `x1`, `x2`, `z1`, `z2`, `y1`, `y2`";
+        String values = "?, ?, ?, ?, ?, ?, ?, ?, ?";
+        // The legacy table has no size column until it is migrated
+        String sql = legacy
+                ? "INSERT INTO `edits` (" + columns + ") VALUES (" + values + ")"
+                : "INSERT INTO `_edits` (" + columns + ", `size`) VALUES (" + values + ", 0)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setBytes(1, toBytes(edit.player));
+            stmt.setInt(2, edit.id);
+            stmt.setInt(3, (int) edit.time);
+            stmt.setInt(4, edit.x1);
+            stmt.setInt(5, edit.x2);
+            stmt.setInt(6, edit.z1);
+            stmt.setInt(7, edit.z2);
+            stmt.setInt(8, edit.y1 - 128);
+            stmt.setInt(9, edit.y2 - 128);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Every edit has exactly one index entry, with its bounds and time
+    private static void assertIndexed(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet result = stmt.executeQuery("""
+                SELECT (SELECT COUNT(*) FROM `_edits`),
+                       (SELECT COUNT(*) FROM `_edits_rtree`),
+                       (SELECT COUNT(*) FROM `_edits` AS `e` JOIN `_edits_rtree` AS `r` ON `r`.`id` = `e`.rowid
+                          WHERE `r`.`minX` = `e`.`x1` AND `r`.`maxX` = `e`.`x2`
+                            AND `r`.`minZ` = `e`.`z1` AND `r`.`maxZ` = `e`.`z2`
+                            AND `r`.`minY` = `e`.`y1` AND `r`.`maxY` = `e`.`y2`
+                            AND `r`.`minTime` = `e`.`time` AND `r`.`maxTime` = `e`.`time`)
+                """)) {
+            assertTrue(result.next());
+            int edits = result.getInt(1);
+            assertTrue(edits > 0);
+            assertEquals(edits, result.getInt(2), "index entries");
+            assertEquals(edits, result.getInt(3), "index entries matching their edit");
+        }
+    }
+
+    private void assertQueriesMatch(RollbackDatabase database) {
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(2400) - 1200;
+            int y = random.nextInt(400) - 72;
+            int z = random.nextInt(2400) - 1200;
+            BlockVector3 pos1 = BlockVector3.at(x, y, z);
+            BlockVector3 pos2 = i % 4 == 0 ? pos1 : pos1.add(random.nextInt(300), random.nextInt(100), random.nextInt(300));
+            UUID player = i % 3 == 0 ? null : PLAYERS[random.nextInt(PLAYERS.length)];
+            long minTime = i % 2 == 0 ? 0 : (now - random.nextInt(1000)) * 1000;
+
+            Set<String> expected = new HashSet<>();
+            for (Edit edit : edits) {
+                if ((player == null || edit.player.equals(player)) && edit.time > minTime / 1000
+                        && edit.x2 >= pos1.x() && edit.x1 <= pos2.x()
+                        && edit.z2 >= pos1.z() && edit.z1 <= pos2.z()
+                        && edit.y2 >= pos1.y() && edit.y1 <= pos2.y()) {
+                    expected.add(edit.player + "/" + edit.id);
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            for (Supplier<RollbackOptimizedHistory> supplier : database.getEdits(player, minTime, pos1, pos2, false,
+                    random.nextBoolean())) {
+                RollbackOptimizedHistory history = supplier.get();
+                actual.add(history.getUUID() + "/" + history.getIndex());
+            }
+            assertEquals(expected.size(), actual.size(), "edits within " + pos1 + " " + pos2);
+            assertEquals(expected, new HashSet<>(actual), "edits within " + pos1 + " " + pos2);
+        }
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+
+    private record Edit(UUID player, int id, long time, int x1, int x2, int y1, int y2, int z1, int z2) {
+
+        Edit shiftX(int offset) {
+            return new Edit(player, id, time, x1 + offset, x2 + offset, y1, y2, z1, z2);
+        }
+
+    }
+
+    /**
+     * Runs database tasks on the calling thread, as there is no queue handler to run them on.
+     */
+    private static class SynchronousRollbackDatabase extends RollbackDatabase {
+
+        SynchronousRollbackDatabase(World world) throws SQLException, ClassNotFoundException {
+            super(world);
+        }
+
+        @Override
+        public <T> Future<T> call(Callable<T> task) {
+            try {
+                return CompletableFuture.completedFuture(task.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.fastasyncworldedit.core.extent.clipboard;
+
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiskOptimizedClipboardTest {
+
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 20;
+    private static final int LENGTH = 36;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUp() {
+        BundledRegistryPlatform.register();
+    }
+
+    /**
+     * Ordinal expected at a position: an all-air region, a region of a few states, and a region with more states than fit in
+     * an 8 bit palette.
+     */
+    private static int expectedOrdinal(int x, int y, int z) {
+        if (x < 16) {
+            return BlockTypesCache.ReservedIDs.AIR;
+        }
+        if (x < 32) {
+            return 2 + ((x + y + z) & 3);
+        }
+        return 1 + (x * 31 + y * 17 + z * 7) % 600;
+    }
+
+    private static void fill(DiskOptimizedClipboard clipboard) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < LENGTH; z++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    clipboard.setBlock(x, y, z, BlockState.getFromOrdinal(expectedOrdinal(x, y, z)));
+                }
+            }
+        }
+    }
+
+    private static void assertContents(DiskOptimizedClipboard clipboard) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < LENGTH; z++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals(
+                            expectedOrdinal(x, y, z),
+                            clipboard.getBlock(x, y, z).getOrdinal(),
+                            "block at %d %d %d".formatted(x, y, z)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void sectionedRoundTrip() {
+        File file = directory.resolve("roundtrip.bd").toFile();
+        DiskOptimizedClipboard clipboard = new DiskOptimizedClipboard(BlockVector3.at(WIDTH, HEIGHT, LENGTH), file);
+        fill(clipboard);
+        assertContents(clipboard);
+        clipboard.close();
+
+        DiskOptimizedClipboard loaded = DiskOptimizedClipboard.loadFromFile(file);
+        try {
+            assertContents(loaded);
+        } finally {
+            loaded.close();
+        }
+    }
+
+    @Test
+    void airDoesNotAllocateSections() {
+        File untouched = directory.resolve("untouched.bd").toFile();
+        new DiskOptimizedClipboard(BlockVector3.at(WIDTH, HEIGHT, LENGTH), untouched).close();
+
+        File air = directory.resolve("air.bd").toFile();
+        DiskOptimizedClipboard clipboard = new DiskOptimizedClipboard(BlockVector3.at(WIDTH, HEIGHT, LENGTH), air);
+        BlockState airState = BlockTypes.AIR.getDefaultState();
+        for (int i = 0; i < WIDTH * HEIGHT * LENGTH; i++) {
+            if ((i & 1) == 0) {
+                clipboard.setBlock(i, airState);
+            } else {
+                clipboard.setBlock(i % WIDTH, i / (WIDTH * LENGTH), (i / WIDTH) % LENGTH, airState);
+            }
+        }
+        // The reserved ordinal is stored as air by both overloads
+        clipboard.setBlock(0, BlockState.getFromOrdinal(BlockTypesCache.ReservedIDs.__RESERVED__));
+        clipboard.setBlock(1, 0, 0, BlockState.getFromOrdinal(BlockTypesCache.ReservedIDs.__RESERVED__));
+        assertEquals(BlockTypesCache.ReservedIDs.AIR, clipboard.getBlock(0, 0, 0).getOrdinal());
+        assertEquals(BlockTypesCache.ReservedIDs.AIR, clipboard.getBlock(1, 0, 0).getOrdinal());
+        clipboard.close();
+
+        assertEquals(untouched.length(), air.length());
+    }
+
+    @Test
+    void concurrentWritersToDifferentSections() throws Exception {
+        File file = directory.resolve("concurrent.bd").toFile();
+        DiskOptimizedClipboard clipboard = new DiskOptimizedClipboard(BlockVector3.at(WIDTH, HEIGHT, LENGTH), file);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            // One task per 16 block wide column of sections, each growing its sections through every palette size
+            for (int sectionZ = 0; sectionZ < LENGTH; sectionZ += 16) {
+                for (int sectionX = 0; sectionX < WIDTH; sectionX += 16) {
+                    int minX = sectionX;
+                    int minZ = sectionZ;
+                    futures.add(pool.submit(() -> {
+                        for (int y = 0; y < HEIGHT; y++) {
+                            for (int z = minZ; z < Math.min(LENGTH, minZ + 16); z++) {
+                                for (int x = minX; x < Math.min(WIDTH, minX + 16); x++) {
+                                    clipboard.setBlock(x, y, z, BlockState.getFromOrdinal(expectedOrdinal(x, y, z)));
+                                }
+                            }
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertContents(clipboard);
+        clipboard.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void loadsUnsectionedVersions(int version) throws IOException {
+        File file = directory.resolve("v" + version + ".bd").toFile();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeChar(0);
+            out.writeChar(version);
+            out.writeChar(WIDTH);
+            out.writeChar(HEIGHT);
+            out.writeChar(LENGTH);
+            // Origin and offset
+            for (int i = 0; i < 6; i++) {
+                out.writeShort(0);
+            }
+            if (version == 3) {
+                // No biomes, tile entities or entities
+                out.writeByte(0);
+                out.writeChar(0);
+                out.writeChar(0);
+            }
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int z = 0; z < LENGTH; z++) {
+                    for (int x = 0; x < WIDTH; x++) {
+                        out.writeInt(expectedOrdinal(x, y, z));
+                    }
+                }
+            }
+        }
+
+        DiskOptimizedClipboard clipboard = DiskOptimizedClipboard.loadFromFile(file);
+        try {
+            assertEquals(BlockVector3.at(WIDTH, HEIGHT, LENGTH), clipboard.getDimensions());
+            assertContents(clipboard);
+        } finally {
+            clipboard.close();
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+package com.fastasyncworldedit.core.extent.processor.lighting;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder;
+import com.fastasyncworldedit.core.util.MathMan;
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.mockito.Answers;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Relighting tiles in parallel waves must light blocks like relighting them one after another, only use chunks while the
+ * queue is disabled, and submit each chunk once no remaining tile can reach it.
+ */
+// Tests change the global queue settings
+@Isolated
+@Execution(ExecutionMode.SAME_THREAD)
+class NMSRelighterTest {
+
+    private static final int MIN_Y = 0;
+    private static final int MAX_Y = 63;
+    // Light sources are a cell apart, so the light of two sources never meets and the order tiles are relit in does not matter
+    private static final int CELL = 32;
+    private static final int CELLS = 6;
+
+    private ExecutorService pool;
+    private int threads;
+
+    @BeforeAll
+    static void setUpRegistry() {
+        BundledRegistryPlatform.register();
+    }
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        threads = Settings.settings().QUEUE.PARALLEL_THREADS;
+        Settings.settings().QUEUE.PARALLEL_THREADS = 4;
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        Settings.settings().QUEUE.PARALLEL_THREADS = threads;
+    }
+
+    @Test
+    void parallelWavesLightLikeSequentialRelighting() {
+        LightWorld sequential = new LightWorld();
+        LightWorld parallel = new LightWorld();
+        NMSRelighter sequentialRelighter = sequential.relighter(null);
+        NMSRelighter parallelRelighter = parallel.relighter(pool);
+
+        Random random = new Random(0x5EED);
+        List<BlockVector3> sources = new ArrayList<>();
+        for (int cellX = -CELLS; cellX < CELLS; cellX++) {
+            for (int cellZ = -CELLS; cellZ < CELLS; cellZ++) {
+                sources.add(BlockVector3.at(cellX * CELL + 12, 4 + random.nextInt(56), cellZ * CELL + 12));
+            }
+        }
+        // Obstacles to light, placed the same in both worlds
+        for (int i = 0; i < 20000; i++) {
+            BlockVector3 position = BlockVector3.at(
+                    random.nextInt(CELLS * CELL * 2) - CELLS * CELL,
+                    random.nextInt(MAX_Y + 1),
+                    random.nextInt(CELLS * CELL * 2) - CELLS * CELL
+            );
+            BlockState obstacle = switch (random.nextInt(4)) {
+                case 0 -> BlockTypes.STONE.getDefaultState();
+                case 1 -> BlockTypes.GLASS.getDefaultState();
+                case 2 -> BlockTypes.SANDSTONE_SLAB.getDefaultState();
+                default -> BlockTypes.SANDSTONE_STAIRS.getDefaultState();
+            };
+            sequential.set(position, obstacle);
+            parallel.set(position, obstacle);
+        }
+        for (BlockVector3 source : sources) {
+            sequential.set(source, BlockTypes.GLOWSTONE.getDefaultState());
+            parallel.set(source, BlockTypes.GLOWSTONE.getDefaultState());
+            sequentialRelighter.addLightUpdate(source.x(), source.y(), source.z());
+            parallelRelighter.addLightUpdate(source.x(), source.y(), source.z());
+        }
+        sequentialRelighter.fixBlockLighting();
+        parallelRelighter.fixBlockLighting();
+        assertSameLight(sequential, parallel);
+        parallel.assertSubmittedOnce();
+        for (BlockVector3 source : sources) {
+            assertEquals(15, parallel.light(source), "light of source at " + source);
+        }
+
+        // Move every other source, removing its light and spreading light from where it is moved to
+        parallel.submitted.clear();
+        parallel.used.clear();
+        for (int i = 0; i < sources.size(); i += 2) {
+            BlockVector3 from = sources.get(i);
+            BlockVector3 to = from.add(3, 0, 2);
+            for (LightWorld world : List.of(sequential, parallel)) {
+                world.set(from, BlockTypes.AIR.getDefaultState());
+                world.set(to, BlockTypes.GLOWSTONE.getDefaultState());
+            }
+            for (NMSRelighter relighter : List.of(sequentialRelighter, parallelRelighter)) {
+                relighter.addLightUpdate(from.x(), from.y(), from.z());
+                relighter.addLightUpdate(to.x(), to.y(), to.z());
+            }
+        }
+        sequentialRelighter.fixBlockLighting();
+        parallelRelighter.fixBlockLighting();
+        assertSameLight(sequential, parallel);
+        parallel.assertSubmittedOnce();
+        for (int i = 0; i < sources.size(); i += 2) {
+            assertTrue(parallel.light(sources.get(i)) < 15, "light of removed source at " + sources.get(i));
+            assertEquals(15, parallel.light(sources.get(i).add(3, 0, 2)), "light of moved source at " + sources.get(i));
+        }
+
+        assertEquals(0, sequential.usedWhileQueued.get());
+        assertEquals(0, parallel.usedWhileQueued.get());
+        assertTrue(parallel.usedByWorkers.get() > 0, "tiles were not relit in parallel");
+    }
+
+    private static void assertSameLight(LightWorld expected, LightWorld actual) {
+        Set<Long> chunks = new HashSet<>(expected.light.keySet());
+        chunks.addAll(actual.light.keySet());
+        int lit = 0;
+        for (long chunk : chunks) {
+            byte[] expectedLight = expected.light.getOrDefault(chunk, new byte[LightWorld.CHUNK_VOLUME]);
+            byte[] actualLight = actual.light.getOrDefault(chunk, new byte[LightWorld.CHUNK_VOLUME]);
+            assertArrayEquals(
+                    expectedLight,
+                    actualLight,
+                    "light of chunk " + MathMan.unpairIntX(chunk) + "," + MathMan.unpairIntY(chunk)
+            );
+            for (byte level : actualLight) {
+                if (level > 0) {
+                    lit++;
+                }
+            }
+        }
+        assertTrue(lit > 0, "nothing was lit");
+    }
+
+    /**
+     * Blocks and block light of chunks created on demand, through a queue that records how chunks are used.
+     */
+    private static final class LightWorld {
+
+        private static final int CHUNK_VOLUME = 16 * 16 * (MAX_Y - MIN_Y + 1);
+
+        private final Map<BlockVector3, BlockState> blocks = new ConcurrentHashMap<>();
+        private final Map<Long, byte[]> light = new ConcurrentHashMap<>();
+        private final Map<Long, ChunkHolder<?>> chunks = new ConcurrentHashMap<>();
+        private final Map<ChunkHolder<?>, Long> keys = new ConcurrentHashMap<>();
+        private final Set<Long> used = ConcurrentHashMap.newKeySet();
+        private final List<Long> submitted = new ArrayList<>();
+        private final AtomicBoolean queueEnabled = new AtomicBoolean(true);
+        private final AtomicInteger usedWhileQueued = new AtomicInteger();
+        private final AtomicInteger usedByWorkers = new AtomicInteger();
+        private final Thread owner = Thread.currentThread();
+
+        @SuppressWarnings("unchecked")
+        private NMSRelighter relighter(@Nullable ExecutorService pool) {
+            IQueueExtent<IQueueChunk<?>> queue = mock(IQueueExtent.class);
+            doAnswer(invocation -> MIN_Y).when(queue).getMinY();
+            doAnswer(invocation -> MAX_Y).when(queue).getMaxY();
+            doAnswer(invocation -> queueEnabled.get()).when(queue).isQueueEnabled();
+            doAnswer(invocation -> {
+                queueEnabled.set(true);
+                return null;
+            }).when(queue).enableQueue();
+            doAnswer(invocation -> {
+                queueEnabled.set(false);
+                return null;
+            }).when(queue).disableQueue();
+            doAnswer(invocation -> {
+                int chunkX = invocation.getArgument(0);
+                int chunkZ = invocation.getArgument(1);
+                if (Thread.currentThread() != owner) {
+                    usedByWorkers.incrementAndGet();
+                    // Another thread may submit chunks in use while the queue is enabled
+                    if (queueEnabled.get()) {
+                        usedWhileQueued.incrementAndGet();
+                    }
+                }
+                long key = MathMan.pairInt(chunkX, chunkZ);
+                used.add(key);
+                return chunks.computeIfAbsent(key, k -> chunk(chunkX, chunkZ));
+            }).when(queue).getOrCreateChunk(anyInt(), anyInt());
+            doAnswer(invocation -> {
+                synchronized (submitted) {
+                    submitted.add(keys.get(invocation.<ChunkHolder<?>>getArgument(0)));
+                }
+                return null;
+            }).when(queue).submit(any());
+            return new NMSRelighter(queue, RelightMode.ALL) {
+                @Override
+                ExecutorService getRelightPool() {
+                    return pool;
+                }
+            };
+        }
+
+        // Answers the methods the relighter uses, from the blocks and light of this world
+        private ChunkHolder<?> chunk(int chunkX, int chunkZ) {
+            long key = MathMan.pairInt(chunkX, chunkZ);
+            byte[] levels = light.computeIfAbsent(key, k -> new byte[CHUNK_VOLUME]);
+            ChunkHolder<?> chunk = mock(ChunkHolder.class, invocation -> {
+                Object[] args = invocation.getArguments();
+                return switch (invocation.getMethod().getName()) {
+                    case "isInit" -> true;
+                    case "getBlock" -> get((chunkX << 4) + (int) args[0], (int) args[1], (chunkZ << 4) + (int) args[2]);
+                    case "getBrightness" -> get((chunkX << 4) + (int) args[0], (int) args[1], (chunkZ << 4) + (int) args[2])
+                            .getMaterial()
+                            .getLightValue();
+                    case "getEmittedLight" -> (int) levels[index((int) args[0], (int) args[1], (int) args[2])];
+                    case "setBlockLight" -> {
+                        levels[index((int) args[0], (int) args[1], (int) args[2])] = (byte) (int) args[3];
+                        yield null;
+                    }
+                    default -> Answers.RETURNS_DEFAULTS.answer(invocation);
+                };
+            });
+            keys.put(chunk, key);
+            return chunk;
+        }
+
+        private static int index(int x, int y, int z) {
+            return (y - MIN_Y) << 8 | z << 4 | x;
+        }
+
+        private BlockState get(int x, int y, int z) {
+            return blocks.getOrDefault(BlockVector3.at(x, y, z), BlockTypes.AIR.getDefaultState());
+        }
+
+        private void set(BlockVector3 position, BlockState block) {
+            blocks.put(position, block);
+        }
+
+        private int light(BlockVector3 position) {
+            byte[] levels = light.get(MathMan.pairInt(position.x() >> 4, position.z() >> 4));
+            return levels == null ? 0 : levels[index(position.x() & 15, position.y(), position.z() & 15)];
+        }
+
+        private void assertSubmittedOnce() {
+            assertEquals(new HashSet<>(submitted).size(), submitted.size(), "chunks submitted more than once");
+            assertTrue(submitted.containsAll(used), "chunks used but not submitted");
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.fastasyncworldedit.core.function.mask;
+
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tracing must find the same block as {@link MaskedTargetBlock} whenever sampling the ray visits the same blocks, and may only
+ * differ where sampling skips a block the ray clips.
+ */
+class MaskedRayTraceTest {
+
+    private static final int MIN_Y = 0;
+    private static final int MAX_Y = 31;
+    private static final int MAX_DISTANCE = 40;
+    // Small enough that sampling rarely skips a block
+    private static final double CHECK_DISTANCE = 0.001;
+    private static final int RAYS = 400;
+
+    private static World world;
+
+    @BeforeAll
+    static void setUp() {
+        // Targeting creates block masks, which read the block registry
+        BundledRegistryPlatform.register();
+        world = mock(World.class);
+        when(world.getMinY()).thenReturn(MIN_Y);
+        when(world.getMaxY()).thenReturn(MAX_Y);
+    }
+
+    // Scattered blocks within a fixed area, so that rays hit blocks, leave the area or reach the height bounds
+    private static boolean solid(BlockVector3 position) {
+        int x = position.x();
+        int y = position.y();
+        int z = position.z();
+        if (Math.abs(x) > 32 || Math.abs(z) > 32 || y < MIN_Y || y > MAX_Y) {
+            return false;
+        }
+        return Math.floorMod(x * 73856093 ^ y * 19349663 ^ z * 83492791, 100) < 3;
+    }
+
+    @Test
+    void randomRaysMatchTargetBlock() {
+        Random random = new Random(0x5EED);
+        int same = 0;
+        for (int i = 0; i < RAYS; i++) {
+            Location location = new Location(
+                    world,
+                    Vector3.at(random.nextDouble() * 16 - 8, 2 + random.nextDouble() * 22, random.nextDouble() * 16 - 8),
+                    random.nextFloat() * 360,
+                    random.nextFloat() * 180 - 90
+            );
+            for (boolean useLastBlock : new boolean[]{true, false}) {
+                if (compare(location, MaskedRayTraceTest::solid, CHECK_DISTANCE, useLastBlock)) {
+                    same++;
+                }
+            }
+        }
+        assertTrue(same > RAYS, "sampling visited the same blocks for only " + same + " of " + RAYS * 2 + " traces");
+    }
+
+    @Test
+    void raysLeavingHeightBoundsMatchTargetBlock() {
+        // Columns without any block, straight and at an angle
+        Location down = new Location(world, Vector3.at(100.5, 10, 100.5), 0, 90);
+        assertTrue(compare(down, MaskedRayTraceTest::solid, CHECK_DISTANCE, true));
+        // Ends at the first block below the minimum height once it has been reached
+        assertEquals(BlockVector3.at(100, MIN_Y - 1, 100), trace(down, MaskedRayTraceTest::solid, true));
+
+        Location up = new Location(world, Vector3.at(100.5, 20, 100.5), 0, -90);
+        assertTrue(compare(up, MaskedRayTraceTest::solid, CHECK_DISTANCE, true));
+        assertTrue(compare(up, MaskedRayTraceTest::solid, CHECK_DISTANCE, false));
+        // The last block is the last one within the height bounds
+        assertEquals(BlockVector3.at(100, MAX_Y, 100), trace(up, MaskedRayTraceTest::solid, true));
+        assertNull(trace(up, MaskedRayTraceTest::solid, false));
+
+        for (float pitch : new float[]{-30, -5, 5, 30, 60}) {
+            Location angled = new Location(world, Vector3.at(100.5, 15, 100.5), 20, pitch);
+            compare(angled, MaskedRayTraceTest::solid, CHECK_DISTANCE, true);
+            compare(angled, MaskedRayTraceTest::solid, CHECK_DISTANCE, false);
+        }
+    }
+
+    @Test
+    void clippedCornerIsOnlyFoundByTrace() {
+        // The ray crosses z = 1 just before x = 1, passing through the corner of the block at 0 11 1 for about 0.012 blocks
+        Location location = new Location(world, Vector3.at(0.5, 10, 0.5), -44.5f, 0);
+        BlockVector3 corner = BlockVector3.at(0, 11, 1);
+        Predicate<BlockVector3> solid = corner::equals;
+        assertEquals(corner, trace(location, solid, false));
+        assertNull(target(location, new RecordingMask(solid), 0.2, false));
+        assertFalse(compare(location, solid, 0.2, false));
+    }
+
+    /**
+     * Compare the trace of a location against sampling it.
+     *
+     * @return true if both visited the same blocks, in which case they found the same block
+     */
+    private static boolean compare(Location location, Predicate<BlockVector3> solid, double checkDistance, boolean useLastBlock) {
+        RecordingMask traced = new RecordingMask(solid);
+        BlockVector3 actual = new MaskedRayTrace(traced, extent()).trace(location, MAX_DISTANCE, useLastBlock);
+        RecordingMask sampled = new RecordingMask(solid);
+        BlockVector3 expected = target(location, sampled, checkDistance, useLastBlock);
+        if (traced.tested.equals(sampled.tested)) {
+            assertEquals(expected, actual, "trace from " + location + (useLastBlock ? " using the last block" : ""));
+            return true;
+        }
+        // Sampling skipped a block the trace visited, either clipped in passing or entered just before the maximum distance
+        int i = 0;
+        while (i < traced.tested.size() && i < sampled.tested.size() && traced.tested.get(i).equals(sampled.tested.get(i))) {
+            i++;
+        }
+        assertTrue(i < traced.tested.size(), "sampling visited blocks after the end of the trace from " + location);
+        assertFalse(sampled.tested.contains(traced.tested.get(i)), "trace from " + location + " skipped a block");
+        return false;
+    }
+
+    @Nullable
+    private static BlockVector3 trace(Location location, Predicate<BlockVector3> solid, boolean useLastBlock) {
+        return new MaskedRayTrace(new RecordingMask(solid), extent()).trace(location, MAX_DISTANCE, useLastBlock);
+    }
+
+    @Nullable
+    private static BlockVector3 target(Location location, Mask mask, double checkDistance, boolean useLastBlock) {
+        Player player = mock(Player.class);
+        when(player.getWorld()).thenReturn(world);
+        when(player.getLocation()).thenReturn(location);
+        Location target = new MaskedTargetBlock(mask, player, MAX_DISTANCE, checkDistance).getMaskedTargetBlock(useLastBlock);
+        return target == null ? null : target.toBlockPoint();
+    }
+
+    private static Extent extent() {
+        Extent extent = mock(Extent.class);
+        when(extent.getMinY()).thenReturn(MIN_Y);
+        when(extent.getMaxY()).thenReturn(MAX_Y);
+        return extent;
+    }
+
+    /**
+     * Records the blocks tested, in order.
+     */
+    private static class RecordingMask implements Mask {
+
+        private final Predicate<BlockVector3> solid;
+        private final List<BlockVector3> tested = new ArrayList<>();
+
+        private RecordingMask(Predicate<BlockVector3> solid) {
+            this.solid = solid;
+        }
+
+        @Override
+        public boolean test(BlockVector3 vector) {
+            BlockVector3 position = vector.toImmutable();
+            tested.add(position);
+            return solid.test(position);
+        }
+
+        @Override
+        public Mask copy() {
+            return new RecordingMask(solid);
+        }
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.fastasyncworldedit.core.history;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.history.change.MutableBlockChange;
+import com.fastasyncworldedit.core.util.TaskManager;
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Tests change the global history settings and share the global budget
+@Isolated
+@Execution(ExecutionMode.SAME_THREAD)
+class HistoryMemoryBudgetTest {
+
+    // Spills are run by the test once the history triggering them has been added, as they would be run asynchronously
+    private static final List<Runnable> QUEUED = new ArrayList<>();
+
+    private final HistoryMemoryBudget budget = HistoryMemoryBudget.get();
+    private int memoryBudget;
+
+    @BeforeAll
+    static void setUpTasks() {
+        BundledRegistryPlatform.register();
+        new QueueingTaskManager();
+    }
+
+    @BeforeEach
+    void setUp() {
+        memoryBudget = Settings.settings().HISTORY.MEMORY_BUDGET;
+        Settings.settings().HISTORY.MEMORY_BUDGET = 1;
+        QUEUED.clear();
+        assertEquals(0, budget.getUsed());
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.settings().HISTORY.MEMORY_BUDGET = memoryBudget;
+    }
+
+    private static World world() {
+        World world = mock(World.class);
+        when(world.getMinY()).thenReturn(-64);
+        when(world.getMaxY()).thenReturn(319);
+        return world;
+    }
+
+    private static void record(MemoryOptimizedHistory history) {
+        for (int chunk = 0; chunk < 8; chunk++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int bx = (chunk << 4) + x;
+                    int y = (x + z) & 7;
+                    history.add(bx, y, z, 1 + (bx * 31 + z * 7) % 500, 1 + (bx * 17 + y * 13 + z) % 500);
+                }
+            }
+        }
+    }
+
+    private static List<String> readUndo(MemoryOptimizedHistory history) throws Exception {
+        List<String> changes = new ArrayList<>();
+        Iterator<MutableBlockChange> iterator = history.getBlockIterator(false);
+        while (iterator.hasNext()) {
+            MutableBlockChange change = iterator.next();
+            changes.add(change.x + "," + change.y + "," + change.z + "=" + change.ordinal);
+        }
+        return changes;
+    }
+
+    private static void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(QUEUED);
+        QUEUED.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void historyPastBudgetIsSpilled() throws Exception {
+        MemoryOptimizedHistory history = new MemoryOptimizedHistory(world());
+        MemoryOptimizedHistory newer = new MemoryOptimizedHistory(world());
+        HistoryMemoryBudget.Entry filler = null;
+        try {
+            record(history);
+            history.close();
+            long size = budget.getUsed();
+            assertTrue(size > 0);
+            List<String> expected = readUndo(history);
+            assertFalse(expected.isEmpty());
+            assertEquals(0, history.getSizeOnDisk());
+
+            // A newer history filling the whole budget, so the older one is spilled
+            filler = budget.add(newer, budget.getLimit());
+            assertEquals(1, QUEUED.size());
+            // Stays accounted until spilled
+            assertEquals(size + budget.getLimit(), budget.getUsed());
+            runQueued();
+            assertEquals(budget.getLimit(), budget.getUsed());
+            assertTrue(history.getSizeOnDisk() > 0);
+            assertEquals(expected, readUndo(history));
+        } finally {
+            if (filler != null) {
+                budget.remove(filler);
+            }
+            history.delete();
+            newer.delete();
+        }
+        assertEquals(0, budget.getUsed());
+    }
+
+    @Test
+    void deletedHistoriesAreNoLongerAccounted() throws Exception {
+        MemoryOptimizedHistory first = new MemoryOptimizedHistory(world());
+        MemoryOptimizedHistory second = new MemoryOptimizedHistory(world());
+        record(first);
+        first.close();
+        record(second);
+        second.close();
+        assertTrue(budget.getUsed() > 0);
+        assertTrue(QUEUED.isEmpty());
+        first.delete();
+        second.delete();
+        assertEquals(0, budget.getUsed());
+        // Deleting again changes nothing
+        first.delete();
+        assertEquals(0, budget.getUsed());
+    }
+
+    @Test
+    void failedSpillIsAccountedAgain() throws Exception {
+        UnspillableHistory history = new UnspillableHistory(world());
+        MemoryOptimizedHistory newer = new MemoryOptimizedHistory(world());
+        MemoryOptimizedHistory newest = new MemoryOptimizedHistory(world());
+        HistoryMemoryBudget.Entry filler = null;
+        try {
+            record(history);
+            history.close();
+            long size = budget.getUsed();
+            assertTrue(size > 0);
+
+            filler = budget.add(newer, budget.getLimit());
+            runQueued();
+            assertEquals(1, history.attempts);
+            assertEquals(size + budget.getLimit(), budget.getUsed());
+            assertEquals(0, history.getSizeOnDisk());
+
+            // Accounted again as the newest, so only spilled again once the budget is exceeded again
+            budget.remove(filler);
+            filler = null;
+            assertEquals(size, budget.getUsed());
+            filler = budget.add(newest, budget.getLimit());
+            runQueued();
+            assertEquals(2, history.attempts);
+            assertEquals(size + budget.getLimit(), budget.getUsed());
+        } finally {
+            if (filler != null) {
+                budget.remove(filler);
+            }
+            history.delete();
+            newer.delete();
+            newest.delete();
+        }
+        assertEquals(0, budget.getUsed());
+    }
+
+    private static class UnspillableHistory extends MemoryOptimizedHistory {
+
+        private int attempts;
+
+        UnspillableHistory(World world) {
+            super(world);
+        }
+
+        @Override
+        synchronized boolean spill() {
+            attempts++;
+            return false;
+        }
+
+    }
+
+    private static class QueueingTaskManager extends TaskManager {
+
+        @Override
+        public int repeat(@Nonnull Runnable runnable, int interval) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int repeatAsync(@Nonnull Runnable runnable, int interval) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void async(@Nonnull Runnable runnable) {
+            QUEUED.add(runnable);
+        }
+
+        @Override
+        public void task(@Nonnull Runnable runnable) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void later(@Nonnull Runnable runnable, int delay) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void laterAsync(@Nonnull Runnable runnable, int delay) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancel(int task) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,361 @@
+package com.fastasyncworldedit.core.history.changeset;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.history.DiskStorageHistory;
+import com.fastasyncworldedit.core.history.MemoryOptimizedHistory;
+import com.fastasyncworldedit.core.history.change.MutableBlockChange;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Tests change the global history and queue settings
+@Isolated
+@Execution(ExecutionMode.SAME_THREAD)
+class FaweStreamChangeSetTest {
+
+    private static final int THREADS = 4;
+    private static final int CHUNKS_PER_THREAD = 12;
+    // More chunks than applyBlockChanges keeps pending at once
+    private static final int UNDO_CHUNKS = 80;
+    // Magic number of the block file of disk history ending with a frame index
+    private static final int INDEX_MAGIC = 0x46415749;
+
+    private int recordingShards;
+    private int targetSize;
+
+    @BeforeAll
+    static void setUpRegistry() {
+        BundledRegistryPlatform.register();
+    }
+
+    @BeforeEach
+    void setUp() {
+        recordingShards = Settings.settings().HISTORY.RECORDING_SHARDS;
+        Settings.settings().HISTORY.RECORDING_SHARDS = THREADS;
+        targetSize = Settings.settings().QUEUE.TARGET_SIZE;
+        // Merge the fewest sections at once when applying changes by section
+        Settings.settings().QUEUE.TARGET_SIZE = 1;
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.settings().HISTORY.RECORDING_SHARDS = recordingShards;
+        Settings.settings().QUEUE.TARGET_SIZE = targetSize;
+    }
+
+    private static World world() {
+        World world = mock(World.class);
+        when(world.getMinY()).thenReturn(-64);
+        when(world.getMaxY()).thenReturn(319);
+        return world;
+    }
+
+    // Record the changes of a chunk the way processSet does
+    private static void recordChunk(FaweStreamChangeSet changeSet, int chunkX, int chunkZ, int pass) {
+        while (true) {
+            Object lock = changeSet.getBlockLock(chunkX, chunkZ);
+            synchronized (lock) {
+                if (lock != changeSet.getBlockLock(chunkX, chunkZ)) {
+                    continue;
+                }
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int bx = (chunkX << 4) + x;
+                        int bz = (chunkZ << 4) + z;
+                        int y = (x + z) & 7;
+                        changeSet.add(bx, y, bz, ordinal(bx, y, bz, pass), ordinal(bx, y, bz, pass + 1));
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private static int ordinal(int x, int y, int z, int pass) {
+        return 1 + Math.floorMod(x * 31 + y * 17 + z * 7 + pass * 101, 500);
+    }
+
+    private static Map<BlockVector3, List<Integer>> readRedo(FaweStreamChangeSet changeSet) throws Exception {
+        return readRedo(changeSet, null);
+    }
+
+    private static Map<BlockVector3, List<Integer>> readRedo(FaweStreamChangeSet changeSet, Region[] regions) throws Exception {
+        Map<BlockVector3, List<Integer>> changes = new HashMap<>();
+        Iterator<MutableBlockChange> iterator = changeSet.getBlockIterator(true, regions);
+        while (iterator.hasNext()) {
+            MutableBlockChange change = iterator.next();
+            changes.computeIfAbsent(BlockVector3.at(change.x, change.y, change.z), k -> new ArrayList<>()).add(change.ordinal);
+        }
+        return changes;
+    }
+
+    private static void assertRecorded(Map<BlockVector3, List<Integer>> changes, int chunkCount) {
+        assertEquals(chunkCount * 256, changes.size());
+        for (Map.Entry<BlockVector3, List<Integer>> entry : changes.entrySet()) {
+            BlockVector3 pos = entry.getKey();
+            // Both passes over a position are read in the order they were recorded, redo reads the new blocks
+            assertEquals(
+                    List.of(ordinal(pos.x(), pos.y(), pos.z(), 2), ordinal(pos.x(), pos.y(), pos.z(), 3)),
+                    entry.getValue(),
+                    pos.toString()
+            );
+        }
+    }
+
+    @Test
+    void singleRecorderUsesOneSegment() throws Exception {
+        MemoryOptimizedHistory history = new MemoryOptimizedHistory(world());
+        try {
+            for (int pass = 1; pass <= 2; pass++) {
+                for (int chunk = 0; chunk < CHUNKS_PER_THREAD; chunk++) {
+                    recordChunk(history, chunk, -chunk, pass);
+                }
+            }
+            history.close();
+            assertEquals(1, ((FaweStreamChangeSet) history).getBlockSegmentCount());
+            assertRecorded(readRedo(history), CHUNKS_PER_THREAD);
+        } finally {
+            history.delete();
+        }
+    }
+
+    @Test
+    void concurrentRecordersRoundTrip() throws Exception {
+        MemoryOptimizedHistory history = new MemoryOptimizedHistory(world());
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread * CHUNKS_PER_THREAD;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int pass = 1; pass <= 2; pass++) {
+                        for (int chunk = offset; chunk < offset + CHUNKS_PER_THREAD; chunk++) {
+                            recordChunk(history, chunk, chunk >> 2, pass);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            history.close();
+            assertTrue(((FaweStreamChangeSet) history).getBlockSegmentCount() > 1);
+            assertRecorded(readRedo(history), THREADS * CHUNKS_PER_THREAD);
+        } finally {
+            pool.shutdownNow();
+            history.delete();
+        }
+    }
+
+    // Apply changes block by block, in the order read, as the per-block undo and redo do
+    private static Map<BlockVector3, Integer> applyPerBlock(FaweStreamChangeSet changeSet, boolean redo) throws Exception {
+        Map<BlockVector3, Integer> world = new HashMap<>();
+        Iterator<MutableBlockChange> iterator = changeSet.getBlockIterator(redo);
+        while (iterator.hasNext()) {
+            MutableBlockChange change = iterator.next();
+            world.put(BlockVector3.at(change.x, change.y, change.z), change.ordinal);
+        }
+        return world;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<BlockVector3, Integer> applyBySection(FaweStreamChangeSet changeSet, boolean redo) {
+        Map<BlockVector3, Integer> world = new HashMap<>();
+        IQueueExtent<IQueueChunk> extent = mock(IQueueExtent.class);
+        doCallRealMethod().when(extent).mergeSections(any(Long2ObjectMap.class), anyInt());
+        doAnswer(invocation -> {
+            int chunkX = invocation.getArgument(0);
+            int chunkZ = invocation.getArgument(1);
+            int[][] sections = invocation.getArgument(2);
+            int minSection = invocation.getArgument(3);
+            for (int layer = 0; layer < sections.length; layer++) {
+                if (sections[layer] == null) {
+                    continue;
+                }
+                for (int index = 0; index < 4096; index++) {
+                    int ordinal = sections[layer][index];
+                    if (ordinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                        BlockVector3 pos = BlockVector3.at(
+                                (chunkX << 4) + (index & 15),
+                                ((layer + minSection) << 4) + (index >> 8),
+                                (chunkZ << 4) + ((index >> 4) & 15)
+                        );
+                        // Each position is set at most once
+                        assertNull(world.put(pos, ordinal), pos.toString());
+                    }
+                }
+            }
+            return null;
+        }).when(extent).mergeSections(anyInt(), anyInt(), any(int[][].class), anyInt());
+        changeSet.applyBlockChanges(extent, redo);
+        return world;
+    }
+
+    @Test
+    void undoBySectionMatchesPerBlockUndo() throws Exception {
+        MemoryOptimizedHistory history = new MemoryOptimizedHistory(world());
+        try {
+            for (int chunk = 0; chunk < UNDO_CHUNKS; chunk++) {
+                recordChunk(history, chunk % 9, chunk / 9, 1);
+            }
+            history.close();
+            Map<BlockVector3, Integer> undo = applyPerBlock(history, false);
+            assertEquals(UNDO_CHUNKS * 256, undo.size());
+            assertEquals(undo, applyBySection(history, false));
+            assertEquals(applyPerBlock(history, true), applyBySection(history, true));
+        } finally {
+            history.delete();
+        }
+    }
+
+    @Test
+    void undoBySectionRestoresFirstState() {
+        MemoryOptimizedHistory history = new MemoryOptimizedHistory(world());
+        try {
+            // The second pass reads chunks again after their sections of the first pass were merged
+            for (int pass = 1; pass <= 2; pass++) {
+                for (int chunk = 0; chunk < UNDO_CHUNKS; chunk++) {
+                    recordChunk(history, chunk % 9, chunk / 9, pass);
+                }
+            }
+            Map<BlockVector3, Integer> undo = applyBySection(history, false);
+            Map<BlockVector3, Integer> redo = applyBySection(history, true);
+            assertEquals(UNDO_CHUNKS * 256, undo.size());
+            for (Map.Entry<BlockVector3, Integer> entry : undo.entrySet()) {
+                BlockVector3 pos = entry.getKey();
+                assertEquals(ordinal(pos.x(), pos.y(), pos.z(), 1), entry.getValue(), pos.toString());
+                assertEquals(ordinal(pos.x(), pos.y(), pos.z(), 3), redo.get(pos), pos.toString());
+            }
+        } finally {
+            history.delete();
+        }
+    }
+
+    private static void recordDiskHistory(File folder, int chunkCount) throws Exception {
+        DiskStorageHistory history = new DiskStorageHistory(folder, world(), UUID.randomUUID(), 0);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            recordChunk(history, chunk % 9, chunk / 9, 1);
+        }
+        history.close();
+    }
+
+    // Read the files again, as a later undo would
+    private static DiskStorageHistory openDiskHistory(File folder) {
+        return new DiskStorageHistory(folder, world(), UUID.randomUUID(), 0);
+    }
+
+    // The offset of the frame index, from the footer at the end of the block file
+    private static long indexOffset(File bdFile) throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(bdFile, "r")) {
+            file.seek(file.length() - 16);
+            file.readInt();
+            long offset = file.readLong();
+            assertEquals(INDEX_MAGIC, file.readInt());
+            return offset;
+        }
+    }
+
+    @Test
+    void indexedDiskHistoryOnlyReadsFramesWithinRegions(@TempDir File folder) throws Exception {
+        recordDiskHistory(folder, UNDO_CHUNKS);
+        DiskStorageHistory history = openDiskHistory(folder);
+        assertTrue(indexOffset(history.getBDFile()) > 0);
+        assertTrue(((FaweStreamChangeSet) history).getBlockSegmentCount() > 1);
+
+        Map<BlockVector3, List<Integer>> all = readRedo(history);
+        assertEquals(UNDO_CHUNKS * 256, all.size());
+        CuboidRegion region = new CuboidRegion(BlockVector3.at(0, -64, 0), BlockVector3.at(31, 319, 15));
+        Map<BlockVector3, List<Integer>> within = readRedo(history, new Region[]{region});
+        // Frames outside the region are skipped, all changes within it are still read
+        assertTrue(within.size() < all.size());
+        for (Map.Entry<BlockVector3, List<Integer>> entry : all.entrySet()) {
+            if (region.contains(entry.getKey())) {
+                assertEquals(entry.getValue(), within.get(entry.getKey()), entry.getKey().toString());
+            }
+        }
+    }
+
+    @Test
+    void concurrentReadsOfDifferentRegionsAreIndependent(@TempDir File folder) throws Exception {
+        recordDiskHistory(folder, UNDO_CHUNKS);
+        DiskStorageHistory history = openDiskHistory(folder);
+        Region[] regions = {new CuboidRegion(BlockVector3.at(0, -64, 0), BlockVector3.at(15, 319, 15))};
+        Iterator<MutableBlockChange> within = history.getBlockIterator(true, regions);
+        Iterator<MutableBlockChange> all = history.getBlockIterator(true);
+        int withinCount = 0;
+        int allCount = 0;
+        // Interleave both readers, the region of one must not restrict the other
+        while (within.hasNext() || all.hasNext()) {
+            if (within.hasNext()) {
+                within.next();
+                withinCount++;
+            }
+            if (all.hasNext()) {
+                all.next();
+                allCount++;
+            }
+        }
+        assertEquals(UNDO_CHUNKS * 256, allCount);
+        assertTrue(withinCount >= 256 && withinCount < allCount);
+    }
+
+    @Test
+    void diskHistoryWithoutIndexIsReadWhole(@TempDir File folder) throws Exception {
+        // A single frame without the index following it is a block file of a single compressed stream
+        recordDiskHistory(folder, 1);
+        File bdFile = openDiskHistory(folder).getBDFile();
+        long indexOffset = indexOffset(bdFile);
+        try (RandomAccessFile file = new RandomAccessFile(bdFile, "rw")) {
+            file.setLength(indexOffset);
+        }
+        DiskStorageHistory history = openDiskHistory(folder);
+        assertEquals(1, ((FaweStreamChangeSet) history).getBlockSegmentCount());
+        Region[] regions = {new CuboidRegion(BlockVector3.at(1000, 0, 1000), BlockVector3.at(1001, 0, 1001))};
+        // Without an index nothing can be skipped
+        assertEquals(256, readRedo(history).size());
+        assertEquals(256, readRedo(history, regions).size());
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadAheadInputStreamTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    // Reads single bytes and arrays of varying length until the end of the stream
+    private static byte[] readAll(InputStream in) throws IOException {
+        Random random = new Random(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3000];
+        while (true) {
+            if (random.nextInt(4) == 0) {
+                int b = in.read();
+                if (b == -1) {
+                    break;
+                }
+                out.write(b);
+            } else {
+                int read = in.read(buffer, 0, random.nextInt(buffer.length));
+                if (read == -1) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void readsEverything() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            byte[] data = data(1_000_003);
+            ClosingInputStream source = new ClosingInputStream(data);
+            try (InputStream in = new ReadAheadInputStream(source, 1000, 2)) {
+                assertArrayEquals(data, readAll(in));
+                assertEquals(-1, in.read());
+            }
+            assertTrue(source.closed);
+        });
+    }
+
+    @Test
+    void closingMidStreamStopsReading() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            byte[] data = data(1_000_000);
+            ClosingInputStream source = new ClosingInputStream(data);
+            ReadAheadInputStream in = new ReadAheadInputStream(source, 1000, 2);
+            byte[] start = new byte[1500];
+            assertEquals(1500, in.readNBytes(start, 0, start.length));
+            assertArrayEquals(Arrays.copyOf(data, 1500), start);
+            in.close();
+            assertTrue(source.closed);
+            // The reader stopped a few buffers ahead rather than reading the whole source
+            assertTrue(source.available() > 0);
+            assertEquals(-1, in.read());
+        });
+    }
+
+    @Test
+    void stoppingMidStreamLeavesSourceOpen() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            ClosingInputStream source = new ClosingInputStream(data(1_000_000));
+            ReadAheadInputStream in = new ReadAheadInputStream(source, 1000, 2);
+            in.read();
+            in.stop();
+            assertFalse(source.closed);
+            assertEquals(-1, in.read());
+        });
+    }
+
+    @Test
+    void failingSourceFailsConsumer() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            InputStream source = new FailingInputStream(data(5000), new IOException("truncated"));
+            try (InputStream in = new ReadAheadInputStream(source, 1000, 2)) {
+                IOException e = assertThrows(IOException.class, () -> readAll(in));
+                assertEquals("truncated", e.getMessage());
+            }
+        });
+    }
+
+    @Test
+    void uncheckedFailureOfSourceFailsConsumer() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            InputStream source = new FailingInputStream(data(5000), new IllegalStateException("corrupt"));
+            try (InputStream in = new ReadAheadInputStream(source, 1000, 2)) {
+                IOException e = assertThrows(IOException.class, () -> readAll(in));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        });
+    }
+
+    private static final class ClosingInputStream extends ByteArrayInputStream {
+
+        private volatile boolean closed;
+
+        private ClosingInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+    // Fails once its data was read
+    private static final class FailingInputStream extends InputStream {
+
+        private final ByteArrayInputStream data;
+        private final Exception failure;
+
+        private FailingInputStream(byte[] data, Exception failure) {
+            this.data = new ByteArrayInputStream(data);
+            this.failure = failure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (data.available() == 0) {
+                fail();
+            }
+            return data.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len > 0 && data.available() == 0) {
+                fail();
+            }
+            return data.read(b, off, len);
+        }
+
+        private void fail() throws IOException {
+            if (failure instanceof IOException e) {
+                throw e;
+            }
+            throw (RuntimeException) failure;
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The batch reader must decode the same values as {@link VarIntStreamIterator}.
+ */
+class VarIntBatchReaderTest {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    @Test
+    void readsMixedLengths() throws IOException {
+        Random random = new Random(0x5EED);
+        int[] values = new int[20000];
+        for (int i = 0; i < values.length; i++) {
+            // 1 to 5 bytes each
+            values[i] = switch (random.nextInt(5)) {
+                case 0 -> random.nextInt(1 << 7);
+                case 1 -> (1 << 7) + random.nextInt((1 << 14) - (1 << 7));
+                case 2 -> (1 << 14) + random.nextInt((1 << 21) - (1 << 14));
+                case 3 -> (1 << 21) + random.nextInt((1 << 28) - (1 << 21));
+                default -> random.nextBoolean() ? Integer.MAX_VALUE - random.nextInt(1000) : -1 - random.nextInt(1000);
+            };
+        }
+        assertReadsAsIterator(values, random);
+    }
+
+    @Test
+    void readsValuesAcrossRefills() throws IOException {
+        Random random = new Random(0x5EED);
+        // Puts a 1 to 5 byte value at each offset around the end of the buffer
+        for (int shift = 0; shift < 6; shift++) {
+            int[] values = new int[BUFFER_SIZE * 2];
+            Arrays.fill(values, 0, BUFFER_SIZE - 8 + shift, 1);
+            for (int i = BUFFER_SIZE - 8 + shift; i < values.length; i++) {
+                values[i] = Integer.MAX_VALUE >>> (7 * random.nextInt(5));
+            }
+            assertReadsAsIterator(values, random);
+        }
+    }
+
+    @Test
+    void readsSingleByteRuns() throws IOException {
+        Random random = new Random(0x5EED);
+        int[] values = new int[30000];
+        for (int i = 0; i < values.length; i++) {
+            // Mostly runs of single byte values, broken at random by longer ones
+            values[i] = random.nextInt(40) == 0 ? 128 + random.nextInt(1 << 20) : random.nextInt(128);
+        }
+        assertReadsAsIterator(values, random);
+        int[] run = new int[BUFFER_SIZE * 3 + 5];
+        for (int i = 0; i < run.length; i++) {
+            run[i] = i & 0x7F;
+        }
+        assertReadsAsIterator(run, random);
+    }
+
+    @Test
+    void truncatedVarIntThrows() throws IOException {
+        byte[] bytes = encode(new int[]{1, 2, 300});
+        // The last value is cut off after its first byte
+        VarIntBatchReader reader = new VarIntBatchReader(stream(bytes), bytes.length - 1);
+        assertThrows(IOException.class, () -> reader.read(new int[3], 0, 3));
+    }
+
+    @Test
+    void truncatedStreamThrows() throws IOException {
+        int[] values = new int[BUFFER_SIZE];
+        Arrays.fill(values, 5);
+        byte[] bytes = encode(values);
+        // The stream ends before the given length
+        VarIntBatchReader reader = new VarIntBatchReader(stream(Arrays.copyOf(bytes, bytes.length - 100)), bytes.length);
+        assertThrows(IOException.class, () -> {
+            int[] batch = new int[256];
+            while (reader.read(batch, 0, batch.length) > 0) {
+                // Drain
+            }
+        });
+    }
+
+    @Test
+    void oversizedVarIntThrows() {
+        byte[] bytes = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        VarIntBatchReader reader = new VarIntBatchReader(stream(bytes), bytes.length);
+        assertThrows(IOException.class, () -> reader.read(new int[1], 0, 1));
+    }
+
+    // Reads in batches of random size, so the word fast path starts at varying offsets and is cut short by the batch end
+    private static void assertReadsAsIterator(int[] values, Random random) throws IOException {
+        byte[] bytes = encode(values);
+        VarIntStreamIterator iterator = new VarIntStreamIterator(new ByteArrayInputStream(bytes), bytes.length);
+        int[] expected = new int[values.length];
+        int count = 0;
+        while (iterator.hasNext()) {
+            expected[count++] = iterator.nextInt();
+        }
+        assertEquals(values.length, count);
+        assertArrayEquals(values, expected);
+
+        VarIntBatchReader reader = new VarIntBatchReader(stream(bytes), bytes.length);
+        int[] actual = new int[values.length + 64];
+        int offset = 0;
+        int read;
+        while ((read = reader.read(actual, offset, 1 + random.nextInt(64))) > 0) {
+            offset += read;
+        }
+        assertEquals(values.length, offset);
+        assertArrayEquals(expected, Arrays.copyOf(actual, offset));
+    }
+
+    private static DataInputStream stream(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] encode(int[] values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int value : values) {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindOutputStreamTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    // Writes single bytes and arrays of varying length, so buffers are handed over both full and partly filled
+    private static void write(OutputStream out, byte[] data) throws IOException {
+        Random random = new Random(0);
+        int position = 0;
+        while (position < data.length) {
+            if (random.nextInt(4) == 0) {
+                out.write(data[position++]);
+            } else {
+                int length = Math.min(data.length - position, random.nextInt(3000));
+                out.write(data, position, length);
+                position += length;
+                if (random.nextInt(8) == 0) {
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesEverythingBeforeClosing() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            byte[] data = data(1_000_003);
+            ClosingOutputStream target = new ClosingOutputStream();
+            try (OutputStream out = new WriteBehindOutputStream(target, 1000, 2)) {
+                write(out, data);
+                assertFalse(target.closed);
+            }
+            assertTrue(target.closed);
+            assertArrayEquals(data, target.toByteArray());
+        });
+    }
+
+    @Test
+    void closingWithPartialBufferWritesIt() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            byte[] data = data(2500);
+            ClosingOutputStream target = new ClosingOutputStream();
+            OutputStream out = new WriteBehindOutputStream(target, 1000, 2);
+            out.write(data);
+            out.close();
+            // Closing again does nothing
+            out.close();
+            assertArrayEquals(data, target.toByteArray());
+        });
+    }
+
+    @Test
+    void failingTargetFailsProducer() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            IOException failure = new IOException("disk full");
+            OutputStream target = new FailingOutputStream(5000, failure);
+            IOException e = assertThrows(IOException.class, () -> {
+                try (OutputStream out = new WriteBehindOutputStream(target, 1000, 2)) {
+                    write(out, data(1_000_000));
+                }
+            });
+            assertSame(failure, e.getCause());
+        });
+    }
+
+    @Test
+    void uncheckedFailureOfTargetFailsProducer() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            RuntimeException failure = new IllegalStateException("encoder failed");
+            OutputStream target = new FailingOutputStream(5000, failure);
+            IOException e = assertThrows(IOException.class, () -> {
+                try (OutputStream out = new WriteBehindOutputStream(target, 1000, 2)) {
+                    write(out, data(1_000_000));
+                }
+            });
+            assertSame(failure, e.getCause());
+        });
+    }
+
+    private static final class ClosingOutputStream extends ByteArrayOutputStream {
+
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+    private static final class FailingOutputStream extends OutputStream {
+
+        private final int limit;
+        private final Exception failure;
+        private int written;
+
+        private FailingOutputStream(int limit, Exception failure) {
+            this.limit = limit;
+            this.failure = failure;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            written += len;
+            if (written > limit) {
+                if (failure instanceof IOException e) {
+                    throw e;
+                }
+                throw (RuntimeException) failure;
+            }
+        }
+
+    }
+
+}
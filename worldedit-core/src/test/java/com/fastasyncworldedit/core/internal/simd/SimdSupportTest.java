@@ -0,0 +1,226 @@
+package com.fastasyncworldedit.core.internal.simd;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.function.mask.InverseMask;
+import com.fastasyncworldedit.core.math.random.Linear3DRandom;
+import com.fastasyncworldedit.core.queue.IDelegateFilter;
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.function.mask.BlockMask;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vectorized block lookup masks must keep the same blocks as testing each block state, and vectorized random patterns must
+ * place their block states in proportion to their weights.
+ */
+// Tests change the global vector API setting
+@Isolated
+@Execution(ExecutionMode.SAME_THREAD)
+class SimdSupportTest {
+
+    private static final int SECTION_SIZE = 4096;
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private static int[] ordinals;
+
+    private final Random random = new Random(0x5EED);
+    private boolean useVectorApi;
+
+    @BeforeAll
+    static void setUpRegistry() {
+        BundledRegistryPlatform.register();
+        ordinals = IntStream.range(0, BlockTypesCache.states.length)
+                .filter(ordinal -> BlockTypesCache.states[ordinal] != null)
+                .toArray();
+    }
+
+    @BeforeEach
+    void setUp() {
+        useVectorApi = Settings.settings().EXPERIMENTAL.USE_VECTOR_API;
+        Settings.settings().EXPERIMENTAL.USE_VECTOR_API = true;
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.settings().EXPERIMENTAL.USE_VECTOR_API = useVectorApi;
+    }
+
+    @Test
+    void blockMaskMatchesStates() {
+        Predicate<BlockState> predicate = state -> state.getBlockType() == BlockTypes.STONE || state.getOrdinal() % 7 == 0;
+        BlockMask mask = new BlockMask(new NullExtent()).add(predicate);
+        assertMaskMatches(mask, predicate);
+        assertMaskMatches(new InverseMask(mask), predicate.negate());
+    }
+
+    @Test
+    void blockTypeMaskMatchesStates() {
+        Set<BlockType> types = Set.of(BlockTypes.STONE, BlockTypes.DIRT, BlockTypes.OAK_STAIRS, BlockTypes.AIR);
+        BlockTypeMask mask = new BlockTypeMask(new NullExtent(), types);
+        Predicate<BlockState> predicate = state -> types.contains(state.getBlockType());
+        assertMaskMatches(mask, predicate);
+        assertMaskMatches(new InverseMask(mask), predicate.negate());
+    }
+
+    // Blocks not matching the mask are cleared from the set section, the others are kept
+    private void assertMaskMatches(Mask mask, Predicate<BlockState> predicate) {
+        VectorizedMask vectorized = SimdSupport.vectorizedTargetMask(mask);
+        assertNotNull(vectorized, "mask was not vectorized");
+        int stone = BlockTypes.STONE.getDefaultState().getOrdinal();
+        int[] get = new int[SECTION_SIZE];
+        int[] set = new int[SECTION_SIZE];
+        for (int i = 0; i < SECTION_SIZE; i++) {
+            // Half stone, which every mask tests for, so both outcomes are frequent
+            get[i] = random.nextBoolean() ? stone : randomOrdinal();
+            set[i] = random.nextInt(4) == 0 ? BlockTypesCache.ReservedIDs.__RESERVED__ : randomOrdinal();
+        }
+        int[] expected = set.clone();
+        for (int i = 0; i < SECTION_SIZE; i++) {
+            if (!predicate.test(BlockTypesCache.states[get[i]])) {
+                expected[i] = BlockTypesCache.ReservedIDs.__RESERVED__;
+            }
+        }
+        vectorized.processSection(0, facade(set), facade(get));
+        assertEquals(Arrays.toString(expected), Arrays.toString(set));
+    }
+
+    @Test
+    void randomPatternFollowsWeights() {
+        BlockState[] states = {
+                BlockTypes.STONE.getDefaultState(),
+                BlockTypes.DIRT.getDefaultState(),
+                BlockTypes.GLASS.getDefaultState()
+        };
+        double[] weights = {1, 2, 5};
+        RandomPattern pattern = new RandomPattern();
+        for (int i = 0; i < states.length; i++) {
+            pattern.add(states[i], weights[i]);
+        }
+        VectorizedFilter vectorized = SimdSupport.vectorizedPattern(pattern);
+        assertNotNull(vectorized, "pattern was not vectorized");
+        // Forks share the table but draw their own numbers
+        VectorizedFilter fork = (VectorizedFilter) ((IDelegateFilter) vectorized).newInstance(pattern);
+
+        int sections = 32;
+        int[] counts = new int[states.length];
+        VectorMask<Integer> all = SPECIES.maskAll(true);
+        for (int section = 0; section < sections; section++) {
+            VectorizedFilter filter = section % 2 == 0 ? vectorized : fork;
+            int[] set = new int[SECTION_SIZE];
+            VectorFacade get = facade(new int[SECTION_SIZE]);
+            VectorFacade setFacade = facade(set);
+            for (int i = 0; i < SECTION_SIZE; i += SPECIES.length()) {
+                get.setIndex(i);
+                setFacade.setIndex(i);
+                filter.applyVector(get, setFacade, all);
+            }
+            for (int ordinal : set) {
+                counts[indexOf(states, ordinal)]++;
+            }
+        }
+        double total = Arrays.stream(weights).sum();
+        for (int i = 0; i < states.length; i++) {
+            double share = (double) counts[i] / (sections * SECTION_SIZE);
+            assertEquals(weights[i] / total, share, 0.01, "share of " + states[i]);
+        }
+    }
+
+    @Test
+    void randomPatternKeepsUnmaskedLanes() {
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(BlockTypes.STONE.getDefaultState(), 1);
+        pattern.add(BlockTypes.DIRT.getDefaultState(), 1);
+        VectorizedFilter vectorized = SimdSupport.vectorizedPattern(pattern);
+        assertNotNull(vectorized, "pattern was not vectorized");
+        int glass = BlockTypes.GLASS.getDefaultState().getOrdinal();
+        int[] set = new int[SECTION_SIZE];
+        Arrays.fill(set, glass);
+        VectorFacade get = facade(new int[SECTION_SIZE]);
+        VectorFacade setFacade = facade(set);
+        // Every other lane
+        VectorMask<Integer> mask = VectorMask.fromLong(SPECIES, 0x5555555555555555L);
+        for (int i = 0; i < SECTION_SIZE; i += SPECIES.length()) {
+            get.setIndex(i);
+            setFacade.setIndex(i);
+            vectorized.applyVector(get, setFacade, mask);
+        }
+        for (int i = 0; i < SECTION_SIZE; i++) {
+            if (i % 2 == 0) {
+                BlockType type = BlockTypesCache.states[set[i]].getBlockType();
+                assertTrue(type == BlockTypes.STONE || type == BlockTypes.DIRT, "lane " + i + " was set to " + type);
+            } else {
+                assertEquals(glass, set[i], "lane " + i + " was changed");
+            }
+        }
+    }
+
+    @Test
+    void unsupportedRandomPatternsStayScalar() {
+        assertNull(SimdSupport.vectorizedPattern(new RandomPattern()), "empty pattern");
+
+        RandomPattern nested = new RandomPattern();
+        nested.add(BlockTypes.STONE.getDefaultState(), 1);
+        RandomPattern outer = new RandomPattern();
+        outer.add(BlockTypes.DIRT.getDefaultState(), 1);
+        outer.add(nested, 1);
+        assertNull(SimdSupport.vectorizedPattern(outer), "pattern of patterns");
+
+        RandomPattern seeded = new RandomPattern(new Linear3DRandom(1, 1, 1));
+        seeded.add(BlockTypes.STONE.getDefaultState(), 1);
+        seeded.add(BlockTypes.DIRT.getDefaultState(), 1);
+        assertNull(SimdSupport.vectorizedPattern(seeded), "position dependent random");
+
+        RandomPattern rare = new RandomPattern();
+        rare.add(BlockTypes.STONE.getDefaultState(), 100000);
+        rare.add(BlockTypes.DIRT.getDefaultState(), 1);
+        assertNull(SimdSupport.vectorizedPattern(rare), "weight too small for the table");
+    }
+
+    private int randomOrdinal() {
+        return ordinals[random.nextInt(ordinals.length)];
+    }
+
+    private static VectorFacade facade(int[] data) {
+        VectorFacade facade = new VectorFacade(null);
+        facade.setLayer(0);
+        facade.setData(data);
+        return facade;
+    }
+
+    private static int indexOf(BlockState[] states, int ordinal) {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i].getOrdinal() == ordinal) {
+                return i;
+            }
+        }
+        throw new AssertionError("unexpected block " + BlockTypesCache.states[ordinal]);
+    }
+
+}
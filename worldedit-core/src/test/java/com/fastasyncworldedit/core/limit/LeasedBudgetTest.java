@@ -0,0 +1,51 @@
+package com.fastasyncworldedit.core.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeasedBudgetTest {
+
+    private static void consumeOnOtherThread(LeasedBudget budget, int amount) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < amount; i++) {
+                budget.consume();
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    void reclaimReturnsLeases() throws InterruptedException {
+        AtomicLong pool = new AtomicLong(10000);
+        LeasedBudget budget = new LeasedBudget(pool);
+        assertTrue(budget.consume());
+        consumeOnOtherThread(budget, 10);
+        // Both threads hold more than they consumed
+        assertTrue(pool.get() < 10000 - 11);
+        budget.reclaim();
+        assertEquals(10000 - 11, pool.get());
+    }
+
+    @Test
+    void setDiscardsLeases() throws InterruptedException {
+        AtomicLong pool = new AtomicLong(10000);
+        LeasedBudget budget = new LeasedBudget(pool);
+        assertTrue(budget.consume());
+        consumeOnOtherThread(budget, 10);
+        budget.set(5);
+        // Leases taken before are not added on top of the new budget
+        budget.reclaim();
+        assertEquals(5, pool.get());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.consume());
+        }
+        assertFalse(budget.consume());
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.fastasyncworldedit.core.queue;
+
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder;
+import com.fastasyncworldedit.core.registry.state.PropertyKey;
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The surface queries of chunk extents answered from column heights must equal the block by block probes of {@link Extent}.
+ */
+class IChunkExtentSurfaceTest {
+
+    private static final int MIN_Y = -64;
+    private static final int MAX_Y = 319;
+    private static final int MIN_SECTION = MIN_Y >> 4;
+    private static final int[] STARTS = {-70, -64, -61, -10, 0, 30, 41, 45, 50, 51, 55, 59, 60, 65, 69, 70, 75, 79, 80, 81, 90,
+            100, 101, 120, 159, 160, 163, 166, 167, 200, 300, 319, 330};
+    private static final int[][] RANGES = {{MIN_Y, MAX_Y}, {-100, 400}, {0, 255}, {62, 75}, {45, 90}, {161, 170}, {200, 210}};
+
+    private int[][] sections;
+    private int air;
+
+    @BeforeAll
+    static void setUpRegistry() {
+        BundledRegistryPlatform.register();
+    }
+
+    @BeforeEach
+    void setUp() {
+        air = BlockTypes.AIR.getDefaultState().getOrdinal();
+        sections = new int[(MAX_Y >> 4) - MIN_SECTION + 1][4096];
+        for (int[] section : sections) {
+            Arrays.fill(section, air);
+        }
+        BlockState stone = BlockTypes.STONE.getDefaultState();
+        // Terrain with a gap, topped by a snow layer
+        fill(0, 0, MIN_Y, 59, stone);
+        fill(0, 0, 70, 79, stone);
+        set(0, 0, 80, BlockTypes.SNOW.getDefaultState().with(PropertyKey.LAYERS, 3));
+        // Terrain under still and flowing water
+        fill(1, 0, MIN_Y, 40, BlockTypes.DIRT.getDefaultState());
+        fill(1, 0, 41, 49, BlockTypes.WATER.getDefaultState());
+        set(1, 0, 50, BlockTypes.WATER.getDefaultState().with(PropertyKey.LEVEL, 5));
+        // Lava in a hole of the terrain
+        fill(2, 0, MIN_Y, 29, stone);
+        fill(2, 0, 30, 31, BlockTypes.LAVA.getDefaultState().with(PropertyKey.LEVEL, 2));
+        fill(2, 0, 32, 45, stone);
+        // Floating terrain above empty sections, with a full snow block below it
+        set(3, 0, 100, BlockTypes.SNOW_BLOCK.getDefaultState());
+        fill(3, 0, 160, 165, stone);
+        set(3, 0, 166, BlockTypes.GRASS_BLOCK.getDefaultState());
+        // Snow layers on the floor of the world only
+        set(4, 0, MIN_Y, BlockTypes.BEDROCK.getDefaultState());
+        fill(4, 0, MIN_Y + 1, MIN_Y + 3, BlockTypes.SNOW.getDefaultState().with(PropertyKey.LAYERS, 8));
+        // Terrain up to the top of the world
+        fill(15, 15, MIN_Y, MAX_Y, stone);
+        // Column (5, 0) stays empty
+    }
+
+    private void set(int x, int z, int y, BlockState state) {
+        sections[(y >> 4) - MIN_SECTION][(y & 15) << 8 | z << 4 | x] = state.getOrdinal();
+    }
+
+    private void fill(int x, int z, int minY, int maxY, BlockState state) {
+        for (int y = minY; y <= maxY; y++) {
+            set(x, z, y, state);
+        }
+    }
+
+    private BlockState block(int x, int y, int z) {
+        if (y < MIN_Y || y > MAX_Y) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        return BlockTypesCache.states[sections[(y >> 4) - MIN_SECTION][(y & 15) << 8 | (z & 15) << 4 | (x & 15)]];
+    }
+
+    private boolean isEmpty(int layer) {
+        int index = layer - MIN_SECTION;
+        return index < 0 || index >= sections.length || Arrays.stream(sections[index]).allMatch(ordinal -> ordinal == air);
+    }
+
+    // The chunk as read from the world
+    private IChunkGet get() {
+        IChunkGet get = mock(IChunkGet.class, CALLS_REAL_METHODS);
+        doReturn(MIN_Y).when(get).getMinY();
+        doReturn(MAX_Y).when(get).getMaxY();
+        doReturn(MIN_SECTION).when(get).getMinSectionPosition();
+        doReturn(MAX_Y >> 4).when(get).getMaxSectionPosition();
+        doAnswer(invocation -> !isEmpty(invocation.getArgument(0))).when(get).hasNonEmptySection(anyInt());
+        doAnswer(invocation -> sections[(int) invocation.getArgument(0) - MIN_SECTION]).when(get).load(anyInt());
+        doAnswer(invocation -> block(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)))
+                .when(get).getBlock(anyInt(), anyInt(), anyInt());
+        return get;
+    }
+
+    @SuppressWarnings("unchecked")
+    private IChunkExtent<ChunkHolder> chunkExtent() {
+        IChunkGet get = get();
+        IQueueExtent<IQueueChunk> queue = mock(IQueueExtent.class);
+        doReturn(get).when(queue).getCachedGet(anyInt(), anyInt());
+        ChunkHolder holder = ChunkHolder.newInstance();
+        holder.init(queue, 0, 0);
+        IChunkExtent<ChunkHolder> extent = mock(IChunkExtent.class, CALLS_REAL_METHODS);
+        doReturn(holder).when(extent).getOrCreateChunk(anyInt(), anyInt());
+        doReturn(MIN_Y).when(extent).getMinY();
+        doReturn(MAX_Y).when(extent).getMaxY();
+        return extent;
+    }
+
+    // Uses the probing defaults of Extent
+    private Extent probingExtent() {
+        Extent extent = mock(Extent.class, CALLS_REAL_METHODS);
+        doReturn(MIN_Y).when(extent).getMinY();
+        doReturn(MAX_Y).when(extent).getMaxY();
+        doAnswer(invocation -> block(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)))
+                .when(extent).getBlock(anyInt(), anyInt(), anyInt());
+        return extent;
+    }
+
+    private static String describe(int x, int z, int y, int[] range) {
+        return "column " + x + "," + z + " from " + y + " in " + range[0] + ".." + range[1];
+    }
+
+    @Test
+    void highestSolidBlockMatchesProbing() {
+        IChunkGet get = get();
+        Extent expected = probingExtent();
+        ChunkHolder holder = chunkExtent().getOrCreateChunk(0, 0);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int[] range : RANGES) {
+                    int minY = Math.max(MIN_Y, range[0]);
+                    int maxY = Math.min(MAX_Y, range[1]);
+                    int probed = expected.getHighestTerrainBlock(x, z, minY, maxY);
+                    // Both return less than minY if there is no solid block, which the extent then returns as minY
+                    assertEquals(probed, Math.max(minY, get.getHighestSolidBlock(x, z, minY, maxY)), describe(x, z, 0, range));
+                    assertEquals(probed, Math.max(minY, holder.getHighestSolidBlock(x, z, minY, maxY)), describe(x, z, 0, range));
+                }
+            }
+        }
+    }
+
+    @Test
+    void highestTerrainBlockMatchesProbing() {
+        IChunkExtent<ChunkHolder> actual = chunkExtent();
+        Extent expected = probingExtent();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int[] range : RANGES) {
+                    assertEquals(
+                            expected.getHighestTerrainBlock(x, z, range[0], range[1]),
+                            actual.getHighestTerrainBlock(x, z, range[0], range[1]),
+                            describe(x, z, 0, range)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void nearestSurfaceLayerMatchesProbing() {
+        IChunkExtent<ChunkHolder> actual = chunkExtent();
+        Extent expected = probingExtent();
+        for (int x = 0; x < 16; x++) {
+            for (int[] range : RANGES) {
+                for (int y : STARTS) {
+                    assertEquals(
+                            expected.getNearestSurfaceLayer(x, 0, y, range[0], range[1]),
+                            actual.getNearestSurfaceLayer(x, 0, y, range[0], range[1]),
+                            describe(x, 0, y, range)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void nearestSurfaceTerrainBlockMatchesProbing() {
+        IChunkExtent<ChunkHolder> actual = chunkExtent();
+        Extent expected = probingExtent();
+        for (int x = 0; x < 16; x++) {
+            for (int[] range : RANGES) {
+                for (int y : STARTS) {
+                    for (boolean ignoreAir : new boolean[]{true, false}) {
+                        int minY = range[0];
+                        int maxY = range[1];
+                        assertEquals(
+                                expected.getNearestSurfaceTerrainBlock(x, 0, y, minY, maxY, minY, maxY, ignoreAir),
+                                actual.getNearestSurfaceTerrainBlock(x, 0, y, minY, maxY, minY, maxY, ignoreAir),
+                                describe(x, 0, y, range) + (ignoreAir ? "" : " not ignoring air")
+                        );
+                    }
+                    assertEquals(
+                            expected.getNearestSurfaceTerrainBlock(x, 0, y, range[0], range[1], -1, MAX_Y + 1),
+                            actual.getNearestSurfaceTerrainBlock(x, 0, y, range[0], range[1], -1, MAX_Y + 1),
+                            describe(x, 0, y, range) + " with failed values"
+                    );
+                }
+            }
+        }
+    }
+
+}
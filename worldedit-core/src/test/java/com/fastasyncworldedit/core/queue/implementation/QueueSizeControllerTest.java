@@ -0,0 +1,224 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkSectionCache;
+import com.fastasyncworldedit.core.util.task.FairQueuedExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Queue target sizes must shrink while memory or chunk submission is under simulated pressure, no further than the floor,
+ * and recover once the pressure is gone.
+ */
+// Tests change the global queue and memory settings
+@Isolated
+@Execution(ExecutionMode.SAME_THREAD)
+class QueueSizeControllerTest {
+
+    private static final int TARGET_SIZE = 1000;
+    // PARALLEL_THREADS + 8
+    private static final int FLOOR = 12;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private FairQueuedExecutor executor;
+    private ChunkSectionCache sectionCache;
+    private SimulatedController controller;
+
+    private boolean adaptive;
+    private int threads;
+    private int slowerMemoryPercent;
+
+    @BeforeEach
+    void setUp() {
+        adaptive = Settings.settings().QUEUE.ADAPTIVE_TARGET_SIZE;
+        threads = Settings.settings().QUEUE.PARALLEL_THREADS;
+        slowerMemoryPercent = Settings.settings().SLOWER_MEMORY_PERCENT;
+        Settings.settings().QUEUE.ADAPTIVE_TARGET_SIZE = true;
+        Settings.settings().QUEUE.PARALLEL_THREADS = FLOOR - 8;
+        Settings.settings().SLOWER_MEMORY_PERCENT = 80;
+
+        executor = mock(FairQueuedExecutor.class);
+        sectionCache = mock(ChunkSectionCache.class);
+        controller = new SimulatedController(executor, sectionCache);
+        controller.used = 50;
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.settings().QUEUE.ADAPTIVE_TARGET_SIZE = adaptive;
+        Settings.settings().QUEUE.PARALLEL_THREADS = threads;
+        Settings.settings().SLOWER_MEMORY_PERCENT = slowerMemoryPercent;
+    }
+
+    @Test
+    void heapPressureScalesDownAndRecovers() {
+        for (int i = 0; i < 4; i++) {
+            controller.tick();
+        }
+        assertFalse(controller.isUnderPressure());
+        assertEquals(TARGET_SIZE, controller.scaleTargetSize(TARGET_SIZE));
+
+        controller.used = 90;
+        controller.tick();
+        assertTrue(controller.isUnderPressure());
+        assertEquals(TARGET_SIZE / 2, controller.scaleTargetSize(TARGET_SIZE));
+        verify(sectionCache, times(1)).clear();
+        controller.tick();
+        assertEquals(TARGET_SIZE / 4, controller.scaleTargetSize(TARGET_SIZE));
+        // Caches are trimmed at most once per interval
+        verify(sectionCache, times(1)).clear();
+
+        // Down to the floor, which is kept however long the pressure lasts
+        for (int i = 0; i < 44; i++) {
+            controller.tick();
+        }
+        assertEquals(FLOOR, controller.scaleTargetSize(TARGET_SIZE));
+        assertTrue(controller.getScale() > 0);
+        // Sizes at or below the floor are not scaled
+        assertEquals(FLOOR - 2, controller.scaleTargetSize(FLOOR - 2));
+        // 44 samples 250ms apart cover two more trim intervals
+        verify(sectionCache, times(3)).clear();
+
+        controller.used = 50;
+        int previous = controller.scaleTargetSize(TARGET_SIZE);
+        int ticks = 0;
+        while (controller.scaleTargetSize(TARGET_SIZE) < TARGET_SIZE) {
+            controller.tick();
+            assertFalse(controller.isUnderPressure());
+            int size = controller.scaleTargetSize(TARGET_SIZE);
+            assertTrue(size >= previous, "recovered size decreased");
+            previous = size;
+            assertTrue(++ticks <= 11, "did not recover within 11 samples");
+        }
+        assertEquals(1, controller.getScale());
+        verify(sectionCache, times(3)).clear();
+    }
+
+    @Test
+    void garbageCollectionPressureScalesDown() {
+        controller.tick();
+        // 100ms of each 250ms sample spent collecting garbage
+        controller.gcPerTick = 100;
+        controller.tick();
+        assertTrue(controller.isUnderPressure());
+        assertEquals(TARGET_SIZE / 2, controller.scaleTargetSize(TARGET_SIZE));
+        verify(sectionCache, times(1)).clear();
+
+        // A tenth is still acceptable
+        controller.gcPerTick = 20;
+        controller.tick();
+        assertFalse(controller.isUnderPressure());
+        assertEquals(0.6, controller.getScale(), 1e-9);
+    }
+
+    @Test
+    void slowSubmissionsScaleDownWithoutTrimming() {
+        // Ten chunks per sample taking three seconds each from submission to completion
+        controller.commitsPerTick = 10;
+        controller.latencyPerCommit = TimeUnit.SECONDS.toNanos(3);
+        controller.tick();
+        assertTrue(controller.isUnderPressure());
+        controller.tick();
+        assertEquals(TARGET_SIZE / 4, controller.scaleTargetSize(TARGET_SIZE));
+        // Chunks backing up is no reason to drop caches
+        verify(sectionCache, never()).clear();
+
+        controller.latencyPerCommit = TimeUnit.MILLISECONDS.toNanos(50);
+        controller.tick();
+        assertFalse(controller.isUnderPressure());
+        // Samples without any completed chunk have no latency
+        controller.commitsPerTick = 0;
+        controller.tick();
+        assertFalse(controller.isUnderPressure());
+        assertEquals(0.45, controller.getScale(), 1e-9);
+    }
+
+    @Test
+    void samplesOnlyOncePerInterval() {
+        controller.used = 90;
+        controller.update();
+        assertFalse(controller.isUnderPressure(), "sampled before the interval passed");
+        controller.now += TICK_NANOS - 1;
+        controller.update();
+        assertFalse(controller.isUnderPressure(), "sampled before the interval passed");
+        controller.now += 1;
+        controller.update();
+        assertTrue(controller.isUnderPressure());
+        controller.update();
+        assertEquals(0.5, controller.getScale());
+    }
+
+    @Test
+    void disabledControllerKeepsSizes() {
+        Settings.settings().QUEUE.ADAPTIVE_TARGET_SIZE = false;
+        controller.used = 90;
+        for (int i = 0; i < 8; i++) {
+            controller.tick();
+        }
+        assertFalse(controller.isUnderPressure());
+        assertEquals(TARGET_SIZE, controller.scaleTargetSize(TARGET_SIZE));
+        verify(sectionCache, never()).clear();
+    }
+
+    /**
+     * Reads time, collection time, heap usage and submission statistics from fields set by the test.
+     */
+    private static class SimulatedController extends QueueSizeController {
+
+        private long now;
+        private long gcMillis;
+        private int used;
+        private long gcPerTick;
+        private long commitsPerTick;
+        private long latencyPerCommit;
+        private long completed;
+        private long latency;
+
+        SimulatedController(FairQueuedExecutor executor, ChunkSectionCache sectionCache) {
+            super(executor, sectionCache);
+            when(executor.getCompletedCount()).thenAnswer(invocation -> completed);
+            when(executor.getTotalLatencyNanos()).thenAnswer(invocation -> latency);
+        }
+
+        // One sample interval passes
+        private void tick() {
+            now += TICK_NANOS;
+            gcMillis += gcPerTick;
+            completed += commitsPerTick;
+            latency += commitsPerTick * latencyPerCommit;
+            update();
+        }
+
+        @Override
+        long nanoTime() {
+            return now;
+        }
+
+        @Override
+        long gcMillis() {
+            return gcMillis;
+        }
+
+        @Override
+        int usedPercent() {
+            return used;
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.fastasyncworldedit.core.queue.implementation.chunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkSectionCacheTest {
+
+    private static ChunkSectionCache.WorldSections sections(ChunkSectionCache cache) {
+        return cache.sections("world");
+    }
+
+    @Test
+    void servesCachedArrayWithoutCopying() {
+        ChunkSectionCache.WorldSections sections = sections(new ChunkSectionCache(1 << 20, 60_000, 1));
+        int[] blocks = new int[4096];
+        assertTrue(sections.put(3, -2, 5, sections.version(3, -2), blocks));
+        assertSame(blocks, sections.get(3, -2, 5));
+        assertNull(sections.get(3, -2, 6));
+    }
+
+    @Test
+    void invalidateRemovesSections() {
+        ChunkSectionCache.WorldSections sections = sections(new ChunkSectionCache(1 << 20, 60_000, 1));
+        sections.put(0, 0, 1, sections.version(0, 0), new int[4096]);
+        sections.put(0, 0, 2, sections.version(0, 0), new int[4096]);
+        sections.invalidate(0, 0, 0, 1);
+        assertNull(sections.get(0, 0, 1));
+        // Sections outside the invalidated range belong to an older version of the chunk as well
+        assertNull(sections.get(0, 0, 2));
+    }
+
+    @Test
+    void dropsSectionsReadBeforeInvalidation() {
+        ChunkSectionCache.WorldSections sections = sections(new ChunkSectionCache(1 << 20, 60_000, 1));
+        long version = sections.version(7, 7);
+        // Section is read from the world, then the chunk is written to before the read section is cached
+        sections.invalidate(7, 7, 0, 15);
+        assertFalse(sections.put(7, 7, 4, version, new int[4096]));
+        assertNull(sections.get(7, 7, 4));
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.fastasyncworldedit.core.regions;
+
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.ConvexPolyhedralRegion;
+import com.sk89q.worldedit.regions.Polygonal2DRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The blocks regions filter by spans or by triangles must be exactly the blocks they contain.
+ */
+class RegionFilterTest {
+
+    private static final int MIN_SECTION = -4;
+    private static final int MAX_SECTION = 19;
+
+    @Test
+    void polygonFiltersContainedBlocks() {
+        List<BlockVector2> points = List.of(
+                BlockVector2.at(-21, -13),
+                BlockVector2.at(25, -30),
+                BlockVector2.at(37, 18),
+                BlockVector2.at(10, 2),
+                BlockVector2.at(3, 40),
+                BlockVector2.at(-9, 7)
+        );
+        assertFiltersContainedBlocks(new Polygonal2DRegion(null, points, -10, 37));
+    }
+
+    @Test
+    void slopedConvexHullFiltersContainedBlocks() {
+        ConvexPolyhedralRegion region = new ConvexPolyhedralRegion((World) null);
+        region.addVertex(BlockVector3.at(-18, -30, -15));
+        region.addVertex(BlockVector3.at(30, -5, -22));
+        region.addVertex(BlockVector3.at(25, 50, 28));
+        region.addVertex(BlockVector3.at(-12, 40, 35));
+        region.addVertex(BlockVector3.at(5, -40, 20));
+        region.addVertex(BlockVector3.at(0, 70, 0));
+        region.addVertex(BlockVector3.at(20, 10, 33));
+        region.addVertex(BlockVector3.at(-25, 15, -3));
+        assertFiltersContainedBlocks(region);
+    }
+
+    @Test
+    void convexHullWithVerticalFacesFiltersContainedBlocks() {
+        ConvexPolyhedralRegion region = new ConvexPolyhedralRegion((World) null);
+        region.addVertex(BlockVector3.at(-7, -20, -7));
+        region.addVertex(BlockVector3.at(20, -20, -7));
+        region.addVertex(BlockVector3.at(-7, -20, 20));
+        region.addVertex(BlockVector3.at(20, -20, 20));
+        region.addVertex(BlockVector3.at(-7, 35, -7));
+        region.addVertex(BlockVector3.at(20, 35, -7));
+        region.addVertex(BlockVector3.at(-7, 35, 20));
+        region.addVertex(BlockVector3.at(30, 41, 20));
+        assertFiltersContainedBlocks(region);
+    }
+
+    @Test
+    void polyhedralSurfaceFiltersContainedBlocks() {
+        PolyhedralRegion region = new PolyhedralRegion((World) null);
+        region.addVertex(BlockVector3.at(-18, -30, -15));
+        region.addVertex(BlockVector3.at(30, -5, -22));
+        region.addVertex(BlockVector3.at(25, 50, 28));
+        region.addVertex(BlockVector3.at(-12, 40, 35));
+        region.addVertex(BlockVector3.at(5, -40, 20));
+        region.addVertex(BlockVector3.at(0, 70, 0));
+        assertFiltersContainedBlocks(region);
+    }
+
+    // Compares each chunk around the region against a scan of contains() over the part of the chunk inside the world
+    private static void assertFiltersContainedBlocks(Region region) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int minY = Math.max(MIN_SECTION << 4, min.y());
+        int maxY = Math.min((MAX_SECTION << 4) + 15, max.y());
+        boolean any = false;
+        for (int chunkX = (min.x() >> 4) - 1; chunkX <= (max.x() >> 4) + 1; chunkX++) {
+            for (int chunkZ = (min.z() >> 4) - 1; chunkZ <= (max.z() >> 4) + 1; chunkZ++) {
+                Set<BlockVector3> expected = new HashSet<>();
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = chunkZ << 4; z < (chunkZ << 4) + 16; z++) {
+                        for (int x = chunkX << 4; x < (chunkX << 4) + 16; x++) {
+                            BlockVector3 position = BlockVector3.at(x, y, z);
+                            if (region.contains(position)) {
+                                expected.add(position);
+                            }
+                        }
+                    }
+                }
+                assertEquals(expected, filtered(region, chunkX, chunkZ), "chunk " + chunkX + "," + chunkZ);
+                any |= !expected.isEmpty();
+            }
+        }
+        assertTrue(any, "region contains no blocks");
+    }
+
+    private static Set<BlockVector3> filtered(Region region, int chunkX, int chunkZ) {
+        IChunk chunk = mock(IChunk.class);
+        doReturn(chunkX).when(chunk).getX();
+        doReturn(chunkZ).when(chunk).getZ();
+        IChunkGet get = mock(IChunkGet.class);
+        doReturn(MIN_SECTION).when(get).getMinSectionPosition();
+        doReturn(MAX_SECTION).when(get).getMaxSectionPosition();
+        Set<BlockVector3> positions = new HashSet<>();
+        int[] layer = new int[1];
+        ChunkFilterBlock block = mock(ChunkFilterBlock.class);
+        doAnswer(invocation -> {
+            layer[0] = invocation.getArgument(2);
+            return block;
+        }).when(block).initLayer(any(), any(), anyInt());
+        doAnswer(invocation -> {
+            int x = (chunkX << 4) + (int) invocation.getArgument(1);
+            int y = (layer[0] << 4) + (int) invocation.getArgument(2);
+            int z = (chunkZ << 4) + (int) invocation.getArgument(3);
+            assertTrue(positions.add(BlockVector3.at(x, y, z)), "filtered twice: " + x + "," + y + "," + z);
+            return null;
+        }).when(block).filter(any(Filter.class), anyInt(), anyInt(), anyInt());
+        doAnswer(invocation -> {
+            int minX = invocation.getArgument(1);
+            int minY = invocation.getArgument(2);
+            int minZ = invocation.getArgument(3);
+            int maxX = invocation.getArgument(4);
+            int maxY = invocation.getArgument(5);
+            int maxZ = invocation.getArgument(6);
+            assertFalse(minX > maxX || minY > maxY || minZ > maxZ, "empty cuboid");
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    for (int x = minX; x <= maxX; x++) {
+                        BlockVector3 position = BlockVector3.at((chunkX << 4) + x, (layer[0] << 4) + y, (chunkZ << 4) + z);
+                        assertTrue(positions.add(position), "filtered twice: " + position);
+                    }
+                }
+            }
+            return null;
+        }).when(block).filter(any(Filter.class), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt());
+        Filter filter = new Filter() {
+        };
+        region.filter(chunk, filter, block, get, mock(IChunkSet.class), true);
+        return positions;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.fastasyncworldedit.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The index must find the same color as scanning the palette in order by {@link TextureUtil#colorDistance(int, int)}.
+ */
+class NearestColorIndexTest {
+
+    private static final int[] ALPHAS = {0xFF, 0xFF, 0xFF, 0x80, 0x00};
+    private static final int[] SIZES = {0, 1, 2, 17, 300, 2000};
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(0x5EED);
+        for (int size : SIZES) {
+            for (boolean matchAlpha : new boolean[]{true, false}) {
+                int[] colors = palette(random, size);
+                NearestColorIndex index = new NearestColorIndex(colors, colors, matchAlpha);
+                for (int i = 0; i < 2000; i++) {
+                    int color;
+                    if (size > 0 && random.nextBoolean()) {
+                        // A color of the palette, or one near it
+                        color = colors[random.nextInt(size)];
+                        if (random.nextBoolean()) {
+                            color = nudge(random, color);
+                        }
+                    } else {
+                        color = ALPHAS[random.nextInt(ALPHAS.length)] << 24 | random.nextInt(1 << 24);
+                    }
+                    if (random.nextInt(20) == 0) {
+                        // An alpha no color of the palette has
+                        color = color & 0xFFFFFF | 0x40 << 24;
+                    }
+                    for (boolean excludeEqual : new boolean[]{true, false}) {
+                        assertEquals(
+                                nearest(colors, color, matchAlpha, excludeEqual),
+                                index.nearest(color, excludeEqual),
+                                "color " + Integer.toHexString(color) + " in " + size + " colors"
+                                        + (matchAlpha ? " matching alpha" : "") + (excludeEqual ? " excluding equal" : "")
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    // Random colors, some of them clustered and some repeated, so that shells and ties between equal distances are tested
+    private static int[] palette(Random random, int size) {
+        int[] colors = new int[size];
+        for (int i = 0; i < size; i++) {
+            int choice = random.nextInt(4);
+            if (i > 0 && choice == 0) {
+                colors[i] = colors[random.nextInt(i)];
+            } else if (i > 0 && choice == 1) {
+                colors[i] = nudge(random, colors[random.nextInt(i)]);
+            } else {
+                colors[i] = ALPHAS[random.nextInt(ALPHAS.length)] << 24 | random.nextInt(1 << 24);
+            }
+        }
+        return colors;
+    }
+
+    private static int nudge(Random random, int color) {
+        int result = color & 0xFF000000;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int channel = (color >> shift) & 0xFF;
+            channel = Math.max(0, Math.min(255, channel + random.nextInt(33) - 16));
+            result |= channel << shift;
+        }
+        return result;
+    }
+
+    private static int nearest(int[] colors, int color, boolean matchAlpha, boolean excludeEqual) {
+        long min = Long.MAX_VALUE;
+        int closest = -1;
+        for (int i = 0; i < colors.length; i++) {
+            int other = colors[i];
+            if (matchAlpha && (other >>> 24) != (color >>> 24)) {
+                continue;
+            }
+            if (excludeEqual && other == color) {
+                continue;
+            }
+            long distance = TextureUtil.colorDistance(color, other);
+            if (distance < min) {
+                min = distance;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+}
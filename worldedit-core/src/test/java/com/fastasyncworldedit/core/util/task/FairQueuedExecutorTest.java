@@ -0,0 +1,70 @@
+package com.fastasyncworldedit.core.util.task;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairQueuedExecutorTest {
+
+    private FairQueuedExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new FairQueuedExecutor("FairQueuedExecutorTest - %d", 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void lanesAreServedRoundRobin() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        executor.submit("a", () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 3; i++) {
+            String name = "a" + i;
+            executor.submit("a", () -> order.add(name));
+        }
+        executor.submit("b", () -> order.add("b1"));
+        Future<?> last = executor.submit("b", () -> order.add("b2"));
+        release.countDown();
+        last.get(5, TimeUnit.SECONDS);
+        executor.submit("a", () -> null).get(5, TimeUnit.SECONDS);
+
+        // The second lane does not wait for the first lane's backlog
+        assertEquals(List.of("a1", "b1", "a2", "b2", "a3"), order);
+    }
+
+    @Test
+    void statsTrackDepthAndCompletion() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            executor.submit("stats", () -> null).get(5, TimeUnit.SECONDS);
+        }
+        FairQueuedExecutor.LaneStats stats = executor.getStats("stats");
+        assertNotNull(stats);
+        assertEquals(0, stats.depth());
+        assertEquals(3, stats.submitted());
+        assertEquals(3, stats.completed());
+        assertTrue(stats.maxWaitNanos() >= 0);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.fastasyncworldedit.util;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.internal.Constants;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.registry.Registries;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Platform backed by the bundled block and item registries, for tests that need real block states.
+ */
+public class BundledRegistryPlatform extends StubPlatform {
+
+    private static boolean registered;
+
+    private final LocalConfiguration configuration = new LocalConfiguration() {
+        @Override
+        public void load() {
+        }
+    };
+
+    /**
+     * Register the platform, if not yet registered, and load the block registry. Call before touching any block state.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        WorldEdit.getInstance().getPlatformManager().register(new BundledRegistryPlatform());
+        WorldEdit.getInstance().getPlatformManager().handlePlatformsRegistered(null);
+        if (BlockTypesCache.states.length == 0) {
+            throw new IllegalStateException("Block registry is empty");
+        }
+        registered = true;
+    }
+
+    @Override
+    public Registries getRegistries() {
+        return BundledRegistries.getInstance();
+    }
+
+    @Override
+    public int getDataVersion() {
+        return Constants.DATA_VERSION_MC_1_21_4;
+    }
+
+    @Override
+    public LocalConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public Map<Capability, Preference> getCapabilities() {
+        Map<Capability, Preference> capabilities = new EnumMap<>(Capability.class);
+        capabilities.put(Capability.CONFIGURATION, Preference.PREFERRED);
+        capabilities.put(Capability.GAME_HOOKS, Preference.PREFERRED);
+        capabilities.put(Capability.WORLD_EDITING, Preference.PREFERRED);
+        return capabilities;
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.sk89q.worldedit.function.operation;
+
+import com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.filter.ExtentCopyFilter;
+import com.fastasyncworldedit.core.extent.filter.block.ExtentFilterBlock;
+import com.fastasyncworldedit.util.BundledRegistryPlatform;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Copying each destination chunk with an {@link ExtentCopyFilter} must paste the same blocks and biomes, and count the same
+ * changes, as copying with a {@link com.sk89q.worldedit.function.visitor.RegionVisitor}.
+ */
+class ForwardExtentCopyTest {
+
+    // Biomes are stored per 4x4x4 cell, aligned so no cell is shared by two destination chunks
+    private static final Region REGION = new CuboidRegion(BlockVector3.at(-8, 0, -12), BlockVector3.at(35, 19, 27));
+    private static final BlockVector3 TRANSLATION = BlockVector3.at(96, 4, -48);
+
+    private static BlockState[] states;
+    private static BiomeType[] biomes;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUp() {
+        BundledRegistryPlatform.register();
+        states = new BlockState[]{
+                BlockTypes.AIR.getDefaultState(),
+                BlockTypes.STONE.getDefaultState(),
+                BlockTypes.DIRT.getDefaultState(),
+                BlockTypes.GLASS.getDefaultState()
+        };
+        // The bundled registries hold no biomes
+        biomes = new BiomeType[]{biome("minecraft:plains"), biome("minecraft:desert"), biome("minecraft:forest")};
+    }
+
+    private static synchronized BiomeType biome(String id) {
+        BiomeType biome = BiomeTypes.get(id);
+        return biome != null ? biome : BiomeTypes.register(new BiomeType(id));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Storage.class)
+    void chunkCopyMatchesVisitor(Storage storage) throws Exception {
+        assertCopiesMatch(storage, false, false);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Storage.class)
+    void maskedChunkCopyWithBiomesMatchesVisitor(Storage storage) throws Exception {
+        assertCopiesMatch(storage, true, true);
+    }
+
+    private void assertCopiesMatch(Storage storage, boolean masked, boolean copyBiomes) throws Exception {
+        BlockArrayClipboard source = storage.create(directory);
+        try {
+            fill(source);
+            Region destinationRegion = REGION.clone();
+            destinationRegion.shift(TRANSLATION);
+
+            BlockArrayClipboard visited = destination(destinationRegion);
+            CountingExtent counted = new CountingExtent(visited);
+            ForwardExtentCopy copy = new ForwardExtentCopy(
+                    source,
+                    REGION,
+                    REGION.getMinimumPoint(),
+                    counted,
+                    destinationRegion.getMinimumPoint()
+            );
+            copy.setCopyingEntities(false);
+            copy.setCopyingBiomes(copyBiomes);
+            if (masked) {
+                copy.setSourceMask(mask(source));
+            }
+            Operations.complete(copy);
+
+            BlockArrayClipboard filtered = destination(destinationRegion);
+            ExtentCopyFilter filter = new ExtentCopyFilter(source, TRANSLATION, masked ? mask(source) : null, copyBiomes);
+            applyByChunk(filtered, destinationRegion, filter);
+
+            for (BlockVector3 position : destinationRegion) {
+                assertEquals(visited.getFullBlock(position), filtered.getFullBlock(position), "block at " + position);
+                assertEquals(visited.getBiome(position), filtered.getBiome(position), "biome at " + position);
+            }
+            // What the copy and the edit session count for each path
+            int affected = filter.getAffected();
+            if (copyBiomes) {
+                affected += source.fullySupports3DBiomes() ? affected >> 2 : REGION.getWidth() * REGION.getLength();
+            }
+            assertEquals(copy.getAffected(), affected);
+            assertEquals(counted.changes, filter.getCopied() + filter.getBiomesCopied());
+            if (masked) {
+                assertTrue(filter.getCopied() < REGION.getVolume(), "mask excluded nothing");
+            }
+        } finally {
+            source.close();
+        }
+    }
+
+    // Like a parallel queue, each chunk is filtered on a worker by that worker's fork, which are joined at the end
+    private static void applyByChunk(Extent destination, Region region, ExtentCopyFilter filter) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (BlockVector2 chunk : region.getChunks()) {
+                futures.add(pool.submit(() -> {
+                    ExtentCopyFilter fork = (ExtentCopyFilter) filter.fork();
+                    ExtentFilterBlock block = new ExtentFilterBlock(destination);
+                    for (BlockVector3 position : region) {
+                        if (position.x() >> 4 == chunk.x() && position.z() >> 4 == chunk.z()) {
+                            fork.applyBlock(block.init(position));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        filter.join();
+    }
+
+    private static void fill(BlockArrayClipboard clipboard) {
+        for (BlockVector3 position : REGION) {
+            int x = position.x();
+            int y = position.y();
+            int z = position.z();
+            clipboard.setBlock(position, states[Math.floorMod(x * 31 + y * 17 + z * 7, states.length)]);
+            clipboard.setBiome(position, biomes[Math.floorMod((x >> 2) + (y >> 2) * 3 + (z >> 2) * 5, biomes.length)]);
+        }
+    }
+
+    // Biomes are set up front, so workers never race to allocate them
+    private static BlockArrayClipboard destination(Region region) {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region, new CPUOptimizedClipboard(region));
+        for (BlockVector3 position : region) {
+            clipboard.setBiome(position, biomes[0]);
+        }
+        return clipboard;
+    }
+
+    private static Mask mask(Extent source) {
+        return new BlockTypeMask(source, BlockTypes.STONE, BlockTypes.DIRT);
+    }
+
+    private enum Storage {
+        CPU {
+            @Override
+            BlockArrayClipboard create(Path directory) {
+                return new BlockArrayClipboard(REGION, new CPUOptimizedClipboard(REGION));
+            }
+        },
+        MEMORY {
+            @Override
+            BlockArrayClipboard create(Path directory) {
+                return new BlockArrayClipboard(REGION, new MemoryOptimizedClipboard(REGION));
+            }
+        },
+        DISK {
+            @Override
+            BlockArrayClipboard create(Path directory) {
+                DiskOptimizedClipboard clipboard = new DiskOptimizedClipboard(
+                        REGION.getDimensions(),
+                        directory.resolve("source.bd").toFile()
+                );
+                return new BlockArrayClipboard(REGION, clipboard);
+            }
+        };
+
+        abstract BlockArrayClipboard create(Path directory);
+    }
+
+    /**
+     * Counts block and biome changes like an edit session does.
+     */
+    private static class CountingExtent extends AbstractDelegateExtent {
+
+        private int changes;
+
+        CountingExtent(Extent extent) {
+            super(extent);
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 position, T block) throws WorldEditException {
+            changes++;
+            return getExtent().setBlock(position, block);
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+            changes++;
+            return getExtent().setBlock(x, y, z, block);
+        }
+
+        @Override
+        public boolean setBiome(BlockVector3 position, BiomeType biome) {
+            changes++;
+            return getExtent().setBiome(position, biome);
+        }
+
+        @Override
+        public boolean setBiome(int x, int y, int z, BiomeType biome) {
+            changes++;
+            return getExtent().setBiome(x, y, z, biome);
+        }
+
+    }
+
+}
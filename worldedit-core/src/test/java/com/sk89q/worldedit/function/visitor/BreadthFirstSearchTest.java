@@ -0,0 +1,154 @@
+package com.sk89q.worldedit.function.visitor;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests change the global queue settings
+@Isolated
+@Execution(ExecutionMode.SAME_THREAD)
+class BreadthFirstSearchTest {
+
+    private static final int RADIUS = 40;
+
+    private ExecutorService pool;
+    private int threshold;
+    private int threads;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        threshold = Settings.settings().QUEUE.RECURSIVE_PARALLEL_THRESHOLD;
+        threads = Settings.settings().QUEUE.PARALLEL_THREADS;
+        Settings.settings().QUEUE.PARALLEL_THREADS = 4;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        Settings.settings().QUEUE.RECURSIVE_PARALLEL_THRESHOLD = threshold;
+        Settings.settings().QUEUE.PARALLEL_THREADS = threads;
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentLayersVisitSameAsSequential() throws Exception {
+        assertSameAsSequential(Integer.MAX_VALUE, BreadthFirstSearch.DEFAULT_DIRECTIONS);
+    }
+
+    @Test
+    void concurrentLayersHonourMaxBranch() throws Exception {
+        assertSameAsSequential(2, BreadthFirstSearch.DEFAULT_DIRECTIONS);
+    }
+
+    @Test
+    void concurrentLayersVisitSameAsSequentialDiagonally() throws Exception {
+        assertSameAsSequential(Integer.MAX_VALUE, BreadthFirstSearch.DIAGONAL_DIRECTIONS);
+    }
+
+    private void assertSameAsSequential(int maxBranch, BlockVector3[] directions) throws Exception {
+        Settings.settings().QUEUE.RECURSIVE_PARALLEL_THRESHOLD = -1;
+        TestSearch sequential = search(maxBranch, directions);
+        assertEquals(0, sequential.concurrentVisits.get());
+
+        Settings.settings().QUEUE.RECURSIVE_PARALLEL_THRESHOLD = 1;
+        TestSearch concurrent = search(maxBranch, directions);
+        assertTrue(concurrent.concurrentVisits.get() > 0, "expected layers to be tested concurrently");
+
+        assertTrue(sequential.applied.size() > 1000, "expected a search spanning several chunks");
+        // The function must be applied to the same positions in the same order
+        assertEquals(sequential.applied, concurrent.applied);
+        assertEquals(sequential.getAffected(), concurrent.getAffected());
+        assertEquals(toSet(sequential), toSet(concurrent));
+    }
+
+    private TestSearch search(int maxBranch, BlockVector3[] directions) throws Exception {
+        TestSearch search = new TestSearch(new ArrayList<>());
+        search.setDirections(directions);
+        search.setMaxBranch(maxBranch);
+        search.visit(BlockVector3.ZERO);
+        search.resume(null);
+        return search;
+    }
+
+    private static Set<BlockVector3> toSet(BreadthFirstSearch search) {
+        Set<BlockVector3> set = new HashSet<>();
+        for (BlockVector3 pos : search.getVisited()) {
+            set.add(pos.toImmutable());
+        }
+        return set;
+    }
+
+    /**
+     * Positions within a box around the origin are visitable unless a hash of their coordinates says otherwise, which gives a
+     * cave-like structure crossing chunk boundaries.
+     */
+    private static boolean isOpen(int x, int y, int z) {
+        if (Math.abs(x) > RADIUS || Math.abs(z) > RADIUS || y < 0 || y > 24) {
+            return false;
+        }
+        int hash = x * 73856093 ^ y * 19349663 ^ z * 83492791;
+        hash ^= hash >>> 13;
+        hash *= 0x5bd1e995;
+        return (hash >>> 28) > 4;
+    }
+
+    private final class TestSearch extends BreadthFirstSearch {
+
+        private final List<BlockVector3> applied;
+        private final AtomicInteger concurrentVisits = new AtomicInteger();
+        private final ThreadLocal<Boolean> worker = ThreadLocal.withInitial(() -> false);
+
+        private TestSearch(List<BlockVector3> applied) {
+            super(position -> applied.add(position.toImmutable()), Integer.MAX_VALUE, -64, 319);
+            this.applied = applied;
+        }
+
+        @Override
+        protected boolean isVisitable(BlockVector3 from, BlockVector3 to) {
+            if (worker.get()) {
+                concurrentVisits.incrementAndGet();
+            }
+            return isOpen(to.x(), to.y(), to.z());
+        }
+
+        @Override
+        protected boolean isConcurrentVisitable() {
+            return true;
+        }
+
+        @Override
+        protected void enterConcurrentVisits() {
+            worker.set(true);
+        }
+
+        @Override
+        protected void exitConcurrentVisits() {
+            worker.remove();
+        }
+
+        @Override
+        ExecutorService getConcurrentVisitPool() {
+            return pool;
+        }
+
+    }
+
+}
@@ -36,6 +36,7 @@
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+import static org.mockito.Mockito.mock;
 
 class ExpressionTest extends BaseExpressionTest {
 
@@ -449,6 +450,28 @@ public void testTimeout() {
         assertTrue(e.getMessage().contains("Calculations exceeded time limit"));
     }
 
+    @Test
+    public void testConstantFolding() {
+        checkTestCase("-(2 * 3) + sqrt(16) - 3!", -8);
+        checkTestCase("x = 1; false && (x = 2); x", 1);
+        checkTestCase("x = 1; true || (x = 2); x", 1);
+        checkTestCase("x = 1; if (1 > 2) x = 5; else x = 3; x", 3);
+        checkTestCase("x = 1; while (0) x = 2; x", 1);
+    }
+
+    @Test
+    public void testClone() throws ExpressionException {
+        Expression expression = compile("a = megabuf(0) + x; megabuf(0, a)", "x");
+        expression.setEnvironment(mock(ExpressionEnvironment.class));
+        assertEquals(1, expression.evaluate(1D), 0);
+
+        Expression clone = expression.clone();
+        assertEquals(5, clone.evaluate(5D), 0);
+        assertEquals(2, expression.evaluate(1D), 0);
+        assertEquals(2, expression.getSlots().getSlotValue("a").orElse(-1), 0);
+        assertEquals(5, clone.getSlots().getSlotValue("a").orElse(-1), 0);
+    }
+
     @Test
     public void testRound() {
         checkTestCase("round(1.3)", 1);